@@ -0,0 +1,258 @@
+package cr.ac.una.proyectoparadigmas.benchmark;
+
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Prueba de carga HTTP de la aplicación completa (Tomcat + Spring MVC + PersonaAspect + H2)
+ * para comparar modos de ejecución de las peticiones. No es un benchmark JMH: mide de
+ * punta a punta, con la aplicación en otro proceso.
+
+ * Por cada modo arranca ProyectoParadigmasApplication con el mismo classpath, H2 en memoria
+ * y un puerto libre, crea unas personas y, por cada nivel de concurrencia, mantiene N
+ * clientes en lazo cerrado (cada uno manda la siguiente petición al recibir la respuesta):
+ * un calentamiento y después la medición. Mezcla de peticiones:
+ * 80 % GET /api/persona/{id}, 10 % POST /api/persona y 10 % GET /api/logs/reportes/estado
+ * de la última hora (sale de CacheReportes casi siempre).
+
+ * Modos:
+ * - plataforma: hilos de Tomcat por defecto (200).
+ * - plataforma-max: server.tomcat.threads.max igual a la mayor concurrencia pedida.
+ * - virtual: spring.threads.virtual.enabled=true. Necesita Java 21+ para la aplicación
+ *   (java=/ruta/jdk-21/bin/java); con Java 17 el modo se omite. Se arranca con
+ *   -Djdk.tracePinnedThreads=short y se informa cuántas veces se fijó un hilo portador.
+ * En todos los modos Tomcat acepta hasta 20000 conexiones, así que la diferencia es solo
+ * cómo se ejecuta cada petición.
+
+ * Uso (perfil jmh):
+ *   mvn -Pjmh -DskipTests compile exec:exec@carga -Dcarga.args="modos=plataforma,virtual clientes=1000,5000,10000 java=/ruta/jdk-21/bin/java"
+ * Parámetros (clave=valor): modos, clientes, calentamiento y duracion (segundos), personas, java.
+ * La salida de cada aplicación queda en target/carga-{modo}.log.
+ */
+public class CargaHttp {
+
+    private static final long MAX_MICROS = 60_000_000; // 60 s
+
+    private final HttpClient http;
+    private final ExecutorService callbacks;
+    private final int personas;
+
+    private URI base;
+    private volatile boolean corriendo;
+    private volatile boolean midiendo;
+    private volatile HistogramaLatencias latencias;
+    private final LongAdder completadas = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+
+    /** Resultado de un modo con una cantidad de clientes. */
+    private record Resultado(String modo, int clientes, double porSegundo, double p50Ms, double p99Ms, long errores) {}
+
+    private CargaHttp(int personas) {
+        this.personas = personas;
+        this.callbacks = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        this.http = HttpClient.newBuilder()
+                .executor(callbacks)
+                .connectTimeout(Duration.ofSeconds(30))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parametros = new HashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (igual > 0) parametros.put(arg.substring(0, igual).trim(), arg.substring(igual + 1).trim());
+        }
+        List<String> modos = Arrays.asList(parametros.getOrDefault("modos", "plataforma,plataforma-max,virtual").split(","));
+        int[] clientes = Arrays.stream(parametros.getOrDefault("clientes", "1000,5000,10000").split(","))
+                .mapToInt(c -> Integer.parseInt(c.trim())).toArray();
+        int calentamiento = Integer.parseInt(parametros.getOrDefault("calentamiento", "10"));
+        int duracion = Integer.parseInt(parametros.getOrDefault("duracion", "30"));
+        String java = parametros.getOrDefault("java", Path.of(System.getProperty("java.home"), "bin", "java").toString());
+
+        CargaHttp carga = new CargaHttp(Integer.parseInt(parametros.getOrDefault("personas", "200")));
+        List<Resultado> resultados = new ArrayList<>();
+        try {
+            for (String modo : modos) {
+                modo = modo.trim();
+                if (modo.equals("virtual") && !parametros.containsKey("java") && Runtime.version().feature() < 21) {
+                    System.out.println("virtual: omitido, los hilos virtuales necesitan Java 21+ (java=/ruta/jdk-21/bin/java)");
+                    continue;
+                }
+                resultados.addAll(carga.probarModo(modo, java, clientes, calentamiento, duracion));
+            }
+        } finally {
+            carga.callbacks.shutdownNow();
+        }
+
+        System.out.printf("%n%-16s %9s %14s %9s %9s %9s%n", "modo", "clientes", "peticiones/s", "p50 ms", "p99 ms", "errores");
+        for (Resultado r : resultados) {
+            System.out.printf("%-16s %9d %14.1f %9.2f %9.2f %9d%n",
+                    r.modo(), r.clientes(), r.porSegundo(), r.p50Ms(), r.p99Ms(), r.errores());
+        }
+    }
+
+    // ========= Aplicación en otro proceso =========
+
+    private List<Resultado> probarModo(String modo, String java, int[] clientes, int calentamiento, int duracion)
+            throws Exception {
+        int puerto;
+        try (ServerSocket libre = new ServerSocket(0)) {
+            puerto = libre.getLocalPort();
+        }
+        base = URI.create("http://localhost:" + puerto);
+
+        List<String> comando = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path")));
+        if (modo.equals("virtual")) comando.add("-Djdk.tracePinnedThreads=short");
+        comando.addAll(List.of("cr.ac.una.proyectoparadigmas.ProyectoParadigmasApplication",
+                "--server.port=" + puerto,
+                "--spring.datasource.url=jdbc:h2:mem:carga;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--logging.level.cr.ac.una.proyectoparadigmas=WARN",
+                "--server.tomcat.max-connections=20000",
+                "--server.tomcat.accept-count=10000"));
+        switch (modo) {
+            case "plataforma" -> { }
+            case "plataforma-max" -> comando.add("--server.tomcat.threads.max=" + Arrays.stream(clientes).max().orElse(200));
+            case "virtual" -> comando.add("--spring.threads.virtual.enabled=true");
+            default -> throw new IllegalArgumentException("Modo desconocido: " + modo + " (plataforma, plataforma-max, virtual)");
+        }
+
+        Path salida = Path.of("target", "carga-" + modo + ".log");
+        Files.createDirectories(salida.getParent());
+        Process aplicacion = new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(salida.toFile())
+                .start();
+        List<Resultado> resultados = new ArrayList<>();
+        try {
+            esperarInicio(aplicacion);
+            crearPersonas();
+            for (int n : clientes) {
+                System.out.printf("%s: %d clientes...%n", modo, n);
+                resultados.add(medir(modo, n, calentamiento, duracion));
+            }
+        } finally {
+            aplicacion.destroy();
+            if (!aplicacion.waitFor(30, TimeUnit.SECONDS)) aplicacion.destroyForcibly();
+        }
+        if (modo.equals("virtual")) {
+            try (Stream<String> lineas = Files.lines(salida)) {
+                System.out.println("virtual: hilos portadores fijados (jdk.tracePinnedThreads): "
+                        + lineas.filter(l -> l.contains("<== monitors")).count() + " (detalle en " + salida + ")");
+            }
+        }
+        return resultados;
+    }
+
+    private void esperarInicio(Process aplicacion) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+        while (System.nanoTime() < limite) {
+            if (!aplicacion.isAlive()) throw new IllegalStateException("La aplicación terminó al iniciar; ver target/carga-*.log");
+            try {
+                HttpResponse<Void> respuesta = http.send(get("/api/persona"), HttpResponse.BodyHandlers.discarding());
+                if (respuesta.statusCode() == 200) return;
+            } catch (IOException e) {
+                // todavía no escucha
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("La aplicación no respondió en 120 s");
+    }
+
+    private void crearPersonas() throws IOException, InterruptedException {
+        for (int i = 0; i < personas; i++) {
+            http.send(nuevaPersona(i), HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    // ========= Clientes en lazo cerrado =========
+
+    private Resultado medir(String modo, int clientes, int calentamiento, int duracion) throws InterruptedException {
+        latencias = new HistogramaLatencias(2, MAX_MICROS);
+        midiendo = false;
+        corriendo = true;
+        CountDownLatch terminados = new CountDownLatch(clientes);
+        for (int i = 0; i < clientes; i++) siguiente(terminados);
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(calentamiento));
+        latencias = new HistogramaLatencias(2, MAX_MICROS);
+        completadas.reset();
+        errores.reset();
+        midiendo = true;
+        long inicio = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(duracion));
+        midiendo = false;
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        long hechas = completadas.sum();
+        long fallidas = errores.sum();
+        HistogramaLatencias medidas = latencias;
+
+        corriendo = false;
+        terminados.await(60, TimeUnit.SECONDS); // que terminen las peticiones en vuelo antes del siguiente nivel
+        return new Resultado(modo, clientes, hechas / segundos,
+                medidas.percentil(0.50) / 1000, medidas.percentil(0.99) / 1000, fallidas);
+    }
+
+    private void siguiente(CountDownLatch terminados) {
+        if (!corriendo) {
+            terminados.countDown();
+            return;
+        }
+        HttpRequest peticion = peticionAleatoria();
+        long inicio = System.nanoTime();
+        http.sendAsync(peticion, HttpResponse.BodyHandlers.discarding()).whenComplete((respuesta, error) -> {
+            if (midiendo) {
+                if (error != null || respuesta.statusCode() >= 500) {
+                    errores.increment();
+                } else {
+                    latencias.registrar((System.nanoTime() - inicio) / 1000);
+                    completadas.increment();
+                }
+            }
+            siguiente(terminados);
+        });
+    }
+
+    private HttpRequest peticionAleatoria() {
+        int tipo = ThreadLocalRandom.current().nextInt(10);
+        if (tipo == 0) return nuevaPersona(ThreadLocalRandom.current().nextInt(1_000_000));
+        if (tipo == 1) return get("/api/logs/reportes/estado?from=" + LocalDateTime.now().withSecond(0).withNano(0).minusHours(1));
+        return get("/api/persona/" + (1 + ThreadLocalRandom.current().nextInt(personas)));
+    }
+
+    private HttpRequest get(String ruta) {
+        return HttpRequest.newBuilder(base.resolve(ruta)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private HttpRequest nuevaPersona(int i) {
+        return HttpRequest.newBuilder(base.resolve("/api/persona"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"nombre\":\"Carga" + i + "\",\"apellido\":\"Prueba\"}"))
+                .build();
+    }
+}
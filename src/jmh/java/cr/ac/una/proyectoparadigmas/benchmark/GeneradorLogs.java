@@ -0,0 +1,86 @@
+package cr.ac.una.proyectoparadigmas.benchmark;
+
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Genera LogEntry sintéticos con una distribución parecida a la real:
+ * - endpoints con sesgo Zipf (unos pocos concentran la mayoría del tráfico),
+ * - ~90 % de 2xx, algunos 4xx y pocos 5xx (nivel ERROR solo en 5xx),
+ * - tiempos de respuesta log-normales con cola larga,
+ * - timestamps repartidos en las últimas 24 h (dentro del horizonte en memoria).
+ * Con la misma semilla siempre produce los mismos datos.
+ */
+public final class GeneradorLogs {
+
+    private static final int ENDPOINTS = 50;
+    private static final String[] METODOS = {"GET", "GET", "GET", "GET", "POST", "POST", "PUT", "DELETE"};
+
+    private final SplittableRandom random;
+    private final double[] acumuladoZipf = new double[ENDPOINTS];
+    private final LocalDateTime inicio = LocalDateTime.now().minusHours(24);
+
+    public GeneradorLogs(long semilla) {
+        this.random = new SplittableRandom(semilla);
+        double suma = 0;
+        for (int k = 0; k < ENDPOINTS; k++) {
+            suma += 1.0 / Math.pow(k + 1, 1.1);
+            acumuladoZipf[k] = suma;
+        }
+        for (int k = 0; k < ENDPOINTS; k++) {
+            acumuladoZipf[k] /= suma;
+        }
+    }
+
+    public List<LogEntry> generar(int cantidad) {
+        List<LogEntry> logs = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            logs.add(siguiente());
+        }
+        return logs;
+    }
+
+    public LogEntry siguiente() {
+        int status = status();
+        LogEntry log = new LogEntry();
+        log.setTimestamp(inicio.plusSeconds(random.nextInt(86_400)));
+        log.setNivel(status >= 500 ? "ERROR" : status >= 400 ? "WARN" : "INFO");
+        log.setMensaje("Ejecutado");
+        log.setEndpoint(endpoint());
+        log.setMetodoHttp(METODOS[random.nextInt(METODOS.length)]);
+        log.setStatusCode(status);
+        log.setTiempoRespuesta(Math.round(Math.exp(3.5 + 1.1 * gaussiana())));
+        return log;
+    }
+
+    private String endpoint() {
+        double u = random.nextDouble();
+        for (int k = 0; k < ENDPOINTS; k++) {
+            if (u <= acumuladoZipf[k]) return k == 0 ? "/api/persona" : "/api/recurso" + k;
+        }
+        return "/api/recurso" + (ENDPOINTS - 1);
+    }
+
+    private int status() {
+        int p = random.nextInt(1000);
+        if (p < 880) return 200;
+        if (p < 910) return 201;
+        if (p < 920) return 204;
+        if (p < 950) return 404;
+        if (p < 970) return 400;
+        if (p < 980) return 401;
+        if (p < 992) return 500;
+        return 503;
+    }
+
+    private double gaussiana() {
+        // Box-Muller (SplittableRandom no trae nextGaussian en Java 17)
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+}
@@ -0,0 +1,65 @@
+package cr.ac.una.proyectoparadigmas.benchmark;
+
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.service.AnalizadorLineasLog;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Velocidad de AnalizadorLineasLog sobre un bloque de app.log sintético (sin la BD).
+
+ * El bloque mezcla líneas de PersonaAspect (tiempos y errores) con líneas que se
+ * descartan, en la proporción de un app.log real. Cada operación analiza el bloque
+ * completo: MB/s = tamanoMb / (ms por operación / 1000).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogImporterBenchmark {
+
+    @Param({"64"})
+    public int tamanoMb;
+
+    private ByteBuffer bloque;
+    private AnalizadorLineasLog analizador;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        GeneradorLogs generador = new GeneradorLogs(42);
+        DateTimeFormatter formato = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSxxx");
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(tamanoMb << 20);
+        int i = 0;
+        while (salida.size() < tamanoMb << 20) {
+            LogEntry log = generador.siguiente();
+            String fecha = log.getTimestamp().atZone(ZoneId.systemDefault()).format(formato);
+            String prefijo = fecha + (log.getStatusCode() >= 500 ? "  WARN" : "  INFO")
+                    + " 17584 --- [proyecto-paradigmas] [http-nio-8080-exec-" + (i++ % 10)
+                    + "] c.a.u.p.aspect.PersonaAspect             : ";
+            String linea = log.getStatusCode() >= 500
+                    ? "ERROR (" + log.getMetodoHttp() + " " + log.getEndpoint() + ") status=" + log.getStatusCode()
+                      + " en " + log.getTiempoRespuesta() + " ms"
+                    : "Tiempo de respuesta (findById): " + log.getTiempoRespuesta() + " ms ["
+                      + log.getMetodoHttp() + " " + log.getEndpoint() + " " + log.getStatusCode() + "]";
+            salida.writeBytes((prefijo + "Antes de ejecutar savePersona()\n").getBytes(StandardCharsets.UTF_8));
+            salida.writeBytes((prefijo + linea + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        bloque = ByteBuffer.wrap(salida.toByteArray());
+        analizador = new AnalizadorLineasLog(Map.of(), ZoneId.systemDefault());
+    }
+
+    @Benchmark
+    public long analizar(Blackhole bh) {
+        return analizador.analizar(bloque, 0, bloque.limit(), bh::consume);
+    }
+}
@@ -0,0 +1,173 @@
+package cr.ac.una.proyectoparadigmas.benchmark;
+
+import cr.ac.una.proyectoparadigmas.dto.ReporteDashboard;
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.service.AgregadoLogs;
+import cr.ac.una.proyectoparadigmas.service.AgregadorParalelo;
+import cr.ac.una.proyectoparadigmas.service.LogAggregateStore;
+import cr.ac.una.proyectoparadigmas.service.LogColumnarStore;
+import cr.ac.una.proyectoparadigmas.service.LogService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de cada reporte de LogService en modo memoria con 10K / 1M / 10M registros.
+
+ * Los reportes sobre todo el histórico leen los agregados del LogAggregateStore;
+ * "ultimaHora" combina los minutos del buffer circular; "agregacion*" mide el recorrido
+ * completo de los registros (lo que hace el dashboard cuando la ventana está fuera de
+ * memoria), secuencial y con AgregadorParalelo; "dashboardColumnar" responde las últimas
+ * 12 h (la mitad de los registros) desde LogColumnarStore. eventosCriticos no se incluye porque
+ * siempre consulta la BD.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx6g"})
+public class LogServiceBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int filas;
+
+    private List<LogEntry> logs;
+    private LogAggregateStore store;
+    private AgregadorParalelo agregador;
+    private LogService logService;
+    private LogService logServiceColumnar;
+    private Ventana mitadDelDia;
+    private Ventana ultimaHora;
+    private AgregadoLogs agregadoVivo;
+    private int siguiente;
+    private final Set<ReporteDashboard.Seccion> todas = EnumSet.allOf(ReporteDashboard.Seccion.class);
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        logs = new GeneradorLogs(42).generar(filas);
+        store = new LogAggregateStore(null, 2, 3_600_000, 2880, 1, 128);
+        logs.forEach(store::registrar);
+        agregador = new AgregadorParalelo(0, 50_000);
+        logService = new LogService(null, store, null, null, "memoria", 1000, 48, 1000, 500, 3, "aproximado");
+        LogColumnarStore columnar = new LogColumnarStore(null, agregador, store, null, null, "columnar", Long.MAX_VALUE, 10_000);
+        logs.forEach(columnar::anexar);
+        logServiceColumnar = new LogService(null, store, null, columnar, "columnar", 1000, 48, 1000, 500, 3, "aproximado");
+        mitadDelDia = new Ventana(LocalDateTime.now().minusHours(12), null, null);
+        ultimaHora = new Ventana(LocalDateTime.now().minusHours(1), null, null);
+        agregadoVivo = new AgregadoLogs(store::nuevoHistograma);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        agregador.cerrar();
+    }
+
+    // ========= Reportes =========
+
+    @Benchmark
+    public Object erroresPorCodigo() {
+        return logService.erroresPorCodigo(Ventana.TODO);
+    }
+
+    @Benchmark
+    public Object top3Errores() {
+        return logService.top3Errores(Ventana.TODO);
+    }
+
+    @Benchmark
+    public Object horasPicoErrores() {
+        return logService.horasPicoErrores(Ventana.TODO);
+    }
+
+    @Benchmark
+    public Object estadisticasTiempos() {
+        return logService.estadisticasTiempos(Ventana.TODO);
+    }
+
+    @Benchmark
+    public Object distribucionTiemposPorEndpoint() {
+        return logService.distribucionTiemposPorEndpoint(Ventana.TODO);
+    }
+
+    @Benchmark
+    public Object percentilesTiempos() {
+        return logService.percentilesTiempos(Ventana.TODO);
+    }
+
+    @Benchmark
+    public Object usoPorEndpoint() {
+        return logService.usoPorEndpoint(Ventana.TODO);
+    }
+
+    @Benchmark
+    public Object usoPorMetodoHttp() {
+        return logService.usoPorMetodoHttp(Ventana.TODO);
+    }
+
+    @Benchmark
+    public long cantidadEventosCriticos() {
+        return logService.cantidadEventosCriticos(Ventana.TODO);
+    }
+
+    @Benchmark
+    public Object estadoAplicacion() {
+        return logService.estadoAplicacion(Ventana.TODO);
+    }
+
+    @Benchmark
+    public Object topYLeastEndpoints() {
+        return logService.topYLeastEndpoints(Ventana.TODO);
+    }
+
+    @Benchmark
+    public Object topYLeastEndpointsExacto() {
+        return logService.topYLeastEndpoints(Ventana.TODO, 3, "exacto");
+    }
+
+    @Benchmark
+    public Object dashboard() {
+        return logService.dashboard(Ventana.TODO, todas);
+    }
+
+    @Benchmark
+    public Object horasPicoErroresUltimaHora() {
+        return logService.horasPicoErrores(ultimaHora);
+    }
+
+    @Benchmark
+    public Object dashboardUltimaHora() {
+        return logService.dashboard(ultimaHora, todas);
+    }
+
+    @Benchmark
+    public Object dashboardColumnar() {
+        return logServiceColumnar.dashboard(mitadDelDia, todas);
+    }
+
+    // ========= Camino caliente =========
+
+    /** Un registro en un agregado (lo que hace cada petición); con -prof gc muestra las asignaciones por llamada. */
+    @Benchmark
+    public AgregadoLogs registrarEnAgregado() {
+        agregadoVivo.registrar(logs.get(siguiente++ % logs.size()));
+        return agregadoVivo;
+    }
+
+    // ========= Recorrido completo =========
+
+    @Benchmark
+    public AgregadoLogs agregacionSecuencial() {
+        return logs.stream().collect(AgregadoLogs.recolector(store::nuevoHistograma));
+    }
+
+    @Benchmark
+    public AgregadoLogs agregacionParalela() {
+        return agregador.agregar(logs, store::nuevoHistograma);
+    }
+}
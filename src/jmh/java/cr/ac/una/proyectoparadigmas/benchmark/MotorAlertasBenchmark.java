@@ -0,0 +1,65 @@
+package cr.ac.una.proyectoparadigmas.benchmark;
+
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.service.LogAggregateStore;
+import cr.ac.una.proyectoparadigmas.service.MotorAlertas;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registros por segundo que procesa MotorAlertas.registrar en un solo hilo, con las dos
+ * reglas de ejemplo (tasa de 5xx en 1 min y p95 en 5 min sobre /api/persona) más
+ * {@code reglasExtra} reglas de tasa sobre otros prefijos. Los registros se arman antes
+ * (mezcla de endpoints, 3 % de 500) para medir solo las ventanas; el evaluador no corre.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MotorAlertasBenchmark {
+
+    @Param({"0", "8"})
+    public int reglasExtra;
+
+    private MotorAlertas motor;
+    private LogEntry[] logs;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        StringBuilder reglas = new StringBuilder("persona-5xx=tasa-5xx>0.05/1m@/api/persona;persona-p95=p95>500/5m@/api/persona");
+        for (int i = 0; i < reglasExtra; i++) reglas.append(";extra-").append(i).append("=tasa-criticos>0.01/1m@/api/otro").append(i);
+        motor = new MotorAlertas(new LogAggregateStore(null, 2, 3_600_000, 60, 1, 128), null, reglas.toString(), 60, 20, 100, 0);
+
+        String[] endpoints = {"/api/persona", "/api/persona/1", "/api/persona/42", "/api/logs/reportes/estado"};
+        LocalDateTime ahora = LocalDateTime.now();
+        logs = new LogEntry[1 << 16];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < logs.length; i++) {
+            LogEntry log = new LogEntry();
+            int status = random.nextInt(100) < 3 ? 500 : 200;
+            log.setTimestamp(ahora.plusNanos(i * 1_000L)); // todo dentro de la ranura actual, como el tráfico en vivo
+            log.setNivel(status == 500 ? "ERROR" : "INFO");
+            log.setEndpoint(endpoints[random.nextInt(endpoints.length)]);
+            log.setMetodoHttp("GET");
+            log.setStatusCode(status);
+            log.setTiempoRespuesta(1 + random.nextInt(800));
+            logs[i] = log;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        motor.cerrar();
+    }
+
+    @Benchmark
+    public void registrar() {
+        motor.registrar(logs[siguiente++ & (logs.length - 1)]);
+    }
+}
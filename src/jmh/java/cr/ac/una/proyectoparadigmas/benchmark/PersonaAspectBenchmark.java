@@ -0,0 +1,140 @@
+package cr.ac.una.proyectoparadigmas.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import cr.ac.una.proyectoparadigmas.aspect.PersonaAspect;
+import cr.ac.una.proyectoparadigmas.controller.PersonaController;
+import cr.ac.una.proyectoparadigmas.entity.Persona;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import cr.ac.una.proyectoparadigmas.repository.PersonaRepository;
+import cr.ac.una.proyectoparadigmas.service.AgregadorParalelo;
+import cr.ac.una.proyectoparadigmas.service.AlmacenLogsJpa;
+import cr.ac.una.proyectoparadigmas.service.AlmacenLogsSegmentos;
+import cr.ac.una.proyectoparadigmas.service.CachePersonas;
+import cr.ac.una.proyectoparadigmas.service.LogAggregateStore;
+import cr.ac.una.proyectoparadigmas.service.LogWriter;
+import cr.ac.una.proyectoparadigmas.service.MuestreoLogs;
+import cr.ac.una.proyectoparadigmas.service.RutasLogs;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Sobrecosto por llamada de PersonaAspect.logAround sobre PersonaController.findById.
+
+ * "directo" llama al controlador sin proxy y "conAspecto" a través de un proxy AOP con
+ * PersonaAspect, cuyo LogWriter escribe de verdad en una H2 en memoria en segundo
+ * plano. La diferencia entre ambos es el costo del aspecto (medición, armado del
+ * LogEntry, encolado, agregados en memoria y RegistroMetricas). "conAspectoSegmentos" usa
+ * AlmacenLogsSegmentos en un directorio temporal en lugar de LogWriter (escritura directa
+ * al mapeo). El repositorio es un stub sin BD para que no domine la medición, y los
+ * logger.info de consola se silencian.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonaAspectBenchmark {
+
+    private PersonaController directo;
+    private PersonaController conAspecto;
+    private PersonaController conAspectoSegmentos;
+    private LogWriter logWriter;
+    private AgregadorParalelo agregador;
+    private AlmacenLogsSegmentos segmentos;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        Logger.getLogger("cr.ac.una.proyectoparadigmas").setLevel(java.util.logging.Level.WARNING);
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists log_entry (id bigint auto_increment primary key, " +
+                "timestamp timestamp, nivel varchar(255), mensaje varchar(255), endpoint varchar(255), " +
+                "metodo_http varchar(255), status_code int, tiempo_respuesta bigint, uri varchar(255), ruta_id int, peso int default 1 not null)");
+
+        LogAggregateStore store = new LogAggregateStore(null, 2, 3_600_000, 2880, 1, 128);
+        RegistroMetricas metricas = new RegistroMetricas(2);
+        logWriter = new LogWriter(store, jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                new ObjectMapper().registerModule(new JavaTimeModule()), metricas,
+                10_000, 500, 200, 30_000, "descartar",
+                Files.createTempDirectory("bench-spill").toString());
+        logWriter.start();
+
+        directo = new PersonaController();
+        Field repositorio = ReflectionUtils.findField(PersonaController.class, "personaRepository");
+        ReflectionUtils.makeAccessible(repositorio);
+        ReflectionUtils.setField(repositorio, directo, repositorioStub());
+        Field cache = ReflectionUtils.findField(PersonaController.class, "cachePersonas");
+        ReflectionUtils.makeAccessible(cache);
+        ReflectionUtils.setField(cache, directo, new CachePersonas(null, false, 0, 0)); // siempre al stub
+
+        RutasLogs rutas = new RutasLogs(null, List::of, null, 1000); // sin petición HTTP: "(desconocido)"
+        MuestreoLogs muestreo = new MuestreoLogs(null, true, 500, 100, 1000); // como en application.properties
+
+        AspectJProxyFactory fabrica = new AspectJProxyFactory(directo);
+        fabrica.setProxyTargetClass(true);
+        fabrica.addAspect(new PersonaAspect(new AlmacenLogsJpa(logWriter, null, null, null, null, null), metricas, rutas, muestreo));
+        conAspecto = fabrica.getProxy();
+
+        agregador = new AgregadorParalelo(1, 50_000);
+        segmentos = new AlmacenLogsSegmentos(new LogAggregateStore(null, 2, 3_600_000, 2880, 1, 128), agregador,
+                metricas, Files.createTempDirectory("bench-segmentos").toString(), 1 << 20, 1000);
+        AspectJProxyFactory fabricaSegmentos = new AspectJProxyFactory(directo);
+        fabricaSegmentos.setProxyTargetClass(true);
+        fabricaSegmentos.addAspect(new PersonaAspect(segmentos, metricas, rutas, muestreo));
+        conAspectoSegmentos = fabricaSegmentos.getProxy();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        logWriter.stop();
+        segmentos.cerrar();
+        agregador.cerrar();
+    }
+
+    @Benchmark
+    public Object directo() {
+        return directo.findById(1L);
+    }
+
+    @Benchmark
+    public Object conAspecto() {
+        return conAspecto.findById(1L);
+    }
+
+    @Benchmark
+    public Object conAspectoSegmentos() {
+        return conAspectoSegmentos.findById(1L);
+    }
+
+    /** PersonaRepository que responde siempre con la misma persona, sin base de datos. */
+    private static PersonaRepository repositorioStub() {
+        Persona persona = new Persona();
+        persona.setId(1L);
+        persona.setNombre("Ana");
+        return (PersonaRepository) Proxy.newProxyInstance(
+                PersonaRepository.class.getClassLoader(),
+                new Class<?>[]{PersonaRepository.class},
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "findById" -> Optional.of(persona);
+                    case "findAll" -> List.of(persona);
+                    case "existsById" -> true;
+                    case "save" -> args[0];
+                    default -> null;
+                });
+    }
+}
@@ -0,0 +1,97 @@
+package cr.ac.una.proyectoparadigmas.benchmark;
+
+import cr.ac.una.proyectoparadigmas.ProyectoParadigmasApplication;
+import cr.ac.una.proyectoparadigmas.entity.Persona;
+import cr.ac.una.proyectoparadigmas.repository.PersonaRepository;
+import cr.ac.una.proyectoparadigmas.service.LotesPersona;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Personas por segundo al dar de alta y modificar PERSONAS personas: una por una como lo
+ * hacen POST/PUT /api/persona (save en su propia transacción; el PUT con findById antes)
+ * contra LotesPersona, que usa los ids reservados de persona_seq y lotes JDBC.
+ * Arranca la aplicación sobre H2 en memoria y llama a los beans directamente: no cuenta HTTP
+ * ni JSON, y la BD está en el mismo proceso (contra MySQL por red cada viaje ahorrado pesa más).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonaLotesBenchmark {
+
+    private static final int PERSONAS = 1000;
+
+    private ConfigurableApplicationContext contexto;
+    private PersonaRepository repository;
+    private LotesPersona lotes;
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = SpringApplication.run(ProyectoParadigmasApplication.class,
+                "--server.port=0", // el contexto web hace falta (LogImporter), pero no se le hacen peticiones
+                "--spring.datasource.url=jdbc:h2:mem:lotes;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--logging.level.root=WARN",
+                "--logs.retencion.habilitada=false");
+        repository = contexto.getBean(PersonaRepository.class);
+        lotes = contexto.getBean(LotesPersona.class);
+        ids = lotes.crear(personas(null)).items().stream().map(i -> i.id()).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PERSONAS)
+    public void crearIndividual() {
+        for (Persona persona : personas(null)) repository.save(persona);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PERSONAS)
+    public Object crearLote() {
+        return lotes.crear(personas(null));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PERSONAS)
+    public void actualizarIndividual() {
+        for (Persona persona : personas(ids)) {
+            repository.findById(persona.getId()).ifPresent(existente -> {
+                existente.setNombre(persona.getNombre());
+                repository.save(existente);
+            });
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PERSONAS)
+    public Object actualizarLote() {
+        return lotes.actualizar(personas(ids));
+    }
+
+    private static List<Persona> personas(List<Long> ids) {
+        List<Persona> personas = new ArrayList<>(PERSONAS);
+        long marca = System.nanoTime();
+        for (int i = 0; i < PERSONAS; i++) {
+            Persona persona = new Persona();
+            persona.setId(ids != null ? ids.get(i) : null);
+            persona.setNombre("Nombre " + i + " " + marca);
+            persona.setApellido("Apellido " + i);
+            personas.add(persona);
+        }
+        return personas;
+    }
+}
@@ -1,7 +1,10 @@
 package cr.ac.una.proyectoparadigmas.aspect;
 
 import cr.ac.una.proyectoparadigmas.entity.LogEntry;
-import cr.ac.una.proyectoparadigmas.repository.LogRepository;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import cr.ac.una.proyectoparadigmas.service.AlmacenLogs;
+import cr.ac.una.proyectoparadigmas.service.MuestreoLogs;
+import cr.ac.una.proyectoparadigmas.service.RutasLogs;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.After;
 import org.aspectj.lang.annotation.Around;
@@ -11,6 +14,7 @@ import org.springframework.stereotype.Component;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.time.LocalDateTime;
@@ -21,18 +25,30 @@ import java.util.logging.Logger;
 
  * Este aspecto:
  * - Registra mensajes en consola (logger.info).
- * - Guarda en base de datos un LogEntry por cada petición realizada.
- * - Mide el tiempo de respuesta real usando @Around.
+ * - Guarda un LogEntry por cada petición realizada en AlmacenLogs (logs.almacen).
+ * - Actualiza los agregados en memoria (LogAggregateStore) usados por los reportes.
+ * - Mide el tiempo de respuesta real usando @Around (System.nanoTime) y lo suma al
+ *   RegistroMetricas por endpoint + método + status, sin pasar por la base de datos.
+ * - Como endpoint guarda el patrón de la ruta (/api/persona/{id}) con su código de
+ *   RutasLogs; la URI pedida va en LogEntry.uri.
+ * - Con mucha carga, de las peticiones exitosas y rápidas guarda solo una muestra con su peso
+ *   (MuestreoLogs); errores y lentas se guardan todas. RegistroMetricas cuenta todas.
  */
 
 @Aspect // Indica que esta clase es un Aspecto de AOP
 @Component // Indica que esta clase es un Componente de Spring
 public class PersonaAspect {
     private static final Logger logger = Logger.getLogger(PersonaAspect.class.getName());
-    private final LogRepository logRepository;
-
-    public PersonaAspect(LogRepository logRepository) {
-        this.logRepository = logRepository;
+    private final AlmacenLogs almacen;
+    private final RegistroMetricas metricas;
+    private final RutasLogs rutas;
+    private final MuestreoLogs muestreo;
+
+    public PersonaAspect(AlmacenLogs almacen, RegistroMetricas metricas, RutasLogs rutas, MuestreoLogs muestreo) {
+        this.almacen = almacen;
+        this.metricas = metricas;
+        this.rutas = rutas;
+        this.muestreo = muestreo;
     }
 
     // ========= Antes de ejecutar savePersona =========
@@ -59,7 +75,7 @@ public class PersonaAspect {
     /**
      * Este metodo rodea la ejecución de cualquier metodo de PersonaController.
      * - Calcula el tiempo real de ejecución.
-     * - Guarda un LogEntry en la base de datos con toda la información.
+     * - Encola un LogEntry con toda la información para guardarlo en la base de datos.
      */
 
     private HttpServletRequest req() {
@@ -67,6 +83,12 @@ public class PersonaAspect {
         return atts != null ? atts.getRequest() : null;
     }
 
+    /** Patrón de la ruta (/api/persona/{id}) para no crear una serie por cada id; null si no hay. */
+    private static String patron(HttpServletRequest request) {
+        Object patron = request != null ? request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) : null;
+        return patron != null ? patron.toString() : null;
+    }
+
     private HttpServletResponse res() {
         ServletRequestAttributes atts = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
         return atts != null ? atts.getResponse() : null;
@@ -77,7 +99,7 @@ public class PersonaAspect {
             "!@within(org.springframework.web.bind.annotation.RestControllerAdvice)")
 
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
-        long inicio = System.currentTimeMillis();
+        long inicio = System.nanoTime();
 
         HttpServletRequest request = req();
         HttpServletResponse response = res();
@@ -88,7 +110,8 @@ public class PersonaAspect {
         try {
             Object result = joinPoint.proceed(); // Ejecuta el método original
 
-            long tiempoRespuesta = System.currentTimeMillis() - inicio;
+            long nanos = System.nanoTime() - inicio;
+            long tiempoRespuesta = nanos / 1_000_000;
             //int status = response != null ? response.getStatus() : 200;
             // NUEVO: si el método devolvió ResponseEntity, usa ese status
             int status;
@@ -106,13 +129,18 @@ public class PersonaAspect {
             log.setMetodoHttp(metodo);
             log.setStatusCode(status);
             log.setTiempoRespuesta(tiempoRespuesta);
-            logRepository.save(log);
+            rutas.normalizar(log, patron(request)); // endpoint = patrón, uri = la URI pedida
+            if (muestreo.conservar(log)) almacen.registrar(log); // no bloquea: JPA encola para LogWriter, segmentos copia al mapeo
+            metricas.registrar(log.getEndpoint(), metodo, status, nanos);
 
-            logger.info("Tiempo de respuesta (" + joinPoint.getSignature().getName() + "): " + tiempoRespuesta + " ms");
+            // LogImporter reconoce este formato al importar app.log
+            logger.info("Tiempo de respuesta (" + joinPoint.getSignature().getName() + "): " + tiempoRespuesta + " ms ["
+                    + metodo + " " + endpoint + " " + status + "]");
             return result;
 
         } catch (Throwable ex) {
-            long tiempoRespuesta = System.currentTimeMillis() - inicio;
+            long nanos = System.nanoTime() - inicio;
+            long tiempoRespuesta = nanos / 1_000_000;
             int status = (response != null && response.getStatus() >= 400) ? response.getStatus() : 500;
 
             LogEntry log = new LogEntry();
@@ -123,7 +151,9 @@ public class PersonaAspect {
             log.setMetodoHttp(metodo);
             log.setStatusCode(status);
             log.setTiempoRespuesta(tiempoRespuesta);
-            logRepository.save(log);
+            rutas.normalizar(log, patron(request)); // endpoint = patrón, uri = la URI pedida
+            if (muestreo.conservar(log)) almacen.registrar(log); // no bloquea: JPA encola para LogWriter, segmentos copia al mapeo
+            metricas.registrar(log.getEndpoint(), metodo, status, nanos);
 
             logger.warning("ERROR (" + metodo + " " + endpoint + ") status=" + status + " en " + tiempoRespuesta + " ms");
             throw ex; // importante: re-lanzar para que Spring responda con el error real
@@ -1,15 +1,18 @@
 package cr.ac.una.proyectoparadigmas.controller;
 
 import cr.ac.una.proyectoparadigmas.entity.LogEntry;
-import cr.ac.una.proyectoparadigmas.repository.LogRepository;
+import cr.ac.una.proyectoparadigmas.service.AlmacenLogs;
+import cr.ac.una.proyectoparadigmas.service.RutasLogs;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -17,17 +20,20 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
-    private final LogRepository logRepository;
+    private final AlmacenLogs almacen;
+    private final RutasLogs rutas;
 
-    public GlobalExceptionHandler(LogRepository logRepository) {
-        this.logRepository = logRepository;
+    public GlobalExceptionHandler(AlmacenLogs almacen, RutasLogs rutas) {
+        this.almacen = almacen;
+        this.rutas = rutas;
     }
 
     // === SOLO 400: se registra en DB para que aparezca en los reportes ===
     @ExceptionHandler({
             HttpMessageNotReadableException.class,        // JSON malformado
             MethodArgumentNotValidException.class,        // @Valid falló
-            MissingServletRequestParameterException.class // parámetro requerido faltante
+            MissingServletRequestParameterException.class, // parámetro requerido faltante
+            BindException.class                           // parámetro con formato inválido (p. ej. from/to)
     })
     public ResponseEntity<Map<String,Object>> handleBadRequest(Exception ex, HttpServletRequest req) {
         LogEntry log = new LogEntry();
@@ -38,7 +44,9 @@ public class GlobalExceptionHandler {
         log.setMetodoHttp(req != null ? req.getMethod() : "(desconocido)");
         log.setStatusCode(400);
         log.setTiempoRespuesta(0L); // no medimos aquí
-        logRepository.save(log);
+        Object patron = req != null ? req.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) : null;
+        rutas.normalizar(log, patron != null ? patron.toString() : null);
+        almacen.registrar(log); // no bloquea: JPA encola para LogWriter, segmentos copia al mapeo
 
         return ResponseEntity.badRequest().body(Map.of(
                 "error", "Bad Request",
@@ -1,16 +1,42 @@
 package cr.ac.una.proyectoparadigmas.controller;
 
-import cr.ac.una.proyectoparadigmas.dto.EndpointStats;
-import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cr.ac.una.proyectoparadigmas.dto.EstadoColumnar;
+import cr.ac.una.proyectoparadigmas.dto.EstadoEscritor;
+import cr.ac.una.proyectoparadigmas.dto.EstadoRetencion;
+import cr.ac.una.proyectoparadigmas.dto.ParametrosVentana;
+import cr.ac.una.proyectoparadigmas.dto.ReglaAlerta;
+import cr.ac.una.proyectoparadigmas.dto.ReporteDashboard;
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import cr.ac.una.proyectoparadigmas.service.CacheReportes;
+import cr.ac.una.proyectoparadigmas.service.LogColumnarStore;
+import cr.ac.una.proyectoparadigmas.service.LogImporter;
+import cr.ac.una.proyectoparadigmas.service.LogNdjsonImporter;
 import cr.ac.una.proyectoparadigmas.service.LogService;
+import cr.ac.una.proyectoparadigmas.service.LogWriter;
+import cr.ac.una.proyectoparadigmas.service.MotorAlertas;
+import cr.ac.una.proyectoparadigmas.service.RetencionLogs;
+import cr.ac.una.proyectoparadigmas.service.TransmisorLogs;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import cr.ac.una.proyectoparadigmas.dto.ErrorCount;
-import cr.ac.una.proyectoparadigmas.dto.EndpointsUso;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
 
 /**
      * Controlador REST para exponer los reportes de logs.
@@ -24,6 +50,20 @@ import java.util.Map;
      * - /api/logs/reportes/uso
      * - /api/logs/reportes/alertas
      * - /api/logs/reportes/estado
+     * - /api/logs/reportes/dashboard
+     * - /api/logs/ingesta/estado
+     * - /api/logs/columnar/estado
+     * - /api/logs/importacion/archivos (POST)
+     * - /api/logs/import (POST, NDJSON)
+     * - /api/logs/metrics (JSON o ?format=prometheus)
+     * - /api/logs/stream (Server-Sent Events: eventos críticos y deltas de contadores)
+     * - /api/logs/alertas y /api/logs/alertas/reglas (alertas por umbral sobre ventanas deslizantes)
+     * - /api/logs/retencion/estado y /api/logs/retencion/ejecutar (POST, purga con resúmenes)
+
+     * Todos los /reportes/* aceptan ?from=...&to=... (ISO-8601, rango [from, to)) y
+     * ?granularity=minute|hour|day para obtener el reporte partido en intervalos.
+     * Sus respuestas salen de CacheReportes y llevan ETag / Last-Modified: si el cliente
+     * manda If-None-Match o If-Modified-Since y nada cambió, recibe 304 sin cuerpo.
  */
 
 @RestController
@@ -31,74 +71,321 @@ import java.util.Map;
 public class LogController {
 
     private final LogService logService;
+    private final ObjectProvider<LogWriter> logWriter; // solo con logs.almacen=jpa
+    private final ObjectMapper objectMapper;
+    private final RegistroMetricas metricas;
+    private final LogImporter logImporter;
+    private final LogNdjsonImporter ndjsonImporter;
+    private final LogColumnarStore columnar;
+    private final CacheReportes cache;
+    private final TransmisorLogs transmisor;
+    private final MotorAlertas alertas;
+    private final RetencionLogs retencion;
 
-    public LogController(LogService logService) {
+    public LogController(LogService logService, ObjectProvider<LogWriter> logWriter, ObjectMapper objectMapper,
+                         RegistroMetricas metricas, LogImporter logImporter, LogNdjsonImporter ndjsonImporter,
+                         LogColumnarStore columnar, CacheReportes cache, TransmisorLogs transmisor,
+                         MotorAlertas alertas, RetencionLogs retencion) {
         this.logService = logService;
+        this.logWriter = logWriter;
+        this.objectMapper = objectMapper;
+        this.metricas = metricas;
+        this.logImporter = logImporter;
+        this.ndjsonImporter = ndjsonImporter;
+        this.columnar = columnar;
+        this.cache = cache;
+        this.transmisor = transmisor;
+        this.alertas = alertas;
+        this.retencion = retencion;
+    }
+
+    /**
+     * Calcula un reporte sobre la ventana pedida. Con granularity devuelve una serie
+     * { inicioIntervalo: reporte }; parámetros inválidos responden 400.
+     * El cuerpo (JSON ya serializado) se guarda en CacheReportes con la ruta y los parámetros
+     * como clave; Spring compara el ETag / Last-Modified con la petición y responde 304 si coinciden.
+     */
+    private ResponseEntity<?> reporte(ParametrosVentana parametros, Function<Ventana, ?> reporte) {
+        try {
+            Ventana ventana = parametros.ventana();
+            CacheReportes.Respuesta respuesta = cache.obtener(claveCache(), ventana,
+                    () -> ventana.granularidad() == null ? reporte.apply(ventana) : logService.serie(ventana, reporte));
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .cacheControl(CacheControl.noCache()) // el cliente puede guardarla, pero revalida con el ETag
+                    .eTag(respuesta.etag())
+                    .lastModified(respuesta.modificado())
+                    .body(respuesta.cuerpo());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Bad Request",
+                    "detail", e.getMessage()
+            ));
+        }
+    }
+
+    /** Ruta + parámetros ordenados, p. ej. /api/logs/reportes/uso/http?from=...&granularity=hour. */
+    private static String claveCache() {
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        StringBuilder clave = new StringBuilder(request.getRequestURI());
+        new TreeMap<>(request.getParameterMap()).forEach((nombre, valores) ->
+                clave.append(clave.indexOf("?") < 0 ? '?' : '&').append(nombre).append('=').append(String.join(",", valores)));
+        return clave.toString();
     }
 
     // ========= Reporte de Errores =========
     @GetMapping("/reportes/errores")
-    public ResponseEntity<Map<Integer, Long>> erroresPorTipo() {
+    public ResponseEntity<?> erroresPorTipo(ParametrosVentana parametros) {
         // Ej: { "500": 12, "404": 5 }
-        return ResponseEntity.ok(logService.erroresPorCodigo());
+        return reporte(parametros, logService::erroresPorCodigo);
     }
 
     @GetMapping("/reportes/errores/top3")
-    public ResponseEntity<List<ErrorCount>> top3Errores() {
+    public ResponseEntity<?> top3Errores(ParametrosVentana parametros) {
         // Ej: [ {"code":500,"count":12}, {"code":404,"count":5}, {"code":400,"count":3} ]
-        return ResponseEntity.ok(logService.top3Errores());
+        return reporte(parametros, logService::top3Errores);
+    }
+
+    @GetMapping("/reportes/errores/top")
+    public ResponseEntity<?> topErrores(ParametrosVentana parametros, @RequestParam(defaultValue = "3") int k) {
+        // Ej: ?k=5 -> [ {"code":500,"count":12}, {"code":404,"count":5}, ... ]
+        return reporte(parametros, v -> logService.topErrores(v, k));
     }
 
 
     @GetMapping("/reportes/errores/horas-pico")
-    public ResponseEntity<Map<Integer, Long>> horasPicoErrores() {
+    public ResponseEntity<?> horasPicoErrores(ParametrosVentana parametros) {
         // Ej: { "0": 1, "13": 7, "18": 12 }
-        return ResponseEntity.ok(logService.horasPicoErrores());
+        return reporte(parametros, logService::horasPicoErrores);
     }
 
     // ========= Reporte de Tiempos =========
     @GetMapping("/reportes/tiempos/estadisticas")
-    public ResponseEntity<Map<String, Double>> estadisticasTiempos() {
+    public ResponseEntity<?> estadisticasTiempos(ParametrosVentana parametros) {
         // Ej: { "min":10, "max":900, "promedio":140.5, "mediana":120.0 }
-        return ResponseEntity.ok(logService.estadisticasTiempos());
+        return reporte(parametros, logService::estadisticasTiempos);
     }
 
 
     @GetMapping("/reportes/tiempos/distribucion")
-    public ResponseEntity<Map<String, EndpointStats>> distribucionTiempos() {
-        return ResponseEntity.ok(logService.distribucionTiemposPorEndpoint());
+    public ResponseEntity<?> distribucionTiempos(ParametrosVentana parametros) {
+        return reporte(parametros, logService::distribucionTiemposPorEndpoint);
+    }
+
+    @GetMapping("/reportes/tiempos/percentiles")
+    public ResponseEntity<?> percentilesTiempos(ParametrosVentana parametros) {
+        // Ej: { "errorRelativo":0.0039, "global":{"cantidad":120,"p50":110.0,"p99":870.0,...}, "porEndpoint":{...} }
+        return reporte(parametros, logService::percentilesTiempos);
     }
 
     // ========= Reporte de Uso =========
     @GetMapping("/reportes/uso/endpoints")
-    public ResponseEntity<Map<String, Long>> usoEndpoints() {
+    public ResponseEntity<?> usoEndpoints(ParametrosVentana parametros) {
         // Ej: { "top":[...], "least":[...] }
-        return ResponseEntity.ok(logService.usoPorEndpoint());
+        return reporte(parametros, logService::usoPorEndpoint);
+    }
+
+    @GetMapping("/reportes/uso/endpoints/margen")
+    public ResponseEntity<?> margenUsoEndpoints(ParametrosVentana parametros) {
+        // Ej: { "/api/persona":39.2, "/api/persona/{id}":0.0 } -> conteo ± margen al 95 % por el muestreo
+        return reporte(parametros, logService::margenUsoPorEndpoint);
+    }
+
+    @GetMapping("/reportes/uso/endpoints/top")
+    public ResponseEntity<?> topEndpoints(ParametrosVentana parametros,
+                                          @RequestParam(required = false) Integer k,
+                                          @RequestParam(required = false) String modo) {
+        // Ej: ?k=3&modo=aproximado -> { "exacto":false, "umbral":4, "top":[{"endpoint":"/api/persona/{id}",
+        //     "cantidad":1200,"error":0}, ...], "least":[...] } (el real está en [cantidad - error, cantidad])
+        return reporte(parametros, v -> logService.topYLeastEndpoints(v, k, modo));
     }
 
     @GetMapping("/reportes/uso/http")
-    public ResponseEntity<Map<String, Long>> usoPorMetodoHttp() {
+    public ResponseEntity<?> usoPorMetodoHttp(ParametrosVentana parametros) {
         // Ej: { "GET":120, "POST":40, "PUT":6, "DELETE":2 }
-        return ResponseEntity.ok(logService.usoPorMetodoHttp());
+        return reporte(parametros, logService::usoPorMetodoHttp);
     }
 
     // ========= Reporte de Alertas =========
     @GetMapping("/reportes/alertas/eventos")
-    public ResponseEntity<List<LogEntry>> eventosCriticos() {
-        // Ej: [ {"timestamp":"...","nivel":"ERROR",...}, ... ]
-        return ResponseEntity.ok(logService.eventosCriticos());
+    public ResponseEntity<?> eventosCriticos(ParametrosVentana parametros,
+                                             @RequestParam(required = false) Long after,
+                                             @RequestParam(defaultValue = "100") int limit) {
+        // Ej: { "eventos":[ {"id":41,"nivel":"ERROR",...}, ... ], "siguiente":140 } -> ?after=140 para la próxima página
+        return reporte(parametros, v -> logService.eventosCriticos(v, after, limit));
+    }
+
+    @GetMapping(value = "/reportes/alertas/eventos", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportarEventosCriticos(ParametrosVentana parametros) {
+        // Con Accept: application/x-ndjson se envían todos los eventos, uno por línea, a medida que salen de la BD
+        try {
+            Ventana ventana = parametros.ventana();
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                    .body(salida -> logService.exportarEventosCriticos(ventana, salida));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = Map.of("error", "Bad Request", "detail", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(salida -> objectMapper.writeValue(salida, error));
+        }
     }
 
     @GetMapping(value = "/reportes/alertas/cantidad", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Map<String, Long>> cantidadEventosCriticos() {
-        long n = logService.cantidadEventosCriticos();  // <- sigue siendo funcional (stream + filter + count en el service)
-        return ResponseEntity.ok(Map.of("cantidad", n));
+    public ResponseEntity<?> cantidadEventosCriticos(ParametrosVentana parametros) {
+        return reporte(parametros, v -> Map.of("cantidad", logService.cantidadEventosCriticos(v)));
+    }
+    // ========= Transmisión en vivo =========
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void stream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // event: contadores / delta -> {"peticiones":12,"errores":1,"criticos":1,"porStatus":{"200":11,"500":1}}
+        // event: critico            -> {"id":41,"nivel":"ERROR","statusCode":500,...}
+        transmisor.suscribir(request, response); // respuesta asíncrona: este hilo vuelve al pool enseguida
+    }
+
+    // ========= Alertas por umbral =========
+    @GetMapping("/alertas")
+    public ResponseEntity<?> alertas(@RequestParam(defaultValue = "100") int limit) {
+        // Ej: { "activas":[{ "id":3,"regla":"persona-5xx","estado":"disparada","valor":0.12,... }], "resueltas":[...],
+        //       "reglas":2, "eventosEvaluados":150000 }
+        try {
+            return ResponseEntity.ok(alertas.estado(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Bad Request",
+                    "detail", e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/alertas/reglas")
+    public ResponseEntity<List<ReglaAlerta>> reglasAlertas() {
+        return ResponseEntity.ok(alertas.reglas());
+    }
+
+    @PutMapping("/alertas/reglas/{nombre}")
+    public ResponseEntity<?> guardarReglaAlerta(@PathVariable String nombre, @RequestBody ReglaAlerta regla) {
+        // Ej: { "metrica":"p95", "comparador":">", "umbral":500, "ventanaSegundos":300, "endpoint":"/api/persona" }
+        try {
+            return ResponseEntity.ok(alertas.guardarRegla(regla.conNombre(nombre)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Bad Request",
+                    "detail", e.getMessage()
+            ));
+        }
     }
+
+    @DeleteMapping("/alertas/reglas/{nombre}")
+    public ResponseEntity<Void> eliminarReglaAlerta(@PathVariable String nombre) {
+        return alertas.eliminarRegla(nombre) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
     // ========= Reporte de Estado =========
     @GetMapping("/reportes/estado")
-    public ResponseEntity<Map<String, Object>> estadoAplicacion() {
+    public ResponseEntity<?> estadoAplicacion(ParametrosVentana parametros) {
         // Ej: { "totalPeticiones":1000, "totalErrores":17, "tiempoPromedio":135.4 }
-        return ResponseEntity.ok(logService.estadoAplicacion());
+        return reporte(parametros, logService::estadoAplicacion);
+    }
+
+    // ========= Dashboard =========
+    @GetMapping("/reportes/dashboard")
+    public ResponseEntity<?> dashboard(ParametrosVentana parametros,
+                                       @RequestParam(required = false) List<String> secciones) {
+        // Ej: ?secciones=errores,horas-pico,estado -> { "errores":{...}, "horasPico":{...}, "estado":{...} }
+        return reporte(parametros, v -> logService.dashboard(v, ReporteDashboard.Seccion.de(secciones)));
     }
-}
 
+    // ========= Estado del escritor de logs =========
+    @GetMapping("/ingesta/estado")
+    public ResponseEntity<EstadoEscritor> estadoIngesta() {
+        // Ej: { "profundidadCola":0, "escritos":1200, "promedioLote":48.0, "descartados":0, ... }
+        // 404 con logs.almacen=segmentos: no hay escritor
+        LogWriter escritor = logWriter.getIfAvailable();
+        return escritor != null ? ResponseEntity.ok(escritor.estado()) : ResponseEntity.notFound().build();
+    }
+
+    // ========= Instantánea columnar =========
+    @GetMapping("/columnar/estado")
+    public ResponseEntity<EstadoColumnar> estadoColumnar() {
+        // Ej: { "activa":true, "filas":1500000, "bytesReservados":33030144, "endpointsDistintos":12, ... }
+        return ResponseEntity.ok(columnar.estado());
+    }
+
+    // ========= Retención de log_entry =========
+    @GetMapping("/retencion/estado")
+    public ResponseEntity<EstadoRetencion> estadoRetencion() {
+        // Ej: { "programada":true, "diasCrudos":30, "diasHorarios":180, "ultimasPurgadas":120000, "ultimaDuracionMs":5321.4, ... }
+        return ResponseEntity.ok(retencion.estado());
+    }
+
+    @PostMapping("/retencion/ejecutar")
+    public ResponseEntity<?> ejecutarRetencion() {
+        try {
+            return ResponseEntity.ok(retencion.ejecutar());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Conflict",
+                    "detail", e.getMessage()
+            ));
+        }
+    }
+
+    // ========= Importación de app.log y sus .gz =========
+    @PostMapping("/importacion/archivos")
+    public ResponseEntity<?> importarArchivos() {
+        // Ej: { "archivos":[{ "archivo":".../app.log.2025-09-21.0.gz", "registros":130, ... }], "mbPorSegundo":310.5, ... }
+        try {
+            return ResponseEntity.ok(logImporter.importar());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Conflict",
+                    "detail", e.getMessage()
+            ));
+        }
+    }
+
+    // ========= Importación masiva NDJSON =========
+    /**
+     * Cuerpo NDJSON (un LogEntry por línea, opcionalmente con Content-Encoding: gzip) o
+     * ?ruta=historico.jsonl.gz relativo a logs.importacion.directorio-ndjson.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importarNdjson(@RequestParam(required = false) String ruta,
+                                            HttpServletRequest request) throws IOException {
+        // Ej: { "lineas":1000000, "importadas":999990, "rechazadas":10, "rechazosPorMotivo":{ "Falta endpoint":10 },
+        //       "filasPorSegundo":250000.0, ... }
+        try {
+            if (ruta != null) {
+                return ResponseEntity.ok(ndjsonImporter.importarArchivo(ruta));
+            }
+            InputStream cuerpo = request.getInputStream();
+            if ("gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"))) {
+                cuerpo = new GZIPInputStream(cuerpo, 1 << 16);
+            }
+            return ResponseEntity.ok(ndjsonImporter.importar(cuerpo));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Bad Request",
+                    "detail", e.getMessage()
+            ));
+        }
+    }
+
+    // ========= Métricas en memoria =========
+    private static final MediaType PROMETHEUS = MediaType.parseMediaType("text/plain;version=0.0.4;charset=utf-8");
+
+    @GetMapping("/metrics")
+    public ResponseEntity<?> metricas(@RequestParam(defaultValue = "json") String format) {
+        // Ej: { "http":[{ "endpoint":"/api/persona/{id}", "metodo":"GET", "status":200, "cantidad":10, "p99Ms":1.2, ... }],
+        //       "indicadores":{ "logs_writer_cola":0.0, ... } }
+        return switch (format.toLowerCase()) {
+            case "json" -> ResponseEntity.ok(metricas.resumen());
+            case "prometheus" -> ResponseEntity.ok().contentType(PROMETHEUS).body(metricas.prometheus());
+            default -> ResponseEntity.badRequest().body(Map.of(
+                    "error", "Bad Request",
+                    "detail", "format debe ser json o prometheus"
+            ));
+        };
+    }
+}
@@ -1,13 +1,19 @@
 package cr.ac.una.proyectoparadigmas.controller;
 
+import cr.ac.una.proyectoparadigmas.dto.ResultadoLotePersonas;
 import cr.ac.una.proyectoparadigmas.entity.Persona;
 import cr.ac.una.proyectoparadigmas.repository.PersonaRepository;
+import cr.ac.una.proyectoparadigmas.service.CachePersonas;
+import cr.ac.una.proyectoparadigmas.service.ListadoPersonas;
+import cr.ac.una.proyectoparadigmas.service.LotesPersona;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController// Indica que es un servicio web
 @RequestMapping("/api")
@@ -15,21 +21,40 @@ import java.util.List;
 public class PersonaController {
     @Autowired // Carga una variable de PersonaRepository que ya no es una interfaz sino una clase gracias a Autowired
     PersonaRepository personaRepository;
+    @Autowired
+    LotesPersona lotesPersona;
+    @Autowired
+    ListadoPersonas listadoPersonas;
+    @Autowired
+    CachePersonas cachePersonas;
 
     @GetMapping("/persona") // Mapea la URL /api/persona, es decir, responde a esa URL
-    public ResponseEntity<List<Persona>> findAll() {
-
-        return ResponseEntity.ok(personaRepository.findAll()); // Retorna un 200 OK con la lista de personas en el cuerpo
+    public ResponseEntity<?> findAll(@RequestParam(required = false) String sort,
+                                     @RequestParam(required = false) String fields,
+                                     @RequestParam(required = false) String after,
+                                     @RequestParam(defaultValue = "100") int limit) {
+        // Ej: ?sort=apellido,desc&fields=nombre,apellido&limit=2
+        //  -> { "personas":[{"nombre":"Ana","apellido":"Vargas"}, ...], "siguiente":"YXBlbGxp..." } -> ?after=... para la próxima
+        try {
+            return ResponseEntity.ok(listadoPersonas.listar(sort, fields, after, limit)); // una página, nunca la tabla entera
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Bad Request",
+                    "detail", e.getMessage()
+            ));
+        }
     }
 
     @PostMapping("/persona")
     ResponseEntity<Persona> savePersona(@RequestBody Persona Persona){
-        return ResponseEntity.ok(personaRepository.save(Persona));
+        Persona guardada = personaRepository.save(Persona);
+        cachePersonas.invalidar(guardada.getId());
+        return ResponseEntity.ok(guardada);
     }
-    // GET: persona por id
+    // GET: persona por id (de CachePersonas si se buscó hace poco)
     @GetMapping("/persona/{id}")
     public ResponseEntity<Persona> findById(@PathVariable Long id) {
-        return personaRepository.findById(id)
+        return cachePersonas.obtener(id, personaRepository::findById)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -38,23 +63,61 @@ public class PersonaController {
     // PUT: actualizar persona
     @PutMapping("/persona/{id}")
     public ResponseEntity<Persona> updatePersona(@PathVariable Long id, @RequestBody Persona persona) {
-        if (!personaRepository.existsById(id)) {
-            return ResponseEntity.notFound().build();
-        }
-        persona.setId(id); // asegurar que se actualice la existente
-        return ResponseEntity.ok(personaRepository.save(persona));
+        // findById ya dice si existe; save sobre la entidad cargada no vuelve a consultarla (antes: existsById + merge)
+        return personaRepository.findById(id)
+                .map(existente -> {
+                    existente.setNombre(persona.getNombre());
+                    existente.setApellido(persona.getApellido());
+                    Persona guardada = personaRepository.save(existente);
+                    cachePersonas.invalidar(id);
+                    return ResponseEntity.ok(guardada);
+                })
+                .orElse(ResponseEntity.notFound().build());
     }
 
     // DELETE: eliminar persona
     @DeleteMapping("/persona/{id}")
     public ResponseEntity<Void> deletePersona(@PathVariable Long id) {
-        if (!personaRepository.existsById(id)) {
+        if (personaRepository.eliminarPorId(id) == 0) { // un solo DELETE; 0 filas = no existía
             return ResponseEntity.notFound().build(); // 404 si no existe
         }
-        personaRepository.deleteById(id);
+        cachePersonas.invalidar(id);
         return ResponseEntity.noContent().build();    // 204 No Content
     }
 
+    // ========= Lotes: muchas personas por petición =========
+    // Responden 200 con un resultado por elemento (mismo orden): { "indice":0, "id":51, "status":201 } ...
+    // 400 si el lote está vacío o supera persona.lotes.max-elementos.
+
+    @PostMapping("/persona/batch")
+    public ResponseEntity<?> savePersonas(@RequestBody List<Persona> personas) {
+        // Ej: [{ "nombre":"Ana", "apellido":"Mora" }, ...]
+        return lote(() -> lotesPersona.crear(personas));
+    }
+
+    @PutMapping("/persona/batch")
+    public ResponseEntity<?> updatePersonas(@RequestBody List<Persona> personas) {
+        // Ej: [{ "id":51, "nombre":"Ana", "apellido":"Solís" }, ...]
+        return lote(() -> lotesPersona.actualizar(personas));
+    }
+
+    @DeleteMapping("/persona/batch")
+    public ResponseEntity<?> deletePersonas(@RequestBody List<Long> ids) {
+        // Ej: [51, 52, 99999]
+        return lote(() -> lotesPersona.eliminar(ids));
+    }
+
+    private static ResponseEntity<?> lote(Supplier<ResultadoLotePersonas> operacion) {
+        try {
+            return ResponseEntity.ok(operacion.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Bad Request",
+                    "detail", e.getMessage()
+            ));
+        }
+    }
+
     @GetMapping("/persona/boom")
     public ResponseEntity<Void> boom() {
         throw new RuntimeException("Error forzado para pruebas");
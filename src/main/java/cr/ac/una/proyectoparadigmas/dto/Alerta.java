@@ -0,0 +1,22 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Una alerta de MotorAlertas: se dispara cuando la métrica de su regla cruza el umbral y se
+ * resuelve en la primera evaluación en que deja de cruzarlo (resuelta = null mientras siga activa).
+ * valor es el de la última evaluación; peorValor, el más alejado del umbral mientras estuvo activa.
+ */
+public record Alerta(
+        long id,
+        String regla,
+        String estado,
+        String metrica,
+        String comparador,
+        double umbral,
+        double valor,
+        double peorValor,
+        long peticiones,
+        LocalDateTime disparada,
+        LocalDateTime resuelta
+) {}
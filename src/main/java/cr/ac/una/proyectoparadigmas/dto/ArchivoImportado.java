@@ -0,0 +1,7 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+/**
+ * Resultado de importar un archivo de log: rango de bytes leído en esta corrida
+ * (sin comprimir en los .gz), líneas recorridas y LogEntry insertados.
+ */
+public record ArchivoImportado(String archivo, long desde, long hasta, long lineas, long registros) {}
@@ -0,0 +1,6 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+/**
+ * Conteo de un endpoint con su cota de error: el real está en [cantidad - error, cantidad].
+ */
+public record ConteoAproximado(String endpoint, long cantidad, long error) {}
@@ -0,0 +1,6 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+/**
+ * Conteo de registros agrupados por un texto (endpoint, método HTTP, etc.).
+ */
+public record ConteoPorClave(String clave, long cantidad) {}
@@ -0,0 +1,3 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+public record ConteoPorHora(int hora, long cantidad) {}
@@ -0,0 +1,13 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+/**
+ * Conteo de registros por código de ruta (LogEntry.rutaId). Las filas sin código, anteriores
+ * al diccionario log_ruta, se agrupan por su endpoint y vienen con rutaId null.
+ * tiempo solo se usa en la frecuencia de tiempos por ruta.
+ */
+public record ConteoPorRuta(Integer rutaId, String endpoint, long tiempo, long cantidad) {
+
+    public ConteoPorRuta(Integer rutaId, String endpoint, long cantidad) {
+        this(rutaId, endpoint, 0, cantidad);
+    }
+}
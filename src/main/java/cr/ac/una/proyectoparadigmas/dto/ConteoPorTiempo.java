@@ -0,0 +1,6 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+/**
+ * Cuántos registros tuvieron exactamente este tiempo de respuesta (ms).
+ */
+public record ConteoPorTiempo(long tiempo, long cantidad) {}
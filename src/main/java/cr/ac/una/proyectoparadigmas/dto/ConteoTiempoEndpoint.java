@@ -0,0 +1,6 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+/**
+ * Cuántos registros de un endpoint tuvieron exactamente este tiempo de respuesta (ms).
+ */
+public record ConteoTiempoEndpoint(String endpoint, long tiempo, long cantidad) {}
@@ -0,0 +1,15 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import java.util.Map;
+
+/**
+ * Contadores globales de logs enviados por /api/logs/stream: el total al conectarse
+ * (evento "contadores") y después solo lo que cambió en cada intervalo (evento "delta").
+ * porStatus solo trae los códigos que cambiaron.
+ */
+public record DeltaLogs(
+        long peticiones,
+        long errores,
+        long criticos,
+        Map<Integer, Long> porStatus
+) {}
@@ -1,3 +1,4 @@
 package cr.ac.una.proyectoparadigmas.dto;
 
-public record EndpointStats(long min, long max, double promedio) {}
+public record EndpointStats(long min, long max, double promedio,
+                            double p50, double p90, double p95, double p99, double p999) {}
@@ -3,4 +3,9 @@ package cr.ac.una.proyectoparadigmas.dto;
 
 import java.util.List;
 
-public record EndpointsUso(List<String> top, List<String> least) {}
+/**
+ * Endpoints más (top) y menos (least) usados. exacto = los conteos de top no tienen error; si
+ * no, cada uno trae su error y cualquier endpoint que no aparece en top tuvo a lo sumo umbral
+ * peticiones. least siempre es exacto (error 0).
+ */
+public record EndpointsUso(boolean exacto, long umbral, List<ConteoAproximado> top, List<ConteoAproximado> least) {}
@@ -0,0 +1,14 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import java.util.List;
+
+/**
+ * Respuesta de GET /api/logs/alertas: alertas activas, las últimas resueltas (más recientes
+ * primero) y cuántos registros evaluó el motor desde que arrancó.
+ */
+public record EstadoAlertas(
+        List<Alerta> activas,
+        List<Alerta> resueltas,
+        int reglas,
+        long eventosEvaluados
+) {}
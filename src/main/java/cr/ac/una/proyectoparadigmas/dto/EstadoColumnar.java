@@ -0,0 +1,15 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+/**
+ * Tamaño de la instantánea columnar (LogColumnarStore) y de sus diccionarios.
+ */
+public record EstadoColumnar(
+        boolean activa,
+        int filas,
+        int bloques,
+        long bytesReservados,
+        int endpointsDistintos,
+        int metodosDistintos,
+        int nivelesDistintos,
+        long ultimoId
+) {}
@@ -0,0 +1,23 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+/**
+ * Métricas del escritor asíncrono de logs (LogWriter).
+ * fallidos y lotesFallidos son registros aceptados (ya sumados a los agregados) que no
+ * llegaron a la base de datos ni al derrame a disco.
+ */
+public record EstadoEscritor(
+        String politicaDesborde,
+        int profundidadCola,
+        int capacidadCola,
+        long escritos,
+        long lotes,
+        int ultimoLote,
+        double promedioLote,
+        long descartados,
+        long enDisco,
+        long fallidos,
+        long lotesFallidos,
+        double ultimaLatenciaFlushMs,
+        double maxLatenciaFlushMs,
+        double promedioLatenciaFlushMs
+) {}
@@ -0,0 +1,28 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Configuración y resultado de la última ejecución de RetencionLogs (GET /api/logs/retencion/estado).
+ * ultimasPurgadas son filas de log_entry borradas; ultimasHorasCompactadas, filas por hora
+ * resumidas en días; ultimosDiasEliminados, resúmenes diarios vencidos.
+ */
+public record EstadoRetencion(
+        boolean programada,
+        int diasCrudos,
+        int diasHorarios,
+        int diasDiarios,
+        boolean enCurso,
+        boolean tablaParticionada,
+        long ejecuciones,
+        long fallidas,
+        long purgadasTotal,
+        LocalDateTime ultimaEjecucion,
+        double ultimaDuracionMs,
+        long ultimasPurgadas,
+        long ultimosResumenes,
+        long ultimasHorasCompactadas,
+        long ultimosDiasEliminados,
+        int ultimasParticionesEliminadas,
+        String ultimoError
+) {}
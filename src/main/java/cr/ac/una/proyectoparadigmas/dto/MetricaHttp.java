@@ -0,0 +1,17 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+/**
+ * Métricas acumuladas de una combinación endpoint + método + status (tiempos en ms).
+ */
+public record MetricaHttp(
+        String endpoint,
+        String metodo,
+        int status,
+        long cantidad,
+        double sumaMs,
+        double promedioMs,
+        double maxMs,
+        double p50Ms,
+        double p90Ms,
+        double p99Ms
+) {}
@@ -0,0 +1,11 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+
+import java.util.List;
+
+/**
+ * Una página de eventos críticos. siguiente es el valor de "after" para pedir
+ * la próxima página, o null si ya no hay más.
+ */
+public record PaginaEventos(List<LogEntry> eventos, Long siguiente) {}
@@ -0,0 +1,10 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Una página de GET /api/persona con solo los campos pedidos. siguiente es el valor de
+ * "after" para pedir la próxima página (con el mismo sort), o null si ya no hay más.
+ */
+public record PaginaPersonas(List<Map<String, Object>> personas, String siguiente) {}
@@ -0,0 +1,19 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Parámetros de consulta comunes a los reportes: ?from=...&to=...&granularity=minute|hour|day
+ * Las fechas van en ISO-8601, p. ej. 2025-09-01T13:00:00.
+ */
+public record ParametrosVentana(
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        String granularity) {
+
+    public Ventana ventana() {
+        return Ventana.de(from, to, granularity);
+    }
+}
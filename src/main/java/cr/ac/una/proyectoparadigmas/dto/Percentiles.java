@@ -0,0 +1,8 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+/**
+ * cantidad es estimada (suma de pesos); margenRango es la incertidumbre del rango de cada
+ * percentil por el muestreo, en fracción (0 si no se muestreó).
+ */
+public record Percentiles(long cantidad, double p50, double p90, double p95, double p99, double p999,
+                          double margenRango) {}
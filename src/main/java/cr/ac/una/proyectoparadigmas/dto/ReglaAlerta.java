@@ -0,0 +1,26 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+/**
+ * Regla de alerta por umbral sobre una ventana deslizante (MotorAlertas).
+
+ * - metrica: tasa-5xx | tasa-criticos (proporción 0-1), peticiones (cantidad en la ventana),
+ *   promedio o pNN / pNNN (tiempo de respuesta en ms, p. ej. p95, p999).
+ * - comparador: ">" (por defecto) o "<".
+ * - endpoint: prefijo de la URI que se evalúa; null = todas.
+ * - minimoPeticiones: peticiones necesarias en la ventana para disparar; null = logs.alertas.minimo-peticiones.
+ *   No se aplica a la métrica peticiones.
+ */
+public record ReglaAlerta(
+        String nombre,
+        String metrica,
+        String comparador,
+        double umbral,
+        int ventanaSegundos,
+        String endpoint,
+        Long minimoPeticiones
+) {
+
+    public ReglaAlerta conNombre(String nombre) {
+        return new ReglaAlerta(nombre, metrica, comparador, umbral, ventanaSegundos, endpoint, minimoPeticiones);
+    }
+}
@@ -0,0 +1,53 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Todos los reportes de logs en una sola respuesta, calculados sobre el mismo agregado.
+ * Las secciones no pedidas quedan en null y no se serializan.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ReporteDashboard(
+        Map<Integer, Long> errores,
+        List<ErrorCount> top3,
+        Map<Integer, Long> horasPico,
+        Map<String, Double> estadisticas,
+        Map<String, EndpointStats> distribucion,
+        ReportePercentiles percentiles,
+        Map<String, Long> usoEndpoints,
+        Map<String, Long> usoHttp,
+        Long cantidadCriticos,
+        Map<String, Object> estado
+) {
+
+    public enum Seccion {
+        ERRORES("errores"), TOP3("top3"), HORAS_PICO("horas-pico"),
+        ESTADISTICAS("estadisticas"), DISTRIBUCION("distribucion"), PERCENTILES("percentiles"),
+        USO_ENDPOINTS("endpoints"), USO_HTTP("http"), ALERTAS("alertas"), ESTADO("estado");
+
+        private final String nombre;
+
+        Seccion(String nombre) {
+            this.nombre = nombre;
+        }
+
+        /** Secciones pedidas por nombre (p. ej. errores,horas-pico,estado); vacío o null = todas. */
+        public static Set<Seccion> de(List<String> nombres) {
+            if (nombres == null || nombres.isEmpty()) return EnumSet.allOf(Seccion.class);
+            Set<Seccion> secciones = EnumSet.noneOf(Seccion.class);
+            for (String nombre : nombres) {
+                secciones.add(Arrays.stream(values())
+                        .filter(s -> s.nombre.equalsIgnoreCase(nombre.trim()))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Sección desconocida: " + nombre)));
+            }
+            return secciones;
+        }
+    }
+}
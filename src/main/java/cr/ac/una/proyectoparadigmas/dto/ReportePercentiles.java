@@ -0,0 +1,9 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import java.util.Map;
+
+/**
+ * Percentiles de tiempos de respuesta, globales y por endpoint.
+ * errorRelativo es la cota de error de cada valor según la precisión configurada.
+ */
+public record ReportePercentiles(double errorRelativo, Percentiles global, Map<String, Percentiles> porEndpoint) {}
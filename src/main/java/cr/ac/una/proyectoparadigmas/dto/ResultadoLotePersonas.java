@@ -0,0 +1,23 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Resultado de POST/PUT/DELETE /api/persona/batch: un Item por elemento recibido, en el
+ * mismo orden, con el status que habría tenido la petición individual (201, 200, 204,
+ * 400 o 404), más totales y rendimiento.
+ */
+public record ResultadoLotePersonas(
+        int total,
+        int exitosos,
+        int fallidos,
+        long milisegundos,
+        double personasPorSegundo,
+        List<Item> items
+) {
+    /** Elemento del lote (índice desde 0), id afectado y, si falló, por qué. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Item(int indice, Long id, int status, String error) {}
+}
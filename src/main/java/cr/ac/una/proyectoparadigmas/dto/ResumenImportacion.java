@@ -0,0 +1,15 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación de app.log y sus rotaciones .gz.
+ */
+public record ResumenImportacion(
+        List<ArchivoImportado> archivos,
+        long bytes,
+        long lineas,
+        long registros,
+        long milisegundos,
+        double mbPorSegundo
+) {}
@@ -0,0 +1,24 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de POST /api/logs/import: filas importadas, rechazadas por validación
+ * (con el motivo y algunos ejemplos) y las que fallaron al insertar, más el rendimiento.
+ */
+public record ResumenImportacionNdjson(
+        long lineas,
+        long importadas,
+        long rechazadas,
+        long fallidas,
+        Map<String, Long> rechazosPorMotivo,
+        List<Rechazo> ejemplosRechazo,
+        long bytes,
+        long milisegundos,
+        double filasPorSegundo,
+        double mbPorSegundo
+) {
+    /** Línea (desde 1) rechazada y por qué. */
+    public record Rechazo(long linea, String motivo) {}
+}
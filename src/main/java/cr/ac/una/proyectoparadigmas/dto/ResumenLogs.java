@@ -0,0 +1,6 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+/**
+ * Totales generales de la tabla de logs.
+ */
+public record ResumenLogs(long totalPeticiones, long totalErrores, long sumaTiempos, long criticos) {}
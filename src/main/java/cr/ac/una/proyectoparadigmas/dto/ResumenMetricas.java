@@ -0,0 +1,9 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instantánea del RegistroMetricas: series HTTP e indicadores por nombre.
+ */
+public record ResumenMetricas(List<MetricaHttp> http, Map<String, Double> indicadores) {}
@@ -0,0 +1,74 @@
+package cr.ac.una.proyectoparadigmas.dto;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rango de tiempo [desde, hasta) de un reporte y, opcionalmente, la granularidad
+ * con la que se parte en intervalos para devolver una serie temporal.
+ * desde/hasta en null significan "sin límite" por ese lado.
+ */
+public record Ventana(LocalDateTime desde, LocalDateTime hasta, Granularidad granularidad) {
+
+    public static final Ventana TODO = new Ventana(null, null, null);
+
+    public enum Granularidad {
+        MINUTE(ChronoUnit.MINUTES), HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unidad;
+
+        Granularidad(ChronoUnit unidad) {
+            this.unidad = unidad;
+        }
+
+        public ChronoUnit unidad() {
+            return unidad;
+        }
+
+        /** Acepta minute/hour/day sin importar mayúsculas. */
+        public static Granularidad de(String valor) {
+            try {
+                return valueOf(valor.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("granularity debe ser minute, hour o day");
+            }
+        }
+    }
+
+    public Ventana {
+        if (desde != null && hasta != null && !desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("from debe ser anterior a to");
+        }
+        if (granularidad != null && desde == null) {
+            throw new IllegalArgumentException("granularity requiere from");
+        }
+    }
+
+    public static Ventana de(LocalDateTime desde, LocalDateTime hasta, String granularidad) {
+        return new Ventana(desde, hasta,
+                granularidad == null || granularidad.isBlank() ? null : Granularidad.de(granularidad));
+    }
+
+    public boolean esTodo() {
+        return desde == null && hasta == null;
+    }
+
+    /**
+     * Parte la ventana en intervalos consecutivos de la granularidad indicada,
+     * alineados al inicio de minuto/hora/día. Si no hay hasta se usa el momento actual.
+     */
+    public List<Ventana> intervalos(int maximo) {
+        ChronoUnit unidad = granularidad.unidad();
+        LocalDateTime fin = hasta != null ? hasta : LocalDateTime.now();
+        List<Ventana> intervalos = new ArrayList<>();
+        for (LocalDateTime inicio = desde.truncatedTo(unidad); inicio.isBefore(fin); inicio = inicio.plus(1, unidad)) {
+            if (intervalos.size() == maximo) {
+                throw new IllegalArgumentException("La ventana tiene más de " + maximo + " intervalos; use una granularidad mayor");
+            }
+            intervalos.add(new Ventana(inicio, inicio.plus(1, unidad), null));
+        }
+        return intervalos;
+    }
+}
@@ -0,0 +1,45 @@
+package cr.ac.una.proyectoparadigmas.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resumen de los LogEntry ya purgados (RetencionLogs): cuántas peticiones hubo por
+ * período (hora o día), endpoint, método y status, con sus críticos y la suma de tiempos,
+ * ya ponderados por el peso de cada registro.
+ * Los reportes lo suman a lo que queda en log_entry, así que los totales no cambian al purgar.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_log_agregado_clave",
+        columnNames = {"granularidad", "periodo", "endpoint", "metodoHttp", "statusCode"}),
+        indexes = @Index(name = "idx_log_agregado_periodo", columnList = "periodo"))
+@Data
+public class LogAgregado {
+
+    /** Granularidad de los resúmenes: H = hora, D = día. */
+    public static final String HORA = "H";
+    public static final String DIA = "D";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 1, nullable = false)
+    private String granularidad;
+    @Column(nullable = false)
+    private LocalDateTime periodo; // inicio de la hora o del día
+    @Column(nullable = false)
+    private String endpoint;
+    @Column(nullable = false)
+    private String metodoHttp;
+    private int statusCode;
+    private long cantidad;
+    private long criticos;     // nivel ERROR y status >= 500
+    private long sumaTiempos;  // ms, incluye tiempos 0 (como el estado general)
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long varianza;     // suma de peso·(peso - 1) de los registros muestreados (MuestreoLogs)
+}
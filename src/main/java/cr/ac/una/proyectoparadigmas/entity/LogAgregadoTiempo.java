@@ -0,0 +1,33 @@
+package cr.ac.una.proyectoparadigmas.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Frecuencia de tiempos de respuesta de los LogEntry ya purgados, por período y endpoint.
+ * Los tiempos se guardan redondeados a 8 bits significativos (error ≤ 0.4 %, como un
+ * histograma de 2 dígitos), así que cada período tiene a lo sumo unos cientos de filas
+ * por endpoint. Con esto los percentiles siguen saliendo después de purgar.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_log_agregado_tiempo_clave",
+        columnNames = {"granularidad", "periodo", "endpoint", "tiempo"}),
+        indexes = @Index(name = "idx_log_agregado_tiempo_periodo", columnList = "periodo"))
+@Data
+public class LogAgregadoTiempo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 1, nullable = false)
+    private String granularidad;
+    @Column(nullable = false)
+    private LocalDateTime periodo;
+    @Column(nullable = false)
+    private String endpoint;
+    private long tiempo;   // ms (> 0)
+    private long cantidad;
+}
@@ -3,6 +3,7 @@ package cr.ac.una.proyectoparadigmas.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -10,8 +11,19 @@ import java.time.LocalDateTime;
      * Entidad que representa un registro de log en el sistema.
      * Será usada por el repositorio y servicios para analizar eventos,
      * errores y tiempos de respuesta.
+     * Los índices cubren las columnas por las que filtran y agrupan los reportes.
+     * endpoint es el patrón de la ruta (RutasLogs) y rutaId su código en log_ruta.
+     * peso es cuántas peticiones representa el registro (MuestreoLogs): los reportes lo suman
+     * en lugar de contar filas.
  */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_log_timestamp", columnList = "timestamp"),
+        @Index(name = "idx_log_status_code", columnList = "statusCode"),
+        @Index(name = "idx_log_endpoint", columnList = "endpoint"),
+        @Index(name = "idx_log_nivel", columnList = "nivel"),
+        @Index(name = "idx_log_ruta", columnList = "rutaId")
+})
 @Data
 public class LogEntry {
 
@@ -23,10 +35,15 @@ public class LogEntry {
     private LocalDateTime timestamp; // Momento exacto en que ocurrió la petición o evento
     private String nivel; //Nivel del log: INFO, ERROR, WARN, DEBUG, TRACE
     private String mensaje; // /** Mensaje descriptivo del log (detalles del evento) */
-    private String endpoint; // Endpoint al que se hizo la petición, ej: /api/persona
+    private String endpoint; // Patrón de la ruta a la que se hizo la petición, ej: /api/persona/{id}
+    private String uri; // URI pedida tal cual, ej: /api/persona/12
+    private Integer rutaId; // Código del endpoint en log_ruta (null en registros anteriores al diccionario)
     private String metodoHttp; // URL o ruta del endpoint accedido
     private int statusCode;    // Código de respuesta HTTP devuelto: 200, 404, 500, etc.
     private long tiempoRespuesta;//Tiempo total de respuesta de la petición en milisegundos
+    @ColumnDefault("1")
+    @Column(nullable = false)
+    private int peso = 1; // Peticiones que representa: 1, o k si se guardó 1 de cada k (muestreo)
 
     public Long getId() {
         return id;
@@ -68,6 +85,22 @@ public class LogEntry {
         this.endpoint = endpoint;
     }
 
+    public String getUri() {
+        return uri;
+    }
+
+    public void setUri(String uri) {
+        this.uri = uri;
+    }
+
+    public Integer getRutaId() {
+        return rutaId;
+    }
+
+    public void setRutaId(Integer rutaId) {
+        this.rutaId = rutaId;
+    }
+
     public String getMetodoHttp() {
         return metodoHttp;
     }
@@ -91,4 +124,12 @@ public class LogEntry {
     public void setTiempoRespuesta(long tiempoRespuesta) {
         this.tiempoRespuesta = tiempoRespuesta;
     }
+
+    public int getPeso() {
+        return peso;
+    }
+
+    public void setPeso(int peso) {
+        this.peso = peso;
+    }
 }
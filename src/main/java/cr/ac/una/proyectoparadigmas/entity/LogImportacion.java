@@ -0,0 +1,26 @@
+package cr.ac.una.proyectoparadigmas.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Hasta dónde se importó cada archivo de log (LogImporter): offset, huella de los primeros
+ * bytes para reconocer un archivo reemplazado y si un .gz ya se leyó completo. Se escribe
+ * en la misma transacción que borra las partes ya cubiertas (LogImportacionParte).
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_log_importacion_archivo", columnNames = "archivo"))
+@Data
+public class LogImportacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 700, nullable = false)
+    private String archivo;
+    private long posicion;
+    private int largoHuella;
+    private long huella;  // CRC32
+    private boolean completo;
+}
@@ -0,0 +1,24 @@
+package cr.ac.una.proyectoparadigmas.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Rango [desde, hasta) de un archivo más allá de LogImportacion.posicion cuyas filas ya
+ * están en log_entry: se inserta en la misma transacción que esas filas, así una
+ * importación que se corta a mitad de segmento no vuelve a insertar lo que ya confirmó.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_log_importacion_parte_archivo", columnList = "archivo"))
+@Data
+public class LogImportacionParte {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 700, nullable = false)
+    private String archivo;
+    private long desde;
+    private long hasta;
+}
@@ -0,0 +1,22 @@
+package cr.ac.una.proyectoparadigmas.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Diccionario de rutas de los logs (RutasLogs): cada patrón de ruta (/api/persona/{id})
+ * recibe un código entero que se guarda en LogEntry.rutaId, así las agrupaciones por endpoint
+ * trabajan sobre una columna entera de pocos valores distintos.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_log_ruta_ruta", columnNames = "ruta"))
+@Data
+public class LogRuta {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false)
+    private String ruta;
+}
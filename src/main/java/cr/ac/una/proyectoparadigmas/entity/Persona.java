@@ -4,14 +4,27 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity // Esta clase ya es una tabla con Entity
 @Data // Genera los getters y setters de lombok
+// Índices para el listado por páginas ordenado por nombre o apellido (InnoDB agrega el id a cada índice)
+@Table(indexes = {
+        @Index(name = "idx_persona_nombre", columnList = "nombre"),
+        @Index(name = "idx_persona_apellido", columnList = "apellido")
+})
 
 public class Persona {
+    public static final int IDS_POR_RESERVA = 50;
+
     @Id // Llave primaria, necesario si se usa Entity
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Auto Incremental
+    // Secuencia con reserva de 50 ids por consulta (en MySQL Hibernate la emula con la tabla persona_seq).
+    // Con IDENTITY cada INSERT tenía que ir solo para conocer el id; así Hibernate puede agruparlos en lotes JDBC.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "persona_seq")
+    @SequenceGenerator(name = "persona_seq", sequenceName = "persona_seq", allocationSize = Persona.IDS_POR_RESERVA)
 
     Long id;
     String nombre;
@@ -0,0 +1,168 @@
+package cr.ac.una.proyectoparadigmas.metrics;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador para claves enteras de un rango pequeño y conocido (códigos HTTP 100-599,
+ * horas 0-23) indexado por posición en lugar de por un HashMap de Integer a Long.
+
+ * Cada posición es un LongAdder que se crea la primera vez que se usa, así que sumar
+ * no reserva memoria ni hace boxing, y un contador casi vacío (p. ej. el de un minuto)
+ * ocupa solo el arreglo de referencias. Las claves fuera de rango, que no deberían
+ * aparecer, se guardan aparte para no perderlas.
+
+ * Es seguro para varios hilos y combinable, igual que HistogramaLatencias.
+ */
+public final class ContadorDenso {
+
+    /** Recorre los conteos sin boxing. */
+    @FunctionalInterface
+    public interface Visitante {
+        void visitar(int clave, long cantidad);
+    }
+
+    private final int minimo;
+    private final AtomicReferenceArray<LongAdder> conteos;
+    private volatile Map<Integer, LongAdder> fueraDeRango;
+
+    /** Claves válidas: [minimo, maximoExclusivo). */
+    public ContadorDenso(int minimo, int maximoExclusivo) {
+        this.minimo = minimo;
+        this.conteos = new AtomicReferenceArray<>(maximoExclusivo - minimo);
+    }
+
+    public static ContadorDenso codigosHttp() {
+        return new ContadorDenso(100, 600);
+    }
+
+    public static ContadorDenso horasDelDia() {
+        return new ContadorDenso(0, 24);
+    }
+
+    // ========= Registro =========
+
+    public void incrementar(int clave) {
+        sumar(clave, 1);
+    }
+
+    public void sumar(int clave, long cantidad) {
+        int i = clave - minimo;
+        if (i >= 0 && i < conteos.length()) {
+            LongAdder conteo = conteos.get(i);
+            if (conteo == null) {
+                conteos.compareAndSet(i, null, new LongAdder());
+                conteo = conteos.get(i);
+            }
+            conteo.add(cantidad);
+        } else {
+            fueraDeRango().computeIfAbsent(clave, k -> new LongAdder()).add(cantidad);
+        }
+    }
+
+    private Map<Integer, LongAdder> fueraDeRango() {
+        Map<Integer, LongAdder> mapa = fueraDeRango;
+        if (mapa == null) {
+            synchronized (this) {
+                if (fueraDeRango == null) fueraDeRango = new ConcurrentHashMap<>();
+                mapa = fueraDeRango;
+            }
+        }
+        return mapa;
+    }
+
+    /** Suma a este contador el contenido de otro. */
+    public ContadorDenso combinar(ContadorDenso otro) {
+        otro.forEach(this::sumar);
+        return this;
+    }
+
+    // ========= Consultas =========
+
+    public long get(int clave) {
+        int i = clave - minimo;
+        if (i >= 0 && i < conteos.length()) {
+            LongAdder conteo = conteos.get(i);
+            return conteo == null ? 0 : conteo.sum();
+        }
+        Map<Integer, LongAdder> mapa = fueraDeRango;
+        LongAdder conteo = mapa == null ? null : mapa.get(clave);
+        return conteo == null ? 0 : conteo.sum();
+    }
+
+    /** Llama al visitante por cada clave con conteo distinto de cero, en orden de clave dentro del rango. */
+    public void forEach(Visitante visitante) {
+        for (int i = 0; i < conteos.length(); i++) {
+            LongAdder conteo = conteos.get(i);
+            if (conteo != null) {
+                long n = conteo.sum();
+                if (n != 0) visitante.visitar(minimo + i, n);
+            }
+        }
+        Map<Integer, LongAdder> mapa = fueraDeRango;
+        if (mapa != null) {
+            mapa.forEach((clave, conteo) -> visitante.visitar(clave, conteo.sum()));
+        }
+    }
+
+    /**
+     * Las k claves con más conteo entre [desde, hasta), de mayor a menor (empate: la clave menor).
+     * Es una selección parcial con arreglos primitivos de tamaño k: no ordena todas las entradas.
+     */
+    public int[] top(int k, int desde, int hasta) {
+        int[] claves = new int[k];
+        return Arrays.copyOf(claves, seleccionar(k, desde, hasta, claves, new long[k]));
+    }
+
+    /** Deja en claves/valores las k mayores, ordenadas; devuelve cuántas hay. */
+    private int seleccionar(int k, int desde, int hasta, int[] claves, long[] valores) {
+        int[] n = {0};
+        forEach((clave, cantidad) -> {
+            if (clave < desde || clave >= hasta) return;
+            int pos = n[0];
+            while (pos > 0 && (valores[pos - 1] < cantidad
+                    || (valores[pos - 1] == cantidad && claves[pos - 1] > clave))) {
+                pos--;
+            }
+            if (pos >= k) return;
+            int ultimo = Math.min(n[0], k - 1);
+            System.arraycopy(claves, pos, claves, pos + 1, ultimo - pos);
+            System.arraycopy(valores, pos, valores, pos + 1, ultimo - pos);
+            claves[pos] = clave;
+            valores[pos] = cantidad;
+            if (n[0] < k) n[0]++;
+        });
+        return n[0];
+    }
+
+    /** Copia como mapa ordenado por clave (para responder en JSON). */
+    public Map<Integer, Long> aMapa() {
+        return aMapa(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /** Copia de las claves en [desde, hasta) como mapa ordenado por clave. */
+    public Map<Integer, Long> aMapa(int desde, int hasta) {
+        Map<Integer, Long> mapa = new TreeMap<>();
+        forEach((clave, cantidad) -> {
+            if (clave >= desde && clave < hasta) mapa.put(clave, cantidad);
+        });
+        return mapa;
+    }
+
+    /** Las k claves con más conteo en [desde, hasta) como mapa en ese orden. */
+    public Map<Integer, Long> topComoMapa(int k, int desde, int hasta) {
+        int[] claves = new int[k];
+        long[] valores = new long[k];
+        int n = seleccionar(k, desde, hasta, claves, valores);
+        Map<Integer, Long> mapa = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            mapa.put(claves[i], valores[i]);
+        }
+        return mapa;
+    }
+}
@@ -0,0 +1,223 @@
+package cr.ac.una.proyectoparadigmas.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Conteos de las claves más frecuentes con memoria fija (algoritmo Space-Saving): guarda a lo
+ * sumo `capacidad` claves, sin importar cuántas distintas lleguen.
+
+ * - Una clave que ya está suma exacto. Una nueva, con el contador lleno, reemplaza a la de
+ *   menor conteo: su cantidad arranca en umbral y ese umbral queda como su error. Así
+ *   cantidad - error <= conteo real <= cantidad.
+ * - umbral es una cota del conteo de cualquier clave que no está (el mayor conteo desalojado):
+ *   toda clave con más que eso está presente. En cada segmento no pasa de lo que sumaron sus
+ *   claves dividido por las que caben en él (capacidad / SEGMENTOS).
+ * - Mientras no se desaloja nada (umbral = 0) los conteos son exactos. Las claves de menos
+ *   conteo solo son confiables en ese caso: con umbral > 0 las más raras son justamente las
+ *   desalojadas.
+ * Se divide en SEGMENTOS por hash de la clave, cada uno con su lock, como CachePersonas. Sumar
+ * a una clave presente no toma el lock: es un compareAndSet sobre su conteo. Al desalojarla
+ * (o reemplazarla al combinar) el conteo pasa a DESALOJADO con getAndSet, así que cada suma
+ * cae una sola vez: en el conteo que se lleva el desalojo o, si llegó tarde, en el lock.
+ * Es combinable como los resúmenes de Space-Saving: a cada clave que falta en uno se le suma el
+ * umbral de ese, y quedan las de más conteo. El resultado tiene las mismas garantías.
+ */
+public final class ContadorFrecuentes {
+
+    private static final int SEGMENTOS = 8;
+    private static final long DESALOJADO = -1; // los conteos nunca son negativos
+
+    /** Conteo estimado de una clave: el real está en [cantidad - error, cantidad]. */
+    public record Frecuencia(String clave, long cantidad, long error) {}
+
+    private static final class Contador {
+        final AtomicLong cantidad;
+        final long error;
+
+        Contador(long cantidad, long error) {
+            this.cantidad = new AtomicLong(cantidad);
+            this.error = error;
+        }
+
+        /** Suma si sigue vigente; false si ya lo desalojaron (la suma no se hizo). */
+        boolean sumar(long n) {
+            long actual;
+            do {
+                actual = cantidad.get();
+                if (actual == DESALOJADO) return false;
+            } while (!cantidad.compareAndSet(actual, actual + n));
+            return true;
+        }
+    }
+
+    private static final class Segmento {
+        final Map<String, Contador> claves = new ConcurrentHashMap<>();
+        long umbral; // protegido por el propio segmento
+    }
+
+    private final int porSegmento;
+    private final Segmento[] segmentos = new Segmento[SEGMENTOS];
+
+    public ContadorFrecuentes(int capacidad) {
+        this.porSegmento = Math.max(1, (capacidad + SEGMENTOS - 1) / SEGMENTOS);
+        for (int i = 0; i < SEGMENTOS; i++) segmentos[i] = new Segmento();
+    }
+
+    // ========= Registro =========
+
+    public void sumar(String clave, long cantidad) {
+        Segmento segmento = segmento(clave);
+        Contador contador = segmento.claves.get(clave);
+        if (contador != null && contador.sumar(cantidad)) return;
+        synchronized (segmento) {
+            // con el lock nadie desaloja: un contador presente está vigente
+            contador = segmento.claves.get(clave);
+            if (contador != null) {
+                contador.sumar(cantidad);
+                return;
+            }
+            if (segmento.claves.size() >= porSegmento) desalojarMenor(segmento);
+            segmento.claves.put(clave, new Contador(segmento.umbral + cantidad, segmento.umbral));
+        }
+    }
+
+    /** Con el lock del segmento. */
+    private static void desalojarMenor(Segmento segmento) {
+        String menor = null;
+        long minimo = Long.MAX_VALUE;
+        for (Map.Entry<String, Contador> e : segmento.claves.entrySet()) {
+            long n = e.getValue().cantidad.get();
+            if (n < minimo) {
+                minimo = n;
+                menor = e.getKey();
+            }
+        }
+        long cantidad = segmento.claves.remove(menor).cantidad.getAndSet(DESALOJADO);
+        segmento.umbral = Math.max(segmento.umbral, cantidad);
+    }
+
+    /** Suma a este contador el contenido de otro (puede tener otra capacidad; queda la de este). */
+    public ContadorFrecuentes combinar(ContadorFrecuentes otro) {
+        for (int i = 0; i < SEGMENTOS; i++) {
+            Segmento suyo = otro.segmentos[i];
+            Map<String, long[]> suyas = new HashMap<>();
+            long suUmbral;
+            synchronized (suyo) {
+                suUmbral = suyo.umbral;
+                suyo.claves.forEach((clave, c) -> suyas.put(clave, new long[]{c.cantidad.get(), c.error}));
+            }
+            if (suyas.isEmpty() && suUmbral == 0) continue;
+
+            Segmento segmento = segmentos[i];
+            synchronized (segmento) {
+                long umbral = segmento.umbral;
+                List<Frecuencia> juntas = new ArrayList<>(segmento.claves.size() + suyas.size());
+                segmento.claves.forEach((clave, c) -> {
+                    long propia = c.cantidad.getAndSet(DESALOJADO); // se reemplaza: quien llegue tarde va al lock
+                    long[] s = suyas.remove(clave);
+                    juntas.add(s != null
+                            ? new Frecuencia(clave, propia + s[0], c.error + s[1])
+                            : new Frecuencia(clave, propia + suUmbral, c.error + suUmbral));
+                });
+                suyas.forEach((clave, s) -> juntas.add(new Frecuencia(clave, s[0] + umbral, s[1] + umbral)));
+
+                juntas.sort(MAYOR_PRIMERO);
+                long nuevoUmbral = umbral + suUmbral;
+                segmento.claves.clear();
+                for (int j = 0; j < juntas.size(); j++) {
+                    Frecuencia f = juntas.get(j);
+                    if (j < porSegmento) {
+                        segmento.claves.put(f.clave(), new Contador(f.cantidad(), f.error()));
+                    } else {
+                        nuevoUmbral = Math.max(nuevoUmbral, f.cantidad());
+                    }
+                }
+                segmento.umbral = nuevoUmbral;
+            }
+        }
+        return this;
+    }
+
+    private Segmento segmento(String clave) {
+        int h = clave.hashCode() * 0x9E3779B9; // reparte también claves con hash parecido
+        return segmentos[h >>> 29];
+    }
+
+    // ========= Consultas =========
+
+    private static final Comparator<Frecuencia> MAYOR_PRIMERO =
+            Comparator.comparingLong(Frecuencia::cantidad).reversed().thenComparing(Frecuencia::clave);
+
+    private static final Comparator<Frecuencia> MENOR_PRIMERO =
+            Comparator.comparingLong(Frecuencia::cantidad).thenComparing(Frecuencia::clave);
+
+    /** Las k claves de más conteo, de mayor a menor (empate: orden de la clave). */
+    public List<Frecuencia> mas(int k) {
+        return seleccionar(k, MAYOR_PRIMERO);
+    }
+
+    /**
+     * Las k claves de menos conteo, de menor a mayor. Vacío si ya se desalojó alguna
+     * (umbral > 0): las más raras pueden ser las que no están.
+     */
+    public List<Frecuencia> menos(int k) {
+        if (!exacto()) return List.of();
+        return seleccionar(k, MENOR_PRIMERO);
+    }
+
+    /** Las k primeras según orden: el montículo guarda solo k, con la peor arriba para sacarla. */
+    private List<Frecuencia> seleccionar(int k, Comparator<Frecuencia> orden) {
+        if (k < 1) return List.of();
+        PriorityQueue<Frecuencia> elegidas = new PriorityQueue<>(k + 1, orden.reversed());
+        recorrer(f -> {
+            elegidas.add(f);
+            if (elegidas.size() > k) elegidas.poll();
+        });
+        List<Frecuencia> resultado = new ArrayList<>(elegidas);
+        resultado.sort(orden);
+        return List.copyOf(resultado);
+    }
+
+    /** Copia de las claves presentes (a lo sumo capacidad), sin orden. */
+    public List<Frecuencia> frecuencias() {
+        List<Frecuencia> todas = new ArrayList<>();
+        recorrer(todas::add);
+        return todas;
+    }
+
+    /** Cada segmento con su lock, para no ver conteos a mitad de un desalojo o de combinar. */
+    private void recorrer(Consumer<Frecuencia> visitante) {
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                segmento.claves.forEach((clave, c) -> visitante.accept(new Frecuencia(clave, c.cantidad.get(), c.error)));
+            }
+        }
+    }
+
+    /** Cota del conteo de cualquier clave ausente; 0 si nunca se desalojó nada (conteos exactos). */
+    public long umbral() {
+        long umbral = 0;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                umbral = Math.max(umbral, segmento.umbral);
+            }
+        }
+        return umbral;
+    }
+
+    public boolean exacto() {
+        return umbral() == 0;
+    }
+
+    public int capacidad() {
+        return porSegmento * SEGMENTOS;
+    }
+}
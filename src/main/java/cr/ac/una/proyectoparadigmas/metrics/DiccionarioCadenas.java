@@ -0,0 +1,58 @@
+package cr.ac.una.proyectoparadigmas.metrics;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Codificación por diccionario: asigna a cada texto distinto un código entero
+ * consecutivo (0, 1, 2, ...) para guardar columnas de texto repetitivo (endpoint,
+ * método HTTP, nivel) como arreglos de int/short en lugar de un String por fila.
+
+ * Buscar un código existente no bloquea (ConcurrentHashMap); agregar uno nuevo se
+ * sincroniza, y la tabla código → texto se publica con un arreglo volátil que se
+ * copia al crecer, así que leer valor(codigo) tampoco bloquea.
+ */
+public final class DiccionarioCadenas {
+
+    private final Map<String, Integer> codigos = new ConcurrentHashMap<>();
+    private volatile String[] valores = new String[16];
+    private volatile int tamano;
+
+    /** Código del texto; lo agrega si es nuevo. null también recibe su propio código. */
+    public int codigo(String valor) {
+        String clave = valor == null ? "\0" : valor;
+        Integer codigo = codigos.get(clave);
+        return codigo != null ? codigo : agregar(clave, valor);
+    }
+
+    private synchronized int agregar(String clave, String valor) {
+        Integer existente = codigos.get(clave);
+        if (existente != null) return existente;
+        int codigo = tamano;
+        String[] actuales = valores;
+        if (codigo == actuales.length) {
+            actuales = Arrays.copyOf(actuales, actuales.length * 2);
+        }
+        actuales[codigo] = valor;
+        valores = actuales;
+        codigos.put(clave, codigo);
+        tamano = codigo + 1;
+        return codigo;
+    }
+
+    /** Texto de un código ya asignado (puede ser null si se codificó null). */
+    public String valor(int codigo) {
+        return valores[codigo];
+    }
+
+    /** Código del texto si ya existe, o -1 (no agrega). */
+    public int buscar(String valor) {
+        Integer codigo = codigos.get(valor == null ? "\0" : valor);
+        return codigo != null ? codigo : -1;
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+}
@@ -0,0 +1,188 @@
+package cr.ac.una.proyectoparadigmas.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de tiempos de respuesta con cubetas log-lineales (estilo HDR).
+
+ * Cada potencia de dos se divide en S sub-cubetas (S = potencia de dos ≥ 2·10^digitos),
+ * así que el error relativo de cualquier percentil es como máximo 1/S, y los valores
+ * menores que S se guardan exactos. La memoria es fija: depende de la precisión y del
+ * valor máximo, no de cuántos registros se agreguen. Además cada nivel (S cubetas) se
+ * reserva recién cuando llega el primer valor de ese rango, así que un histograma con
+ * pocos valores (p. ej. el de un minuto) ocupa solo los niveles que usa.
+
+ * Es seguro para varios hilos (AtomicLongArray) y combinable: dos histogramas con la
+ * misma configuración se suman cubeta a cubeta.
+ */
+public final class HistogramaLatencias {
+
+    private final int bitsSub;       // log2(S)
+    private final int subCubetas;    // S
+    private final long maxValor;
+    private final AtomicReferenceArray<AtomicLongArray> niveles; // niveles[i] = S cubetas, se crea al usarse
+
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    /**
+     * @param digitosSignificativos precisión (1 a 4): 2 → error relativo ≤ 0.4 %
+     * @param maxValor              valor más grande que se distingue; los mayores se cuentan en la última cubeta
+     */
+    public HistogramaLatencias(int digitosSignificativos, long maxValor) {
+        if (digitosSignificativos < 1 || digitosSignificativos > 4) {
+            throw new IllegalArgumentException("digitosSignificativos debe estar entre 1 y 4");
+        }
+        long minimoSub = 2 * (long) Math.pow(10, digitosSignificativos);
+        this.bitsSub = 64 - Long.numberOfLeadingZeros(minimoSub - 1);
+        this.subCubetas = 1 << bitsSub;
+        this.maxValor = Math.max(maxValor, subCubetas);
+        this.niveles = new AtomicReferenceArray<>((indice(this.maxValor) >>> bitsSub) + 1);
+    }
+
+    private AtomicLongArray nivel(int n) {
+        AtomicLongArray nivel = niveles.get(n);
+        if (nivel == null) {
+            niveles.compareAndSet(n, null, new AtomicLongArray(subCubetas));
+            nivel = niveles.get(n);
+        }
+        return nivel;
+    }
+
+    private void sumarEnCubeta(int indice, long veces) {
+        nivel(indice >>> bitsSub).addAndGet(indice & (subCubetas - 1), veces);
+    }
+
+    // ========= Índices de cubeta =========
+
+    private int desplazamiento(long v) {
+        int exponente = 63 - Long.numberOfLeadingZeros(v);
+        return Math.max(0, exponente - bitsSub);
+    }
+
+    private int indice(long v) {
+        int shift = desplazamiento(v);
+        return (shift << bitsSub) + (int) (v >>> shift);
+    }
+
+    private long inferior(int indice) {
+        int shift = Math.max(0, (indice >>> bitsSub) - 1);
+        return (long) (indice - (shift << bitsSub)) << shift;
+    }
+
+    private long superior(int indice) {
+        int shift = Math.max(0, (indice >>> bitsSub) - 1);
+        return ((long) (indice - (shift << bitsSub) + 1) << shift) - 1;
+    }
+
+    // ========= Registro =========
+
+    public void registrar(long valor) {
+        registrar(valor, 1);
+    }
+
+    /** Agrega {@code veces} ocurrencias del mismo valor (útil al cargar frecuencias desde la BD). */
+    public void registrar(long valor, long veces) {
+        if (valor < 0 || veces <= 0) return;
+        sumarEnCubeta(indice(Math.min(valor, maxValor)), veces);
+        cantidad.add(veces);
+        suma.add(valor * veces);
+        min.accumulate(valor);
+        max.accumulate(valor);
+    }
+
+    /** Suma el contenido de otro histograma con la misma configuración. */
+    public HistogramaLatencias combinar(HistogramaLatencias otro) {
+        if (otro.subCubetas != subCubetas || otro.niveles.length() != niveles.length()) {
+            throw new IllegalArgumentException("Solo se combinan histogramas con la misma configuración");
+        }
+        for (int n = 0; n < niveles.length(); n++) {
+            AtomicLongArray suyo = otro.niveles.get(n);
+            if (suyo == null) continue;
+            for (int j = 0; j < subCubetas; j++) {
+                long c = suyo.get(j);
+                if (c != 0) nivel(n).addAndGet(j, c);
+            }
+        }
+        cantidad.add(otro.cantidad.sum());
+        suma.add(otro.suma.sum());
+        if (otro.cantidad.sum() > 0) {
+            min.accumulate(otro.min.get());
+            max.accumulate(otro.max.get());
+        }
+        return this;
+    }
+
+    // ========= Consultas =========
+
+    public long cantidad() {
+        return cantidad.sum();
+    }
+
+    public long suma() {
+        return suma.sum();
+    }
+
+    public long min() {
+        return cantidad() == 0 ? 0 : min.get();
+    }
+
+    public long max() {
+        return cantidad() == 0 ? 0 : max.get();
+    }
+
+    public double promedio() {
+        long n = cantidad();
+        return n == 0 ? 0.0 : (double) suma() / n;
+    }
+
+    /** Error relativo máximo de un valor reportado respecto al real. */
+    public double errorRelativo() {
+        return 1.0 / subCubetas;
+    }
+
+    /**
+     * Valor que ocuparía la posición indicada (base 0) si todos los registros
+     * estuvieran ordenados. Es exacto para valores menores que S.
+     */
+    public double valorEnPosicion(long posicion) {
+        long acumulado = 0;
+        for (int n = 0; n < niveles.length(); n++) {
+            AtomicLongArray nivel = niveles.get(n);
+            if (nivel == null) continue;
+            for (int j = 0; j < subCubetas; j++) {
+                acumulado += nivel.get(j);
+                if (posicion < acumulado) {
+                    int i = (n << bitsSub) + j;
+                    long lo = inferior(i);
+                    long hi = superior(i);
+                    double medio = lo == hi ? lo : (lo + hi) / 2.0;
+                    return Math.max(min(), Math.min(max(), medio));
+                }
+            }
+        }
+        return max();
+    }
+
+    /** Percentil q (0 < q ≤ 1) por el método del rango más cercano. */
+    public double percentil(double q) {
+        long n = cantidad();
+        if (n == 0) return 0.0;
+        long rango = (long) Math.ceil(q * n);
+        return valorEnPosicion(Math.max(0, rango - 1));
+    }
+
+    /** Mediana con el mismo criterio que la lista ordenada: promedio de los dos centrales si n es par. */
+    public double mediana() {
+        long n = cantidad();
+        if (n == 0) return 0.0;
+        return (n % 2 == 0)
+                ? (valorEnPosicion(n / 2 - 1) + valorEnPosicion(n / 2)) / 2.0
+                : valorEnPosicion(n / 2);
+    }
+}
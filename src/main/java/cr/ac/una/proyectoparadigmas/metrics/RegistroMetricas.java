@@ -0,0 +1,139 @@
+package cr.ac.una.proyectoparadigmas.metrics;
+
+import cr.ac.una.proyectoparadigmas.dto.MetricaHttp;
+import cr.ac.una.proyectoparadigmas.dto.ResumenMetricas;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registro en memoria de métricas de las peticiones HTTP, alimentado por PersonaAspect.
+
+ * Por cada combinación endpoint + método + status guarda un contador y un histograma
+ * de duraciones en nanosegundos (System.nanoTime). Todo es sin bloqueos: el mapa es un
+ * ConcurrentHashMap que solo se escribe la primera vez que aparece una serie, los
+ * contadores son LongAdder (repartidos en celdas por hilo) y el histograma usa
+ * AtomicLongArray. No hay escritura a la base de datos en este camino.
+
+ * Además guarda indicadores (gauges) que otros componentes registran, p. ej. la cola
+ * del LogWriter. Se expone en JSON y en el formato de texto de Prometheus.
+ */
+@Component
+public class RegistroMetricas {
+
+    private static final String NOMBRE_HTTP = "http_server_requests_seconds";
+    private static final double[] CUANTILES = {0.5, 0.9, 0.95, 0.99, 0.999};
+
+    private record Clave(String endpoint, String metodo, int status) {}
+
+    private record Serie(LongAdder cantidad, HistogramaLatencias duraciones) {}
+
+    private record Indicador(String ayuda, DoubleSupplier valor) {}
+
+    private final Map<Clave, Serie> series = new ConcurrentHashMap<>();
+    private final Map<String, Indicador> indicadores = new ConcurrentHashMap<>();
+    private final int digitosSignificativos;
+
+    public RegistroMetricas(@Value("${logs.metricas.digitos-significativos:2}") int digitosSignificativos) {
+        this.digitosSignificativos = digitosSignificativos;
+    }
+
+    // ========= Registro =========
+
+    /** Registra una petición terminada. Seguro para llamar desde miles de hilos a la vez. */
+    public void registrar(String endpoint, String metodo, int status, long nanos) {
+        Clave clave = new Clave(endpoint, metodo, status);
+        Serie serie = series.get(clave);
+        if (serie == null) {
+            serie = series.computeIfAbsent(clave, k ->
+                    new Serie(new LongAdder(), new HistogramaLatencias(digitosSignificativos, 3_600_000_000_000L)));
+        }
+        serie.cantidad().increment();
+        serie.duraciones().registrar(nanos);
+    }
+
+    /** Registra un indicador cuyo valor se lee al momento de exportar (nombre en formato Prometheus). */
+    public void registrarIndicador(String nombre, String ayuda, DoubleSupplier valor) {
+        indicadores.put(nombre, new Indicador(ayuda, valor));
+    }
+
+    // ========= Exportación =========
+
+    public ResumenMetricas resumen() {
+        List<MetricaHttp> http = series.entrySet().stream()
+                .map(e -> {
+                    Clave c = e.getKey();
+                    HistogramaLatencias h = e.getValue().duraciones();
+                    return new MetricaHttp(c.endpoint(), c.metodo(), c.status(), e.getValue().cantidad().sum(),
+                            ms(h.suma()), ms(h.promedio()), ms(h.max()),
+                            ms(h.percentil(0.5)), ms(h.percentil(0.9)), ms(h.percentil(0.99)));
+                })
+                .sorted(Comparator.comparing(MetricaHttp::endpoint)
+                        .thenComparing(MetricaHttp::metodo)
+                        .thenComparingInt(MetricaHttp::status))
+                .toList();
+        Map<String, Double> valores = new LinkedHashMap<>();
+        indicadores.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> valores.put(e.getKey(), e.getValue().valor().getAsDouble()));
+        return new ResumenMetricas(http, valores);
+    }
+
+    /**
+     * Formato de texto de Prometheus (versión 0.0.4). Las duraciones se exportan como
+     * summary en segundos, con cuantiles calculados desde el inicio de la aplicación.
+     */
+    public String prometheus() {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("# HELP ").append(NOMBRE_HTTP).append(" Duración de las peticiones HTTP\n");
+        sb.append("# TYPE ").append(NOMBRE_HTTP).append(" summary\n");
+        StringBuilder maximos = new StringBuilder();
+        series.forEach((c, serie) -> {
+            HistogramaLatencias h = serie.duraciones();
+            String etiquetas = "endpoint=\"" + escapar(c.endpoint()) + "\",method=\"" + escapar(c.metodo())
+                    + "\",status=\"" + c.status() + "\"";
+            for (double q : CUANTILES) {
+                linea(sb, NOMBRE_HTTP, etiquetas + ",quantile=\"" + q + "\"", h.percentil(q) / 1e9);
+            }
+            linea(sb, NOMBRE_HTTP + "_count", etiquetas, serie.cantidad().sum());
+            linea(sb, NOMBRE_HTTP + "_sum", etiquetas, h.suma() / 1e9);
+            linea(maximos, NOMBRE_HTTP + "_max", etiquetas, h.max() / 1e9);
+        });
+        sb.append("# HELP ").append(NOMBRE_HTTP).append("_max Duración máxima de las peticiones HTTP\n");
+        sb.append("# TYPE ").append(NOMBRE_HTTP).append("_max gauge\n");
+        sb.append(maximos);
+        indicadores.forEach((nombre, indicador) -> {
+            sb.append("# HELP ").append(nombre).append(' ').append(indicador.ayuda()).append('\n');
+            sb.append("# TYPE ").append(nombre).append(" gauge\n");
+            linea(sb, nombre, null, indicador.valor().getAsDouble());
+        });
+        return sb.toString();
+    }
+
+    private static void linea(StringBuilder sb, String nombre, String etiquetas, double valor) {
+        sb.append(nombre);
+        if (etiquetas != null) sb.append('{').append(etiquetas).append('}');
+        sb.append(' ');
+        if (valor == Math.rint(valor) && Math.abs(valor) < 1e15) {
+            sb.append((long) valor);
+        } else {
+            sb.append(valor); // Double.toString: notación que Prometheus acepta (p. ej. 4.8E-4)
+        }
+        sb.append('\n');
+    }
+
+    private static String escapar(String valor) {
+        return valor == null ? "" : valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double ms(double nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,119 @@
+package cr.ac.una.proyectoparadigmas.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Contadores de una ventana deslizante de tiempo, partida en N sub-ventanas (ranuras)
+ * de ancho fijo guardadas en un buffer circular.
+
+ * Registrar un evento es O(1): se ubica la ranura de su segundo (reciclándola con un CAS
+ * si todavía tiene un período viejo) y se suman sus contadores, sin locks. Leer combina
+ * las N ranuras vigentes, así que el costo de leer no depende de cuántos eventos hubo.
+ * La ventana avanza de a una ranura: cubre entre (N-1) y N ranuras completas según en
+ * qué punto de la ranura actual se lea.
+
+ * Por evento guarda si está "marcado" (p. ej. status 5xx), su valor (tiempo en ms) para
+ * la suma y, si se pidió, el valor en un HistogramaLatencias por ranura para percentiles.
+ */
+public final class VentanaDeslizante {
+
+    private final long segundosPorRanura;
+    private final AtomicReferenceArray<Ranura> ranuras;
+    private final Supplier<HistogramaLatencias> nuevoHistograma; // null: sin percentiles
+
+    /** Contadores de un período de segundosPorRanura segundos. */
+    private static final class Ranura {
+        final long periodo;
+        final LongAdder eventos = new LongAdder();
+        final LongAdder marcados = new LongAdder();
+        final LongAdder suma = new LongAdder();
+        final HistogramaLatencias valores;
+
+        Ranura(long periodo, HistogramaLatencias valores) {
+            this.periodo = periodo;
+            this.valores = valores;
+        }
+    }
+
+    /** Totales de la ventana al momento de leer; valores es null si la ventana no guarda percentiles. */
+    public record Lectura(long eventos, long marcados, long suma, HistogramaLatencias valores) {
+
+        public double proporcionMarcados() {
+            return eventos == 0 ? 0.0 : (double) marcados / eventos;
+        }
+
+        public double promedio() {
+            return eventos == 0 ? 0.0 : (double) suma / eventos;
+        }
+    }
+
+    /**
+     * @param segundos        duración de la ventana
+     * @param subventanas     en cuántas ranuras se parte (resolución con la que avanza)
+     * @param nuevoHistograma histograma vacío por ranura, o null si no hacen falta percentiles
+     */
+    public VentanaDeslizante(long segundos, int subventanas, Supplier<HistogramaLatencias> nuevoHistograma) {
+        if (segundos < 1 || subventanas < 1) {
+            throw new IllegalArgumentException("La ventana necesita al menos un segundo y una subventana");
+        }
+        int n = (int) Math.min(subventanas, segundos);
+        this.segundosPorRanura = (segundos + n - 1) / n;
+        this.ranuras = new AtomicReferenceArray<>(n);
+        this.nuevoHistograma = nuevoHistograma;
+    }
+
+    public long segundos() {
+        return segundosPorRanura * ranuras.length();
+    }
+
+    // ========= Registro =========
+
+    /** Suma un evento ocurrido en epochSegundo. Los que ya salieron de la ventana se ignoran. */
+    public void registrar(long epochSegundo, boolean marcado, long valor) {
+        registrar(epochSegundo, marcado, valor, 1);
+    }
+
+    /** Igual, pero el evento cuenta como {@code peso} eventos iguales (registros muestreados). */
+    public void registrar(long epochSegundo, boolean marcado, long valor, long peso) {
+        Ranura ranura = ranura(Math.floorDiv(epochSegundo, segundosPorRanura));
+        if (ranura == null) return;
+        ranura.eventos.add(peso);
+        if (marcado) ranura.marcados.add(peso);
+        if (valor > 0) ranura.suma.add(valor * peso);
+        if (ranura.valores != null) ranura.valores.registrar(valor, peso);
+    }
+
+    private Ranura ranura(long periodo) {
+        int indice = (int) Math.floorMod(periodo, (long) ranuras.length());
+        while (true) {
+            Ranura actual = ranuras.get(indice);
+            if (actual != null && actual.periodo == periodo) return actual;
+            if (actual != null && actual.periodo > periodo) return null; // ya reciclada por un período más nuevo
+            Ranura nueva = new Ranura(periodo, nuevoHistograma != null ? nuevoHistograma.get() : null);
+            if (ranuras.compareAndSet(indice, actual, nueva)) return nueva;
+        }
+    }
+
+    // ========= Lectura =========
+
+    /** Combina las ranuras de la ventana que termina en epochSegundo (inclusive). */
+    public Lectura leer(long epochSegundo) {
+        long ultimo = Math.floorDiv(epochSegundo, segundosPorRanura);
+        long primero = ultimo - ranuras.length() + 1;
+        long eventos = 0;
+        long marcados = 0;
+        long suma = 0;
+        HistogramaLatencias valores = nuevoHistograma != null ? nuevoHistograma.get() : null;
+        for (int i = 0; i < ranuras.length(); i++) {
+            Ranura ranura = ranuras.get(i);
+            if (ranura == null || ranura.periodo < primero || ranura.periodo > ultimo) continue;
+            eventos += ranura.eventos.sum();
+            marcados += ranura.marcados.sum();
+            suma += ranura.suma.sum();
+            if (valores != null) valores.combinar(ranura.valores);
+        }
+        return new Lectura(eventos, marcados, suma, valores);
+    }
+}
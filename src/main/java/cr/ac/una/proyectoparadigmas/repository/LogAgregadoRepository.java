@@ -0,0 +1,61 @@
+package cr.ac.una.proyectoparadigmas.repository;
+
+import cr.ac.una.proyectoparadigmas.dto.ConteoPorClave;
+import cr.ac.una.proyectoparadigmas.dto.ConteoPorHora;
+import cr.ac.una.proyectoparadigmas.dto.ConteoTiempoEndpoint;
+import cr.ac.una.proyectoparadigmas.dto.ErrorCount;
+import cr.ac.una.proyectoparadigmas.dto.ResumenLogs;
+import cr.ac.una.proyectoparadigmas.entity.LogAgregado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Consultas de agregación sobre los resúmenes por hora / día de RetencionLogs, con los
+ * mismos DTO que LogRepository para sumarlos a lo que queda en log_entry.
+ *
+ * El rango [desde, hasta) se aplica al inicio del período: una hora o día resumido
+ * entra completo si empieza dentro de la ventana.
+ */
+public interface LogAgregadoRepository extends JpaRepository<LogAgregado, Long> {
+
+    String VENTANA = "(:desde is null or a.periodo >= :desde) and (:hasta is null or a.periodo < :hasta)";
+
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ErrorCount(a.statusCode, sum(a.cantidad)) " +
+            "from LogAgregado a where " + VENTANA + " group by a.statusCode")
+    List<ErrorCount> contarPorStatus(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ConteoPorClave(a.endpoint, sum(a.cantidad)) " +
+            "from LogAgregado a where " + VENTANA + " group by a.endpoint")
+    List<ConteoPorClave> contarPorEndpoint(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    /** Varianza del conteo estimado por endpoint (suma de peso·(peso - 1) de lo muestreado). */
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ConteoPorClave(a.endpoint, sum(a.varianza)) " +
+            "from LogAgregado a where a.varianza > 0 and " + VENTANA + " group by a.endpoint")
+    List<ConteoPorClave> varianzaPorEndpoint(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ConteoPorClave(a.metodoHttp, sum(a.cantidad)) " +
+            "from LogAgregado a where " + VENTANA + " group by a.metodoHttp")
+    List<ConteoPorClave> contarPorMetodoHttp(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    /** Errores por hora del día; solo los resúmenes por hora la conservan. */
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ConteoPorHora(extract(hour from a.periodo), sum(a.cantidad)) " +
+            "from LogAgregado a where a.granularidad = 'H' and a.statusCode >= 400 and " + VENTANA + " " +
+            "group by extract(hour from a.periodo)")
+    List<ConteoPorHora> contarErroresPorHora(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ConteoTiempoEndpoint(a.endpoint, a.tiempo, sum(a.cantidad)) " +
+            "from LogAgregadoTiempo a where " + VENTANA + " group by a.endpoint, a.tiempo")
+    List<ConteoTiempoEndpoint> frecuenciaTiemposPorEndpoint(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ResumenLogs(" +
+            "coalesce(sum(a.cantidad), 0), " +
+            "coalesce(sum(case when a.statusCode >= 400 then a.cantidad else 0 end), 0), " +
+            "coalesce(sum(a.sumaTiempos), 0), " +
+            "coalesce(sum(a.criticos), 0)) " +
+            "from LogAgregado a where " + VENTANA)
+    ResumenLogs resumen(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+}
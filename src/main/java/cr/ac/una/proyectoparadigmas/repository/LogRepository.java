@@ -1,10 +1,156 @@
 package cr.ac.una.proyectoparadigmas.repository;
 
+import cr.ac.una.proyectoparadigmas.dto.ConteoPorClave;
+import cr.ac.una.proyectoparadigmas.dto.ConteoPorHora;
+import cr.ac.una.proyectoparadigmas.dto.ConteoPorRuta;
+import cr.ac.una.proyectoparadigmas.dto.ConteoPorTiempo;
+import cr.ac.una.proyectoparadigmas.dto.ErrorCount;
+import cr.ac.una.proyectoparadigmas.dto.ResumenLogs;
 import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * Acceso a datos para la entidad LogEntry.
+
+ * Además del CRUD heredado, define consultas de agregación (GROUP BY / COUNT /
+ * MIN / MAX / SUM) que devuelven directamente los DTO de los reportes, de modo
+ * que la base de datos hace el recorrido y solo viajan unas pocas filas.
+ * Los conteos suman la columna peso (MuestreoLogs) en lugar de contar filas.
+
+ * Todas reciben un rango [desde, hasta) opcional: con null se ignora ese límite.
  */
 public interface LogRepository  extends JpaRepository<LogEntry, Long> {
+
+    /** Filtro común del rango de tiempo de los reportes. */
+    String VENTANA = "(:desde is null or l.timestamp >= :desde) and (:hasta is null or l.timestamp < :hasta)";
+
+    /**
+     * Las agrupaciones por endpoint van por el entero rutaId; solo las filas sin código
+     * (anteriores al diccionario log_ruta) se agrupan por el texto del endpoint.
+     */
+    String SIN_RUTA = "case when l.rutaId is null then coalesce(l.endpoint, '(desconocido)') end";
+
+    /**
+     * Recorre todos los registros con un cursor en lugar de cargarlos en una lista.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar (try-with-resources).
+     */
+    @Query("select l from LogEntry l")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    Stream<LogEntry> streamAll();
+
+    /** Igual que streamAll pero solo los registros desde el instante indicado (usa idx_log_timestamp). */
+    @Query("select l from LogEntry l where l.timestamp >= :desde")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    Stream<LogEntry> streamDesde(@Param("desde") LocalDateTime desde);
+
+    /** Registros del rango [desde, hasta) con un cursor; para agregarlos en una sola pasada. */
+    @Query("select l from LogEntry l where " + VENTANA)
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    Stream<LogEntry> streamVentana(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    // ========= Errores =========
+
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ErrorCount(l.statusCode, sum(l.peso)) " +
+            "from LogEntry l where " + VENTANA + " group by l.statusCode")
+    List<ErrorCount> contarPorStatus(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    /** Errores (status >= 400) por código, de más a menos frecuente. Con Limit.of(3) da el top 3. */
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ErrorCount(l.statusCode, sum(l.peso)) " +
+            "from LogEntry l where l.statusCode >= 400 and " + VENTANA + " " +
+            "group by l.statusCode order by sum(l.peso) desc")
+    List<ErrorCount> contarErroresPorCodigo(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta, Limit limit);
+
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ConteoPorHora(extract(hour from l.timestamp), sum(l.peso)) " +
+            "from LogEntry l where l.statusCode >= 400 and l.timestamp is not null and " + VENTANA + " " +
+            "group by extract(hour from l.timestamp) order by sum(l.peso) desc")
+    List<ConteoPorHora> contarErroresPorHora(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    // ========= Tiempos de respuesta =========
+
+    /** Frecuencia de cada tiempo de respuesta positivo; con esto se carga el histograma global. */
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ConteoPorTiempo(l.tiempoRespuesta, sum(l.peso)) " +
+            "from LogEntry l where l.tiempoRespuesta > 0 and " + VENTANA + " " +
+            "group by l.tiempoRespuesta order by l.tiempoRespuesta")
+    List<ConteoPorTiempo> frecuenciaTiempos(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Frecuencia de cada tiempo positivo por ruta (rutaId); con esto se cargan los histogramas
+     * de percentiles. RutasLogs traduce los códigos a su endpoint.
+     */
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ConteoPorRuta(" +
+            "l.rutaId, " + SIN_RUTA + ", l.tiempoRespuesta, sum(l.peso)) " +
+            "from LogEntry l where l.tiempoRespuesta > 0 and " + VENTANA + " " +
+            "group by l.rutaId, " + SIN_RUTA + ", l.tiempoRespuesta")
+    List<ConteoPorRuta> frecuenciaTiemposPorRuta(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    // ========= Uso =========
+
+    /** Peticiones por ruta (rutaId); RutasLogs traduce los códigos a su endpoint. */
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ConteoPorRuta(l.rutaId, " + SIN_RUTA + ", sum(l.peso)) " +
+            "from LogEntry l where " + VENTANA + " group by l.rutaId, " + SIN_RUTA)
+    List<ConteoPorRuta> contarPorRuta(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Varianza del conteo estimado por ruta: suma de peso·(peso - 1) de los registros
+     * muestreados (en ConteoPorRuta.cantidad). Solo mira las filas con peso > 1.
+     */
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ConteoPorRuta(l.rutaId, " + SIN_RUTA + ", " +
+            "sum(cast(l.peso as long) * (l.peso - 1))) " +
+            "from LogEntry l where l.peso > 1 and " + VENTANA + " group by l.rutaId, " + SIN_RUTA)
+    List<ConteoPorRuta> varianzaPorRuta(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ConteoPorClave(coalesce(l.metodoHttp, '(desconocido)'), sum(l.peso)) " +
+            "from LogEntry l where " + VENTANA + " group by coalesce(l.metodoHttp, '(desconocido)')")
+    List<ConteoPorClave> contarPorMetodoHttp(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    // ========= Alertas y estado =========
+
+    /** Criterio de evento crítico: nivel ERROR y status >= 500 (mismo que LogService.esCritico). */
+    String CRITICO = "upper(l.nivel) = 'ERROR' and l.statusCode >= 500";
+
+    /**
+     * Una página de eventos críticos por keyset: los de id mayor a despuesDe (null = desde el
+     * principio), en orden de id. La BD salta directo al id por la clave primaria, sin OFFSET.
+     */
+    @Query("select l from LogEntry l where " + CRITICO + " and " + VENTANA +
+            " and (:despuesDe is null or l.id > :despuesDe) order by l.id")
+    List<LogEntry> findCriticos(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta,
+                                @Param("despuesDe") Long despuesDe, Limit limit);
+
+    /** Todos los eventos críticos del rango con un cursor, para exportarlos sin cargarlos en memoria. */
+    @Query("select l from LogEntry l where " + CRITICO + " and " + VENTANA + " order by l.id")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    Stream<LogEntry> streamCriticos(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    @Query("select new cr.ac.una.proyectoparadigmas.dto.ResumenLogs(" +
+            "coalesce(sum(l.peso), 0), " +
+            "coalesce(sum(case when l.statusCode >= 400 then l.peso else 0 end), 0), " +
+            "coalesce(sum(l.tiempoRespuesta * l.peso), 0), " +
+            "coalesce(sum(case when upper(l.nivel) = 'ERROR' and l.statusCode >= 500 then l.peso else 0 end), 0)) " +
+            "from LogEntry l where " + VENTANA)
+    ResumenLogs resumen(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
 }
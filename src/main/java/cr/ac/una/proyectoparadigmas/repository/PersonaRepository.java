@@ -2,9 +2,26 @@ package cr.ac.una.proyectoparadigmas.repository;
 // Interfaz es como un "machote" o plantilla de una clase que "estandariza" los metodos que debe tener una clase
 import cr.ac.una.proyectoparadigmas.entity.Persona;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface PersonaRepository extends JpaRepository<Persona, Long> {
 // Según la documentación de Spring Data JPA, al extender JpaRepository, esta interfaz hereda varios métodos para trabajar
 // con la entidad Persona, como guardar, eliminar y encontrar personas. No es necesario escribir ninguna implementación
 // para estos métodos, ya que Spring Data JPA los proporciona automáticamente en tiempo de ejecución.
+
+    /** Cuáles de los ids existen, en una sola consulta (para los lotes). */
+    @Query("select p.id from Persona p where p.id in :ids")
+    List<Long> idsExistentes(@Param("ids") Collection<Long> ids);
+
+    /** Borra sin cargar la entidad antes; devuelve 0 si no existía (sin existsById aparte). */
+    @Modifying
+    @Transactional
+    @Query("delete from Persona p where p.id = :id")
+    int eliminarPorId(@Param("id") Long id);
 }
@@ -0,0 +1,268 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.ContadorDenso;
+import cr.ac.una.proyectoparadigmas.metrics.ContadorFrecuentes;
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Agregados de un conjunto de logs: conteos por código de estado, endpoint,
+ * método HTTP y hora, histogramas de tiempos (global y por endpoint) y totales.
+
+ * Se usa tanto para el total histórico como para cada minuto de la ventana
+ * deslizante de LogAggregateStore. Es seguro para varios hilos y combinable:
+ * sumar los agregados de varios minutos da el agregado del rango completo.
+
+ * Cada registro cuenta su peso (MuestreoLogs): los conteos, sumas e histogramas son
+ * estimaciones insesgadas de lo ocurrido. La varianza de esas estimaciones (suma de
+ * peso·(peso - 1), global y por endpoint) sale en los márgenes de error de LogService;
+ * es 0 si no hubo muestreo.
+
+ * El total histórico de LogAggregateStore lleva además un ContadorFrecuentes (Space-Saving)
+ * para el top de endpoints con cotas de error sin recorrer todos los conteos; los minutos y
+ * los agregados de una ventana no lo tienen (null). El contador no reemplaza a porEndpoint:
+ * el bottom, uso/endpoints, el dashboard y los histogramas por endpoint necesitan todos los
+ * endpoints, así que la memoria no queda acotada por top-capacidad sino por la cantidad de
+ * rutas, que RutasLogs limita a logs.rutas.max más "(otras)".
+ */
+public class AgregadoLogs {
+
+    private final Supplier<HistogramaLatencias> nuevoHistograma;
+
+    // Claves enteras de rango fijo: contadores por posición, sin boxing
+    private final ContadorDenso porStatus = ContadorDenso.codigosHttp();
+    private final ContadorDenso erroresPorHora = ContadorDenso.horasDelDia();
+    private final Map<String, LongAdder> porEndpoint = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> porMetodo = new ConcurrentHashMap<>();
+    private final ContadorFrecuentes frecuentes; // null salvo en el total
+
+    // Tiempos de respuesta (solo t > 0, igual que los reportes originales)
+    private final Map<String, HistogramaLatencias> latenciaPorEndpoint = new ConcurrentHashMap<>();
+    private final HistogramaLatencias latenciaGlobal;
+
+    private final LongAdder totalPeticiones = new LongAdder();
+    private final LongAdder totalErrores = new LongAdder();
+    private final LongAdder sumaTiempos = new LongAdder(); // incluye t = 0 (estado general)
+    private final LongAdder criticos = new LongAdder();
+
+    // Varianza de los conteos estimados: suma de peso·(peso - 1) de los registros muestreados
+    private final Map<String, LongAdder> varianzaPorEndpoint = new ConcurrentHashMap<>();
+    private final LongAdder varianza = new LongAdder();
+
+    public AgregadoLogs(Supplier<HistogramaLatencias> nuevoHistograma) {
+        this(nuevoHistograma, 0);
+    }
+
+    /** Con capacidadFrecuentes > 0 lleva un ContadorFrecuentes de esa cantidad de endpoints. */
+    public AgregadoLogs(Supplier<HistogramaLatencias> nuevoHistograma, int capacidadFrecuentes) {
+        this.nuevoHistograma = nuevoHistograma;
+        this.latenciaGlobal = nuevoHistograma.get();
+        this.frecuentes = capacidadFrecuentes > 0 ? new ContadorFrecuentes(capacidadFrecuentes) : null;
+    }
+
+    // ========= Registro =========
+
+    public void registrar(LogEntry log) {
+        String endpoint = Optional.ofNullable(log.getEndpoint()).orElse("(desconocido)");
+        String metodo = Optional.ofNullable(log.getMetodoHttp()).orElse("(desconocido)");
+        long t = log.getTiempoRespuesta();
+        long peso = Math.max(1, log.getPeso());
+
+        totalPeticiones.add(peso);
+        sumaTiempos.add(t * peso);
+        porStatus.sumar(log.getStatusCode(), peso);
+        sumar(porEndpoint, endpoint, peso);
+        if (frecuentes != null) frecuentes.sumar(endpoint, peso);
+        sumar(porMetodo, metodo, peso);
+
+        if (log.getStatusCode() >= 400) {
+            totalErrores.add(peso);
+            if (log.getTimestamp() != null) {
+                erroresPorHora.sumar(log.getTimestamp().getHour(), peso);
+            }
+        }
+
+        HistogramaLatencias latenciaEndpoint = latencia(endpoint);
+        if (t > 0) {
+            latenciaEndpoint.registrar(t, peso);
+            latenciaGlobal.registrar(t, peso);
+        }
+
+        if (LogService.esCritico().test(log)) {
+            criticos.add(peso);
+        }
+        if (peso > 1) sumarVarianza(endpoint, peso * (peso - 1));
+    }
+
+    /** Suma a este agregado el contenido de otro (p. ej. para unir minutos en un rango). */
+    public AgregadoLogs combinar(AgregadoLogs otro) {
+        porStatus.combinar(otro.porStatus);
+        erroresPorHora.combinar(otro.erroresPorHora);
+        otro.porEndpoint.forEach((k, v) -> sumar(porEndpoint, k, v.sum()));
+        otro.porMetodo.forEach((k, v) -> sumar(porMetodo, k, v.sum()));
+        if (frecuentes != null) {
+            if (otro.frecuentes != null) {
+                frecuentes.combinar(otro.frecuentes);
+            } else {
+                otro.porEndpoint.forEach((k, v) -> frecuentes.sumar(k, v.sum()));
+            }
+        }
+        otro.latenciaPorEndpoint.forEach((k, h) -> latencia(k).combinar(h));
+        latenciaGlobal.combinar(otro.latenciaGlobal);
+        totalPeticiones.add(otro.totalPeticiones.sum());
+        totalErrores.add(otro.totalErrores.sum());
+        sumaTiempos.add(otro.sumaTiempos.sum());
+        criticos.add(otro.criticos.sum());
+        otro.varianzaPorEndpoint.forEach((k, v) -> sumar(varianzaPorEndpoint, k, v.sum()));
+        varianza.add(otro.varianza.sum());
+        return this;
+    }
+
+    /**
+     * Collector que agrega un stream de LogEntry en una sola pasada.
+     * Es asociativo (usa combinar), así que también sirve con streams paralelos.
+     */
+    public static Collector<LogEntry, AgregadoLogs, AgregadoLogs> recolector(Supplier<HistogramaLatencias> nuevoHistograma) {
+        return Collector.of(
+                () -> new AgregadoLogs(nuevoHistograma),
+                AgregadoLogs::registrar,
+                AgregadoLogs::combinar,
+                Collector.Characteristics.IDENTITY_FINISH,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    // ========= Carga directa (reconstrucción desde consultas de agregación) =========
+
+    void sumarStatus(int status, long cantidad) {
+        porStatus.sumar(status, cantidad);
+    }
+
+    void sumarEndpoint(String endpoint, long cantidad) {
+        sumar(porEndpoint, endpoint, cantidad);
+        if (frecuentes != null) frecuentes.sumar(endpoint, cantidad);
+        latencia(endpoint);
+    }
+
+    void sumarMetodo(String metodo, long cantidad) {
+        sumar(porMetodo, metodo, cantidad);
+    }
+
+    void sumarErroresHora(int hora, long cantidad) {
+        erroresPorHora.sumar(hora, cantidad);
+    }
+
+    void sumarTiempo(String endpoint, long tiempo, long cantidad) {
+        latencia(endpoint).registrar(tiempo, cantidad);
+        latenciaGlobal.registrar(tiempo, cantidad);
+    }
+
+    /** Suma un histograma ya armado a los tiempos del endpoint y a los globales. */
+    void sumarLatencias(String endpoint, HistogramaLatencias latencias) {
+        latencia(endpoint).combinar(latencias);
+        latenciaGlobal.combinar(latencias);
+    }
+
+    void sumarTotales(long peticiones, long errores, long tiempos, long criticos) {
+        this.totalPeticiones.add(peticiones);
+        this.totalErrores.add(errores);
+        this.sumaTiempos.add(tiempos);
+        this.criticos.add(criticos);
+    }
+
+    /** Suma peso·(peso - 1) de registros muestreados del endpoint (y al total). */
+    void sumarVarianza(String endpoint, long cantidad) {
+        sumar(varianzaPorEndpoint, endpoint, cantidad);
+        varianza.add(cantidad);
+    }
+
+    private HistogramaLatencias latencia(String endpoint) {
+        return latenciaPorEndpoint.computeIfAbsent(endpoint, k -> nuevoHistograma.get());
+    }
+
+    private static <K> void sumar(Map<K, LongAdder> mapa, K clave, long cantidad) {
+        mapa.computeIfAbsent(clave, k -> new LongAdder()).add(cantidad);
+    }
+
+    // ========= Lecturas (copias inmutables) =========
+
+    public Map<Integer, Long> conteoPorStatus() {
+        return porStatus.aMapa();
+    }
+
+    /** Contador por código de estado. Solo lectura: se sigue actualizando en vivo. */
+    public ContadorDenso contadorStatus() {
+        return porStatus;
+    }
+
+    public Map<String, Long> conteoPorEndpoint() {
+        return copiar(porEndpoint);
+    }
+
+    /** Endpoints más frecuentes con cotas de error; null si este agregado no lo lleva. Solo lectura. */
+    public ContadorFrecuentes frecuentesPorEndpoint() {
+        return frecuentes;
+    }
+
+    public Map<String, Long> conteoPorMetodo() {
+        return copiar(porMetodo);
+    }
+
+    public Map<Integer, Long> erroresPorHora() {
+        return erroresPorHora.aMapa();
+    }
+
+    /** Contador de errores por hora del día. Solo lectura. */
+    public ContadorDenso contadorErroresPorHora() {
+        return erroresPorHora;
+    }
+
+    /** Histograma de todos los tiempos positivos. Solo lectura: se sigue actualizando en vivo. */
+    public HistogramaLatencias latenciaGlobal() {
+        return latenciaGlobal;
+    }
+
+    /** Histogramas por endpoint (incluye endpoints sin tiempos positivos). Solo lectura. */
+    public Map<String, HistogramaLatencias> latenciaPorEndpoint() {
+        return Collections.unmodifiableMap(latenciaPorEndpoint);
+    }
+
+    public long totalPeticiones() {
+        return totalPeticiones.sum();
+    }
+
+    public long totalErrores() {
+        return totalErrores.sum();
+    }
+
+    public long sumaTiempos() {
+        return sumaTiempos.sum();
+    }
+
+    public long cantidadCriticos() {
+        return criticos.sum();
+    }
+
+    /** Varianza del total de peticiones estimado (0 sin muestreo). */
+    public long varianza() {
+        return varianza.sum();
+    }
+
+    /** Varianza del conteo estimado de cada endpoint; los que no tuvieron muestreo no aparecen. */
+    public Map<String, Long> varianzaPorEndpoint() {
+        return copiar(varianzaPorEndpoint);
+    }
+
+    private static <K> Map<K, Long> copiar(Map<K, LongAdder> mapa) {
+        return mapa.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().sum()));
+    }
+}
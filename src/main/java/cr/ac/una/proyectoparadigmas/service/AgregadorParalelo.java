@@ -0,0 +1,164 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Agrega conjuntos grandes de LogEntry en paralelo sobre un ForkJoinPool propio.
+
+ * Cada tarea llena su propio AgregadoLogs (sin compartir contadores entre hilos) y
+ * los resultados parciales se unen con AgregadoLogs.combinar, que es asociativo, así
+ * que el resultado es idéntico al del recorrido secuencial.
+ * Por debajo de logs.paralelo.umbral registros se agrega en el hilo que llama:
+ * para pocos datos repartir el trabajo cuesta más de lo que ahorra.
+ */
+@Component
+public class AgregadorParalelo {
+
+    private final ForkJoinPool pool;
+    private final int umbral;
+
+    public AgregadorParalelo(@Value("${logs.paralelo.hilos:0}") int hilos,
+                             @Value("${logs.paralelo.umbral:50000}") int umbral) {
+        int paralelismo = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(paralelismo, pool -> {
+            ForkJoinWorkerThread hilo = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            hilo.setName("log-agregador-" + hilo.getPoolIndex());
+            return hilo;
+        }, null, false);
+        this.umbral = Math.max(1, umbral);
+    }
+
+    public int paralelismo() {
+        return pool.getParallelism();
+    }
+
+    // ========= Listas en memoria =========
+
+    /** Agrega una lista completa; si supera el umbral la parte recursivamente (fork/join). */
+    public AgregadoLogs agregar(List<LogEntry> logs, Supplier<HistogramaLatencias> nuevoHistograma) {
+        if (logs.size() <= umbral) {
+            return secuencial(logs, nuevoHistograma);
+        }
+        return pool.invoke(new Tarea(logs, nuevoHistograma));
+    }
+
+    @SuppressWarnings("serial") // ForkJoinTask es Serializable, pero las tareas nunca se serializan
+    private final class Tarea extends RecursiveTask<AgregadoLogs> {
+        private final List<LogEntry> logs;
+        private final Supplier<HistogramaLatencias> nuevoHistograma;
+
+        Tarea(List<LogEntry> logs, Supplier<HistogramaLatencias> nuevoHistograma) {
+            this.logs = logs;
+            this.nuevoHistograma = nuevoHistograma;
+        }
+
+        @Override
+        protected AgregadoLogs compute() {
+            if (logs.size() <= umbral) {
+                return secuencial(logs, nuevoHistograma);
+            }
+            int medio = logs.size() / 2;
+            Tarea izquierda = new Tarea(logs.subList(0, medio), nuevoHistograma);
+            Tarea derecha = new Tarea(logs.subList(medio, logs.size()), nuevoHistograma);
+            izquierda.fork();
+            return derecha.compute().combinar(izquierda.join());
+        }
+    }
+
+    // ========= Cursores =========
+
+    /**
+     * Agrega un stream secuencial (p. ej. un cursor de la BD) leyéndolo por bloques de
+     * {@code umbral} registros: mientras este hilo lee el siguiente bloque, el pool
+     * agrega los anteriores. Como mucho hay 2 × paralelismo bloques en memoria a la vez.
+     * Si todo el stream cabe en un bloque se agrega en el hilo que llama.
+     */
+    public AgregadoLogs agregar(Stream<LogEntry> logs, Supplier<HistogramaLatencias> nuevoHistograma) {
+        Iterator<LogEntry> it = logs.iterator();
+        List<LogEntry> bloque = leerBloque(it);
+        if (!it.hasNext()) {
+            return secuencial(bloque, nuevoHistograma);
+        }
+
+        AgregadoLogs resultado = new AgregadoLogs(nuevoHistograma);
+        Deque<ForkJoinTask<AgregadoLogs>> pendientes = new ArrayDeque<>();
+        while (!bloque.isEmpty()) {
+            List<LogEntry> actual = bloque;
+            pendientes.add(pool.submit(() -> secuencial(actual, nuevoHistograma)));
+            if (pendientes.size() > 2 * pool.getParallelism()) {
+                resultado.combinar(pendientes.poll().join());
+            }
+            bloque = leerBloque(it);
+        }
+        pendientes.forEach(t -> resultado.combinar(t.join()));
+        return resultado;
+    }
+
+    private List<LogEntry> leerBloque(Iterator<LogEntry> it) {
+        List<LogEntry> bloque = new ArrayList<>(umbral);
+        while (bloque.size() < umbral && it.hasNext()) {
+            bloque.add(it.next());
+        }
+        return bloque;
+    }
+
+    private static AgregadoLogs secuencial(List<LogEntry> logs, Supplier<HistogramaLatencias> nuevoHistograma) {
+        AgregadoLogs agregado = new AgregadoLogs(nuevoHistograma);
+        for (LogEntry log : logs) {
+            agregado.registrar(log);
+        }
+        return agregado;
+    }
+
+    // ========= Tareas generales =========
+
+    /**
+     * Ejecuta tareas independientes en el pool (p. ej. partes de un archivo que importar)
+     * y devuelve sus resultados en el mismo orden. Si alguna falla se relanza su excepción.
+     */
+    public <T> List<T> enParalelo(List<Callable<T>> tareas) {
+        List<T> resultados = new ArrayList<>(tareas.size());
+        for (Future<T> tarea : pool.invokeAll(tareas)) {
+            try {
+                resultados.add(tarea.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrumpido esperando tareas paralelas", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException r) throw r;
+                if (e.getCause() instanceof Error err) throw err;
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return resultados;
+    }
+
+    /** Envía una tarea al pool sin esperarla (para tuberías acotadas como la de agregar(Stream)). */
+    public <T> ForkJoinTask<T> enviar(Callable<T> tarea) {
+        return pool.submit(tarea);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        pool.shutdown();
+    }
+}
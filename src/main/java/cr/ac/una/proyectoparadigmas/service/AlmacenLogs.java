@@ -0,0 +1,42 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Almacenamiento de los LogEntry. PersonaAspect y GlobalExceptionHandler escriben por
+ * aquí, y LogService / LogAggregateStore leen por aquí, sin depender de cómo se guardan.
+
+ * Se elige con logs.almacen:
+ * - jpa (por defecto): tabla log_entry; escritura por lotes con LogWriter y consultas de LogRepository.
+ * - segmentos: archivos binarios de registros de ancho fijo mapeados en memoria (AlmacenLogsSegmentos).
+
+ * Todas las lecturas reciben una Ventana [desde, hasta); los registros sin timestamp solo
+ * entran cuando la ventana no tiene límites (igual que el filtro de LogRepository.VENTANA).
+ */
+public interface AlmacenLogs {
+
+    /** Guarda un registro y lo suma a los agregados en memoria. No bloquea la petición. */
+    void registrar(LogEntry log);
+
+    /** Agregado de todos los registros de la ventana, calculado por el almacenamiento. */
+    AgregadoLogs agregar(Ventana ventana, Supplier<HistogramaLatencias> nuevoHistograma);
+
+    /** Hasta {@code limite} eventos críticos de la ventana con id mayor a despuesDe (null = desde el principio), en orden de id. */
+    List<LogEntry> criticos(Ventana ventana, Long despuesDe, int limite);
+
+    /**
+     * Pasa al lector los registros de la ventana (en orden de id) sin cargarlos todos en
+     * memoria. El stream solo es válido dentro del lector.
+     */
+    <T> T recorrer(Ventana ventana, Function<Stream<LogEntry>, T> lector);
+
+    /** Como recorrer, pero solo los eventos críticos (nivel ERROR y status >= 500). */
+    <T> T recorrerCriticos(Ventana ventana, Function<Stream<LogEntry>, T> lector);
+}
@@ -0,0 +1,127 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.ResumenLogs;
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+import cr.ac.una.proyectoparadigmas.repository.LogAgregadoRepository;
+import cr.ac.una.proyectoparadigmas.repository.LogRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * AlmacenLogs sobre la tabla log_entry (logs.almacen=jpa, el valor por defecto).
+
+ * - registrar encola en LogWriter, que inserta por lotes con JDBC en segundo plano.
+ * - agregar usa las consultas de agregación de LogRepository: la base de datos hace el
+ *   recorrido y solo viajan unas pocas filas por reporte. Las de endpoint agrupan por el
+ *   código rutaId y RutasLogs lo traduce. Les suma los resúmenes por hora / día de lo que
+ *   RetencionLogs ya purgó (LogAgregadoRepository).
+ * - recorrer usa un cursor de solo lectura y desacopla cada fila del contexto de
+ *   persistencia, así que la memoria no depende del tamaño de la ventana.
+ */
+@Component
+@ConditionalOnProperty(name = "logs.almacen", havingValue = "jpa", matchIfMissing = true)
+public class AlmacenLogsJpa implements AlmacenLogs {
+
+    private final LogWriter logWriter;
+    private final LogRepository logRepository;
+    private final LogAgregadoRepository agregadoRepository;
+    private final RutasLogs rutas;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public AlmacenLogsJpa(LogWriter logWriter,
+                          LogRepository logRepository,
+                          LogAgregadoRepository agregadoRepository,
+                          RutasLogs rutas,
+                          EntityManager entityManager,
+                          PlatformTransactionManager transactionManager) {
+        this.logWriter = logWriter;
+        this.logRepository = logRepository;
+        this.agregadoRepository = agregadoRepository;
+        this.rutas = rutas;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionManager != null ? new TransactionTemplate(transactionManager) : null;
+        if (transactionTemplate != null) transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public void registrar(LogEntry log) {
+        logWriter.registrar(log); // solo encola; se escribe por lotes en segundo plano
+    }
+
+    @Override
+    public AgregadoLogs agregar(Ventana ventana, Supplier<HistogramaLatencias> nuevoHistograma) {
+        return transactionTemplate.execute(status -> {
+            AgregadoLogs agregado = new AgregadoLogs(nuevoHistograma);
+            logRepository.contarPorStatus(ventana.desde(), ventana.hasta())
+                    .forEach(c -> agregado.sumarStatus(c.code(), c.count()));
+            logRepository.contarPorRuta(ventana.desde(), ventana.hasta())
+                    .forEach(c -> agregado.sumarEndpoint(rutas.ruta(c.rutaId(), c.endpoint()), c.cantidad()));
+            logRepository.contarPorMetodoHttp(ventana.desde(), ventana.hasta())
+                    .forEach(c -> agregado.sumarMetodo(c.clave(), c.cantidad()));
+            logRepository.contarErroresPorHora(ventana.desde(), ventana.hasta())
+                    .forEach(c -> agregado.sumarErroresHora(c.hora(), c.cantidad()));
+            logRepository.frecuenciaTiemposPorRuta(ventana.desde(), ventana.hasta())
+                    .forEach(c -> agregado.sumarTiempo(rutas.ruta(c.rutaId(), c.endpoint()), c.tiempo(), c.cantidad()));
+            logRepository.varianzaPorRuta(ventana.desde(), ventana.hasta())
+                    .forEach(c -> agregado.sumarVarianza(rutas.ruta(c.rutaId(), c.endpoint()), c.cantidad()));
+            ResumenLogs resumen = logRepository.resumen(ventana.desde(), ventana.hasta());
+            agregado.sumarTotales(resumen.totalPeticiones(), resumen.totalErrores(), resumen.sumaTiempos(), resumen.criticos());
+            sumarResumenes(agregadoRepository, agregado, ventana);
+            return agregado;
+        });
+    }
+
+    /** Lo ya purgado de log_entry, desde los resúmenes por hora / día (también para LogColumnarStore). */
+    static void sumarResumenes(LogAgregadoRepository agregadoRepository, AgregadoLogs agregado, Ventana ventana) {
+        ResumenLogs resumen = agregadoRepository.resumen(ventana.desde(), ventana.hasta());
+        if (resumen.totalPeticiones() == 0) return; // nada purgado en la ventana
+        agregadoRepository.contarPorStatus(ventana.desde(), ventana.hasta())
+                .forEach(c -> agregado.sumarStatus(c.code(), c.count()));
+        agregadoRepository.contarPorEndpoint(ventana.desde(), ventana.hasta())
+                .forEach(c -> agregado.sumarEndpoint(c.clave(), c.cantidad()));
+        agregadoRepository.contarPorMetodoHttp(ventana.desde(), ventana.hasta())
+                .forEach(c -> agregado.sumarMetodo(c.clave(), c.cantidad()));
+        agregadoRepository.contarErroresPorHora(ventana.desde(), ventana.hasta())
+                .forEach(c -> agregado.sumarErroresHora(c.hora(), c.cantidad()));
+        agregadoRepository.frecuenciaTiemposPorEndpoint(ventana.desde(), ventana.hasta())
+                .forEach(c -> agregado.sumarTiempo(c.endpoint(), c.tiempo(), c.cantidad()));
+        agregadoRepository.varianzaPorEndpoint(ventana.desde(), ventana.hasta())
+                .forEach(c -> agregado.sumarVarianza(c.clave(), c.cantidad()));
+        agregado.sumarTotales(resumen.totalPeticiones(), resumen.totalErrores(), resumen.sumaTiempos(), resumen.criticos());
+    }
+
+    @Override
+    public List<LogEntry> criticos(Ventana ventana, Long despuesDe, int limite) {
+        return logRepository.findCriticos(ventana.desde(), ventana.hasta(), despuesDe, Limit.of(limite));
+    }
+
+    @Override
+    public <T> T recorrer(Ventana ventana, Function<Stream<LogEntry>, T> lector) {
+        return transactionTemplate.execute(status -> {
+            try (Stream<LogEntry> logs = logRepository.streamVentana(ventana.desde(), ventana.hasta())) {
+                return lector.apply(logs.peek(entityManager::detach)); // no acumular entidades en el contexto
+            }
+        });
+    }
+
+    @Override
+    public <T> T recorrerCriticos(Ventana ventana, Function<Stream<LogEntry>, T> lector) {
+        return transactionTemplate.execute(status -> {
+            try (Stream<LogEntry> logs = logRepository.streamCriticos(ventana.desde(), ventana.hasta())) {
+                return lector.apply(logs.peek(entityManager::detach));
+            }
+        });
+    }
+}
@@ -0,0 +1,436 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.DiccionarioCadenas;
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * AlmacenLogs en archivos propios, sin base de datos (logs.almacen=segmentos).
+
+ * Los registros se agregan a segmentos de ancho fijo (SegmentoLogs, 48 bytes por registro)
+ * mapeados en memoria dentro de logs.segmentos.directorio. Los textos (endpoint, método,
+ * nivel, mensaje) se guardan una sola vez en textos.dat y los registros llevan su código.
+ * - Escritura: un registro se copia al mapeo dentro de un lock (microsegundos, sin cola ni
+ *   hilo intermedio); al llenarse el segmento se sella con su índice y se abre el siguiente.
+ *   El lock es un ReentrantLock y no synchronized: dentro se escribe a disco (textos nuevos,
+ *   sellado) y con hilos virtuales un synchronized fija el hilo portador durante esa espera.
+ *   Cada logs.segmentos.sync-ms un hilo baja a disco textos.dat y el segmento activo.
+ * - Lectura: directo sobre el mapeo (sin copiar a buffers intermedios), saltando con el
+ *   índice disperso los bloques fuera de la ventana. agregar reparte los bloques entre los
+ *   hilos de AgregadorParalelo.
+ * - Recuperación: al abrir, el segmento activo se valida registro a registro (id y CRC) y
+ *   la cola a medio escribir de una caída se descarta.
+
+ * Las importaciones de app.log / NDJSON y la copia columnar siguen trabajando sobre log_entry.
+ */
+@Component
+@ConditionalOnProperty(name = "logs.almacen", havingValue = "segmentos")
+public class AlmacenLogsSegmentos implements AlmacenLogs {
+    private static final Logger logger = Logger.getLogger(AlmacenLogsSegmentos.class.getName());
+
+    private static final String TEXTOS = "textos.dat";
+    private static final int BLOQUES_POR_TAREA = 64; // 65536 registros por tarea de agregar
+
+    private final LogAggregateStore store;
+    private final AgregadorParalelo agregador;
+    private final Path directorio;
+    private final int registrosPorSegmento;
+
+    private final DiccionarioCadenas textos = new DiccionarioCadenas();
+    private FileChannel canalTextos;
+    private int textosGuardados;
+
+    private volatile SegmentoLogs[] segmentos = new SegmentoLogs[0];
+    private volatile SegmentoLogs activo;
+    private volatile boolean cerrado;
+    private final ScheduledExecutorService sincronizador;
+    private final LongAdder fallidos = new LongAdder();
+    private final ReentrantLock escritura = new ReentrantLock(); // protege textos, segmentos y canalTextos al escribir
+
+    public AlmacenLogsSegmentos(LogAggregateStore store,
+                                AgregadorParalelo agregador,
+                                RegistroMetricas metricas,
+                                @Value("${logs.segmentos.directorio:logs-segmentos}") String directorio,
+                                @Value("${logs.segmentos.registros-por-segmento:1048576}") int registrosPorSegmento,
+                                @Value("${logs.segmentos.sync-ms:1000}") long syncMs) {
+        if (registrosPorSegmento < SegmentoLogs.BLOQUE
+                || registrosPorSegmento > (Integer.MAX_VALUE - SegmentoLogs.CABECERA) / SegmentoLogs.REGISTRO) {
+            throw new IllegalArgumentException("logs.segmentos.registros-por-segmento debe estar entre "
+                    + SegmentoLogs.BLOQUE + " y " + (Integer.MAX_VALUE - SegmentoLogs.CABECERA) / SegmentoLogs.REGISTRO);
+        }
+        this.store = store;
+        this.agregador = agregador;
+        this.directorio = Path.of(directorio);
+        this.registrosPorSegmento = registrosPorSegmento;
+        try {
+            abrir();
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudieron abrir los segmentos de logs en " + this.directorio, e);
+        }
+
+        if (syncMs > 0) {
+            sincronizador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "log-segmentos-sync");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            sincronizador.scheduleWithFixedDelay(this::sincronizar, syncMs, syncMs, TimeUnit.MILLISECONDS);
+        } else {
+            sincronizador = null;
+        }
+
+        metricas.registrarIndicador("logs_segmentos_registros", "Registros guardados en segmentos", this::cantidad);
+        metricas.registrarIndicador("logs_segmentos_archivos", "Archivos de segmento", () -> segmentos.length);
+        metricas.registrarIndicador("logs_segmentos_textos", "Textos distintos en textos.dat", textos::tamano);
+        metricas.registrarIndicador("logs_segmentos_fallidos", "Registros que no se pudieron guardar", fallidos::sum);
+    }
+
+    // ========= Apertura y recuperación =========
+
+    private void abrir() throws IOException {
+        long inicio = System.currentTimeMillis();
+        Files.createDirectories(directorio);
+        abrirTextos();
+
+        List<Path> archivos;
+        try (Stream<Path> lista = Files.list(directorio)) {
+            archivos = lista.filter(p -> p.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+        List<SegmentoLogs> abiertos = new ArrayList<>();
+        for (Path archivo : archivos) {
+            SegmentoLogs segmento = SegmentoLogs.abrir(archivo, textos.tamano());
+            if (!abiertos.isEmpty()) {
+                SegmentoLogs anterior = abiertos.get(abiertos.size() - 1);
+                if (anterior.primerId + anterior.cantidad() != segmento.primerId) {
+                    logger.warning("Faltan ids entre " + anterior.archivo.getFileName() + " y " + archivo.getFileName());
+                }
+            }
+            abiertos.add(segmento);
+        }
+        SegmentoLogs ultimo = abiertos.isEmpty() ? null : abiertos.get(abiertos.size() - 1);
+        if (ultimo == null || ultimo.lleno()) {
+            abiertos.add(nuevoSegmento(ultimo == null ? 1 : ultimo.primerId + ultimo.cantidad()));
+        }
+        segmentos = abiertos.toArray(SegmentoLogs[]::new);
+        activo = segmentos[segmentos.length - 1];
+        logger.info("Segmentos de logs abiertos: " + cantidad() + " registros en " + segmentos.length
+                + " archivos y " + textos.tamano() + " textos en " + (System.currentTimeMillis() - inicio) + " ms");
+    }
+
+    /** Carga textos.dat ([largo int][UTF-8], largo -1 = null); una entrada cortada por una caída se descarta. */
+    private void abrirTextos() throws IOException {
+        Path archivo = directorio.resolve(TEXTOS);
+        canalTextos = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer contenido = ByteBuffer.wrap(Files.readAllBytes(archivo));
+        while (contenido.remaining() >= 4) {
+            int largo = contenido.getInt(contenido.position());
+            if (largo < -1 || contenido.remaining() - 4 < Math.max(largo, 0)) break;
+            contenido.getInt();
+            String texto = null;
+            if (largo >= 0) {
+                texto = new String(contenido.array(), contenido.position(), largo, StandardCharsets.UTF_8);
+                contenido.position(contenido.position() + largo);
+            }
+            textos.codigo(texto);
+        }
+        if (contenido.position() < canalTextos.size()) {
+            logger.warning("Se descarta una entrada incompleta al final de " + archivo);
+            canalTextos.truncate(contenido.position());
+        }
+        canalTextos.position(contenido.position());
+        textosGuardados = textos.tamano();
+    }
+
+    private SegmentoLogs nuevoSegmento(long primerId) throws IOException {
+        return SegmentoLogs.crear(directorio.resolve(String.format("%020d.seg", primerId)), primerId, registrosPorSegmento);
+    }
+
+    // ========= Escritura =========
+
+    @Override
+    public void registrar(LogEntry log) {
+        try {
+            log.setId(anexar(log));
+        } catch (IOException | RuntimeException e) {
+            fallidos.increment();
+            logger.log(Level.WARNING, "No se pudo guardar un log en los segmentos", e);
+            return;
+        }
+        store.registrar(log);
+    }
+
+    private long anexar(LogEntry log) throws IOException {
+        escritura.lock();
+        try {
+            if (cerrado) throw new IllegalStateException("El almacén de segmentos está cerrado");
+            if (activo.lleno()) rodar();
+            int endpoint = textos.codigo(log.getEndpoint());
+            int metodo = textos.codigo(log.getMetodoHttp());
+            int nivel = textos.codigo(log.getNivel());
+            int mensaje = textos.codigo(log.getMensaje());
+            guardarTextosNuevos(); // antes que el registro que los usa
+            return activo.anexar(micros(log.getTimestamp()), log.getTiempoRespuesta(), log.getStatusCode(),
+                    log.getPeso(), endpoint, metodo, nivel, mensaje);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private void guardarTextosNuevos() throws IOException {
+        while (textosGuardados < textos.tamano()) {
+            String texto = textos.valor(textosGuardados);
+            byte[] bytes = texto == null ? new byte[0] : texto.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer entrada = ByteBuffer.allocate(4 + bytes.length).putInt(texto == null ? -1 : bytes.length).put(bytes);
+            entrada.flip();
+            while (entrada.hasRemaining()) canalTextos.write(entrada);
+            textosGuardados++;
+        }
+    }
+
+    /** Sella el segmento lleno (datos e índice a disco) y publica uno nuevo. */
+    private void rodar() throws IOException {
+        SegmentoLogs lleno = activo;
+        lleno.sellar();
+        SegmentoLogs nuevo = nuevoSegmento(lleno.primerId + lleno.cantidad());
+        SegmentoLogs[] actuales = Arrays.copyOf(segmentos, segmentos.length + 1);
+        actuales[actuales.length - 1] = nuevo;
+        segmentos = actuales;
+        activo = nuevo;
+    }
+
+    private void sincronizar() {
+        try {
+            canalTextos.force(false); // primero los textos: un registro en disco nunca apunta a un texto perdido
+            activo.forzar();
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "No se pudieron bajar a disco los segmentos de logs", e);
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (sincronizador != null) sincronizador.shutdown();
+        escritura.lock();
+        try {
+            if (cerrado) return;
+            cerrado = true;
+            sincronizar();
+            try {
+                canalTextos.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "No se pudo cerrar " + TEXTOS, e);
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // ========= Lectura =========
+
+    public long cantidad() {
+        long total = 0;
+        for (SegmentoLogs segmento : segmentos) total += segmento.cantidad();
+        return total;
+    }
+
+    @Override
+    public AgregadoLogs agregar(Ventana ventana, Supplier<HistogramaLatencias> nuevoHistograma) {
+        Rango rango = new Rango(ventana);
+        List<Callable<AgregadoLogs>> tareas = new ArrayList<>();
+        for (SegmentoLogs segmento : segmentos) {
+            int n = segmento.cantidad();
+            for (int desde = 0; desde < n; desde += BLOQUES_POR_TAREA * SegmentoLogs.BLOQUE) {
+                int inicio = desde;
+                int fin = Math.min(n, desde + BLOQUES_POR_TAREA * SegmentoLogs.BLOQUE);
+                tareas.add(() -> agregar(segmento, inicio, fin, rango, nuevoHistograma));
+            }
+        }
+        AgregadoLogs total = new AgregadoLogs(nuevoHistograma);
+        agregador.enParalelo(tareas).forEach(total::combinar);
+        return total;
+    }
+
+    private AgregadoLogs agregar(SegmentoLogs segmento, int inicio, int fin, Rango rango,
+                                 Supplier<HistogramaLatencias> nuevoHistograma) {
+        AgregadoLogs agregado = new AgregadoLogs(nuevoHistograma);
+        LogEntry log = new LogEntry(); // se reutiliza: registrar no guarda la entrada
+        for (int i = inicio; i < fin; i++) {
+            if (rango.acotado && i % SegmentoLogs.BLOQUE == 0 && !segmento.bloqueEnRango(i / SegmentoLogs.BLOQUE, rango.desde, rango.hasta)) {
+                i += SegmentoLogs.BLOQUE - 1;
+                continue;
+            }
+            long timestamp = segmento.timestamp(i);
+            if (!rango.contiene(timestamp)) continue;
+            int status = segmento.status(i);
+            // AgregadoLogs solo mira el timestamp de los errores; así no se crea un LocalDateTime por fila
+            log.setTimestamp(status >= 400 && timestamp != SegmentoLogs.SIN_TIMESTAMP ? fecha(timestamp) : null);
+            log.setStatusCode(status);
+            log.setTiempoRespuesta(segmento.tiempo(i));
+            log.setPeso(segmento.peso(i));
+            log.setEndpoint(textos.valor(segmento.endpoint(i)));
+            log.setMetodoHttp(textos.valor(segmento.metodo(i)));
+            log.setNivel(textos.valor(segmento.nivel(i)));
+            agregado.registrar(log);
+        }
+        return agregado;
+    }
+
+    @Override
+    public List<LogEntry> criticos(Ventana ventana, Long despuesDe, int limite) {
+        List<LogEntry> pagina = new ArrayList<>(Math.min(limite, 1024));
+        Cursor cursor = new Cursor(new Rango(ventana), true, despuesDe == null ? 0 : despuesDe);
+        while (pagina.size() < limite && cursor.hasNext()) pagina.add(cursor.next());
+        return pagina;
+    }
+
+    @Override
+    public <T> T recorrer(Ventana ventana, Function<Stream<LogEntry>, T> lector) {
+        return lector.apply(stream(new Cursor(new Rango(ventana), false, 0)));
+    }
+
+    @Override
+    public <T> T recorrerCriticos(Ventana ventana, Function<Stream<LogEntry>, T> lector) {
+        return lector.apply(stream(new Cursor(new Rango(ventana), true, 0)));
+    }
+
+    private static Stream<LogEntry> stream(Cursor cursor) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    private boolean critico(SegmentoLogs segmento, int i) {
+        return segmento.status(i) >= 500 && "ERROR".equalsIgnoreCase(textos.valor(segmento.nivel(i)));
+    }
+
+    private LogEntry leer(SegmentoLogs segmento, int i) {
+        LogEntry log = new LogEntry();
+        long timestamp = segmento.timestamp(i);
+        log.setId(segmento.id(i));
+        log.setTimestamp(timestamp == SegmentoLogs.SIN_TIMESTAMP ? null : fecha(timestamp));
+        log.setNivel(textos.valor(segmento.nivel(i)));
+        log.setMensaje(textos.valor(segmento.mensaje(i)));
+        log.setEndpoint(textos.valor(segmento.endpoint(i)));
+        log.setMetodoHttp(textos.valor(segmento.metodo(i)));
+        log.setStatusCode(segmento.status(i));
+        log.setTiempoRespuesta(segmento.tiempo(i));
+        log.setPeso(segmento.peso(i));
+        return log;
+    }
+
+    /** Registros de los segmentos publicados al crearlo, en orden de id, desde el id despuesDe + 1. */
+    private final class Cursor implements Iterator<LogEntry> {
+        private final SegmentoLogs[] lista = segmentos;
+        private final Rango rango;
+        private final boolean soloCriticos;
+        private int s;
+        private int i;
+        private int fin;
+        private LogEntry siguiente;
+
+        Cursor(Rango rango, boolean soloCriticos, long despuesDe) {
+            this.rango = rango;
+            this.soloCriticos = soloCriticos;
+            while (s < lista.length && lista[s].primerId + lista[s].cantidad() <= despuesDe + 1) s++;
+            if (s < lista.length) {
+                fin = lista[s].cantidad();
+                i = (int) Math.max(0, despuesDe + 1 - lista[s].primerId);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (siguiente == null && s < lista.length) {
+                SegmentoLogs segmento = lista[s];
+                if (i >= fin) {
+                    if (++s < lista.length) {
+                        i = 0;
+                        fin = lista[s].cantidad();
+                    }
+                    continue;
+                }
+                if (rango.acotado && !segmento.bloqueEnRango(i / SegmentoLogs.BLOQUE, rango.desde, rango.hasta)) {
+                    i = (i / SegmentoLogs.BLOQUE + 1) * SegmentoLogs.BLOQUE;
+                    continue;
+                }
+                if (rango.contiene(segmento.timestamp(i)) && (!soloCriticos || critico(segmento, i))) {
+                    siguiente = leer(segmento, i);
+                }
+                i++;
+            }
+            return siguiente != null;
+        }
+
+        @Override
+        public LogEntry next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            LogEntry log = siguiente;
+            siguiente = null;
+            return log;
+        }
+    }
+
+    /** Ventana en microsegundos; sin límites también entran los registros sin timestamp. */
+    private static final class Rango {
+        final boolean acotado;
+        final long desde;
+        final long hasta;
+
+        Rango(Ventana ventana) {
+            this.acotado = ventana.desde() != null || ventana.hasta() != null;
+            this.desde = ventana.desde() != null ? micros(ventana.desde()) : Long.MIN_VALUE + 1;
+            this.hasta = ventana.hasta() != null ? micros(ventana.hasta()) : Long.MAX_VALUE;
+        }
+
+        boolean contiene(long timestamp) {
+            return !acotado || (timestamp != SegmentoLogs.SIN_TIMESTAMP && timestamp >= desde && timestamp < hasta);
+        }
+    }
+
+    // ========= Conversión de fechas =========
+
+    /** LocalDateTime como microsegundos "de reloj" (sin zona), que se ordenan igual que las fechas. */
+    static long micros(LocalDateTime fecha) {
+        if (fecha == null) return SegmentoLogs.SIN_TIMESTAMP;
+        return fecha.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + fecha.getNano() / 1_000;
+    }
+
+    static LocalDateTime fecha(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,225 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Convierte líneas del log de Spring Boot (app.log) en LogEntry.
+
+ * Solo interesan los dos mensajes que escribe PersonaAspect:
+ * - "Tiempo de respuesta (findAll): 12 ms [GET /api/persona 200]" (INFO)
+ * - "ERROR (GET /api/persona/boom) status=500 en 1 ms" (WARN en el log, ERROR en LogEntry)
+ * Las líneas de versiones anteriores no traen "[método endpoint status]": el endpoint
+ * se deduce del nombre del método del controlador (rutasPorHandler) y el status es 200.
+
+ * Trabaja directamente sobre bytes (un archivo mapeado en memoria o un bloque ya
+ * descomprimido): busca los saltos de línea y descarta las líneas que no son de
+ * PersonaAspect sin crear Strings. Solo se decodifica el mensaje de las que sí lo son.
+ * No guarda estado mutable, así que varios hilos pueden usar la misma instancia.
+ */
+public final class AnalizadorLineasLog {
+
+    /** Método HTTP y patrón de ruta de un método de controlador. */
+    public record Ruta(String metodo, String endpoint) {}
+
+    private static final byte[] SEPARADOR = " : ".getBytes(StandardCharsets.US_ASCII);
+    private static final String TIEMPO = "Tiempo de respuesta (";
+    private static final String ERROR = "ERROR (";
+    private static final byte[] TIEMPO_BYTES = TIEMPO.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ERROR_BYTES = ERROR.getBytes(StandardCharsets.US_ASCII);
+    private static final int LARGO_FECHA = 23; // 2025-09-21T11:53:46.933
+
+    private final Map<String, Ruta> rutasPorHandler;
+    private final ZoneId zona;
+
+    /**
+     * @param rutasPorHandler nombre del método del controlador → ruta, para las líneas antiguas
+     * @param zona            zona horaria en la que se guardan los timestamps de LogEntry
+     */
+    public AnalizadorLineasLog(Map<String, Ruta> rutasPorHandler, ZoneId zona) {
+        this.rutasPorHandler = rutasPorHandler;
+        this.zona = zona;
+    }
+
+    // ========= Bloques de bytes =========
+
+    /**
+     * Analiza las líneas de datos[desde, hasta) (la última puede no terminar en '\n')
+     * y entrega cada LogEntry reconocido. Devuelve la cantidad de líneas leídas.
+     */
+    public long analizar(ByteBuffer datos, int desde, int hasta, Consumer<LogEntry> destino) {
+        long lineas = 0;
+        int inicio = desde;
+        while (inicio < hasta) {
+            int fin = buscar(datos, inicio, hasta);
+            int finLinea = fin;
+            if (finLinea > inicio && datos.get(finLinea - 1) == '\r') finLinea--;
+            LogEntry log = linea(datos, inicio, finLinea);
+            if (log != null) destino.accept(log);
+            lineas++;
+            inicio = fin + 1;
+        }
+        return lineas;
+    }
+
+    /** Posición del siguiente '\n' en [desde, hasta), o hasta si no hay. */
+    static int buscar(ByteBuffer datos, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            if (datos.get(i) == '\n') return i;
+        }
+        return hasta;
+    }
+
+    /** Analiza una sola línea (sin el salto); null si no es de PersonaAspect. */
+    public LogEntry analizarLinea(String linea) {
+        byte[] bytes = linea.getBytes(StandardCharsets.UTF_8);
+        return linea(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private LogEntry linea(ByteBuffer datos, int inicio, int fin) {
+        if (fin - inicio < LARGO_FECHA + SEPARADOR.length || !digito(datos.get(inicio))) {
+            return null; // línea vacía, continuación de un stack trace, etc.
+        }
+        int separador = indice(datos, SEPARADOR, inicio + LARGO_FECHA, fin);
+        if (separador < 0) return null;
+        int mensaje = separador + SEPARADOR.length;
+        boolean esTiempo = empiezaCon(datos, mensaje, fin, TIEMPO_BYTES);
+        if (!esTiempo && !empiezaCon(datos, mensaje, fin, ERROR_BYTES)) return null;
+
+        try {
+            LocalDateTime timestamp = fecha(datos, inicio);
+            if (timestamp == null) return null;
+            String texto = texto(datos, mensaje, fin);
+            LogEntry log = esTiempo ? tiempo(texto) : error(texto);
+            log.setTimestamp(timestamp);
+            return log;
+        } catch (RuntimeException e) {
+            return null; // mensaje con el formato roto: se ignora la línea
+        }
+    }
+
+    // ========= Mensajes de PersonaAspect =========
+
+    private LogEntry tiempo(String texto) {
+        int cierre = texto.indexOf("): ", TIEMPO.length());
+        String handler = texto.substring(TIEMPO.length(), cierre);
+        int ms = texto.indexOf(" ms", cierre + 3);
+
+        LogEntry log = new LogEntry();
+        log.setNivel("INFO");
+        log.setMensaje("Ejecutado: " + handler);
+        log.setTiempoRespuesta(Long.parseLong(texto, cierre + 3, ms, 10));
+
+        int corchete = texto.indexOf(" [", ms);
+        if (corchete >= 0 && texto.endsWith("]")) {
+            int espacio = texto.indexOf(' ', corchete + 2);
+            int ultimo = texto.lastIndexOf(' ', texto.length() - 2);
+            log.setMetodoHttp(texto.substring(corchete + 2, espacio));
+            log.setEndpoint(texto.substring(espacio + 1, ultimo));
+            log.setStatusCode(Integer.parseInt(texto, ultimo + 1, texto.length() - 1, 10));
+        } else {
+            Ruta ruta = rutasPorHandler.get(handler);
+            log.setMetodoHttp(ruta != null ? ruta.metodo() : "(desconocido)");
+            log.setEndpoint(ruta != null ? ruta.endpoint() : "(" + handler + ")");
+            log.setStatusCode(200);
+        }
+        return log;
+    }
+
+    private static LogEntry error(String texto) {
+        int espacio = texto.indexOf(' ', ERROR.length());
+        int cierre = texto.indexOf(") status=", espacio);
+        int en = texto.indexOf(" en ", cierre);
+        int ms = texto.indexOf(" ms", en + 4);
+
+        LogEntry log = new LogEntry();
+        log.setNivel("ERROR");
+        log.setMensaje(texto);
+        log.setMetodoHttp(texto.substring(ERROR.length(), espacio));
+        log.setEndpoint(texto.substring(espacio + 1, cierre));
+        log.setStatusCode(Integer.parseInt(texto, cierre + ") status=".length(), en, 10));
+        log.setTiempoRespuesta(Long.parseLong(texto, en + 4, ms, 10));
+        return log;
+    }
+
+    // ========= Fecha =========
+
+    /**
+     * Lee "2025-09-21T11:53:46.933-06:00" (el offset es opcional) y lo pasa a la hora
+     * local de la zona configurada, igual que LocalDateTime.now() en PersonaAspect.
+     */
+    private LocalDateTime fecha(ByteBuffer datos, int i) {
+        if (datos.get(i + 4) != '-' || datos.get(i + 10) != 'T' || datos.get(i + 19) != '.') return null;
+        int anio = numero(datos, i, 4);
+        int mes = numero(datos, i + 5, 2);
+        int dia = numero(datos, i + 8, 2);
+        int hora = numero(datos, i + 11, 2);
+        int minuto = numero(datos, i + 14, 2);
+        int segundo = numero(datos, i + 17, 2);
+        int milis = numero(datos, i + 20, 3);
+        if ((anio | mes | dia | hora | minuto | segundo | milis) < 0) return null;
+
+        byte signo = datos.get(i + LARGO_FECHA);
+        if (signo != '+' && signo != '-' && signo != 'Z') {
+            return LocalDateTime.of(anio, mes, dia, hora, minuto, segundo, milis * 1_000_000);
+        }
+        int offset = 0;
+        if (signo != 'Z') {
+            int horas = numero(datos, i + LARGO_FECHA + 1, 2);
+            int minutos = numero(datos, i + LARGO_FECHA + 4, 2);
+            if ((horas | minutos) < 0) return null;
+            offset = (signo == '-' ? -1 : 1) * (horas * 3600 + minutos * 60);
+        }
+        long epoch = LocalDate.of(anio, mes, dia).toEpochDay() * 86_400
+                + hora * 3600L + minuto * 60L + segundo - offset;
+        ZoneOffset local = zona.getRules().getOffset(Instant.ofEpochSecond(epoch));
+        return LocalDateTime.ofEpochSecond(epoch, milis * 1_000_000, local);
+    }
+
+    /** Entero de n dígitos; -1 si alguno no es dígito. */
+    private static int numero(ByteBuffer datos, int desde, int n) {
+        int valor = 0;
+        for (int i = desde; i < desde + n; i++) {
+            byte b = datos.get(i);
+            if (!digito(b)) return -1;
+            valor = valor * 10 + (b - '0');
+        }
+        return valor;
+    }
+
+    // ========= Utilidades de bytes =========
+
+    private static boolean digito(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean empiezaCon(ByteBuffer datos, int desde, int hasta, byte[] prefijo) {
+        if (hasta - desde < prefijo.length) return false;
+        for (int k = 0; k < prefijo.length; k++) {
+            if (datos.get(desde + k) != prefijo[k]) return false;
+        }
+        return true;
+    }
+
+    private static int indice(ByteBuffer datos, byte[] patron, int desde, int hasta) {
+        for (int i = desde; i <= hasta - patron.length; i++) {
+            if (empiezaCon(datos, i, hasta, patron)) return i;
+        }
+        return -1;
+    }
+
+    private static String texto(ByteBuffer datos, int desde, int hasta) {
+        byte[] bytes = new byte[hasta - desde];
+        datos.get(desde, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,161 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.entity.Persona;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caché de lectura de GET /api/persona/{id}: las búsquedas repetidas del mismo id no van a la BD.
+
+ * - Acotada por cantidad (persona.cache.max-entradas, desalojando la usada hace más tiempo) y
+ *   por edad (persona.cache.ttl-ms), que también limita cuánto puede atrasarse respecto de
+ *   cambios hechos por otra instancia.
+ * - Los cambios de esta instancia (PersonaController y LotesPersona) la invalidan por id
+ *   después de confirmar. Cada segmento lleva una versión que sube en cada invalidación:
+ *   una carga que empezó antes no guarda su resultado, así que no puede volver a meter el
+ *   valor viejo.
+ * - Dividida en SEGMENTOS LinkedHashMap por hash del id, cada uno con su propio lock, para que
+ *   los hilos de Tomcat no se serialicen en uno solo. Guarda copias: quien recibe la Persona
+ *   puede modificarla sin tocar la caché.
+ * Los 404 no se guardan. Aciertos, fallos, desalojos y vencidas aparecen en /api/logs/metrics
+ * como persona_cache_*.
+ */
+@Component
+public class CachePersonas {
+
+    private static final int SEGMENTOS = 16;
+
+    private record Entrada(String nombre, String apellido, long venceNanos) {}
+
+    private static final class Segmento {
+        final LinkedHashMap<Long, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true); // orden de acceso
+        long version; // protegidos por el propio segmento
+    }
+
+    private final boolean habilitada;
+    private final long ttlNanos;
+    private final int maxPorSegmento;
+    private final Segmento[] segmentos = new Segmento[SEGMENTOS];
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder vencidas = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    public CachePersonas(RegistroMetricas metricas,
+                         @Value("${persona.cache.habilitada:true}") boolean habilitada,
+                         @Value("${persona.cache.max-entradas:10000}") int maxEntradas,
+                         @Value("${persona.cache.ttl-ms:60000}") long ttlMs) {
+        this.habilitada = habilitada && maxEntradas > 0 && ttlMs > 0;
+        this.ttlNanos = Math.max(0, ttlMs) * 1_000_000;
+        this.maxPorSegmento = Math.max(1, (maxEntradas + SEGMENTOS - 1) / SEGMENTOS);
+        for (int i = 0; i < SEGMENTOS; i++) segmentos[i] = new Segmento();
+
+        if (metricas != null) {
+            metricas.registrarIndicador("persona_cache_aciertos", "Personas servidas desde la caché", aciertos::sum);
+            metricas.registrarIndicador("persona_cache_fallos", "Personas buscadas en la BD", fallos::sum);
+            metricas.registrarIndicador("persona_cache_tasa_aciertos", "Aciertos / consultas de la caché de personas",
+                    this::tasaAciertos);
+            metricas.registrarIndicador("persona_cache_entradas", "Personas guardadas en la caché", this::cantidadEntradas);
+            metricas.registrarIndicador("persona_cache_desalojos", "Personas desalojadas por tamaño", desalojos::sum);
+            metricas.registrarIndicador("persona_cache_vencidas", "Personas descartadas por persona.cache.ttl-ms",
+                    vencidas::sum);
+            metricas.registrarIndicador("persona_cache_invalidaciones", "Personas invalidadas por cambios",
+                    invalidaciones::sum);
+        }
+    }
+
+    /** La persona del id, de la caché si está vigente o, si no, de cargar (y se guarda si existe). */
+    public Optional<Persona> obtener(Long id, Function<Long, Optional<Persona>> cargar) {
+        if (!habilitada || id == null) return cargar.apply(id);
+
+        Segmento segmento = segmento(id);
+        long version;
+        synchronized (segmento) {
+            Entrada entrada = segmento.entradas.get(id);
+            if (entrada != null) {
+                if (System.nanoTime() - entrada.venceNanos() < 0) {
+                    aciertos.increment();
+                    return Optional.of(persona(id, entrada));
+                }
+                segmento.entradas.remove(id);
+                vencidas.increment();
+            }
+            version = segmento.version;
+        }
+        fallos.increment();
+
+        Optional<Persona> cargada = cargar.apply(id);
+        cargada.ifPresent(persona -> guardar(segmento, version, id, persona));
+        return cargada;
+    }
+
+    private void guardar(Segmento segmento, long version, Long id, Persona persona) {
+        Entrada entrada = new Entrada(persona.getNombre(), persona.getApellido(), System.nanoTime() + ttlNanos);
+        synchronized (segmento) {
+            if (segmento.version != version) return; // hubo un cambio mientras se cargaba
+            segmento.entradas.put(id, entrada);
+            if (segmento.entradas.size() > maxPorSegmento) {
+                Iterator<Map.Entry<Long, Entrada>> vieja = segmento.entradas.entrySet().iterator();
+                vieja.next();
+                vieja.remove();
+                desalojos.increment();
+            }
+        }
+    }
+
+    /** Llamar después de confirmar un cambio de la persona. */
+    public void invalidar(Long id) {
+        if (!habilitada || id == null) return;
+        Segmento segmento = segmento(id);
+        synchronized (segmento) {
+            segmento.version++;
+            if (segmento.entradas.remove(id) != null) invalidaciones.increment();
+        }
+    }
+
+    public void invalidar(Collection<Long> ids) {
+        for (Long id : ids) invalidar(id);
+    }
+
+    private Segmento segmento(Long id) {
+        long h = id * 0x9E3779B97F4A7C15L; // ids consecutivos repartidos entre segmentos
+        return segmentos[(int) (h >>> 60)];
+    }
+
+    private static Persona persona(Long id, Entrada entrada) {
+        Persona persona = new Persona();
+        persona.setId(id);
+        persona.setNombre(entrada.nombre());
+        persona.setApellido(entrada.apellido());
+        return persona;
+    }
+
+    // ========= Métricas =========
+
+    private double tasaAciertos() {
+        long a = aciertos.sum();
+        long total = a + fallos.sum();
+        return total == 0 ? 0 : (double) a / total;
+    }
+
+    private int cantidadEntradas() {
+        int total = 0;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                total += segmento.entradas.size();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,249 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caché de las respuestas de /api/logs/reportes/*, ya serializadas a JSON.
+
+ * La clave es la ruta más los parámetros (endpoint + from/to/granularity/...). Cada entrada
+ * guarda los bytes, un ETag (SHA-256 del cuerpo) y la fecha en que el contenido cambió por
+ * última vez, para que el controlador responda 304 a If-None-Match / If-Modified-Since.
+
+ * Invalidación (LogAggregateStore avisa de cada registro con suscribir):
+ * - Ventana abierta (llega hasta ahora): la entrada sirve mientras no se registre ningún log
+ *   nuevo de la aplicación. Los logs que genera la propia API de reportes (logs.cache.ignorar-prefijo)
+ *   no invalidan, si no cada consulta del dashboard borraría la anterior; a cambio, sus
+ *   conteos pueden atrasarse hasta logs.cache.max-staleness-ms.
+ * - Ventana cerrada (su último minuto ya pasó): solo la invalidan registros atrasados, con
+ *   timestamp de más de un minuto atrás (importaciones, reprocesos del disco de LogWriter).
+ * - Con logs.reportes.fuente=db o columnar los datos pueden cambiar sin pasar por este proceso
+ *   (otras instancias, refresco de la copia), así que las entradas solo viven max-staleness-ms.
+
+ * El tamaño total de los cuerpos se limita a logs.cache.max-kb, desalojando las entradas
+ * usadas hace más tiempo (LRU). Si varias peticiones piden a la vez la misma clave vencida,
+ * solo una recalcula y las demás esperan su resultado.
+ */
+@Component
+public class CacheReportes {
+
+    /** Respuesta lista para enviar. modificado en milisegundos epoch. */
+    public record Respuesta(byte[] cuerpo, String etag, long modificado) {}
+
+    private record Entrada(Respuesta respuesta, long cambios, long atrasados, boolean cerrada, long calculadaNanos) {}
+
+    private final ObjectMapper objectMapper;
+    private final boolean habilitada;
+    private final boolean soloPorEdad;
+    private final long maxStalenessNanos;
+    private final long maxBytes;
+    private final String ignorarPrefijo;
+
+    private final LongAdder cambios = new LongAdder();
+    private final LongAdder atrasados = new LongAdder();
+
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true); // orden de acceso
+    private long bytes; // protegido por entradas
+    private final ConcurrentHashMap<String, CompletableFuture<Entrada>> enCurso = new ConcurrentHashMap<>();
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder nanosRecalculo = new LongAdder();
+    private final LongAccumulator maxNanosRecalculo = new LongAccumulator(Math::max, 0);
+
+    public CacheReportes(LogAggregateStore store,
+                         ObjectMapper objectMapper,
+                         RegistroMetricas metricas,
+                         @Value("${logs.reportes.fuente:memoria}") String fuente,
+                         @Value("${logs.cache.habilitada:true}") boolean habilitada,
+                         @Value("${logs.cache.max-staleness-ms:5000}") long maxStalenessMs,
+                         @Value("${logs.cache.max-kb:8192}") long maxKb,
+                         @Value("${logs.cache.ignorar-prefijo:/api/logs/}") String ignorarPrefijo) {
+        this.objectMapper = objectMapper;
+        this.habilitada = habilitada;
+        this.soloPorEdad = !"memoria".equalsIgnoreCase(fuente.trim());
+        this.maxStalenessNanos = Math.max(0, maxStalenessMs) * 1_000_000;
+        this.maxBytes = Math.max(0, maxKb) * 1024;
+        this.ignorarPrefijo = ignorarPrefijo;
+        store.suscribir(this::registrado);
+
+        metricas.registrarIndicador("logs_cache_aciertos", "Reportes servidos desde la caché", aciertos::sum);
+        metricas.registrarIndicador("logs_cache_fallos", "Reportes que hubo que calcular", fallos::sum);
+        metricas.registrarIndicador("logs_cache_tasa_aciertos", "Aciertos / consultas de la caché de reportes", this::tasaAciertos);
+        metricas.registrarIndicador("logs_cache_entradas", "Reportes guardados en la caché", this::cantidadEntradas);
+        metricas.registrarIndicador("logs_cache_bytes", "Bytes de los reportes guardados", this::bytes);
+        metricas.registrarIndicador("logs_cache_desalojos", "Entradas desalojadas por tamaño", desalojos::sum);
+        metricas.registrarIndicador("logs_cache_recalculo_segundos_suma", "Tiempo total calculando reportes",
+                () -> nanosRecalculo.sum() / 1e9);
+        metricas.registrarIndicador("logs_cache_recalculo_segundos_max", "Cálculo de reporte más lento",
+                () -> maxNanosRecalculo.get() / 1e9);
+    }
+
+    // ========= Cambios en los datos =========
+
+    private void registrado(LogEntry log) {
+        if (log.getTimestamp() == null
+                || LogAggregateStore.epochMinuto(log.getTimestamp()) < LogAggregateStore.epochMinuto(LocalDateTime.now()) - 1) {
+            atrasados.increment();
+            cambios.increment();
+        } else if (log.getEndpoint() == null || !log.getEndpoint().startsWith(ignorarPrefijo)) {
+            cambios.increment();
+        }
+    }
+
+    /**
+     * true si ningún registro a tiempo (timestamp dentro del último minuto) puede caer en la
+     * ventana: su "hasta", redondeado al minuto como en LogAggregateStore, ya quedó atrás.
+     */
+    private static boolean cerrada(Ventana ventana, long minutoActual) {
+        if (ventana.hasta() == null) return false;
+        long hasta = LogAggregateStore.epochMinuto(ventana.hasta().plusSeconds(59));
+        return hasta <= minutoActual - 1;
+    }
+
+    private boolean vigente(Entrada entrada) {
+        boolean reciente = System.nanoTime() - entrada.calculadaNanos() <= maxStalenessNanos;
+        if (soloPorEdad) return reciente;
+        if (entrada.cerrada()) return atrasados.sum() == entrada.atrasados();
+        return reciente && cambios.sum() == entrada.cambios();
+    }
+
+    // ========= Consulta =========
+
+    /**
+     * Respuesta del reporte de la clave: la guardada si sigue vigente o, si no, la que
+     * devuelve calcular serializada a JSON. Las excepciones de calcular se propagan (y no se guardan).
+     */
+    public Respuesta obtener(String clave, Ventana ventana, Supplier<?> calcular) {
+        if (!habilitada) return calcularEntrada(ventana, calcular, null).respuesta();
+
+        Entrada guardada;
+        synchronized (entradas) {
+            guardada = entradas.get(clave);
+        }
+        if (guardada != null && vigente(guardada)) {
+            aciertos.increment();
+            return guardada.respuesta();
+        }
+        fallos.increment();
+
+        CompletableFuture<Entrada> propia = new CompletableFuture<>();
+        CompletableFuture<Entrada> otra = enCurso.putIfAbsent(clave, propia);
+        if (otra != null) return esperar(otra).respuesta();
+        try {
+            Entrada nueva = calcularEntrada(ventana, calcular, guardada);
+            guardar(clave, nueva);
+            propia.complete(nueva);
+            return nueva.respuesta();
+        } catch (RuntimeException e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, propia);
+        }
+    }
+
+    private static Entrada esperar(CompletableFuture<Entrada> calculo) {
+        try {
+            return calculo.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) throw causa;
+            throw e;
+        }
+    }
+
+    private Entrada calcularEntrada(Ventana ventana, Supplier<?> calcular, Entrada anterior) {
+        // las versiones se leen antes de calcular: un registro que llegue durante el cálculo invalida el resultado
+        long cambiosAntes = cambios.sum();
+        long atrasadosAntes = atrasados.sum();
+        boolean cerrada = cerrada(ventana, LogAggregateStore.epochMinuto(LocalDateTime.now()));
+        long inicio = System.nanoTime();
+        byte[] cuerpo;
+        try {
+            cuerpo = objectMapper.writeValueAsBytes(calcular.get());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        long fin = System.nanoTime();
+        nanosRecalculo.add(fin - inicio);
+        maxNanosRecalculo.accumulate(fin - inicio);
+
+        Respuesta respuesta;
+        if (anterior != null && Arrays.equals(anterior.respuesta().cuerpo(), cuerpo)) {
+            respuesta = anterior.respuesta(); // mismo contenido: mismo ETag y Last-Modified
+        } else {
+            respuesta = new Respuesta(cuerpo, etag(cuerpo), System.currentTimeMillis());
+        }
+        return new Entrada(respuesta, cambiosAntes, atrasadosAntes, cerrada, fin);
+    }
+
+    private static String etag(byte[] cuerpo) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(cuerpo);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 está en todas las JVM
+        }
+    }
+
+    // ========= Tamaño acotado =========
+
+    private void guardar(String clave, Entrada entrada) {
+        long tamano = entrada.respuesta().cuerpo().length;
+        synchronized (entradas) {
+            Entrada anterior = entradas.remove(clave);
+            if (anterior != null) bytes -= anterior.respuesta().cuerpo().length;
+            if (tamano > maxBytes) return; // no cabe ni sola
+            entradas.put(clave, entrada);
+            bytes += tamano;
+            Iterator<Map.Entry<String, Entrada>> viejas = entradas.entrySet().iterator();
+            while (bytes > maxBytes && viejas.hasNext()) {
+                bytes -= viejas.next().getValue().respuesta().cuerpo().length;
+                viejas.remove();
+                desalojos.increment();
+            }
+        }
+    }
+
+    // ========= Métricas =========
+
+    private double tasaAciertos() {
+        long a = aciertos.sum();
+        long total = a + fallos.sum();
+        return total == 0 ? 0 : (double) a / total;
+    }
+
+    private int cantidadEntradas() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    private long bytes() {
+        synchronized (entradas) {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.PaginaPersonas;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * Listado de personas por páginas (GET /api/persona) con paginación por clave (keyset).
+
+ * En lugar de OFFSET, cada página sigue desde la última fila de la anterior:
+ * "where (campo, id) > (último campo, último id) order by campo, id limit n". Así cada página
+ * cuesta lo mismo sin importar cuán adentro de la tabla esté, y una fila insertada o borrada
+ * entre páginas no hace saltar ni repetir otras. El id desempata, y el cursor ("after") lleva
+ * el valor del campo, el id y el orden con que se pidió, codificados en Base64.
+ * - sort: id | nombre | apellido, con ",desc" opcional (por defecto id ascendente).
+ * - fields: campos a devolver (por defecto todos); la consulta solo lee esas columnas
+ *   (más id y el campo del orden, que necesita el cursor).
+ * - limit: hasta persona.listado.max-limite por página, así la memoria no depende del tamaño
+ *   de la tabla.
+ * NULL se trata como el menor valor, como lo ordenan MySQL y H2.
+ */
+@Component
+public class ListadoPersonas {
+
+    private static final Set<String> CAMPOS = Set.of("id", "nombre", "apellido");
+
+    private final EntityManager entityManager;
+    private final int maxLimite;
+
+    public ListadoPersonas(EntityManager entityManager,
+                           @Value("${persona.listado.max-limite:1000}") int maxLimite) {
+        this.entityManager = entityManager;
+        this.maxLimite = maxLimite;
+    }
+
+    private record Orden(String campo, boolean descendente) {
+        String texto() {
+            return campo + (descendente ? ",desc" : ",asc");
+        }
+    }
+
+    private record Cursor(Orden orden, long id, String valor) {}
+
+    /**
+     * Una página. IllegalArgumentException si sort, fields, after o limit no son válidos
+     * (p. ej. un cursor de otro sort).
+     */
+    public PaginaPersonas listar(String sort, String fields, String after, int limit) {
+        if (limit < 1 || limit > maxLimite) {
+            throw new IllegalArgumentException("limit debe estar entre 1 y " + maxLimite);
+        }
+        Orden orden = orden(sort);
+        List<String> campos = campos(fields);
+        Cursor cursor = after == null || after.isBlank() ? null : cursor(after);
+        if (cursor != null && !cursor.orden().equals(orden)) {
+            throw new IllegalArgumentException("after es de otra consulta (sort=" + cursor.orden().texto() + ")");
+        }
+
+        Set<String> columnas = new LinkedHashSet<>(campos);
+        columnas.add("id");
+        columnas.add(orden.campo());
+        StringBuilder jpql = new StringBuilder("select ");
+        String separador = "";
+        for (String columna : columnas) {
+            jpql.append(separador).append("p.").append(columna).append(" as ").append(columna);
+            separador = ", ";
+        }
+        jpql.append(" from Persona p");
+        if (cursor != null) jpql.append(" where ").append(despuesDe(orden, cursor));
+        String direccion = orden.descendente() ? " desc" : " asc";
+        jpql.append(" order by p.").append(orden.campo()).append(direccion);
+        if (!orden.campo().equals("id")) jpql.append(", p.id").append(direccion);
+
+        TypedQuery<Tuple> consulta = entityManager.createQuery(jpql.toString(), Tuple.class)
+                .setHint(HINT_READ_ONLY, true)
+                .setMaxResults(limit + 1); // una de más para saber si hay otra página
+        if (cursor != null) {
+            consulta.setParameter("id", cursor.id());
+            if (!orden.campo().equals("id") && cursor.valor() != null) consulta.setParameter("valor", cursor.valor());
+        }
+        List<Tuple> filas = consulta.getResultList();
+
+        List<Map<String, Object>> personas = new ArrayList<>(Math.min(filas.size(), limit));
+        for (int i = 0; i < filas.size() && i < limit; i++) {
+            Map<String, Object> persona = new LinkedHashMap<>();
+            for (String campo : campos) persona.put(campo, filas.get(i).get(campo));
+            personas.add(persona);
+        }
+        String siguiente = null;
+        if (filas.size() > limit) {
+            Tuple ultima = filas.get(limit - 1);
+            Object valor = ultima.get(orden.campo());
+            siguiente = codificar(new Cursor(orden, (Long) ultima.get("id"), valor != null ? valor.toString() : null));
+        }
+        return new PaginaPersonas(personas, siguiente);
+    }
+
+    /** Filas después del cursor en el orden pedido (NULL es el menor valor). */
+    private static String despuesDe(Orden orden, Cursor cursor) {
+        String campo = "p." + orden.campo();
+        if (orden.campo().equals("id")) return orden.descendente() ? "p.id < :id" : "p.id > :id";
+        if (!orden.descendente()) {
+            return cursor.valor() == null
+                    ? "((" + campo + " is null and p.id > :id) or " + campo + " is not null)"
+                    : "(" + campo + " > :valor or (" + campo + " = :valor and p.id > :id))";
+        }
+        return cursor.valor() == null
+                ? "(" + campo + " is null and p.id < :id)"
+                : "(" + campo + " < :valor or (" + campo + " = :valor and p.id < :id) or " + campo + " is null)";
+    }
+
+    // ========= Parámetros =========
+
+    private static Orden orden(String sort) {
+        if (sort == null || sort.isBlank()) return new Orden("id", false);
+        String[] partes = sort.split(",");
+        String campo = partes[0].trim();
+        if (!CAMPOS.contains(campo) || partes.length > 2) {
+            throw new IllegalArgumentException("sort debe ser id, nombre o apellido, con ,asc o ,desc opcional");
+        }
+        String direccion = partes.length == 2 ? partes[1].trim().toLowerCase() : "asc";
+        if (!direccion.equals("asc") && !direccion.equals("desc")) {
+            throw new IllegalArgumentException("La dirección de sort debe ser asc o desc");
+        }
+        return new Orden(campo, direccion.equals("desc"));
+    }
+
+    private static List<String> campos(String fields) {
+        if (fields == null || fields.isBlank()) return List.of("id", "nombre", "apellido");
+        Set<String> campos = new LinkedHashSet<>();
+        for (String campo : fields.split(",")) {
+            campo = campo.trim();
+            if (!CAMPOS.contains(campo)) {
+                throw new IllegalArgumentException("Campo desconocido en fields: " + campo + " (id, nombre, apellido)");
+            }
+            campos.add(campo);
+        }
+        return List.copyOf(campos);
+    }
+
+    // ========= Cursor =========
+
+    /** sort|id|valor (valor ausente = NULL), en Base64 para URL. */
+    private static String codificar(Cursor cursor) {
+        String texto = cursor.orden().texto() + "|" + cursor.id() + (cursor.valor() != null ? "|" + cursor.valor() : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor cursor(String after) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+            String[] partes = texto.split("\\|", 3);
+            return new Cursor(orden(partes[0]), Long.parseLong(partes[1]), partes.length == 3 ? partes[2] : null);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("after no es un cursor válido");
+        }
+    }
+}
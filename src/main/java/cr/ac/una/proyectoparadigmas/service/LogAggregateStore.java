@@ -0,0 +1,184 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Almacén en memoria de agregados de logs (write-through).
+
+ * Cada vez que se registra un LogEntry se actualizan aquí los contadores por código
+ * de estado, endpoint, método HTTP y hora, además de histogramas de tiempos de
+ * respuesta (global y por endpoint) de tamaño fijo para calcular percentiles.
+ * Así los reportes de LogService se responden en O(#claves) sin leer la tabla.
+
+ * El total lleva también el ContadorFrecuentes de endpoints (logs.reportes.top-capacidad)
+ * del top de LogService.
+
+ * Además del total histórico mantiene un buffer circular con un AgregadoLogs por
+ * minuto (logs.ventanas.horizonte-minutos). Un reporte sobre "los últimos 15 minutos"
+ * o "ayer por hora" combina a lo sumo unos miles de esos minutos en lugar de
+ * recorrer registros. Los rangos que empiezan antes del horizonte se resuelven en AlmacenLogs.
+
+ * Al iniciar la aplicación (antes de que Tomcat acepte peticiones) el total se
+ * reconstruye con AlmacenLogs.agregar y el buffer con los registros del horizonte.
+ */
+@Component
+public class LogAggregateStore implements SmartInitializingSingleton {
+    private static final Logger logger = Logger.getLogger(LogAggregateStore.class.getName());
+
+    private final ObjectProvider<AlmacenLogs> almacen; // diferido: los almacenes registran aquí
+
+    private final int digitosPercentiles;
+    private final long maxMsPercentiles;
+    private final int digitosVentanas;
+
+    private final AgregadoLogs total;
+    private final AtomicReferenceArray<Minuto> minutos;
+    private final List<Consumer<LogEntry>> oyentes = new CopyOnWriteArrayList<>();
+
+    /** Agregado de un minuto concreto dentro del buffer circular. */
+    private record Minuto(long epochMinuto, AgregadoLogs agregado) {}
+
+    public LogAggregateStore(ObjectProvider<AlmacenLogs> almacen,
+                             @Value("${logs.percentiles.digitos-significativos:2}") int digitosPercentiles,
+                             @Value("${logs.percentiles.max-ms:3600000}") long maxMsPercentiles,
+                             @Value("${logs.ventanas.horizonte-minutos:2880}") int horizonteMinutos,
+                             @Value("${logs.ventanas.digitos-significativos:1}") int digitosVentanas,
+                             @Value("${logs.reportes.top-capacidad:128}") int capacidadFrecuentes) {
+        this.almacen = almacen;
+        this.digitosPercentiles = digitosPercentiles;
+        this.maxMsPercentiles = maxMsPercentiles;
+        this.digitosVentanas = digitosVentanas;
+        this.total = new AgregadoLogs(this::nuevoHistograma, capacidadFrecuentes);
+        this.minutos = new AtomicReferenceArray<>(horizonteMinutos);
+    }
+
+    /** Histograma vacío con la precisión configurada (logs.percentiles.*). */
+    public HistogramaLatencias nuevoHistograma() {
+        return new HistogramaLatencias(digitosPercentiles, maxMsPercentiles);
+    }
+
+    /** Histograma de la precisión usada en los minutos del buffer (logs.ventanas.*). */
+    private HistogramaLatencias nuevoHistogramaVentana() {
+        return new HistogramaLatencias(digitosVentanas, maxMsPercentiles);
+    }
+
+    // ========= Registro (write-through) =========
+
+    /**
+     * Actualiza el total y el minuto correspondiente con un nuevo registro.
+     * Es seguro llamarlo desde varios hilos a la vez.
+     */
+    public void registrar(LogEntry log) {
+        total.registrar(log);
+        registrarEnMinuto(log);
+        for (Consumer<LogEntry> oyente : oyentes) oyente.accept(log);
+    }
+
+    /**
+     * Agrega un oyente que recibe cada registro después de sumarlo a los agregados
+     * (desde el hilo que registra, así que debe ser rápido y no bloquear).
+     * No se llama durante la reconstrucción al iniciar.
+     */
+    public void suscribir(Consumer<LogEntry> oyente) {
+        oyentes.add(oyente);
+    }
+
+    private void registrarEnMinuto(LogEntry log) {
+        if (log.getTimestamp() == null) return;
+        AgregadoLogs minuto = minuto(epochMinuto(log.getTimestamp()));
+        if (minuto != null) minuto.registrar(log);
+    }
+
+    /** Agregado del minuto indicado, creándolo si hace falta; null si ya salió del horizonte. */
+    private AgregadoLogs minuto(long epochMinuto) {
+        int ranura = (int) Math.floorMod(epochMinuto, (long) minutos.length());
+        while (true) {
+            Minuto actual = minutos.get(ranura);
+            if (actual != null && actual.epochMinuto() == epochMinuto) return actual.agregado();
+            if (actual != null && actual.epochMinuto() > epochMinuto) return null; // ranura ya reciclada
+            Minuto nuevo = new Minuto(epochMinuto, new AgregadoLogs(this::nuevoHistogramaVentana));
+            if (minutos.compareAndSet(ranura, actual, nuevo)) return nuevo.agregado();
+        }
+    }
+
+    static long epochMinuto(LocalDateTime ts) {
+        return Math.floorDiv(ts.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    // ========= Lecturas =========
+
+    /** Agregado de todo el histórico. */
+    public AgregadoLogs total() {
+        return total;
+    }
+
+    /**
+     * Agregado de una ventana de tiempo combinando los minutos del buffer
+     * (resolución de un minuto). Devuelve null si la ventana empieza antes del
+     * horizonte en memoria; en ese caso hay que consultar la BD.
+     */
+    public AgregadoLogs agregado(Ventana ventana) {
+        if (ventana.esTodo()) return total;
+        if (!enHorizonte(ventana.desde())) return null;
+        long ahora = epochMinuto(LocalDateTime.now());
+
+        long desde = epochMinuto(ventana.desde());
+        long hasta = ahora + 1;
+        if (ventana.hasta() != null) {
+            // se redondea hacia arriba: el minuto en curso de "hasta" se incluye
+            hasta = Math.min(hasta, Math.floorDiv(ventana.hasta().toEpochSecond(ZoneOffset.UTC) + 59, 60));
+        }
+        AgregadoLogs resultado = new AgregadoLogs(this::nuevoHistogramaVentana);
+        for (long m = desde; m < hasta; m++) {
+            Minuto minuto = minutos.get((int) Math.floorMod(m, (long) minutos.length()));
+            if (minuto != null && minuto.epochMinuto() == m) resultado.combinar(minuto.agregado());
+        }
+        return resultado;
+    }
+
+    /** Si una ventana que empieza en desde se puede resolver con los minutos en memoria. */
+    public boolean enHorizonte(LocalDateTime desde) {
+        return desde != null && epochMinuto(desde) > epochMinuto(LocalDateTime.now()) - minutos.length();
+    }
+
+    // ========= Reconstrucción al iniciar =========
+
+    /**
+     * Se ejecuta cuando todos los singletons están creados y antes de que
+     * el servidor web empiece a atender peticiones, por lo que no hay
+     * registros concurrentes durante la reconstrucción.
+     * El total lo calcula el almacenamiento (con JPA, la base de datos con consultas de
+     * agregación); el buffer de minutos recorre solo los registros del horizonte.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        long inicio = System.currentTimeMillis();
+        LocalDateTime horizonte = LocalDateTime.now().minusMinutes(minutos.length());
+        AlmacenLogs logs = almacen.getObject();
+        total.combinar(logs.agregar(Ventana.TODO, this::nuevoHistograma));
+        long recientes = logs.recorrer(new Ventana(horizonte, null, null), registros -> {
+            long n = 0;
+            for (LogEntry log : (Iterable<LogEntry>) registros::iterator) {
+                registrarEnMinuto(log);
+                n++;
+            }
+            return n;
+        });
+        logger.info("Agregados de logs reconstruidos: " + total.totalPeticiones() + " registros ("
+                + recientes + " dentro del horizonte) en " + (System.currentTimeMillis() - inicio) + " ms");
+    }
+}
@@ -0,0 +1,419 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.EstadoColumnar;
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.DiccionarioCadenas;
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+import cr.ac.una.proyectoparadigmas.repository.LogAgregadoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Copia columnar y compacta de log_entry para los reportes (logs.reportes.fuente=columnar).
+
+ * En lugar de una entidad LogEntry por fila (LocalDateTime + tres String, más de
+ * 200 bytes) guarda una columna primitiva por campo, en bloques de 65 536 filas:
+ * - timestamp: long (milisegundos de la hora local, como LogEntry.timestamp)
+ * - statusCode: short, tiempoRespuesta: int
+ * - endpoint: int, metodoHttp y nivel: short, codificados con DiccionarioCadenas
+ * - peso (MuestreoLogs): short leído sin signo
+ * Son 24 bytes por fila: 10 millones de filas ocupan unos 240 MB. El mensaje no se
+ * guarda porque ningún reporte agregado lo usa (los eventos críticos van a la BD).
+
+ * Se refresca de forma incremental leyendo con JDBC solo las filas con id mayor al
+ * último cargado (sin hidratar entidades), como mucho una vez cada
+ * logs.columnar.refresco-ms. Los ids que faltan (transacciones que aún no confirmaban)
+ * se vuelven a buscar durante logs.columnar.espera-huecos-ms.
+
+ * Los reportes recorren las columnas en paralelo sobre AgregadorParalelo y arman un
+ * AgregadoLogs, así que todos los reportes de LogService funcionan igual que con los
+ * agregados en memoria. Cada bloque guarda su timestamp mínimo y máximo para saltarse
+ * los que quedan fuera de la ventana.
+
+ * Con RetencionLogs, lo purgado se suma desde los resúmenes por hora / día igual que en
+ * AlmacenLogsJpa, y las filas anteriores al corte de la última purga completa
+ * (RetencionLogs.corteCrudos) dejan de contarse en la copia porque ya están en los
+ * resúmenes. Al refrescar se liberan los bloques llenos que quedaron enteros antes del
+ * corte, así que la memoria no crece más allá de logs.retencion.dias-crudos. Mientras una
+ * purga está en curso las filas de sus lotes ya confirmados cuentan dos veces hasta que
+ * termina; si falla, hasta la siguiente que termine.
+
+ * Un único hilo escribe (bajo el lock de refresco); los lectores leen primero el
+ * tamaño (volátil) y solo miran filas por debajo de él.
+ */
+@Component
+public class LogColumnarStore implements SmartInitializingSingleton {
+    private static final Logger logger = Logger.getLogger(LogColumnarStore.class.getName());
+
+    private static final int BITS_BLOQUE = 16;
+    private static final int TAMANO_BLOQUE = 1 << BITS_BLOQUE;
+    private static final int MASCARA = TAMANO_BLOQUE - 1;
+    private static final int BYTES_POR_FILA = 8 + 2 + 4 + 4 + 2 + 2 + 2;
+    private static final String DESCONOCIDO = "(desconocido)";
+
+    private static final String SELECT = "select id, timestamp, nivel, endpoint, metodo_http, status_code, tiempo_respuesta, peso "
+            + "from log_entry where id > ? order by id";
+
+    /** Columnas de TAMANO_BLOQUE filas. */
+    private static final class Bloque {
+        final long[] timestamps = new long[TAMANO_BLOQUE];
+        final short[] status = new short[TAMANO_BLOQUE];
+        final int[] tiempos = new int[TAMANO_BLOQUE];
+        final int[] endpoints = new int[TAMANO_BLOQUE];
+        final short[] metodos = new short[TAMANO_BLOQUE];
+        final short[] niveles = new short[TAMANO_BLOQUE];
+        final short[] pesos = new short[TAMANO_BLOQUE]; // sin signo: & 0xFFFF
+        volatile long minimo = Long.MAX_VALUE;
+        volatile long maximo = Long.MIN_VALUE;
+        volatile int sinFecha; // filas sin timestamp: la retención no las purga
+    }
+
+    /** Ids que faltaban al refrescar: [desde, hasta] y cuándo se detectó el hueco. */
+    private record Hueco(long desde, long hasta, long detectado) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AgregadorParalelo agregador;
+    private final LogAggregateStore store;
+    private final LogAgregadoRepository agregadoRepository;
+    private final RetencionLogs retencion;
+    private final boolean activo;
+    private final long refrescoMs;
+    private final long esperaHuecosMs;
+
+    private final DiccionarioCadenas endpoints = new DiccionarioCadenas();
+    private final DiccionarioCadenas metodos = new DiccionarioCadenas();
+    private final DiccionarioCadenas niveles = new DiccionarioCadenas();
+
+    private volatile Bloque[] bloques = new Bloque[0]; // null: bloque liberado por la retención
+    private volatile int tamano;
+    private volatile int liberados;
+
+    // Estado del refresco (solo con el lock)
+    private final ReentrantLock refresco = new ReentrantLock();
+    private final List<Hueco> huecos = new ArrayList<>();
+    private volatile long ultimoId;
+    private volatile long ultimoRefresco;
+
+    public LogColumnarStore(DataSource dataSource,
+                            AgregadorParalelo agregador,
+                            LogAggregateStore store,
+                            LogAgregadoRepository agregadoRepository,
+                            RetencionLogs retencion,
+                            @Value("${logs.reportes.fuente:memoria}") String fuente,
+                            @Value("${logs.columnar.refresco-ms:1000}") long refrescoMs,
+                            @Value("${logs.columnar.espera-huecos-ms:10000}") long esperaHuecosMs) {
+        if (dataSource != null) {
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.jdbcTemplate.setFetchSize(1000); // cursor en MySQL (useCursorFetch=true)
+        } else {
+            this.jdbcTemplate = null;
+        }
+        this.agregador = agregador;
+        this.store = store;
+        this.agregadoRepository = agregadoRepository;
+        this.retencion = retencion;
+        this.activo = "columnar".equalsIgnoreCase(fuente.trim());
+        this.refrescoMs = refrescoMs;
+        this.esperaHuecosMs = esperaHuecosMs;
+    }
+
+    /** Carga inicial antes de que Tomcat acepte peticiones, solo si los reportes usan esta fuente. */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!activo) return;
+        long inicio = System.currentTimeMillis();
+        refrescar();
+        logger.info("Instantánea columnar: " + tamano + " filas cargadas en " + (System.currentTimeMillis() - inicio) + " ms");
+    }
+
+    // ========= Carga =========
+
+    /** Agrega las filas nuevas de la BD (id mayor al último cargado y huecos pendientes). */
+    public void refrescar() {
+        if (jdbcTemplate == null) return;
+        refresco.lock();
+        try {
+            cargarNuevas();
+        } finally {
+            refresco.unlock();
+        }
+    }
+
+    /**
+     * Refresca si pasó logs.columnar.refresco-ms desde el último refresco. Si otro hilo
+     * ya está refrescando no lo espera (responde con lo que hay cargado), salvo que
+     * todavía no se haya completado ninguna carga.
+     */
+    private void refrescarSiHaceFalta() {
+        if (jdbcTemplate == null || System.currentTimeMillis() - ultimoRefresco < refrescoMs) return;
+        if (ultimoRefresco == 0) {
+            refrescar();
+            return;
+        }
+        if (!refresco.tryLock()) return;
+        try {
+            cargarNuevas();
+        } finally {
+            refresco.unlock();
+        }
+    }
+
+    private void cargarNuevas() {
+        long ahora = System.currentTimeMillis();
+        huecos.removeIf(h -> ahora - h.detectado() > esperaHuecosMs);
+        long desde = huecos.isEmpty() ? ultimoId : huecos.get(0).desde() - 1;
+        long previo = ultimoId;
+        long[] esperado = {previo + 1};
+        jdbcTemplate.query(SELECT, rs -> {
+            long id = rs.getLong(1);
+            if (id <= previo && !enHueco(id)) return; // ya cargada
+            if (id > previo) {
+                // en la carga inicial los ids que faltan son filas borradas, no transacciones abiertas
+                if (previo > 0 && id > esperado[0]) huecos.add(new Hueco(esperado[0], id - 1, ahora));
+                esperado[0] = id + 1;
+                ultimoId = id;
+            } else {
+                quitarDeHueco(id);
+            }
+            anexar(rs);
+        }, desde);
+        liberarPurgados();
+        ultimoRefresco = ahora;
+    }
+
+    /** Suelta los bloques llenos cuyas filas son todas anteriores al corte de la retención. */
+    private void liberarPurgados() {
+        long corte = corte();
+        if (corte == Long.MIN_VALUE) return;
+        Bloque[] actuales = bloques;
+        int llenos = tamano >>> BITS_BLOQUE;
+        Bloque[] nuevos = null;
+        for (int b = 0; b < llenos; b++) {
+            Bloque bloque = actuales[b];
+            if (bloque == null || bloque.maximo >= corte || bloque.sinFecha > 0) continue;
+            if (nuevos == null) nuevos = actuales.clone(); // los lectores en curso siguen con el arreglo anterior
+            nuevos[b] = null;
+            liberados++;
+        }
+        if (nuevos != null) bloques = nuevos;
+    }
+
+    /** Milisegundos del corte de la última purga completa, o Long.MIN_VALUE si no hubo. */
+    private long corte() {
+        LocalDateTime corte = retencion != null ? retencion.corteCrudos() : null;
+        return corte != null ? milis(corte) : Long.MIN_VALUE;
+    }
+
+    private boolean enHueco(long id) {
+        for (Hueco h : huecos) {
+            if (id >= h.desde() && id <= h.hasta()) return true;
+        }
+        return false;
+    }
+
+    private void quitarDeHueco(long id) {
+        for (int i = 0; i < huecos.size(); i++) {
+            Hueco h = huecos.get(i);
+            if (id < h.desde() || id > h.hasta()) continue;
+            huecos.remove(i);
+            if (id > h.desde()) huecos.add(i++, new Hueco(h.desde(), id - 1, h.detectado()));
+            if (id < h.hasta()) huecos.add(i, new Hueco(id + 1, h.hasta(), h.detectado()));
+            return;
+        }
+    }
+
+    private void anexar(ResultSet rs) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(2);
+        anexar(timestamp != null ? milis(timestamp.toLocalDateTime()) : Long.MIN_VALUE,
+                rs.getString(3), rs.getString(4), rs.getString(5), rs.getInt(6), rs.getLong(7), rs.getInt(8));
+    }
+
+    /** Agrega un registro al final (para cargar una instantánea sin BD, p. ej. en benchmarks). */
+    public void anexar(LogEntry log) {
+        refresco.lock();
+        try {
+            anexar(log.getTimestamp() != null ? milis(log.getTimestamp()) : Long.MIN_VALUE, log.getNivel(),
+                    log.getEndpoint(), log.getMetodoHttp(), log.getStatusCode(), log.getTiempoRespuesta(), log.getPeso());
+        } finally {
+            refresco.unlock();
+        }
+    }
+
+    private void anexar(long timestamp, String nivel, String endpoint, String metodo, int status, long tiempo, int peso) {
+        int fila = tamano;
+        int indice = fila >>> BITS_BLOQUE;
+        Bloque[] actuales = bloques;
+        if (indice == actuales.length) {
+            actuales = Arrays.copyOf(actuales, indice + 1);
+            actuales[indice] = new Bloque();
+            bloques = actuales;
+        }
+        Bloque bloque = actuales[indice];
+        int i = fila & MASCARA;
+        bloque.timestamps[i] = timestamp;
+        bloque.status[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, status));
+        bloque.tiempos[i] = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, tiempo));
+        bloque.endpoints[i] = endpoints.codigo(endpoint != null ? endpoint : DESCONOCIDO);
+        bloque.metodos[i] = (short) metodos.codigo(metodo != null ? metodo : DESCONOCIDO);
+        bloque.niveles[i] = (short) niveles.codigo(nivel);
+        bloque.pesos[i] = (short) Math.max(1, Math.min(MuestreoLogs.PESO_MAXIMO, peso));
+        if (timestamp != Long.MIN_VALUE) {
+            if (timestamp < bloque.minimo) bloque.minimo = timestamp;
+            if (timestamp > bloque.maximo) bloque.maximo = timestamp;
+        } else {
+            bloque.sinFecha++;
+        }
+        tamano = fila + 1; // publica la fila a los lectores
+    }
+
+    private static long milis(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC) * 1000 + fecha.getNano() / 1_000_000;
+    }
+
+    // ========= Consultas =========
+
+    /**
+     * Agregado de la ventana recorriendo las columnas (refresca antes si corresponde), más
+     * los resúmenes de lo que RetencionLogs ya purgó.
+     */
+    public AgregadoLogs agregado(Ventana ventana) {
+        refrescarSiHaceFalta();
+        long desde = ventana.desde() != null ? milis(ventana.desde()) : Long.MIN_VALUE;
+        long hasta = ventana.hasta() != null ? milis(ventana.hasta()) : Long.MAX_VALUE;
+        boolean todo = ventana.desde() == null && ventana.hasta() == null;
+        long corte = corte();
+
+        int n = tamano;
+        Bloque[] actuales = bloques;
+        int cantidadBloques = (n + MASCARA) >>> BITS_BLOQUE;
+        int partes = Math.max(1, Math.min(agregador.paralelismo(), cantidadBloques));
+        List<Callable<AgregadoLogs>> tareas = new ArrayList<>(partes);
+        for (int p = 0; p < partes; p++) {
+            int primero = (int) ((long) cantidadBloques * p / partes);
+            int ultimo = (int) ((long) cantidadBloques * (p + 1) / partes);
+            tareas.add(() -> recorrer(actuales, primero, ultimo, n, desde, hasta, todo, corte));
+        }
+        Iterator<AgregadoLogs> parciales = agregador.enParalelo(tareas).iterator();
+        AgregadoLogs resultado = parciales.next();
+        parciales.forEachRemaining(resultado::combinar);
+        if (agregadoRepository != null) AlmacenLogsJpa.sumarResumenes(agregadoRepository, resultado, ventana);
+        return resultado;
+    }
+
+    /**
+     * Recorre los bloques [primero, ultimo) acumulando en arreglos primitivos indexados por código.
+     * Las filas sin timestamp solo entran sin ventana; las anteriores al corte, nunca.
+     */
+    private AgregadoLogs recorrer(Bloque[] actuales, int primero, int ultimo, int n,
+                                  long desde, long hasta, boolean todo, long corte) {
+        int cantidadEndpoints = endpoints.tamano();
+        int cantidadMetodos = metodos.tamano();
+        boolean[] nivelError = nivelesError();
+
+        long[] porStatus = new long[600];
+        Map<Integer, Long> statusFueraDeRango = new HashMap<>();
+        long[] porEndpoint = new long[cantidadEndpoints];
+        long[] porMetodo = new long[cantidadMetodos];
+        long[] erroresPorHora = new long[24];
+        HistogramaLatencias[] latencias = new HistogramaLatencias[cantidadEndpoints];
+        long[] varianzas = new long[cantidadEndpoints];
+        long peticiones = 0;
+        long errores = 0;
+        long sumaTiempos = 0;
+        long criticos = 0;
+
+        for (int b = primero; b < ultimo; b++) {
+            Bloque bloque = actuales[b];
+            if (bloque == null) continue; // liberado: todo está en los resúmenes
+            int filas = Math.min(TAMANO_BLOQUE, n - (b << BITS_BLOQUE));
+            boolean completo = bloque.minimo >= corte
+                    && (todo || (bloque.minimo >= desde && bloque.maximo < hasta && bloque.sinFecha == 0));
+            boolean fuera = bloque.maximo < Math.max(desde, corte) || bloque.minimo >= hasta;
+            if (!completo && fuera && (!todo || bloque.sinFecha == 0)) continue;
+            for (int i = 0; i < filas; i++) {
+                long ts = bloque.timestamps[i];
+                if (!completo && (ts == Long.MIN_VALUE ? !todo : ts < desde || ts >= hasta || ts < corte)) continue;
+                int status = bloque.status[i];
+                int endpoint = bloque.endpoints[i];
+                int t = bloque.tiempos[i];
+                long peso = bloque.pesos[i] & 0xFFFF;
+
+                peticiones += peso;
+                sumaTiempos += t * peso;
+                if (status >= 0 && status < porStatus.length) {
+                    porStatus[status] += peso;
+                } else {
+                    statusFueraDeRango.merge(status, peso, Long::sum);
+                }
+                porEndpoint[endpoint] += peso;
+                porMetodo[bloque.metodos[i]] += peso;
+                if (status >= 400) {
+                    errores += peso;
+                    if (ts != Long.MIN_VALUE) erroresPorHora[(int) Math.floorMod(Math.floorDiv(ts, 3_600_000L), 24L)] += peso;
+                }
+                if (t > 0) {
+                    HistogramaLatencias h = latencias[endpoint];
+                    if (h == null) latencias[endpoint] = h = store.nuevoHistograma();
+                    h.registrar(t, peso);
+                }
+                if (status >= 500 && nivelError[bloque.niveles[i]]) criticos += peso;
+                varianzas[endpoint] += peso * (peso - 1);
+            }
+        }
+
+        AgregadoLogs agregado = new AgregadoLogs(store::nuevoHistograma);
+        for (int s = 0; s < porStatus.length; s++) {
+            if (porStatus[s] > 0) agregado.sumarStatus(s, porStatus[s]);
+        }
+        statusFueraDeRango.forEach(agregado::sumarStatus);
+        for (int e = 0; e < cantidadEndpoints; e++) {
+            if (porEndpoint[e] > 0) agregado.sumarEndpoint(endpoints.valor(e), porEndpoint[e]);
+            if (latencias[e] != null) agregado.sumarLatencias(endpoints.valor(e), latencias[e]);
+            if (varianzas[e] > 0) agregado.sumarVarianza(endpoints.valor(e), varianzas[e]);
+        }
+        for (int m = 0; m < cantidadMetodos; m++) {
+            if (porMetodo[m] > 0) agregado.sumarMetodo(metodos.valor(m), porMetodo[m]);
+        }
+        for (int h = 0; h < 24; h++) {
+            if (erroresPorHora[h] > 0) agregado.sumarErroresHora(h, erroresPorHora[h]);
+        }
+        agregado.sumarTotales(peticiones, errores, sumaTiempos, criticos);
+        return agregado;
+    }
+
+    /** Por código de nivel: si es "ERROR" (sin distinguir mayúsculas), como LogService.esCritico. */
+    private boolean[] nivelesError() {
+        boolean[] error = new boolean[niveles.tamano()];
+        for (int c = 0; c < error.length; c++) {
+            error[c] = "ERROR".equalsIgnoreCase(niveles.valor(c));
+        }
+        return error;
+    }
+
+    public EstadoColumnar estado() {
+        int n = tamano - liberados * TAMANO_BLOQUE;
+        int enUso = bloques.length - liberados;
+        long reservados = (long) enUso * TAMANO_BLOQUE;
+        return new EstadoColumnar(activo, n, enUso, reservados * BYTES_POR_FILA,
+                endpoints.tamano(), metodos.tamano(), niveles.tamano(), ultimoId);
+    }
+}
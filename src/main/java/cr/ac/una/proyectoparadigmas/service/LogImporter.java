@@ -0,0 +1,425 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.ArchivoImportado;
+import cr.ac.una.proyectoparadigmas.dto.ResumenImportacion;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Importa a la tabla log_entry el log de texto de la aplicación (logging.file.name)
+ * y sus rotaciones comprimidas (app.log.2025-09-21.0.gz, ...).
+
+ * - Los .gz se descomprimen en streaming; los archivos planos se mapean en memoria.
+ * - Cada archivo se procesa por segmentos (logs.importacion.segmento-mb) cortados en
+ *   un salto de línea; cada segmento se reparte en partes de a lo sumo 4 MB entre los
+ *   hilos de AgregadorParalelo, que analizan sus líneas (AnalizadorLineasLog) y las
+ *   insertan por lotes JDBC, toda la parte en una transacción.
+ * - Esa transacción también anota el rango de la parte en log_importacion_parte, y al
+ *   terminar el segmento el offset del archivo pasa a log_importacion (borrando sus
+ *   partes) en otra. Una importación interrumpida continúa donde quedó sin repetir
+ *   filas: se salta las partes ya confirmadas. app.log se puede importar varias veces
+ *   mientras crece: solo se leen las líneas nuevas y completas.
+ * - Un archivo reemplazado (rotado y vuelto a crear) se detecta por la huella de sus
+ *   primeros bytes y se vuelve a leer desde el inicio.
+ * - logs.importacion.estado es el archivo de offsets de versiones anteriores: solo se lee
+ *   para los archivos que todavía no están en log_importacion.
+
+ * Los registros importados se suman también a LogAggregateStore. Ojo: el app.log de
+ * esta misma instancia describe peticiones que PersonaAspect ya guardó; importarlo
+ * las duplica. Está pensado para logs de otras instancias o anteriores a la BD.
+ */
+@Component
+public class LogImporter {
+    private static final Logger logger = Logger.getLogger(LogImporter.class.getName());
+
+    private static final int LARGO_HUELLA = 256;
+    private static final int MINIMO_POR_PARTE = 1 << 20;
+    private static final int MAXIMO_POR_PARTE = 4 << 20; // filas de una parte en memoria hasta confirmarla
+
+    private static final String SELECT_ESTADO = "select posicion, largo_huella, huella, completo from log_importacion "
+            + "where archivo = ?";
+    private static final String UPDATE_ESTADO = "update log_importacion set posicion = ?, largo_huella = ?, huella = ?, "
+            + "completo = ? where archivo = ?";
+    private static final String INSERT_ESTADO = "insert into log_importacion (posicion, largo_huella, huella, completo, archivo) "
+            + "values (?, ?, ?, ?, ?)";
+    private static final String SELECT_PARTES = "select desde, hasta from log_importacion_parte "
+            + "where archivo = ? and hasta > ? and desde < ? order by desde";
+    private static final String INSERT_PARTE = "insert into log_importacion_parte (archivo, desde, hasta) values (?, ?, ?)";
+    private static final String DELETE_PARTES = "delete from log_importacion_parte where archivo = ? and hasta <= ?";
+
+    private record Conteo(long lineas, long registros) {}
+
+    private record Estado(long offset, int largoHuella, long huella, boolean completo) {}
+
+    private final LogAggregateStore store;
+    private final RutasLogs rutas;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AgregadorParalelo agregador;
+    private final RequestMappingHandlerMapping handlerMapping;
+    private final Path archivoLog;
+    private final Path archivoEstado;
+    private final int tamanoSegmento;
+    private final int tamanoLote;
+    private final ReentrantLock enCurso = new ReentrantLock();
+
+    public LogImporter(LogAggregateStore store,
+                       RutasLogs rutas,
+                       JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       AgregadorParalelo agregador,
+                       @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+                       @Value("${logs.importacion.archivo:${logging.file.name:app.log}}") String archivoLog,
+                       @Value("${logs.importacion.estado:logs-import/offsets.properties}") String archivoEstado,
+                       @Value("${logs.importacion.segmento-mb:64}") int segmentoMb,
+                       @Value("${logs.importacion.tamano-lote:2000}") int tamanoLote) {
+        this.store = store;
+        this.rutas = rutas;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.agregador = agregador;
+        this.handlerMapping = handlerMapping;
+        this.archivoLog = Path.of(archivoLog).toAbsolutePath().normalize();
+        this.archivoEstado = Path.of(archivoEstado);
+        this.tamanoSegmento = Math.max(1, Math.min(segmentoMb, 1024)) << 20;
+        this.tamanoLote = tamanoLote;
+    }
+
+    // ========= Importación =========
+
+    /**
+     * Importa las rotaciones .gz (de la más antigua a la más nueva) y luego el archivo actual.
+     * Lanza IllegalStateException si ya hay otra importación corriendo.
+     */
+    public ResumenImportacion importar() {
+        if (!enCurso.tryLock()) {
+            throw new IllegalStateException("Ya hay una importación de archivos en curso");
+        }
+        try {
+            long inicio = System.nanoTime();
+            AnalizadorLineasLog analizador = new AnalizadorLineasLog(rutasPorHandler(), ZoneId.systemDefault());
+            Properties anteriores = leerEstadosAnteriores();
+            List<ArchivoImportado> archivos = new ArrayList<>();
+            for (Path archivo : archivos()) {
+                ArchivoImportado resultado = archivo.getFileName().toString().endsWith(".gz")
+                        ? importarGzip(archivo, analizador, anteriores)
+                        : importarPlano(archivo, analizador, anteriores);
+                if (resultado != null) archivos.add(resultado);
+            }
+            long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+            long bytes = archivos.stream().mapToLong(a -> a.hasta() - a.desde()).sum();
+            ResumenImportacion resumen = new ResumenImportacion(archivos, bytes,
+                    archivos.stream().mapToLong(ArchivoImportado::lineas).sum(),
+                    archivos.stream().mapToLong(ArchivoImportado::registros).sum(),
+                    milisegundos,
+                    milisegundos == 0 ? 0.0 : bytes / 1_048_576.0 / (milisegundos / 1000.0));
+            logger.info("Importación de logs: " + resumen.registros() + " registros de " + archivos.size()
+                    + " archivos en " + milisegundos + " ms");
+            return resumen;
+        } finally {
+            enCurso.unlock();
+        }
+    }
+
+    /** El archivo de log y las rotaciones "<nombre>.*.gz" del mismo directorio. */
+    private List<Path> archivos() {
+        Path directorio = archivoLog.getParent();
+        String nombre = archivoLog.getFileName().toString();
+        try (Stream<Path> contenido = Files.list(directorio)) {
+            return contenido
+                    .filter(p -> {
+                        String n = p.getFileName().toString();
+                        return n.equals(nombre) || (n.startsWith(nombre + ".") && n.endsWith(".gz"));
+                    })
+                    .filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing((Path p) -> !p.getFileName().toString().endsWith(".gz"))
+                            .thenComparing(Path::toString))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo listar " + directorio, e);
+        }
+    }
+
+    // ========= Archivos planos (mapeados en memoria) =========
+
+    private ArchivoImportado importarPlano(Path archivo, AnalizadorLineasLog analizador, Properties anteriores) {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            Estado estado = estadoVigente(archivo, anteriores);
+            if (estado != null && estado.offset() > tamano) { // se truncó: es otro archivo
+                reiniciarEstado(archivo);
+                estado = null;
+            }
+            long desde = estado != null ? estado.offset() : 0;
+
+            long posicion = desde;
+            long lineas = 0;
+            long registros = 0;
+            while (posicion < tamano) {
+                int largo = (int) Math.min(tamanoSegmento, tamano - posicion);
+                ByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, posicion, largo);
+                int fin = finUltimaLinea(datos, largo);
+                if (fin == 0) {
+                    if (largo < tamanoSegmento) break; // última línea aún incompleta: queda para la próxima
+                    fin = largo; // una sola línea más larga que el segmento
+                }
+                Conteo conteo = procesar(archivo, posicion, datos, fin, analizador);
+                lineas += conteo.lineas();
+                registros += conteo.registros();
+                posicion += fin;
+                guardarEstado(archivo, posicion, false);
+            }
+            return new ArchivoImportado(archivo.toString(), desde, posicion, lineas, registros);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo importar " + archivo, e);
+        }
+    }
+
+    // ========= Archivos .gz (streaming) =========
+
+    private ArchivoImportado importarGzip(Path archivo, AnalizadorLineasLog analizador, Properties anteriores) {
+        Estado estado = estadoVigente(archivo, anteriores);
+        if (estado != null && estado.completo()) return null;
+        long desde = estado != null ? estado.offset() : 0;
+
+        try (InputStream entrada = new GZIPInputStream(Files.newInputStream(archivo), 1 << 16)) {
+            entrada.skipNBytes(desde);
+            byte[] bloque = new byte[tamanoSegmento];
+            ByteBuffer datos = ByteBuffer.wrap(bloque);
+            int lleno = 0;
+            long posicion = desde;
+            long lineas = 0;
+            long registros = 0;
+            boolean finArchivo = false;
+            while (!finArchivo) {
+                lleno += entrada.readNBytes(bloque, lleno, bloque.length - lleno);
+                finArchivo = lleno < bloque.length;
+                int fin = finArchivo ? lleno : finUltimaLinea(datos, lleno);
+                if (fin == 0) fin = lleno; // una sola línea más larga que el bloque
+                if (fin > 0) {
+                    Conteo conteo = procesar(archivo, posicion, datos, fin, analizador);
+                    lineas += conteo.lineas();
+                    registros += conteo.registros();
+                    posicion += fin;
+                    System.arraycopy(bloque, fin, bloque, 0, lleno - fin);
+                    lleno -= fin;
+                }
+                guardarEstado(archivo, posicion, finArchivo);
+            }
+            return new ArchivoImportado(archivo.toString(), desde, posicion, lineas, registros);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo importar " + archivo, e);
+        }
+    }
+
+    // ========= Análisis e inserción en paralelo =========
+
+    /**
+     * Parte datos[0, largo) (el archivo desde base) en trozos cortados en saltos de línea,
+     * uno por hilo y de a lo sumo MAXIMO_POR_PARTE bytes, sin los rangos que una importación
+     * interrumpida ya dejó confirmados; cada trozo se inserta en su propia transacción.
+     */
+    private Conteo procesar(Path archivo, long base, ByteBuffer datos, int largo, AnalizadorLineasLog analizador) {
+        List<Callable<Conteo>> tareas = new ArrayList<>();
+        int inicio = 0;
+        for (long[] hecha : partesHechas(archivo, base, base + largo)) {
+            int desde = (int) Math.max(0, hecha[0] - base);
+            if (desde > inicio) partir(archivo, base, datos, inicio, desde, analizador, tareas);
+            inicio = Math.max(inicio, (int) Math.min(largo, hecha[1] - base));
+        }
+        if (inicio < largo) partir(archivo, base, datos, inicio, largo, analizador, tareas);
+        long lineas = 0;
+        long registros = 0;
+        for (Conteo conteo : agregador.enParalelo(tareas)) {
+            lineas += conteo.lineas();
+            registros += conteo.registros();
+        }
+        return new Conteo(lineas, registros);
+    }
+
+    private void partir(Path archivo, long base, ByteBuffer datos, int desde, int hasta, AnalizadorLineasLog analizador,
+                        List<Callable<Conteo>> tareas) {
+        int largo = hasta - desde;
+        int partes = Math.max(1, Math.min(agregador.paralelismo(), largo / MINIMO_POR_PARTE));
+        partes = Math.max(partes, (int) ((largo + (long) MAXIMO_POR_PARTE - 1) / MAXIMO_POR_PARTE));
+        int inicio = desde;
+        for (int k = 1; k <= partes && inicio < hasta; k++) {
+            int fin = k == partes ? hasta
+                    : Math.min(hasta, AnalizadorLineasLog.buscar(datos, desde + (int) ((long) largo * k / partes), hasta) + 1);
+            if (fin <= inicio) continue;
+            int a = inicio;
+            ByteBuffer vista = datos.duplicate();
+            tareas.add(() -> analizarEInsertar(archivo, base, vista, a, fin, analizador));
+            inicio = fin;
+        }
+    }
+
+    /**
+     * Analiza la parte y la inserta por lotes JDBC en una sola transacción junto con su rango
+     * en log_importacion_parte; los agregados se actualizan cuando ya confirmó.
+     */
+    private Conteo analizarEInsertar(Path archivo, long base, ByteBuffer datos, int desde, int hasta,
+                                     AnalizadorLineasLog analizador) {
+        List<LogEntry> logs = new ArrayList<>();
+        long lineas = analizador.analizar(datos, desde, hasta, logs::add);
+        rutas.normalizar(logs); // URIs a patrones de ruta, fuera de la transacción de la parte
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < logs.size(); i += tamanoLote) {
+                LogWriter.insertarLote(jdbcTemplate, logs.subList(i, Math.min(logs.size(), i + tamanoLote)));
+            }
+            jdbcTemplate.update(INSERT_PARTE, archivo.toString(), base + desde, base + hasta);
+        });
+        logs.forEach(store::registrar);
+        return new Conteo(lineas, logs.size());
+    }
+
+    /** Posición siguiente al último '\n' de datos[0, largo), o 0 si no hay ninguno. */
+    private static int finUltimaLinea(ByteBuffer datos, int largo) {
+        for (int i = largo - 1; i >= 0; i--) {
+            if (datos.get(i) == '\n') return i + 1;
+        }
+        return 0;
+    }
+
+    // ========= Rutas de los controladores (líneas antiguas) =========
+
+    /**
+     * Nombre del método del controlador → método HTTP y patrón de ruta. Los nombres que
+     * aparecen en más de una ruta se omiten porque la línea no permite distinguirlos.
+     */
+    private Map<String, AnalizadorLineasLog.Ruta> rutasPorHandler() {
+        Map<String, AnalizadorLineasLog.Ruta> rutas = new HashMap<>();
+        Set<String> ambiguos = new HashSet<>();
+        handlerMapping.getHandlerMethods().forEach((info, handler) -> {
+            String nombre = handler.getMethod().getName();
+            Set<RequestMethod> metodos = info.getMethodsCondition().getMethods();
+            Set<String> patrones = info.getPatternValues();
+            if (metodos.size() != 1 || patrones.size() != 1) {
+                ambiguos.add(nombre);
+                return;
+            }
+            AnalizadorLineasLog.Ruta ruta = new AnalizadorLineasLog.Ruta(
+                    metodos.iterator().next().name(), patrones.iterator().next());
+            AnalizadorLineasLog.Ruta previa = rutas.putIfAbsent(nombre, ruta);
+            if (previa != null && !previa.equals(ruta)) ambiguos.add(nombre);
+        });
+        ambiguos.forEach(rutas::remove);
+        return rutas;
+    }
+
+    // ========= Offsets por archivo =========
+
+    /** Offsets de logs.importacion.estado (versiones anteriores, antes de log_importacion). */
+    private Properties leerEstadosAnteriores() {
+        Properties estados = new Properties();
+        if (Files.exists(archivoEstado)) {
+            try (InputStream entrada = Files.newInputStream(archivoEstado)) {
+                estados.load(entrada);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer " + archivoEstado, e);
+            }
+        }
+        return estados;
+    }
+
+    /**
+     * Estado guardado del archivo en log_importacion (o en el archivo de offsets anterior). Si no
+     * hay o la huella ya no coincide (archivo reemplazado) se reinicia en 0 y devuelve null.
+     */
+    private Estado estadoVigente(Path archivo, Properties anteriores) {
+        List<Estado> filas = jdbcTemplate.query(SELECT_ESTADO, (rs, i) -> new Estado(rs.getLong(1), rs.getInt(2),
+                rs.getLong(3), rs.getBoolean(4)), archivo.toString());
+        Estado estado = filas.isEmpty() ? estadoAnterior(archivo, anteriores) : filas.get(0);
+        if (estado == null || huella(archivo, estado.largoHuella()) != estado.huella()) {
+            reiniciarEstado(archivo);
+            return null;
+        }
+        if (filas.isEmpty()) guardarEstado(archivo, estado.offset(), estado.completo());
+        return estado;
+    }
+
+    private static Estado estadoAnterior(Path archivo, Properties anteriores) {
+        String valor = anteriores.getProperty(archivo.toString());
+        if (valor == null) return null;
+        String[] partes = valor.split(";");
+        return new Estado(Long.parseLong(partes[0]), Integer.parseInt(partes[1]),
+                Long.parseUnsignedLong(partes[2], 16), Boolean.parseBoolean(partes[3]));
+    }
+
+    /** Rangos [desde, hasta) ya confirmados que tocan [desde, hasta), en orden. */
+    private List<long[]> partesHechas(Path archivo, long desde, long hasta) {
+        return jdbcTemplate.query(SELECT_PARTES, (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2)},
+                archivo.toString(), desde, hasta);
+    }
+
+    /** Archivo nuevo o reemplazado: offset 0 y sin partes (las que hubiera eran del anterior). */
+    private void reiniciarEstado(Path archivo) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(DELETE_PARTES, archivo.toString(), Long.MAX_VALUE);
+            escribirEstado(archivo, 0, false);
+        });
+    }
+
+    /** Guarda el offset y borra las partes que quedaron por debajo, en una transacción. */
+    private void guardarEstado(Path archivo, long offset, boolean completo) {
+        transactionTemplate.executeWithoutResult(status -> {
+            escribirEstado(archivo, offset, completo);
+            jdbcTemplate.update(DELETE_PARTES, archivo.toString(), offset);
+        });
+    }
+
+    private void escribirEstado(Path archivo, long offset, boolean completo) {
+        int largoHuella;
+        try {
+            largoHuella = (int) Math.min(LARGO_HUELLA, Files.size(archivo));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer " + archivo, e);
+        }
+        Object[] valores = {offset, largoHuella, huella(archivo, largoHuella), completo, archivo.toString()};
+        if (jdbcTemplate.update(UPDATE_ESTADO, valores) == 0) jdbcTemplate.update(INSERT_ESTADO, valores);
+    }
+
+    /** CRC32 de los primeros {@code largo} bytes del archivo (tal como está en disco). */
+    private static long huella(Path archivo, int largo) {
+        try (InputStream entrada = Files.newInputStream(archivo)) {
+            byte[] bytes = entrada.readNBytes(largo);
+            if (bytes.length < largo) return -1;
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            return crc.getValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer " + archivo, e);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cr.ac.una.proyectoparadigmas.dto.ResumenImportacionNdjson;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Importación masiva de LogEntry desde NDJSON (un objeto JSON por línea), con el mismo
+ * formato que produce la exportación de eventos críticos o el derrame de LogWriter:
+ * {"timestamp":"2025-09-21T11:53:46.933","nivel":"INFO","mensaje":"...","endpoint":"/api/persona",
+ *  "metodoHttp":"GET","statusCode":200,"tiempoRespuesta":12}
+
+ * - Cada línea se lee con el JsonParser de Jackson campo por campo, sin armar un árbol
+ *   ni pasar por el ObjectMapper, y se valida contra las columnas de LogEntry.
+ *   Las líneas inválidas se cuentan por motivo y no detienen la importación; tampoco una
+ *   de más de 16 MB, que se salta sin guardarla.
+ * - Los registros válidos se agrupan en lotes de logs.importacion.tamano-lote que se
+ *   insertan con JDBC batch en los hilos de AgregadorParalelo mientras este hilo sigue
+ *   leyendo; como mucho hay 2 × paralelismo lotes pendientes en memoria.
+ * - Los archivos solo se aceptan dentro de logs.importacion.directorio-ndjson.
+ */
+@Component
+public class LogNdjsonImporter {
+    private static final Logger logger = Logger.getLogger(LogNdjsonImporter.class.getName());
+
+    private static final int LARGO_MAXIMO_TEXTO = 255; // varchar(255) de log_entry
+    private static final int MAXIMO_EJEMPLOS = 20;
+    private static final int MAXIMO_LINEA = 16 << 20;
+    private static final Set<String> NIVELES = Set.of("TRACE", "DEBUG", "INFO", "WARN", "ERROR");
+
+    private final LogAggregateStore store;
+    private final RutasLogs rutas;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AgregadorParalelo agregador;
+    private final JsonFactory fabrica;
+    private final Path directorio;
+    private final int tamanoLote;
+    private final ZoneId zona = ZoneId.systemDefault();
+
+    public LogNdjsonImporter(LogAggregateStore store,
+                             RutasLogs rutas,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             AgregadorParalelo agregador,
+                             ObjectMapper objectMapper,
+                             @Value("${logs.importacion.directorio-ndjson:importaciones}") String directorio,
+                             @Value("${logs.importacion.tamano-lote:2000}") int tamanoLote) {
+        this.store = store;
+        this.rutas = rutas;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.agregador = agregador;
+        this.fabrica = objectMapper.getFactory();
+        this.directorio = Path.of(directorio).toAbsolutePath().normalize();
+        this.tamanoLote = tamanoLote;
+    }
+
+    // ========= Entradas =========
+
+    /**
+     * Importa un .jsonl / .ndjson (opcionalmente .gz) relativo a logs.importacion.directorio-ndjson.
+     * Lanza IllegalArgumentException si la ruta sale de ese directorio o no es un archivo válido.
+     */
+    public ResumenImportacionNdjson importarArchivo(String ruta) throws IOException {
+        Path archivo = directorio.resolve(ruta).normalize();
+        if (!archivo.startsWith(directorio)) {
+            throw new IllegalArgumentException("La ruta debe estar dentro de logs.importacion.directorio-ndjson");
+        }
+        String nombre = archivo.getFileName().toString();
+        boolean comprimido = nombre.endsWith(".gz");
+        String base = comprimido ? nombre.substring(0, nombre.length() - 3) : nombre;
+        if (!base.endsWith(".jsonl") && !base.endsWith(".ndjson")) {
+            throw new IllegalArgumentException("Se esperaba un archivo .jsonl, .ndjson o su versión .gz");
+        }
+        if (!Files.isRegularFile(archivo)) {
+            throw new IllegalArgumentException("No existe el archivo " + ruta);
+        }
+        try (InputStream entrada = comprimido
+                ? new GZIPInputStream(Files.newInputStream(archivo), 1 << 16)
+                : Files.newInputStream(archivo)) {
+            return importar(entrada);
+        }
+    }
+
+    /** Importa todo el NDJSON de la entrada (p. ej. el cuerpo de la petición). No la cierra. */
+    public ResumenImportacionNdjson importar(InputStream entrada) throws IOException {
+        long inicio = System.nanoTime();
+        LectorLineas lector = new LectorLineas(entrada, 1 << 20, MAXIMO_LINEA);
+        Map<String, Long> rechazos = new LinkedHashMap<>();
+        List<ResumenImportacionNdjson.Rechazo> ejemplos = new ArrayList<>();
+        Deque<ForkJoinTask<Integer>> pendientes = new ArrayDeque<>();
+        long lineas = 0;
+        long validas = 0;
+        long fallidas = 0;
+
+        List<LogEntry> lote = new ArrayList<>(tamanoLote);
+        try {
+            while (lector.siguiente()) {
+                lineas++;
+                if (lector.demasiadoLarga) {
+                    rechazar(rechazos, ejemplos, lineas, "La línea supera " + (MAXIMO_LINEA >> 20) + " MB");
+                    continue;
+                }
+                if (lector.enBlanco()) continue;
+                try {
+                    lote.add(leer(lector.buffer, lector.inicioLinea, lector.largoLinea));
+                } catch (IllegalArgumentException e) {
+                    rechazar(rechazos, ejemplos, lineas, e.getMessage());
+                    continue;
+                }
+                validas++;
+                if (lote.size() >= tamanoLote) {
+                    List<LogEntry> actual = lote;
+                    pendientes.add(agregador.enviar(() -> insertar(actual)));
+                    if (pendientes.size() > 2 * agregador.paralelismo()) {
+                        fallidas += pendientes.poll().join();
+                    }
+                    lote = new ArrayList<>(tamanoLote);
+                }
+            }
+            if (!lote.isEmpty()) fallidas += insertar(lote);
+        } finally {
+            for (ForkJoinTask<Integer> pendiente : pendientes) {
+                fallidas += pendiente.join(); // nunca se responde con lotes aún escribiéndose
+            }
+        }
+
+        long nanos = System.nanoTime() - inicio;
+        double segundos = nanos / 1e9;
+        long rechazadas = rechazos.values().stream().mapToLong(Long::longValue).sum();
+        return new ResumenImportacionNdjson(lineas, validas - fallidas, rechazadas, fallidas,
+                rechazos, ejemplos, lector.bytes, nanos / 1_000_000,
+                segundos == 0 ? 0.0 : (validas - fallidas) / segundos,
+                segundos == 0 ? 0.0 : lector.bytes / 1_048_576.0 / segundos);
+    }
+
+    private static void rechazar(Map<String, Long> rechazos, List<ResumenImportacionNdjson.Rechazo> ejemplos,
+                                 long linea, String motivo) {
+        rechazos.merge(motivo, 1L, Long::sum);
+        if (ejemplos.size() < MAXIMO_EJEMPLOS) ejemplos.add(new ResumenImportacionNdjson.Rechazo(linea, motivo));
+    }
+
+    /** Inserta un lote en su propia transacción; devuelve cuántas filas fallaron (0 o el lote entero). */
+    private int insertar(List<LogEntry> lote) {
+        rutas.normalizar(lote); // URIs a patrones de ruta, fuera de la transacción del lote
+        try {
+            transactionTemplate.executeWithoutResult(status -> LogWriter.insertarLote(jdbcTemplate, lote));
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Falló la inserción de un lote importado de " + lote.size() + " logs", e);
+            return lote.size();
+        }
+        lote.forEach(store::registrar);
+        return 0;
+    }
+
+    // ========= Lectura y validación de una línea =========
+
+    /** Lee un objeto JSON y lo valida; IllegalArgumentException con el motivo si no sirve. */
+    LogEntry leer(byte[] datos, int desde, int largo) throws IOException {
+        LogEntry log = new LogEntry();
+        boolean conStatus = false;
+        boolean conTiempo = false;
+        try (JsonParser parser = fabrica.createParser(datos, desde, largo)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("La línea no es un objeto JSON");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                JsonToken valor = parser.nextToken();
+                switch (campo) {
+                    case "timestamp" -> log.setTimestamp(fecha(parser, valor));
+                    case "nivel" -> log.setNivel(texto(parser, valor, campo));
+                    case "mensaje" -> log.setMensaje(texto(parser, valor, campo));
+                    case "endpoint" -> log.setEndpoint(texto(parser, valor, campo));
+                    case "uri" -> log.setUri(texto(parser, valor, campo));
+                    case "metodoHttp" -> log.setMetodoHttp(texto(parser, valor, campo));
+                    case "statusCode" -> {
+                        long status = entero(parser, valor, campo);
+                        if (status < 100 || status > 599) throw new IllegalArgumentException("statusCode fuera de 100-599");
+                        log.setStatusCode((int) status);
+                        conStatus = true;
+                    }
+                    case "tiempoRespuesta" -> {
+                        long tiempo = entero(parser, valor, campo);
+                        if (tiempo < 0) throw new IllegalArgumentException("tiempoRespuesta negativo");
+                        log.setTiempoRespuesta(tiempo);
+                        conTiempo = true;
+                    }
+                    case "peso" -> {
+                        long peso = entero(parser, valor, campo);
+                        if (peso < 1 || peso > MuestreoLogs.PESO_MAXIMO) {
+                            throw new IllegalArgumentException("peso fuera de 1-" + MuestreoLogs.PESO_MAXIMO);
+                        }
+                        log.setPeso((int) peso);
+                    }
+                    default -> parser.skipChildren(); // id y campos desconocidos se ignoran
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Contenido extra después del objeto JSON");
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON inválido");
+        }
+
+        if (log.getTimestamp() == null) throw new IllegalArgumentException("Falta timestamp");
+        if (vacio(log.getNivel())) throw new IllegalArgumentException("Falta nivel");
+        log.setNivel(log.getNivel().toUpperCase(Locale.ROOT));
+        if (!NIVELES.contains(log.getNivel())) throw new IllegalArgumentException("nivel desconocido");
+        if (vacio(log.getEndpoint())) throw new IllegalArgumentException("Falta endpoint");
+        if (vacio(log.getMetodoHttp())) throw new IllegalArgumentException("Falta metodoHttp");
+        log.setMetodoHttp(log.getMetodoHttp().toUpperCase(Locale.ROOT));
+        if (!conStatus) throw new IllegalArgumentException("Falta statusCode");
+        if (!conTiempo) throw new IllegalArgumentException("Falta tiempoRespuesta");
+        return log;
+    }
+
+    private static String texto(JsonParser parser, JsonToken valor, String campo) throws IOException {
+        if (valor == JsonToken.VALUE_NULL) return null;
+        if (valor != JsonToken.VALUE_STRING) throw new IllegalArgumentException(campo + " no es texto");
+        String texto = parser.getText();
+        if (texto.length() > LARGO_MAXIMO_TEXTO) {
+            throw new IllegalArgumentException(campo + " supera " + LARGO_MAXIMO_TEXTO + " caracteres");
+        }
+        return texto;
+    }
+
+    private static long entero(JsonParser parser, JsonToken valor, String campo) throws IOException {
+        if (valor != JsonToken.VALUE_NUMBER_INT) throw new IllegalArgumentException(campo + " no es un entero");
+        return parser.getLongValue();
+    }
+
+    /**
+     * ISO-8601 local ("2025-09-21T11:53:46.933"), con offset ("...-06:00", "...Z"),
+     * que se pasa a la zona del servidor, o milisegundos desde epoch.
+     */
+    private LocalDateTime fecha(JsonParser parser, JsonToken valor) throws IOException {
+        if (valor == JsonToken.VALUE_NUMBER_INT) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLongValue()), zona);
+        }
+        if (valor != JsonToken.VALUE_STRING) throw new IllegalArgumentException("timestamp inválido");
+        try {
+            TemporalAccessor fecha = DateTimeFormatter.ISO_DATE_TIME.parseBest(parser.getText(),
+                    OffsetDateTime::from, LocalDateTime::from);
+            return fecha instanceof OffsetDateTime conOffset
+                    ? conOffset.atZoneSameInstant(zona).toLocalDateTime()
+                    : (LocalDateTime) fecha;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("timestamp inválido");
+        }
+    }
+
+    private static boolean vacio(String valor) {
+        return valor == null || valor.isBlank();
+    }
+
+    // ========= Lector de líneas =========
+
+    /**
+     * Corta la entrada en líneas sobre un único buffer de bytes que se reutiliza (no crea
+     * un String por línea). Acepta \n y \r\n; la última línea puede no tener salto.
+     * El buffer se duplica hasta maximo; una línea más larga se descarta mientras se lee y
+     * se devuelve vacía con demasiadoLarga, para rechazarla y seguir con la siguiente.
+     */
+    static final class LectorLineas {
+        private final InputStream entrada;
+        private final int maximo;
+        byte[] buffer;
+        private int inicio;
+        private int lleno;
+        private int revisado;
+        private boolean finEntrada;
+        private boolean descartando;
+        int inicioLinea;
+        int largoLinea;
+        boolean demasiadoLarga;
+        long bytes;
+
+        LectorLineas(InputStream entrada, int inicial, int maximo) {
+            this.entrada = entrada;
+            this.maximo = maximo;
+            this.buffer = new byte[Math.min(inicial, maximo)];
+        }
+
+        boolean siguiente() throws IOException {
+            demasiadoLarga = false;
+            while (true) {
+                for (int i = Math.max(revisado, inicio); i < lleno; i++) {
+                    if (buffer[i] == '\n') {
+                        marcarLinea(i);
+                        inicio = i + 1;
+                        return true;
+                    }
+                }
+                revisado = lleno;
+                if (finEntrada) {
+                    if (inicio >= lleno && !descartando) return false;
+                    marcarLinea(lleno);
+                    inicio = lleno;
+                    return true;
+                }
+                if (inicio > 0) {
+                    System.arraycopy(buffer, inicio, buffer, 0, lleno - inicio);
+                    lleno -= inicio;
+                    revisado -= inicio;
+                    inicio = 0;
+                }
+                if (lleno == buffer.length) {
+                    if (buffer.length >= maximo) {
+                        descartando = true; // lo leído de esta línea no se guarda
+                        lleno = 0;
+                        revisado = 0;
+                    } else {
+                        buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, maximo));
+                    }
+                }
+                int leidos = entrada.read(buffer, lleno, buffer.length - lleno);
+                if (leidos < 0) {
+                    finEntrada = true;
+                } else {
+                    lleno += leidos;
+                    bytes += leidos;
+                }
+            }
+        }
+
+        private void marcarLinea(int fin) {
+            if (descartando) {
+                descartando = false;
+                demasiadoLarga = true;
+                inicioLinea = fin;
+                largoLinea = 0;
+                return;
+            }
+            inicioLinea = inicio;
+            largoLinea = (fin > inicio && buffer[fin - 1] == '\r') ? fin - 1 - inicio : fin - inicio;
+        }
+
+        boolean enBlanco() {
+            for (int i = inicioLinea; i < inicioLinea + largoLinea; i++) {
+                byte b = buffer[i];
+                if (b != ' ' && b != '\t') return false;
+            }
+            return true;
+        }
+    }
+}
@@ -1,13 +1,28 @@
 package cr.ac.una.proyectoparadigmas.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cr.ac.una.proyectoparadigmas.dto.ConteoAproximado;
 import cr.ac.una.proyectoparadigmas.dto.EndpointsUso;
+import cr.ac.una.proyectoparadigmas.dto.PaginaEventos;
+import cr.ac.una.proyectoparadigmas.dto.Percentiles;
+import cr.ac.una.proyectoparadigmas.dto.ReporteDashboard;
+import cr.ac.una.proyectoparadigmas.dto.ReportePercentiles;
+import cr.ac.una.proyectoparadigmas.dto.ResumenLogs;
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
 import cr.ac.una.proyectoparadigmas.entity.LogEntry;
-import cr.ac.una.proyectoparadigmas.repository.LogRepository;
+import cr.ac.una.proyectoparadigmas.metrics.ContadorFrecuentes;
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import cr.ac.una.proyectoparadigmas.dto.ErrorCount;
 import cr.ac.una.proyectoparadigmas.dto.EndpointStats;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -18,21 +33,97 @@ import java.util.stream.Collectors;
      *
      * Métodos implementados:
      * - Reportes de errores (conteo, top 3, horas pico)
-     * - Reportes de tiempos de respuesta (mínimo, máximo, promedio, mediana, distribución por endpoint)
+     * - Reportes de tiempos de respuesta (mínimo, máximo, promedio, mediana, percentiles, distribución por endpoint)
      * - Reportes de uso (conteo por endpoint y método HTTP)
      * - Reportes de alertas y eventos críticos
      * - Reporte del estado general de la aplicación
+     * - Dashboard con todos los reportes calculados en una sola pasada
      *
-     * Todos los cálculos se realizan sobre la lista de registros de logs almacenados
-     * en la base de datos mediante LogRepository.
+     * Los cálculos se realizan sobre los agregados que mantiene LogAggregateStore
+     * (actualizados en cada registro), así que no se recorre la tabla de logs.
+     * Con logs.reportes.fuente=db se le pide en cambio el agregado a AlmacenLogs (útil si
+     * varias instancias escriben en la misma base de datos), y con logs.reportes.fuente=columnar
+     * se recorre la copia columnar de LogColumnarStore (cualquier ventana, sin entidades).
+     *
+     * Todos los reportes reciben una Ventana [desde, hasta). Si cae dentro del horizonte
+     * en memoria se combinan los agregados por minuto de LogAggregateStore; si empieza
+     * antes, la agrega AlmacenLogs (con JPA, consultas filtradas por idx_log_timestamp).
+     *
+     * Con muestreo (MuestreoLogs) cada log cuenta su peso, así que conteos, promedios y
+     * percentiles estiman lo ocurrido sin sesgo. El margen de error al 95 % sale de la varianza
+     * del agregado (suma de peso·(peso - 1)): ±1.96·√varianza peticiones; el promedio y los
+     * percentiles lo trasladan acotando cuánto puede pesar cada petición muestreada.
  */
 @Service
 public class LogService {
 
-    private final LogRepository logRepository;
+    private final AlmacenLogs almacen;
+    private final LogAggregateStore store;
+    private final ObjectMapper objectMapper;
+    private final LogColumnarStore columnar;
+    private final boolean desdeBd;
+    private final boolean desdeColumnar;
+    private final int maxIntervalos;
+    private final int maxIntervalosAlmacen;
+    private final int maxEventosPorPagina;
+    private final long lentoMs;
+    private final int topK;
+    private final boolean topExacto;
+
+    /** z del intervalo de confianza al 95 % de los márgenes. */
+    private static final double Z_95 = 1.96;
+
+    public LogService(AlmacenLogs almacen,
+                      LogAggregateStore store,
+                      ObjectMapper objectMapper,
+                      LogColumnarStore columnar,
+                      @Value("${logs.reportes.fuente:memoria}") String fuente,
+                      @Value("${logs.ventanas.max-intervalos:1000}") int maxIntervalos,
+                      @Value("${logs.ventanas.max-intervalos-almacen:48}") int maxIntervalosAlmacen,
+                      @Value("${logs.eventos.max-por-pagina:1000}") int maxEventosPorPagina,
+                      @Value("${logs.muestreo.lento-ms:500}") long lentoMs,
+                      @Value("${logs.reportes.top-k:3}") int topK,
+                      @Value("${logs.reportes.top-modo:aproximado}") String topModo) {
+        this.almacen = almacen;
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.columnar = columnar;
+        this.desdeBd = "db".equalsIgnoreCase(fuente.trim());
+        this.desdeColumnar = "columnar".equalsIgnoreCase(fuente.trim());
+        this.maxIntervalos = maxIntervalos;
+        this.maxIntervalosAlmacen = maxIntervalosAlmacen;
+        this.maxEventosPorPagina = maxEventosPorPagina;
+        this.lentoMs = lentoMs;
+        this.topK = topK;
+        this.topExacto = modoExacto(topModo);
+    }
+
+    /** Agregado de la ventana: de memoria si se puede, si no calculado por AlmacenLogs. */
+    private AgregadoLogs agregado(Ventana ventana) {
+        if (desdeColumnar) return columnar.agregado(ventana);
+        AgregadoLogs agregado = desdeBd ? null : store.agregado(ventana);
+        return agregado != null ? agregado : almacen.agregar(ventana, store::nuevoHistograma);
+    }
 
-    public LogService(LogRepository logRepository) {
-        this.logRepository = logRepository;
+    /**
+     * Serie temporal de un reporte: lo calcula para cada intervalo de la granularidad
+     * de la ventana. Ejemplo (hour): {"2025-09-01T13:00"={500=2}, "2025-09-01T14:00"={404=1}}
+     *
+     * Cada intervalo que no sale de memoria es un AlmacenLogs.agregar completo (con JPA, una
+     * tanda de consultas), así que esos intervalos se limitan aparte con
+     * logs.ventanas.max-intervalos-almacen.
+     */
+    public <T> Map<LocalDateTime, T> serie(Ventana ventana, Function<Ventana, T> reporte) {
+        List<Ventana> intervalos = ventana.intervalos(maxIntervalos);
+        long enAlmacen = desdeColumnar ? 0
+                : desdeBd ? intervalos.size()
+                : intervalos.stream().filter(i -> !store.enHorizonte(i.desde())).count();
+        if (enAlmacen > maxIntervalosAlmacen) {
+            throw new IllegalArgumentException("La ventana tiene " + enAlmacen + " intervalos fuera de memoria (máximo "
+                    + maxIntervalosAlmacen + "); use una granularidad mayor o un rango más corto");
+        }
+        return intervalos.stream()
+                .collect(Collectors.toMap(Ventana::desde, reporte, (a,b)->a, TreeMap::new));
     }
 
     // ========= Reporte de Errores =========
@@ -41,10 +132,12 @@ public class LogService {
      * Número total de errores registrados por código de estado HTTP.
      * Ejemplo de salida: {500=12, 404=5, 400=3}
      */
-    public Map<Integer, Long> erroresPorCodigo() {
-        return logRepository.findAll().stream()
-                .filter(log -> log.getStatusCode() >= 400) // Solo errores
-                .collect(Collectors.groupingBy(LogEntry::getStatusCode, Collectors.counting()));
+    public Map<Integer, Long> erroresPorCodigo(Ventana ventana) {
+        return erroresPorCodigo(agregado(ventana));
+    }
+
+    private static Map<Integer, Long> erroresPorCodigo(AgregadoLogs agregado) {
+        return agregado.contadorStatus().aMapa(400, Integer.MAX_VALUE); // Solo errores
     }
 
     /**
@@ -52,13 +145,23 @@ public class LogService {
      * Ejemplo de salida: [{500=12}, {404=5}, {400=3}]
      */
 
-    public List<ErrorCount> top3Errores() {
-        return logRepository.findAll().stream()
-                .filter(log -> log.getStatusCode() >= 400)
-                .collect(Collectors.groupingBy(LogEntry::getStatusCode, Collectors.counting()))
+    public List<ErrorCount> top3Errores(Ventana ventana) {
+        return topErrores(agregado(ventana), 3);
+    }
+
+    /**
+     * Los k códigos de error más frecuentes. Los códigos HTTP son pocos (ContadorDenso de tamaño
+     * fijo), así que los conteos son exactos con cualquier cantidad de logs.
+     */
+    public List<ErrorCount> topErrores(Ventana ventana, int k) {
+        if (k < 1 || k > 500) throw new IllegalArgumentException("k debe estar entre 1 y 500");
+        return topErrores(agregado(ventana), k);
+    }
+
+    private static List<ErrorCount> topErrores(AgregadoLogs agregado, int k) {
+        return agregado.contadorStatus()
+                .topComoMapa(k, 400, Integer.MAX_VALUE) // selección parcial, sin ordenar todo
                 .entrySet().stream()
-                .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed())
-                .limit(3)
                 .map(e -> new ErrorCount(e.getKey(), e.getValue())) // convertir a DTO
                 .toList();
     }
@@ -68,17 +171,12 @@ public class LogService {
      * Ejemplo de salida: {0=1, 13=7, 18=12}
      */
 
-    public Map<Integer, Long> horasPicoErrores() {
-        return logRepository.findAll().stream()
-                .filter(l -> Optional.ofNullable(l.getStatusCode()).orElse(0) >= 400) // solo errores
-                .map(l -> Optional.ofNullable(l.getTimestamp()).map(ts -> ts.getHour()))
-                .flatMap(Optional::stream) // descarta nulos
-                .collect(Collectors.groupingBy(h -> h, Collectors.counting()))
-                .entrySet().stream()
-                .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed())
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey, Map.Entry::getValue, (a,b)->a, LinkedHashMap::new
-                ));
+    public Map<Integer, Long> horasPicoErrores(Ventana ventana) {
+        return horasPico(agregado(ventana));
+    }
+
+    private static Map<Integer, Long> horasPico(AgregadoLogs agregado) {
+        return agregado.contadorErroresPorHora().topComoMapa(24, 0, 24); // de más a menos errores
     }
 
 
@@ -89,58 +187,67 @@ public class LogService {
      * Ejemplo de salida: {"min"=10, "max"=900, "promedio"=140.5, "mediana"=120.0}
      */
 
-    public Map<String, Double> estadisticasTiempos() {
-        List<Long> tiempos = logRepository.findAll().stream()
-                .map(l -> Optional.ofNullable(l.getTiempoRespuesta()).orElse(0L))
-                .filter(t -> t > 0)
-                .sorted()
-                .toList();
+    public Map<String, Double> estadisticasTiempos(Ventana ventana) {
+        return estadisticas(agregado(ventana).latenciaGlobal());
+    }
 
-        if (tiempos.isEmpty()) {
+    private static Map<String, Double> estadisticas(HistogramaLatencias tiempos) {
+        if (tiempos.cantidad() == 0) {
             return Map.of("min", 0.0, "max", 0.0, "promedio", 0.0, "mediana", 0.0);
         }
 
-        double promedio = tiempos.stream()
-                .mapToLong(Long::longValue)
-                .average()
-                .orElse(0.0);
-
-        double min = tiempos.get(0);  // primer elemento
-        double max = tiempos.get(tiempos.size() - 1); // último elemento
-
-        double mediana = (tiempos.size() % 2 == 0)
-                ? (tiempos.get(tiempos.size()/2 - 1) + tiempos.get(tiempos.size()/2)) / 2.0
-                : tiempos.get(tiempos.size()/2);
-
         return Map.of(
-                "min", min,
-                "max", max,
-                "promedio", promedio,
-                "mediana", mediana
+                "min", (double) tiempos.min(),
+                "max", (double) tiempos.max(),
+                "promedio", tiempos.promedio(),
+                "mediana", tiempos.mediana()
         );
     }
 
     /**
      * Distribución de los tiempos de respuesta agrupados por endpoint.
-     * Ejemplo de salida: {"/api/persona"=1234, "/api/logs"=879}
-     */
-
-    public Map<String, EndpointStats> distribucionTiemposPorEndpoint() {
-        return logRepository.findAll().stream()
-                .collect(Collectors.groupingBy(
-                        l -> Optional.ofNullable(l.getEndpoint()).orElse("(desconocido)"),
-                        Collectors.mapping(
-                                l -> Optional.ofNullable(l.getTiempoRespuesta()).orElse(0L),
-                                Collectors.collectingAndThen(Collectors.toList(), tiempos -> {
-                                    List<Long> vals = tiempos.stream().filter(t -> t > 0).sorted().toList();
-                                    if (vals.isEmpty()) return new EndpointStats(0, 0, 0.0);
-                                    long min = vals.get(0);
-                                    long max = vals.get(vals.size() - 1);
-                                    double avg = vals.stream().mapToLong(Long::longValue).average().orElse(0.0);
-                                    return new EndpointStats(min, max, avg);
-                                })
-                        )
-                ));
+     * Ejemplo de salida: {"/api/persona"={"min":10,"max":900,"promedio":140.5,"p50":120.0,...}}
+     */
+
+    public Map<String, EndpointStats> distribucionTiemposPorEndpoint(Ventana ventana) {
+        return distribucion(agregado(ventana).latenciaPorEndpoint());
+    }
+
+    private static Map<String, EndpointStats> distribucion(Map<String, HistogramaLatencias> histogramas) {
+        return histogramas.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> stats(e.getValue())));
+    }
+
+    /**
+     * Percentiles p50/p90/p95/p99/p99.9 de los tiempos de respuesta, globales y por endpoint.
+     * Se calculan sobre histogramas de tamaño fijo, sin ordenar los registros.
+     */
+    public ReportePercentiles percentilesTiempos(Ventana ventana) {
+        return percentiles(agregado(ventana));
+    }
+
+    private static ReportePercentiles percentiles(AgregadoLogs agregado) {
+        HistogramaLatencias global = agregado.latenciaGlobal();
+        Map<String, Long> varianzas = agregado.varianzaPorEndpoint();
+        Map<String, Percentiles> porEndpoint = agregado.latenciaPorEndpoint().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey,
+                        e -> percentiles(e.getValue(), varianzas.getOrDefault(e.getKey(), 0L))));
+        return new ReportePercentiles(global.errorRelativo(), percentiles(global, agregado.varianza()), porEndpoint);
+    }
+
+    private static EndpointStats stats(HistogramaLatencias h) {
+        return new EndpointStats(h.min(), h.max(), h.promedio(),
+                h.percentil(0.50), h.percentil(0.90), h.percentil(0.95), h.percentil(0.99), h.percentil(0.999));
+    }
+
+    /**
+     * margenRango: cuánto puede correrse el rango de cada percentil por el muestreo
+     * (0.01 = el p95 estimado está entre el p94 y el p96 reales, al 95 %).
+     */
+    private static Percentiles percentiles(HistogramaLatencias h, long varianza) {
+        return new Percentiles(h.cantidad(),
+                h.percentil(0.50), h.percentil(0.90), h.percentil(0.95), h.percentil(0.99), h.percentil(0.999),
+                h.cantidad() == 0 ? 0 : Math.min(1, margen(varianza) / h.cantidad()));
     }
 
     // ========= Reporte de Uso de Endpoints =========
@@ -149,43 +256,80 @@ public class LogService {
      * Conteo de peticiones por endpoint.
      * Ejemplo de salida: {"/api/persona"=20, "/api/logs"=15}
      */
-    public Map<String, Long> usoPorEndpoint() {
-        return logRepository.findAll().stream()
-                .collect(Collectors.groupingBy(LogEntry::getEndpoint, Collectors.counting()));
+    public Map<String, Long> usoPorEndpoint(Ventana ventana) {
+        return agregado(ventana).conteoPorEndpoint();
+    }
+
+    /**
+     * Margen de error al 95 % del conteo de cada endpoint por el muestreo (0 si no se muestreó).
+     * Ejemplo de salida: {"/api/persona"=39.2, "/api/persona/{id}"=0.0}
+     */
+    public Map<String, Double> margenUsoPorEndpoint(Ventana ventana) {
+        AgregadoLogs agregado = agregado(ventana);
+        Map<String, Long> varianzas = agregado.varianzaPorEndpoint();
+        return agregado.conteoPorEndpoint().keySet().stream()
+                .collect(Collectors.toMap(Function.identity(), e -> margen(varianzas.getOrDefault(e, 0L))));
     }
 
     /**
      * Conteo de peticiones agrupadas por método HTTP.
      * Ejemplo de salida: {"GET"=30, "POST"=12}
      */
-    public Map<String, Long> usoPorMetodoHttp() {
-        return logRepository.findAll().stream()
-                .collect(Collectors.groupingBy(LogEntry::getMetodoHttp, Collectors.counting()));
+    public Map<String, Long> usoPorMetodoHttp(Ventana ventana) {
+        return agregado(ventana).conteoPorMetodo();
     }
 
     // ========= Reporte de Alertas y Eventos Críticos =========
 
 
-    // helper privado
-    private Predicate<LogEntry> esCritico() {
+    // predicado compartido con LogAggregateStore
+    static Predicate<LogEntry> esCritico() {
         return l -> "ERROR".equalsIgnoreCase(
                 Optional.ofNullable(l.getNivel()).orElse("")
         )
                 && Optional.ofNullable(l.getStatusCode()).orElse(0) >= 500;
     }
 
-    // lista de eventos críticos
-    public List<LogEntry> eventosCriticos() {
-        return logRepository.findAll().stream()
-                .filter(esCritico())
-                .toList();
+    /**
+     * Página de eventos críticos (necesita las filas completas; AlmacenLogs filtra con el mismo criterio).
+     * Paginación por keyset sobre id: se piden los siguientes {@code limite} con id > despuesDe.
+     */
+    public PaginaEventos eventosCriticos(Ventana ventana, Long despuesDe, int limite) {
+        if (limite < 1 || limite > maxEventosPorPagina) {
+            throw new IllegalArgumentException("limit debe estar entre 1 y " + maxEventosPorPagina);
+        }
+        List<LogEntry> eventos = almacen.criticos(ventana, despuesDe, limite);
+        Long siguiente = eventos.size() == limite ? eventos.get(eventos.size() - 1).getId() : null;
+        return new PaginaEventos(eventos, siguiente);
+    }
+
+    /**
+     * Escribe todos los eventos críticos de la ventana como NDJSON (un objeto JSON por línea)
+     * a medida que salen del cursor de AlmacenLogs, así que la memoria no depende de cuántos haya.
+     */
+    public void exportarEventosCriticos(Ventana ventana, OutputStream salida) throws IOException {
+        try {
+            almacen.recorrerCriticos(ventana, logs -> {
+                Iterator<LogEntry> it = logs.iterator();
+                try {
+                    while (it.hasNext()) {
+                        salida.write(objectMapper.writeValueAsBytes(it.next()));
+                        salida.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        salida.flush();
     }
 
     // cantidad de eventos críticos
-    public long cantidadEventosCriticos() {
-        return logRepository.findAll().stream()
-                .filter(esCritico())
-                .count();
+    public long cantidadEventosCriticos(Ventana ventana) {
+        return resumen(ventana).criticos();
     }
 
 
@@ -194,39 +338,138 @@ public class LogService {
 
     /**
      * Resumen del estado de la aplicación basado en los logs:
-     * total de peticiones, total de errores y tiempo promedio de respuesta.
+     * total de peticiones, total de errores y tiempo promedio de respuesta, con los márgenes
+     * al 95 % del total y del promedio por el muestreo. Los errores se guardan todos: son exactos.
      */
-    public Map<String, Object> estadoAplicacion() {
-        List<LogEntry> logs = logRepository.findAll();
-        long totalPeticiones = logs.size();
-        long totalErrores = logs.stream().filter(log -> log.getStatusCode() >= 400).count();
-        double tiempoPromedio = logs.stream().mapToLong(LogEntry::getTiempoRespuesta).average().orElse(0);
+    public Map<String, Object> estadoAplicacion(Ventana ventana) {
+        AgregadoLogs agregado = agregado(ventana);
+        return estado(resumen(agregado), agregado.varianza());
+    }
+
+    private Map<String, Object> estado(ResumenLogs resumen, long varianza) {
+        long totalPeticiones = resumen.totalPeticiones();
+        long totalErrores = resumen.totalErrores();
+        double tiempoPromedio = totalPeticiones == 0 ? 0 : (double) resumen.sumaTiempos() / totalPeticiones;
+        // solo las peticiones de menos de lentoMs se muestrean: cada una corre el promedio a lo sumo
+        // max(promedio, lentoMs - promedio) / total
+        double margenPromedio = totalPeticiones == 0 ? 0
+                : margen(varianza) * Math.max(tiempoPromedio, lentoMs - tiempoPromedio) / totalPeticiones;
 
         return Map.of(
                 "totalPeticiones", totalPeticiones,
                 "totalErrores", totalErrores,
-                "tiempoPromedio", tiempoPromedio
+                "tiempoPromedio", tiempoPromedio,
+                "margenPeticiones", margen(varianza),
+                "margenTiempoPromedio", margenPromedio
         );
     }
 
+    /** Margen al 95 % de un conteo estimado con la varianza dada. */
+    private static double margen(long varianza) {
+        return Z_95 * Math.sqrt(varianza);
+    }
+
+    private ResumenLogs resumen(Ventana ventana) {
+        return resumen(agregado(ventana));
+    }
+
+    private static ResumenLogs resumen(AgregadoLogs agregado) {
+        return new ResumenLogs(agregado.totalPeticiones(), agregado.totalErrores(),
+                agregado.sumaTiempos(), agregado.cantidadCriticos());
+    }
+
     //metodos nuevo de timepo de uso
-    public EndpointsUso topYLeastEndpoints() {
-        Map<String, Long> counts = logRepository.findAll().stream()
-                .collect(Collectors.groupingBy(
-                        l -> Optional.ofNullable(l.getEndpoint()).orElse("(desconocido)"),
-                        Collectors.counting()
-                ));
-
-        List<Map.Entry<String, Long>> sorted = counts.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+    public EndpointsUso topYLeastEndpoints(Ventana ventana) {
+        return topYLeastEndpoints(ventana, null, null);
+    }
+
+    /**
+     * Los k endpoints más y menos usados (por defecto logs.reportes.top-k y logs.reportes.top-modo).
+     * - aproximado: sobre todo el histórico en memoria (el total de LogAggregateStore) el top sale de
+     *   su ContadorFrecuentes, sin recorrer todos los conteos. Cada conteo trae su error y umbral acota
+     *   a los que no aparecen; con pocos endpoints no se desaloja ninguno y es exacto. El bottom de
+     *   Space-Saving no tiene garantía una vez que se desalojó algo (los más raros son los que faltan),
+     *   así que en ese caso sale de los conteos exactos. Las ventanas no llevan ContadorFrecuentes y
+     *   van por el camino exacto. El modo ahorra el recorrido, no memoria: los conteos exactos se
+     *   siguen llevando (ver AgregadoLogs) y los acota logs.rutas.max.
+     * - exacto: selección parcial con un montículo de tamaño k sobre todos los conteos.
+     */
+    public EndpointsUso topYLeastEndpoints(Ventana ventana, Integer k, String modo) {
+        int cantidad = k != null ? k : topK;
+        boolean exacto = modo != null ? modoExacto(modo) : topExacto;
+        if (cantidad < 1) throw new IllegalArgumentException("k debe ser al menos 1");
+        AgregadoLogs agregado = agregado(ventana);
+        ContadorFrecuentes frecuentes = exacto ? null : agregado.frecuentesPorEndpoint();
+        if (frecuentes == null) {
+            Map<String, Long> conteos = agregado.conteoPorEndpoint();
+            return new EndpointsUso(true, 0, seleccionar(conteos, cantidad, MAS_USADO), seleccionar(conteos, cantidad, MENOS_USADO));
+        }
+        if (cantidad > frecuentes.capacidad()) {
+            throw new IllegalArgumentException("Con modo=aproximado k llega hasta " + frecuentes.capacidad()
+                    + " (logs.reportes.top-capacidad)");
+        }
+        List<ConteoAproximado> least = frecuentes.exacto()
+                ? aproximados(frecuentes.menos(cantidad))
+                : seleccionar(agregado.conteoPorEndpoint(), cantidad, MENOS_USADO);
+        return new EndpointsUso(frecuentes.exacto(), frecuentes.umbral(), aproximados(frecuentes.mas(cantidad)), least);
+    }
+
+    private static final Comparator<Map.Entry<String, Long>> MAS_USADO =
+            Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+    private static final Comparator<Map.Entry<String, Long>> MENOS_USADO =
+            Map.Entry.<String, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey());
+
+    /** Las k primeras según orden: el montículo guarda solo k, con la peor arriba para sacarla. */
+    private static List<ConteoAproximado> seleccionar(Map<String, Long> conteos, int k,
+                                                      Comparator<Map.Entry<String, Long>> orden) {
+        PriorityQueue<Map.Entry<String, Long>> elegidas = new PriorityQueue<>(orden.reversed());
+        for (Map.Entry<String, Long> conteo : conteos.entrySet()) {
+            elegidas.add(conteo);
+            if (elegidas.size() > k) elegidas.poll();
+        }
+        return elegidas.stream().sorted(orden)
+                .map(e -> new ConteoAproximado(e.getKey(), e.getValue(), 0))
                 .toList();
+    }
+
+    private static List<ConteoAproximado> aproximados(List<ContadorFrecuentes.Frecuencia> frecuencias) {
+        return frecuencias.stream()
+                .map(f -> new ConteoAproximado(f.clave(), f.cantidad(), f.error()))
+                .toList();
+    }
 
-        List<String> top = sorted.stream().limit(3).map(Map.Entry::getKey).toList();
-        List<String> least = sorted.stream()
-                .skip(Math.max(sorted.size() - 3, 0))
-                .map(Map.Entry::getKey).toList();
+    private static boolean modoExacto(String modo) {
+        return switch (modo.trim().toLowerCase(Locale.ROOT)) {
+            case "exacto" -> true;
+            case "aproximado" -> false;
+            default -> throw new IllegalArgumentException("modo debe ser exacto o aproximado");
+        };
+    }
+
+    // ========= Dashboard (todos los reportes en una pasada) =========
 
-        return new EndpointsUso(top, least);
+    /**
+     * Calcula las secciones pedidas a partir de un único AgregadoLogs de la ventana:
+     * el de memoria si está disponible o, si no, el que arma AlmacenLogs en una pasada.
+     * Así el dashboard hace N trabajo en lugar de una consulta o recorrido por reporte.
+     */
+    public ReporteDashboard dashboard(Ventana ventana, Set<ReporteDashboard.Seccion> secciones) {
+        AgregadoLogs agregado = agregado(ventana);
+        Map<Integer, Long> errores = erroresPorCodigo(agregado);
+        ResumenLogs resumen = resumen(agregado);
+
+        return new ReporteDashboard(
+                secciones.contains(ReporteDashboard.Seccion.ERRORES) ? errores : null,
+                secciones.contains(ReporteDashboard.Seccion.TOP3) ? topErrores(agregado, 3) : null,
+                secciones.contains(ReporteDashboard.Seccion.HORAS_PICO) ? horasPico(agregado) : null,
+                secciones.contains(ReporteDashboard.Seccion.ESTADISTICAS) ? estadisticas(agregado.latenciaGlobal()) : null,
+                secciones.contains(ReporteDashboard.Seccion.DISTRIBUCION) ? distribucion(agregado.latenciaPorEndpoint()) : null,
+                secciones.contains(ReporteDashboard.Seccion.PERCENTILES) ? percentiles(agregado) : null,
+                secciones.contains(ReporteDashboard.Seccion.USO_ENDPOINTS) ? agregado.conteoPorEndpoint() : null,
+                secciones.contains(ReporteDashboard.Seccion.USO_HTTP) ? agregado.conteoPorMetodo() : null,
+                secciones.contains(ReporteDashboard.Seccion.ALERTAS) ? resumen.criticos() : null,
+                secciones.contains(ReporteDashboard.Seccion.ESTADO) ? estado(resumen, agregado.varianza()) : null
+        );
     }
 
 }
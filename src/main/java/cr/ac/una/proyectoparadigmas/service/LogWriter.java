@@ -0,0 +1,501 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cr.ac.una.proyectoparadigmas.dto.EstadoEscritor;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Escritor asíncrono de LogEntry.
+
+ * El hilo de la petición solo hace un offer() a una cola acotada; un hilo de fondo
+ * saca lotes de la cola y los inserta con JDBC batch (una transacción por lote).
+ * Un lote se escribe cuando alcanza logs.writer.tamano-lote o cuando pasan
+ * logs.writer.intervalo-ms desde su primer elemento.
+
+ * Si la cola está llena se aplica la política configurada en logs.writer.desborde:
+ * - descartar: se pierde el registro (y se cuenta).
+ * - bloquear: el hilo de la petición espera a que haya espacio (o a que se detenga el escritor).
+ * - disco: el registro se agrega a un archivo .jsonl que se reprocesa cuando la cola se vacía.
+ *   Un archivo que no se pudo reprocesar (p. ej. con la BD caída) queda pendiente y se
+ *   reintenta desde el hilo escritor, esperando de 1 s a 60 s entre intentos.
+
+ * Un lote que falla al insertarse ya está en los agregados: con disco se derrama, y si no se
+ * puede se cuenta en fallidos / lotesFallidos (GET /api/logs/ingesta/estado).
+
+ * Al apagar la aplicación la cola se vacía por completo antes de cerrar el DataSource.
+
+ * Solo existe con logs.almacen=jpa (como AlmacenLogsJpa, su único usuario): con segmentos
+ * no se arranca el hilo ni se reprocesan derrames contra log_entry.
+ */
+@Component
+@ConditionalOnProperty(name = "logs.almacen", havingValue = "jpa", matchIfMissing = true)
+public class LogWriter implements SmartLifecycle {
+    private static final Logger logger = Logger.getLogger(LogWriter.class.getName());
+
+    private static final String INSERT = "insert into log_entry "
+            + "(timestamp, nivel, mensaje, endpoint, metodo_http, status_code, tiempo_respuesta, uri, ruta_id, peso) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SPILL_ACTUAL = "spill-actual.jsonl";
+    private static final long ESPERA_MINIMA_MS = 1000;
+    private static final long ESPERA_MAXIMA_MS = 60_000;
+
+    public enum PoliticaDesborde { DESCARTAR, BLOQUEAR, DISCO }
+
+    private final LogAggregateStore store;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<LogEntry> cola;
+    private final int capacidad;
+    private final int tamanoLote;
+    private final long intervaloMs;
+    private final long apagadoMaxMs;
+    private final PoliticaDesborde politica;
+    private final Path directorioSpill;
+
+    private volatile boolean activo;
+    private Thread hilo;
+
+    /** Archivo de derrame ya rotado que falta insertar; registrar: todavía no está en los agregados. */
+    private record Derrame(Path archivo, boolean registrar) {}
+
+    // Derrame a disco
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private BufferedWriter spillWriter;
+    private boolean derramoAlguno; // spill-actual ya es de esta ejecución
+    private final AtomicLong pendientesEnDisco = new AtomicLong(); // en spill-actual.jsonl, sin rotar
+    private final Queue<Derrame> derrames = new ConcurrentLinkedQueue<>();
+    private long reintentoDerrame; // solo el hilo escritor (y start antes de lanzarlo)
+    private long esperaDerrame = ESPERA_MINIMA_MS;
+
+    // Métricas
+    private final LongAdder escritos = new LongAdder();
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder filasEnLotes = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder enDisco = new LongAdder();
+    private final LongAdder fallidos = new LongAdder();
+    private final LongAdder lotesFallidos = new LongAdder();
+    private final LongAdder sumaLatenciaNanos = new LongAdder();
+    private final LongAccumulator maxLatenciaNanos = new LongAccumulator(Math::max, 0);
+    private volatile long ultimaLatenciaNanos;
+    private volatile int ultimoLote;
+
+    public LogWriter(LogAggregateStore store,
+                     JdbcTemplate jdbcTemplate,
+                     PlatformTransactionManager transactionManager,
+                     ObjectMapper objectMapper,
+                     RegistroMetricas metricas,
+                     @Value("${logs.writer.capacidad:10000}") int capacidad,
+                     @Value("${logs.writer.tamano-lote:500}") int tamanoLote,
+                     @Value("${logs.writer.intervalo-ms:200}") long intervaloMs,
+                     @Value("${logs.writer.apagado-max-ms:30000}") long apagadoMaxMs,
+                     @Value("${logs.writer.desborde:descartar}") String desborde,
+                     @Value("${logs.writer.spill-dir:logs-spill}") String spillDir) {
+        this.store = store;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.capacidad = capacidad;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.tamanoLote = tamanoLote;
+        this.intervaloMs = intervaloMs;
+        this.apagadoMaxMs = apagadoMaxMs;
+        this.politica = PoliticaDesborde.valueOf(desborde.trim().toUpperCase());
+        this.directorioSpill = Path.of(spillDir);
+
+        metricas.registrarIndicador("logs_writer_cola", "Registros en la cola del escritor", cola::size);
+        metricas.registrarIndicador("logs_writer_cola_capacidad", "Capacidad de la cola del escritor", () -> capacidad);
+        metricas.registrarIndicador("logs_writer_escritos", "Registros insertados en la BD", escritos::sum);
+        metricas.registrarIndicador("logs_writer_lotes", "Lotes insertados en la BD", lotes::sum);
+        metricas.registrarIndicador("logs_writer_descartados", "Registros descartados por cola llena", descartados::sum);
+        metricas.registrarIndicador("logs_writer_en_disco", "Registros derramados a disco", enDisco::sum);
+        metricas.registrarIndicador("logs_writer_fallidos", "Registros que no se pudieron escribir", fallidos::sum);
+        metricas.registrarIndicador("logs_writer_lotes_fallidos", "Lotes que no se pudieron escribir", lotesFallidos::sum);
+        metricas.registrarIndicador("logs_writer_derrames_pendientes", "Archivos de derrame que faltan insertar",
+                derrames::size);
+        metricas.registrarIndicador("logs_writer_flush_max_segundos", "Latencia máxima de un lote",
+                () -> maxLatenciaNanos.get() / 1e9);
+    }
+
+    // ========= Registro desde el hilo de la petición =========
+
+    /**
+     * Encola un registro para escribirlo en segundo plano.
+     * Si fue aceptado (cola o disco) se actualizan también los agregados en memoria.
+     */
+    public void registrar(LogEntry log) {
+        boolean aceptado = cola.offer(log);
+        if (!aceptado) {
+            aceptado = switch (politica) {
+                case DESCARTAR -> false;
+                case BLOQUEAR -> encolarBloqueando(log);
+                case DISCO -> derramar(log);
+            };
+        }
+        if (aceptado) {
+            store.registrar(log);
+        } else {
+            descartados.increment();
+        }
+    }
+
+    /** Espera por tramos de intervalo-ms para no quedar colgado si el escritor ya se detuvo. */
+    private boolean encolarBloqueando(LogEntry log) {
+        try {
+            while (activo) {
+                if (cola.offer(log, intervaloMs, TimeUnit.MILLISECONDS)) return true;
+            }
+            return cola.offer(log);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean derramar(LogEntry log) {
+        spillLock.lock();
+        try {
+            if (spillWriter == null) {
+                Files.createDirectories(directorioSpill);
+                Path actual = directorioSpill.resolve(SPILL_ACTUAL);
+                if (!derramoAlguno && Files.exists(actual)) rotar(actual); // de una ejecución anterior: lo cuenta start()
+                derramoAlguno = true;
+                spillWriter = Files.newBufferedWriter(actual, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            spillWriter.write(objectMapper.writeValueAsString(log));
+            spillWriter.newLine();
+            spillWriter.flush();
+            pendientesEnDisco.incrementAndGet();
+            enDisco.increment();
+            return true;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo derramar el log a disco", e);
+            return false;
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    // ========= Hilo escritor =========
+
+    private void ejecutar() {
+        List<LogEntry> lote = new ArrayList<>(tamanoLote);
+        long limite = 0;
+        while (activo || !cola.isEmpty()) {
+            long espera = lote.isEmpty() ? intervaloMs : Math.max(1, limite - System.currentTimeMillis());
+            try {
+                LogEntry log = cola.poll(espera, TimeUnit.MILLISECONDS);
+                if (log != null) {
+                    if (lote.isEmpty()) limite = System.currentTimeMillis() + intervaloMs;
+                    lote.add(log);
+                    cola.drainTo(lote, tamanoLote - lote.size());
+                }
+            } catch (InterruptedException e) {
+                activo = false; // se termina de vaciar la cola y se sale
+            }
+
+            if (lote.size() >= tamanoLote || (!lote.isEmpty() && System.currentTimeMillis() >= limite)) {
+                escribir(lote);
+                lote.clear();
+            }
+            if (lote.isEmpty() && cola.isEmpty() && (pendientesEnDisco.get() > 0 || !derrames.isEmpty())
+                    && System.currentTimeMillis() >= reintentoDerrame) {
+                reprocesarDerrame();
+            }
+        }
+        if (!lote.isEmpty()) escribir(lote);
+    }
+
+    private void escribir(List<LogEntry> lote) {
+        long inicio = System.nanoTime();
+        try {
+            insertar(lote);
+            escritos.add(lote.size());
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Falló la escritura de un lote de " + lote.size() + " logs", e);
+            int perdidos = 0;
+            for (LogEntry log : lote) {
+                if (politica != PoliticaDesborde.DISCO || !derramar(log)) perdidos++;
+            }
+            if (perdidos > 0) {
+                fallidos.add(perdidos);
+                lotesFallidos.increment();
+            }
+        }
+        long latencia = System.nanoTime() - inicio;
+        lotes.increment();
+        filasEnLotes.add(lote.size());
+        ultimoLote = lote.size();
+        ultimaLatenciaNanos = latencia;
+        sumaLatenciaNanos.add(latencia);
+        maxLatenciaNanos.accumulate(latencia);
+    }
+
+    private void insertar(List<LogEntry> lote) {
+        transactionTemplate.executeWithoutResult(status -> insertarLote(jdbcTemplate, lote));
+    }
+
+    /** INSERT por lotes (JDBC batch) de LogEntry; también lo usa LogImporter. */
+    static void insertarLote(JdbcTemplate jdbcTemplate, List<LogEntry> lote) {
+        jdbcTemplate.batchUpdate(INSERT, lote, lote.size(), (ps, log) -> {
+            ps.setTimestamp(1, log.getTimestamp() != null ? Timestamp.valueOf(log.getTimestamp()) : null);
+            ps.setString(2, log.getNivel());
+            ps.setString(3, log.getMensaje());
+            ps.setString(4, log.getEndpoint());
+            ps.setString(5, log.getMetodoHttp());
+            ps.setInt(6, log.getStatusCode());
+            ps.setLong(7, log.getTiempoRespuesta());
+            ps.setString(8, log.getUri());
+            ps.setObject(9, log.getRutaId(), Types.INTEGER);
+            ps.setInt(10, Math.max(1, log.getPeso()));
+        });
+    }
+
+    // ========= Reproceso del derrame a disco =========
+
+    /**
+     * Cierra el archivo de derrame actual, lo deja en la lista de pendientes y los inserta en
+     * orden. Los registros derramados ya se contaron en los agregados al aceptarse.
+     */
+    private void reprocesarDerrame() {
+        spillLock.lock();
+        try {
+            cerrarSpillWriter();
+            Path actual = directorioSpill.resolve(SPILL_ACTUAL);
+            if (Files.exists(actual)) derrames.add(new Derrame(rotar(actual), false));
+            pendientesEnDisco.set(0);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo rotar el archivo de derrame", e);
+        } finally {
+            spillLock.unlock();
+        }
+        reprocesarPendientes();
+    }
+
+    /** Inserta los derrames pendientes en orden; al primero que falla espera el doble antes de reintentar. */
+    private void reprocesarPendientes() {
+        Derrame derrame;
+        while ((derrame = derrames.peek()) != null) {
+            if (!Files.exists(derrame.archivo())) {
+                logger.warning("El archivo de derrame " + derrame.archivo() + " ya no existe");
+                derrames.remove();
+                continue;
+            }
+            if (!reprocesar(derrame.archivo(), derrame.registrar())) {
+                long espera = esperaDerrame;
+                reintentoDerrame = System.currentTimeMillis() + espera;
+                esperaDerrame = Math.min(espera * 2, ESPERA_MAXIMA_MS);
+                logger.warning("Quedan " + derrames.size() + " archivos de derrame; se reintenta en " + espera + " ms");
+                return;
+            }
+            derrames.remove();
+            esperaDerrame = ESPERA_MINIMA_MS;
+        }
+    }
+
+    /**
+     * Inserta el contenido de un archivo de derrame en una sola transacción y después lo borra:
+     * si algo falla no queda nada insertado y el archivo se reintenta entero, sin duplicar filas.
+     * Los agregados se actualizan solo cuando la transacción ya confirmó.
+     * Una línea que no se puede leer (p. ej. cortada por una caída) se salta y se cuenta en fallidos.
+     * Devuelve false si la transacción no confirmó; si solo falla el borrado ya no se reintenta.
+     */
+    private boolean reprocesar(Path archivo, boolean registrarEnAgregados) {
+        int[] filas = {0, 0}; // insertadas, ilegibles
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                filas[0] = 0;
+                filas[1] = leerDerrame(archivo, true, lote -> {
+                    insertarLote(jdbcTemplate, lote);
+                    filas[0] += lote.size();
+                });
+            });
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "No se pudo reprocesar el derrame " + archivo, e);
+            return false;
+        }
+        escritos.add(filas[0]);
+        fallidos.add(filas[1]); // solo al confirmar: los reintentos no las cuentan de nuevo
+        try {
+            if (registrarEnAgregados) leerDerrame(archivo, false, lote -> lote.forEach(store::registrar));
+            Files.delete(archivo);
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Se insertó el derrame " + archivo + " pero no se pudo borrar", e);
+        }
+        return true;
+    }
+
+    /**
+     * Pasa el archivo de derrame a procesar en lotes de tamano-lote y devuelve cuántas líneas
+     * ilegibles saltó; avisar: dejarlas en el log.
+     */
+    private int leerDerrame(Path archivo, boolean avisar, Consumer<List<LogEntry>> procesar) {
+        List<LogEntry> lote = new ArrayList<>(tamanoLote);
+        int ilegibles = 0;
+        try (Stream<String> lineas = Files.lines(archivo, StandardCharsets.UTF_8)) {
+            for (String linea : (Iterable<String>) lineas::iterator) {
+                if (linea.isBlank()) continue;
+                LogEntry log;
+                try {
+                    log = objectMapper.readValue(linea, LogEntry.class);
+                } catch (IOException e) {
+                    if (avisar) logger.warning("Línea ilegible en el derrame " + archivo + ": " + e.getMessage());
+                    ilegibles++;
+                    continue;
+                }
+                log.setId(null);
+                lote.add(log);
+                if (lote.size() >= tamanoLote) {
+                    procesar.accept(lote);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) procesar.accept(lote);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ilegibles;
+    }
+
+    private Path rotar(Path actual) throws IOException {
+        Path archivo = directorioSpill.resolve("spill-" + System.nanoTime() + ".jsonl");
+        Files.move(actual, archivo);
+        return archivo;
+    }
+
+    private void cerrarSpillWriter() throws IOException {
+        if (spillWriter != null) {
+            spillWriter.close();
+            spillWriter = null;
+        }
+    }
+
+    // ========= Ciclo de vida =========
+
+    /**
+     * Arranca después de la reconstrucción de LogAggregateStore. Los archivos de derrame
+     * que quedaron de una ejecución anterior no están en la base de datos ni en los
+     * agregados, así que se insertan y se cuentan aquí (o después, desde el hilo escritor,
+     * si la BD no responde).
+     */
+    @Override
+    public void start() {
+        if (Files.isDirectory(directorioSpill)) {
+            spillLock.lock();
+            try {
+                cerrarSpillWriter(); // se rota para que los derrames nuevos no caigan en un archivo pendiente
+                Path actual = directorioSpill.resolve(SPILL_ACTUAL);
+                Path propio = Files.exists(actual) ? rotar(actual) : null;
+                boolean contado = derramoAlguno; // lo derramado antes de arrancar ya está en los agregados
+                pendientesEnDisco.set(0);
+                derrames.clear(); // al volver a arrancar se listan de nuevo
+                try (Stream<Path> archivos = Files.list(directorioSpill)) {
+                    archivos.filter(p -> p.getFileName().toString().startsWith("spill-"))
+                            .sorted()
+                            .forEach(p -> derrames.add(new Derrame(p, !(contado && p.equals(propio)))));
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "No se pudo leer el directorio de derrame " + directorioSpill, e);
+            } finally {
+                spillLock.unlock();
+            }
+            reprocesarPendientes();
+        }
+        activo = true;
+        hilo = new Thread(this::ejecutar, "log-writer");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /** Espera a que el hilo vacíe la cola antes de que se cierre el DataSource. */
+    @Override
+    public void stop() {
+        activo = false;
+        if (hilo == null) return;
+        try { // sin interrupt(): el poll despierta solo a los intervalo-ms y no se corta un INSERT a medias
+            hilo.join(apagadoMaxMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (hilo.isAlive()) {
+            logger.warning("El escritor de logs no terminó a tiempo; quedan " + cola.size() + " registros en cola");
+        }
+        spillLock.lock();
+        try {
+            cerrarSpillWriter();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo cerrar el archivo de derrame", e);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return activo;
+    }
+
+    /** Fase baja: arranca antes y se detiene después del servidor web. */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    // ========= Métricas =========
+
+    public EstadoEscritor estado() {
+        long n = lotes.sum();
+        return new EstadoEscritor(
+                politica.name().toLowerCase(),
+                cola.size(),
+                capacidad,
+                escritos.sum(),
+                n,
+                ultimoLote,
+                n == 0 ? 0.0 : (double) filasEnLotes.sum() / n,
+                descartados.sum(),
+                enDisco.sum(),
+                fallidos.sum(),
+                lotesFallidos.sum(),
+                ultimaLatenciaNanos / 1_000_000.0,
+                maxLatenciaNanos.get() / 1_000_000.0,
+                n == 0 ? 0.0 : sumaLatenciaNanos.sum() / 1_000_000.0 / n
+        );
+    }
+}
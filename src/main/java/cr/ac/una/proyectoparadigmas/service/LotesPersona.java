@@ -0,0 +1,242 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.ResultadoLotePersonas;
+import cr.ac.una.proyectoparadigmas.entity.Persona;
+import cr.ac.una.proyectoparadigmas.repository.PersonaRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Altas, cambios y bajas de muchas personas por petición (/api/persona/batch).
+
+ * - Los elementos se procesan de a persona.lotes.por-transaccion: cada tramo es una transacción
+ *   que termina con flush + clear, así que el contexto de persistencia no crece con el lote.
+ * - Altas: persist con ids de la secuencia persona_seq (reserva de Persona.IDS_POR_RESERVA),
+ *   que Hibernate manda en lotes JDBC de spring.jpa.properties.hibernate.jdbc.batch_size.
+ * - Cambios: las existentes del tramo se cargan con un solo findAllById (IN) y se modifican
+ *   en memoria; el flush manda los UPDATE en lote. Sin existsById ni merge por elemento.
+ * - Bajas: un SELECT id ... IN para saber cuáles existen y un solo DELETE ... IN.
+ * Al confirmar cada tramo se invalidan en CachePersonas las personas modificadas o borradas.
+ * Cada elemento recibe su status (201/200/204, 404 si no existe, 400 si es inválido); si falla
+ * la transacción de un tramo, sus elementos quedan con 500 y el resto del lote sigue.
+ */
+@Component
+public class LotesPersona {
+    private static final Logger logger = Logger.getLogger(LotesPersona.class.getName());
+
+    private final PersonaRepository personaRepository;
+    private final CachePersonas cache;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int porTransaccion;
+    private final int maxElementos;
+
+    public LotesPersona(PersonaRepository personaRepository,
+                        CachePersonas cache,
+                        EntityManager entityManager,
+                        PlatformTransactionManager transactionManager,
+                        JdbcTemplate jdbcTemplate,
+                        @Value("${persona.lotes.por-transaccion:1000}") int porTransaccion,
+                        @Value("${persona.lotes.max-elementos:100000}") int maxElementos) {
+        this.personaRepository = personaRepository;
+        this.cache = cache;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.porTransaccion = Math.max(1, porTransaccion);
+        this.maxElementos = maxElementos;
+        if (jdbcTemplate != null) alinearSecuencia(jdbcTemplate);
+    }
+
+    /**
+     * La tabla persona se creó con AUTO_INCREMENT: si ya tiene filas, la secuencia nueva
+     * empezaría en 1 y chocaría con ellas. Se adelanta hasta después del mayor id (con la
+     * reserva pooled, el valor guardado es el último id del próximo bloque).
+     */
+    private static void alinearSecuencia(JdbcTemplate jdbcTemplate) {
+        Long mayor = jdbcTemplate.queryForObject("select max(id) from persona", Long.class);
+        if (mayor == null) return;
+        long siguiente = mayor + Persona.IDS_POR_RESERVA;
+        try {
+            // MySQL no tiene secuencias: Hibernate la emula con la tabla persona_seq(next_val)
+            jdbcTemplate.update("update persona_seq set next_val = ? where next_val < ?", siguiente, siguiente);
+        } catch (DataAccessException sinTabla) {
+            try {
+                jdbcTemplate.execute("alter sequence persona_seq restart with " + siguiente);
+            } catch (DataAccessException e) {
+                logger.log(Level.WARNING, "No se pudo adelantar persona_seq después del id " + mayor, e);
+            }
+        }
+    }
+
+    // ========= Altas =========
+
+    public ResultadoLotePersonas crear(List<Persona> personas) {
+        validarTamano(personas);
+        long inicio = System.nanoTime();
+        ResultadoLotePersonas.Item[] items = new ResultadoLotePersonas.Item[personas.size()];
+        porTramos(personas.size(), items, (desde, hasta) -> {
+            List<Integer> nuevas = new ArrayList<>();
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = desde; i < hasta; i++) {
+                    Persona persona = personas.get(i);
+                    if (persona == null) {
+                        items[i] = invalido(i, null, "Elemento vacío");
+                        continue;
+                    }
+                    persona.setId(null); // siempre una persona nueva, como POST /api/persona
+                    entityManager.persist(persona);
+                    nuevas.add(i);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            for (int i : nuevas) items[i] = new ResultadoLotePersonas.Item(i, personas.get(i).getId(), 201, null);
+        });
+        return resultado(items, inicio);
+    }
+
+    // ========= Cambios =========
+
+    public ResultadoLotePersonas actualizar(List<Persona> personas) {
+        validarTamano(personas);
+        long inicio = System.nanoTime();
+        ResultadoLotePersonas.Item[] items = new ResultadoLotePersonas.Item[personas.size()];
+        Set<Long> vistos = new HashSet<>();
+        porTramos(personas.size(), items, (desde, hasta) -> {
+            Map<Long, Integer> indices = new HashMap<>();
+            for (int i = desde; i < hasta; i++) {
+                Persona persona = personas.get(i);
+                if (persona == null || persona.getId() == null) {
+                    items[i] = invalido(i, null, "Falta el id");
+                } else if (!vistos.add(persona.getId())) {
+                    items[i] = invalido(i, persona.getId(), "Id repetido en el lote");
+                } else {
+                    indices.put(persona.getId(), i);
+                }
+            }
+            if (indices.isEmpty()) return;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Persona existente : personaRepository.findAllById(indices.keySet())) {
+                    int i = indices.remove(existente.getId());
+                    existente.setNombre(personas.get(i).getNombre());
+                    existente.setApellido(personas.get(i).getApellido());
+                    items[i] = new ResultadoLotePersonas.Item(i, existente.getId(), 200, null);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            invalidar(items, desde, hasta, 200);
+            indices.forEach((id, i) -> items[i] = noEncontrada(i, id));
+        });
+        return resultado(items, inicio);
+    }
+
+    // ========= Bajas =========
+
+    public ResultadoLotePersonas eliminar(List<Long> ids) {
+        validarTamano(ids);
+        long inicio = System.nanoTime();
+        ResultadoLotePersonas.Item[] items = new ResultadoLotePersonas.Item[ids.size()];
+        Set<Long> vistos = new HashSet<>();
+        porTramos(ids.size(), items, (desde, hasta) -> {
+            Map<Long, Integer> indices = new HashMap<>();
+            for (int i = desde; i < hasta; i++) {
+                Long id = ids.get(i);
+                if (id == null) {
+                    items[i] = invalido(i, null, "Falta el id");
+                } else if (!vistos.add(id)) {
+                    items[i] = invalido(i, id, "Id repetido en el lote");
+                } else {
+                    indices.put(id, i);
+                }
+            }
+            if (indices.isEmpty()) return;
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Long> existentes = personaRepository.idsExistentes(indices.keySet());
+                if (!existentes.isEmpty()) personaRepository.deleteAllByIdInBatch(existentes);
+                for (Long id : existentes) {
+                    int i = indices.remove(id);
+                    items[i] = new ResultadoLotePersonas.Item(i, id, 204, null);
+                }
+            });
+            invalidar(items, desde, hasta, 204);
+            indices.forEach((id, i) -> items[i] = noEncontrada(i, id));
+        });
+        return resultado(items, inicio);
+    }
+
+    // ========= Auxiliares =========
+
+    /** Ya confirmado el tramo: saca de CachePersonas las personas que cambiaron. */
+    private void invalidar(ResultadoLotePersonas.Item[] items, int desde, int hasta, int status) {
+        if (cache == null) return;
+        for (int i = desde; i < hasta; i++) {
+            if (items[i] != null && items[i].status() == status) cache.invalidar(items[i].id());
+        }
+    }
+
+    private interface Tramo {
+        void procesar(int desde, int hasta);
+    }
+
+    /** Recorre el lote de a porTransaccion; si un tramo falla, sus elementos sin resultado quedan en 500. */
+    private void porTramos(int total, ResultadoLotePersonas.Item[] items, Tramo tramo) {
+        for (int desde = 0; desde < total; desde += porTransaccion) {
+            int hasta = Math.min(total, desde + porTransaccion);
+            try {
+                tramo.procesar(desde, hasta);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Falló el tramo [" + desde + ", " + hasta + ") del lote de personas", e);
+                String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+                for (int i = desde; i < hasta; i++) {
+                    if (items[i] == null || items[i].status() < 400) {
+                        items[i] = new ResultadoLotePersonas.Item(i, null, 500, error); // se revirtió todo el tramo
+                    }
+                }
+            }
+        }
+    }
+
+    private void validarTamano(List<?> elementos) {
+        if (elementos == null || elementos.isEmpty()) {
+            throw new IllegalArgumentException("El lote está vacío");
+        }
+        if (elementos.size() > maxElementos) {
+            throw new IllegalArgumentException("El lote tiene " + elementos.size()
+                    + " elementos; el máximo es persona.lotes.max-elementos=" + maxElementos);
+        }
+    }
+
+    private static ResultadoLotePersonas.Item invalido(int indice, Long id, String error) {
+        return new ResultadoLotePersonas.Item(indice, id, 400, error);
+    }
+
+    private static ResultadoLotePersonas.Item noEncontrada(int indice, Long id) {
+        return new ResultadoLotePersonas.Item(indice, id, 404, "No existe la persona " + id);
+    }
+
+    private static ResultadoLotePersonas resultado(ResultadoLotePersonas.Item[] items, long inicio) {
+        long nanos = System.nanoTime() - inicio;
+        int exitosos = 0;
+        for (ResultadoLotePersonas.Item item : items) {
+            if (item.status() < 400) exitosos++;
+        }
+        double segundos = nanos / 1e9;
+        return new ResultadoLotePersonas(items.length, exitosos, items.length - exitosos, nanos / 1_000_000,
+                segundos > 0 ? items.length / segundos : 0, List.of(items));
+    }
+}
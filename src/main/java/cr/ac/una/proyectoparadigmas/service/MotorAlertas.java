@@ -0,0 +1,340 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.Alerta;
+import cr.ac.una.proyectoparadigmas.dto.EstadoAlertas;
+import cr.ac.una.proyectoparadigmas.dto.ReglaAlerta;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import cr.ac.una.proyectoparadigmas.metrics.VentanaDeslizante;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Alertas por umbral evaluadas de forma continua sobre ventanas deslizantes.
+
+ * Cada regla (ReglaAlerta) tiene su propia VentanaDeslizante. Los registros llegan por
+ * LogAggregateStore.suscribir desde el hilo de la petición (PersonaAspect) y cada uno solo
+ * suma contadores en la ranura de su segundo: O(1) por regla, sin consultas ni locks.
+ * Cada logs.alertas.evaluacion-ms el hilo log-alertas lee las ventanas y compara con el umbral:
+ * - tasa-5xx: proporción de status >= 500; tasa-criticos: proporción que cumple LogService.esCritico.
+ * - peticiones: cantidad en la ventana; promedio / pNN: tiempo de respuesta en ms.
+ *   Cada registro cuenta su peso (MuestreoLogs), como en los reportes.
+ * Al cruzar el umbral la alerta se dispara y al dejar de cruzarlo se resuelve; las resueltas
+ * quedan en un historial acotado (logs.alertas.historial).
+
+ * Las reglas iniciales salen de logs.alertas.reglas y se cambian en caliente por REST;
+ * reemplazar una regla reinicia su ventana y resuelve su alerta activa.
+ */
+@Component
+public class MotorAlertas {
+    private static final Logger logger = Logger.getLogger(MotorAlertas.class.getName());
+
+    // nombre=metrica>umbral/ventana[@endpoint], p. ej. persona-5xx=tasa-5xx>0.05/1m@/api/persona
+    private static final Pattern FORMATO = Pattern.compile(
+            "\\s*([\\w.-]+)\\s*=\\s*([\\w-]+)\\s*([<>])\\s*([0-9.]+)\\s*/\\s*(\\d+)\\s*([smh]?)\\s*(?:@\\s*(\\S+))?\\s*");
+    private static final Pattern NOMBRE = Pattern.compile("[\\w.-]+");
+    private static final Pattern PERCENTIL = Pattern.compile("p(\\d{2,3})");
+
+    private final LogAggregateStore store;
+    private final int subventanas;
+    private final long minimoPeticiones;
+    private final int maxHistorial;
+
+    private final Map<String, Regla> reglas = new LinkedHashMap<>(); // bajo el lock del motor
+    private volatile Regla[] vigentes = new Regla[0];                 // copia para el camino de registro
+    private final Deque<Alerta> resueltas = new ArrayDeque<>();       // bajo el lock del motor
+    private long secuencia;                                           // bajo el lock del motor
+
+    private final LongAdder eventos = new LongAdder();
+    private final LongAdder disparadas = new LongAdder();
+    private final ScheduledExecutorService evaluador;
+
+    private enum Metrica { TASA_5XX, TASA_CRITICOS, PETICIONES, PROMEDIO, PERCENTIL }
+
+    /** Una regla compilada: su ventana y, si está disparada, su alerta. */
+    private static final class Regla {
+        final ReglaAlerta definicion;
+        final Metrica metrica;
+        final double cuantil;
+        final long minimo;
+        final VentanaDeslizante ventana;
+        Activa activa; // bajo el lock del motor
+
+        Regla(ReglaAlerta definicion, Metrica metrica, double cuantil, long minimo, VentanaDeslizante ventana) {
+            this.definicion = definicion;
+            this.metrica = metrica;
+            this.cuantil = cuantil;
+            this.minimo = minimo;
+            this.ventana = ventana;
+        }
+
+        boolean aplica(LogEntry log) {
+            String prefijo = definicion.endpoint();
+            return prefijo == null || (log.getEndpoint() != null && log.getEndpoint().startsWith(prefijo));
+        }
+
+        boolean marcado(LogEntry log) {
+            return switch (metrica) {
+                case TASA_5XX -> log.getStatusCode() >= 500;
+                case TASA_CRITICOS -> LogService.esCritico().test(log);
+                default -> false;
+            };
+        }
+
+        double valor(VentanaDeslizante.Lectura lectura) {
+            return switch (metrica) {
+                case TASA_5XX, TASA_CRITICOS -> lectura.proporcionMarcados();
+                case PETICIONES -> lectura.eventos();
+                case PROMEDIO -> lectura.promedio();
+                case PERCENTIL -> lectura.valores().percentil(cuantil);
+            };
+        }
+
+        boolean cruza(double valor) {
+            return "<".equals(definicion.comparador()) ? valor < definicion.umbral() : valor > definicion.umbral();
+        }
+    }
+
+    /** Estado de una alerta disparada que todavía no se resuelve. */
+    private static final class Activa {
+        final long id;
+        final LocalDateTime disparada;
+        double valor;
+        double peorValor;
+        long peticiones;
+
+        Activa(long id, LocalDateTime disparada, double valor, long peticiones) {
+            this.id = id;
+            this.disparada = disparada;
+            this.valor = valor;
+            this.peorValor = valor;
+            this.peticiones = peticiones;
+        }
+    }
+
+    public MotorAlertas(LogAggregateStore store,
+                        RegistroMetricas metricas,
+                        @Value("${logs.alertas.reglas:}") String reglasIniciales,
+                        @Value("${logs.alertas.subventanas:60}") int subventanas,
+                        @Value("${logs.alertas.minimo-peticiones:20}") long minimoPeticiones,
+                        @Value("${logs.alertas.historial:500}") int maxHistorial,
+                        @Value("${logs.alertas.evaluacion-ms:1000}") long evaluacionMs) {
+        this.store = store;
+        this.subventanas = subventanas;
+        this.minimoPeticiones = minimoPeticiones;
+        this.maxHistorial = maxHistorial;
+        for (String regla : reglasIniciales.split(";")) {
+            if (!regla.isBlank()) guardarRegla(parsear(regla));
+        }
+
+        store.suscribir(this::registrar);
+        if (evaluacionMs > 0) {
+            this.evaluador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "log-alertas");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            evaluador.scheduleAtFixedRate(this::evaluarAhora, evaluacionMs, evaluacionMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.evaluador = null; // pruebas: se evalúa a mano
+        }
+
+        if (metricas != null) {
+            metricas.registrarIndicador("logs_alertas_activas", "Alertas disparadas sin resolver", this::cantidadActivas);
+            metricas.registrarIndicador("logs_alertas_disparadas", "Alertas disparadas desde el inicio", disparadas::sum);
+            metricas.registrarIndicador("logs_alertas_eventos", "Registros evaluados por el motor de alertas", eventos::sum);
+        }
+    }
+
+    // ========= Registro (O(1) por regla) =========
+
+    /** Suma un registro a las ventanas de las reglas que le aplican. Seguro desde varios hilos. */
+    public void registrar(LogEntry log) {
+        if (log.getTimestamp() == null) return;
+        long segundo = log.getTimestamp().toEpochSecond(ZoneOffset.UTC); // mismo criterio que LogAggregateStore
+        for (Regla regla : vigentes) {
+            if (regla.aplica(log)) {
+                regla.ventana.registrar(segundo, regla.marcado(log), log.getTiempoRespuesta(), Math.max(1, log.getPeso()));
+            }
+        }
+        eventos.increment();
+    }
+
+    // ========= Evaluación =========
+
+    private void evaluarAhora() {
+        try {
+            evaluar(LocalDateTime.now().toEpochSecond(ZoneOffset.UTC));
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "No se pudieron evaluar las alertas", e);
+        }
+    }
+
+    /** Compara cada regla con su ventana terminada en epochSegundo; dispara o resuelve según corresponda. */
+    synchronized void evaluar(long epochSegundo) {
+        LocalDateTime ahora = LocalDateTime.ofEpochSecond(epochSegundo, 0, ZoneOffset.UTC);
+        for (Regla regla : reglas.values()) {
+            VentanaDeslizante.Lectura lectura = regla.ventana.leer(epochSegundo);
+            double valor = regla.valor(lectura);
+            boolean suficientes = regla.metrica == Metrica.PETICIONES || lectura.eventos() >= regla.minimo;
+            boolean cruza = suficientes && regla.cruza(valor);
+
+            if (cruza && regla.activa == null) {
+                regla.activa = new Activa(++secuencia, ahora, valor, lectura.eventos());
+                disparadas.increment();
+                logger.warning("Alerta disparada: " + regla.definicion.nombre() + " " + regla.definicion.metrica() + "="
+                        + valor + " " + regla.definicion.comparador() + " " + regla.definicion.umbral());
+            } else if (cruza) {
+                Activa activa = regla.activa;
+                activa.valor = valor;
+                activa.peticiones = lectura.eventos();
+                activa.peorValor = peor(regla, activa.peorValor, valor);
+            } else if (regla.activa != null) {
+                resolver(regla, ahora);
+                logger.info("Alerta resuelta: " + regla.definicion.nombre());
+            }
+        }
+    }
+
+    private static double peor(Regla regla, double actual, double nuevo) {
+        return "<".equals(regla.definicion.comparador()) ? Math.min(actual, nuevo) : Math.max(actual, nuevo);
+    }
+
+    private void resolver(Regla regla, LocalDateTime ahora) {
+        resueltas.addFirst(alerta(regla, regla.activa, ahora));
+        while (resueltas.size() > maxHistorial) resueltas.removeLast();
+        regla.activa = null;
+    }
+
+    private static Alerta alerta(Regla regla, Activa activa, LocalDateTime resuelta) {
+        ReglaAlerta r = regla.definicion;
+        return new Alerta(activa.id, r.nombre(), resuelta == null ? "disparada" : "resuelta", r.metrica(), r.comparador(),
+                r.umbral(), activa.valor, activa.peorValor, activa.peticiones, activa.disparada, resuelta);
+    }
+
+    // ========= Consultas =========
+
+    /** Alertas activas (por antigüedad) y hasta {@code limite} resueltas, las más recientes primero. */
+    public synchronized EstadoAlertas estado(int limite) {
+        if (limite < 0) throw new IllegalArgumentException("limit no puede ser negativo");
+        List<Alerta> activas = reglas.values().stream()
+                .filter(r -> r.activa != null)
+                .map(r -> alerta(r, r.activa, null))
+                .sorted(Comparator.comparingLong(Alerta::id))
+                .toList();
+        List<Alerta> ultimas = resueltas.stream().limit(limite).toList();
+        return new EstadoAlertas(activas, ultimas, reglas.size(), eventos.sum());
+    }
+
+    private synchronized double cantidadActivas() {
+        return reglas.values().stream().filter(r -> r.activa != null).count();
+    }
+
+    // ========= Reglas en caliente =========
+
+    public synchronized List<ReglaAlerta> reglas() {
+        return reglas.values().stream().map(r -> r.definicion).toList();
+    }
+
+    /**
+     * Crea o reemplaza una regla (por nombre). La ventana empieza vacía; si la regla anterior
+     * tenía una alerta activa, se resuelve. Devuelve la regla con los valores por defecto aplicados.
+     */
+    public synchronized ReglaAlerta guardarRegla(ReglaAlerta definicion) {
+        Regla regla = compilar(definicion);
+        Regla anterior = reglas.put(regla.definicion.nombre(), regla);
+        if (anterior != null && anterior.activa != null) resolver(anterior, LocalDateTime.now());
+        vigentes = reglas.values().toArray(new Regla[0]);
+        return regla.definicion;
+    }
+
+    /** Elimina una regla y resuelve su alerta activa; false si no existía. */
+    public synchronized boolean eliminarRegla(String nombre) {
+        Regla anterior = reglas.remove(nombre);
+        if (anterior == null) return false;
+        if (anterior.activa != null) resolver(anterior, LocalDateTime.now());
+        vigentes = reglas.values().toArray(new Regla[0]);
+        return true;
+    }
+
+    private Regla compilar(ReglaAlerta r) {
+        if (r.nombre() == null || !NOMBRE.matcher(r.nombre()).matches()) {
+            throw new IllegalArgumentException("nombre solo admite letras, dígitos, '.', '_' y '-'");
+        }
+        if (r.ventanaSegundos() < 1 || r.ventanaSegundos() > 86_400) {
+            throw new IllegalArgumentException("ventanaSegundos debe estar entre 1 y 86400");
+        }
+        String comparador = r.comparador() == null ? ">" : r.comparador().trim();
+        if (!comparador.equals(">") && !comparador.equals("<")) {
+            throw new IllegalArgumentException("comparador debe ser > o <");
+        }
+        if (r.minimoPeticiones() != null && r.minimoPeticiones() < 0) {
+            throw new IllegalArgumentException("minimoPeticiones no puede ser negativo");
+        }
+        String metrica = r.metrica() == null ? "" : r.metrica().trim().toLowerCase();
+        Metrica tipo;
+        double cuantil = 0;
+        Matcher percentil = PERCENTIL.matcher(metrica);
+        switch (metrica) {
+            case "tasa-5xx" -> tipo = Metrica.TASA_5XX;
+            case "tasa-criticos" -> tipo = Metrica.TASA_CRITICOS;
+            case "peticiones" -> tipo = Metrica.PETICIONES;
+            case "promedio" -> tipo = Metrica.PROMEDIO;
+            default -> {
+                if (!percentil.matches()) {
+                    throw new IllegalArgumentException(
+                            "metrica debe ser tasa-5xx, tasa-criticos, peticiones, promedio o un percentil (p50, p95, p999...)");
+                }
+                String digitos = percentil.group(1);
+                cuantil = Integer.parseInt(digitos) / Math.pow(10, digitos.length()); // p95 -> 0.95, p999 -> 0.999
+                if (cuantil <= 0) throw new IllegalArgumentException("El percentil debe ser mayor que 0");
+                tipo = Metrica.PERCENTIL;
+            }
+        }
+        String endpoint = r.endpoint() == null || r.endpoint().isBlank() ? null : r.endpoint().trim();
+        long minimo = r.minimoPeticiones() != null ? r.minimoPeticiones() : minimoPeticiones;
+
+        ReglaAlerta normalizada = new ReglaAlerta(r.nombre(), metrica, comparador, r.umbral(), r.ventanaSegundos(), endpoint, minimo);
+        VentanaDeslizante ventana = new VentanaDeslizante(r.ventanaSegundos(), subventanas,
+                tipo == Metrica.PERCENTIL ? store::nuevoHistograma : null);
+        return new Regla(normalizada, tipo, cuantil, minimo, ventana);
+    }
+
+    /** Lee una regla en el formato de logs.alertas.reglas: nombre=metrica>umbral/ventana[@endpoint]. */
+    static ReglaAlerta parsear(String texto) {
+        Matcher m = FORMATO.matcher(texto);
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Regla inválida '" + texto.trim()
+                    + "': se espera nombre=metrica>umbral/ventana[@endpoint], p. ej. persona-5xx=tasa-5xx>0.05/1m@/api/persona");
+        }
+        int segundos = Integer.parseInt(m.group(5)) * switch (m.group(6)) {
+            case "m" -> 60;
+            case "h" -> 3600;
+            default -> 1;
+        };
+        return new ReglaAlerta(m.group(1), m.group(2), m.group(3), Double.parseDouble(m.group(4)), segundos, m.group(7), null);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (evaluador != null) evaluador.shutdownNow();
+    }
+}
@@ -0,0 +1,119 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Muestreo de los LogEntry de PersonaAspect: decide qué peticiones se guardan y con qué peso.
+
+ * - Los errores (status fuera de 2xx o nivel distinto de INFO) y las lentas (tiempo >=
+ *   logs.muestreo.lento-ms) se guardan siempre, con peso 1.
+ * - Del resto se guarda 1 de cada k al azar con peso k. k se ajusta cada segundo a la carga:
+ *   la tasa de peticiones muestreables (promedio móvil) dividida por
+ *   logs.muestreo.objetivo-por-segundo, entre 1 y logs.muestreo.peso-maximo. Con poco tráfico
+ *   k = 1 y se guarda todo.
+ * - Como cada petición se guarda con probabilidad 1/k y cuenta k, los conteos, sumas y
+ *   frecuencias ponderadas por peso son insesgados (estimador de Horvitz-Thompson). Cada fila
+ *   guardada aporta peso·(peso - 1) a la varianza del conteo estimado; con eso AgregadoLogs
+ *   y LogService calculan los márgenes de error.
+ * El peso cabe en 16 bits sin signo (SegmentoLogs y LogColumnarStore lo guardan así).
+ * Guardadas, descartadas y el peso vigente aparecen en /api/logs/metrics como logs_muestreo_*.
+ */
+@Component
+public class MuestreoLogs {
+
+    /** Mayor peso admitido: 16 bits sin signo. */
+    public static final int PESO_MAXIMO = 0xFFFF;
+
+    private final boolean habilitado;
+    private final long lentoMs;
+    private final double objetivoPorSegundo;
+    private final int pesoMaximo;
+
+    private final AtomicLong segundoActual = new AtomicLong();
+    private final LongAdder enSegundo = new LongAdder(); // muestreables del segundo actual
+    private volatile double tasa;  // muestreables por segundo, promedio móvil
+    private volatile int peso = 1; // k vigente
+
+    private final LongAdder guardadas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private final LongAdder siempre = new LongAdder();
+
+    public MuestreoLogs(RegistroMetricas metricas,
+                        @Value("${logs.muestreo.habilitado:true}") boolean habilitado,
+                        @Value("${logs.muestreo.lento-ms:500}") long lentoMs,
+                        @Value("${logs.muestreo.objetivo-por-segundo:100}") double objetivoPorSegundo,
+                        @Value("${logs.muestreo.peso-maximo:1000}") int pesoMaximo) {
+        this.habilitado = habilitado && objetivoPorSegundo > 0;
+        this.lentoMs = lentoMs;
+        this.objetivoPorSegundo = objetivoPorSegundo;
+        this.pesoMaximo = Math.max(1, Math.min(PESO_MAXIMO, pesoMaximo));
+
+        if (metricas != null) {
+            metricas.registrarIndicador("logs_muestreo_guardadas", "Peticiones muestreables que se guardaron",
+                    guardadas::sum);
+            metricas.registrarIndicador("logs_muestreo_descartadas", "Peticiones muestreables que no se guardaron",
+                    descartadas::sum);
+            metricas.registrarIndicador("logs_muestreo_siempre", "Errores y peticiones lentas (se guardan todas)",
+                    siempre::sum);
+            metricas.registrarIndicador("logs_muestreo_peso", "Peso vigente: se guarda 1 de cada tantas peticiones",
+                    () -> peso);
+            metricas.registrarIndicador("logs_muestreo_tasa", "Peticiones muestreables por segundo", () -> tasa);
+        }
+    }
+
+    /** Tiempo desde el que una petición se guarda siempre; LogService lo usa para el margen del promedio. */
+    public long lentoMs() {
+        return lentoMs;
+    }
+
+    /** true si hay que guardar el log (y le deja su peso); false si queda fuera de la muestra. */
+    public boolean conservar(LogEntry log) {
+        return conservar(log, System.currentTimeMillis() / 1000);
+    }
+
+    boolean conservar(LogEntry log, long epochSegundo) {
+        if (!habilitado || !muestreable(log)) {
+            log.setPeso(1);
+            siempre.increment();
+            return true;
+        }
+        int k = pesoVigente(epochSegundo);
+        enSegundo.increment();
+        if (k > 1 && ThreadLocalRandom.current().nextInt(k) != 0) {
+            descartadas.increment();
+            return false;
+        }
+        log.setPeso(k);
+        guardadas.increment();
+        return true;
+    }
+
+    private boolean muestreable(LogEntry log) {
+        int status = log.getStatusCode();
+        return status >= 200 && status < 300
+                && "INFO".equalsIgnoreCase(log.getNivel())
+                && log.getTiempoRespuesta() < lentoMs;
+    }
+
+    /** Al cambiar de segundo, un solo hilo actualiza la tasa y el peso con lo contado en el anterior. */
+    private int pesoVigente(long segundo) {
+        long anterior = segundoActual.get();
+        if (segundo > anterior && segundoActual.compareAndSet(anterior, segundo)) {
+            long cantidad = enSegundo.sumThenReset();
+            if (anterior > 0) {
+                double porSegundo = (double) cantidad / (segundo - anterior);
+                double promedio = 0.5 * tasa + 0.5 * porSegundo;
+                tasa = promedio;
+                peso = (int) Math.max(1, Math.min(pesoMaximo, Math.ceil(promedio / objetivoPorSegundo)));
+            }
+        }
+        return peso;
+    }
+}
@@ -0,0 +1,519 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.EstadoRetencion;
+import cr.ac.una.proyectoparadigmas.entity.LogAgregado;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Retención de log_entry: resume y purga lo viejo para que la tabla no crezca sin límite.
+ *
+ * Cada logs.retencion.intervalo-minutos (y con POST /api/logs/retencion/ejecutar):
+ * 1. Particiones (MySQL con log_entry particionada por RANGE COLUMNS(timestamp)): cada
+ *    partición que termina antes del corte se resume entera y se elimina con DROP PARTITION,
+ *    sin borrar fila por fila. También se crean las particiones diarias de los próximos
+ *    logs.retencion.particiones-adelante días. Si la tabla no está particionada se omite.
+ * 2. Filas con timestamp anterior a logs.retencion.dias-crudos días: se toman de a
+ *    logs.retencion.tamano-lote por id (SELECT ... FOR UPDATE), se suman a los resúmenes por
+ *    hora (log_agregado, log_agregado_tiempo) y se borran, todo en la misma transacción.
+ *    Así cada lote bloquea pocas filas por poco tiempo y una ejecución interrumpida no
+ *    cuenta dos veces ni pierde filas. Entre lotes se espera logs.retencion.pausa-ms.
+ * 3. Resúmenes por hora más viejos que logs.retencion.dias-horarios: se juntan en uno por día
+ *    (día por día, una transacción cada uno). Los diarios ya no distinguen la hora del día,
+ *    así que sus errores no cuentan en horas-pico.
+ * 4. Resúmenes diarios más viejos que logs.retencion.dias-diarios (0 = se guardan siempre).
+ * Los reportes (AlmacenLogsJpa y LogColumnarStore) suman los resúmenes a lo que queda en log_entry, así que los
+ * totales y percentiles no cambian al purgar; solo se pierde el detalle fila a fila y la
+ * resolución baja a la hora / al día. Cada fila cuenta su peso (MuestreoLogs) y los
+ * resúmenes guardan la varianza, así que los márgenes de error tampoco cambian. Filas, duración y particiones de cada ejecución
+ * aparecen en /api/logs/metrics como logs_retencion_*.
+ */
+@Component
+public class RetencionLogs {
+    private static final Logger logger = Logger.getLogger(RetencionLogs.class.getName());
+
+    private static final String SELECT_LOTE = "select id, timestamp, nivel, endpoint, metodo_http, status_code, tiempo_respuesta, peso "
+            + "from log_entry where timestamp < ? order by id limit ? for update";
+    private static final String DELETE_LOTE = "delete from log_entry where id >= ? and id <= ? and timestamp < ?";
+
+    private static final String SELECT_AGREGADOS = "select id, endpoint, metodo_http, status_code from log_agregado "
+            + "where granularidad = ? and periodo = ?";
+    private static final String UPDATE_AGREGADO = "update log_agregado set cantidad = cantidad + ?, criticos = criticos + ?, "
+            + "suma_tiempos = suma_tiempos + ?, varianza = varianza + ? where id = ?";
+    private static final String INSERT_AGREGADO = "insert into log_agregado "
+            + "(granularidad, periodo, endpoint, metodo_http, status_code, cantidad, criticos, suma_tiempos, varianza) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_TIEMPOS = "select id, endpoint, tiempo from log_agregado_tiempo "
+            + "where granularidad = ? and periodo = ?";
+    private static final String UPDATE_TIEMPO = "update log_agregado_tiempo set cantidad = cantidad + ? where id = ?";
+    private static final String INSERT_TIEMPO = "insert into log_agregado_tiempo (granularidad, periodo, endpoint, tiempo, cantidad) "
+            + "values (?, ?, ?, ?, ?)";
+
+    private static final Pattern NOMBRE_PARTICION = Pattern.compile("\\w+");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursor; // fetch size para recorrer particiones enteras sin cargarlas
+    private final TransactionTemplate transactionTemplate;
+    private final boolean programada;
+    private final int diasCrudos;
+    private final int diasHorarios;
+    private final int diasDiarios;
+    private final int tamanoLote;
+    private final long pausaMs;
+    private final boolean particiones;
+    private final int particionesAdelante;
+    private final ScheduledExecutorService programador;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+    private final LongAdder ejecuciones = new LongAdder();
+    private final LongAdder fallidas = new LongAdder();
+    private final LongAdder purgadasTotal = new LongAdder();
+    private final LongAdder particionesTotal = new LongAdder();
+    private volatile Ejecucion ultima = new Ejecucion(null);
+    private volatile boolean tablaParticionada;
+    private volatile String ultimoError;
+    private volatile LocalDateTime corteCrudos;
+
+    /** Resultado de una ejecución. */
+    private static final class Ejecucion {
+        final LocalDateTime inicio;
+        long nanos;
+        long purgadas;
+        long resumenes;
+        long horasCompactadas;
+        long diasEliminados;
+        int particiones;
+
+        Ejecucion(LocalDateTime inicio) {
+            this.inicio = inicio;
+        }
+    }
+
+    private record Clave(LocalDateTime periodo, String endpoint, String metodo, int status) {}
+
+    private record ClaveTiempo(LocalDateTime periodo, String endpoint, long tiempo) {}
+
+    /** Resúmenes acumulados en memoria antes de sumarlos a las tablas. */
+    private static final class Resumenes {
+        final Map<Clave, long[]> filas = new HashMap<>();        // cantidad, críticos, suma de tiempos, varianza
+        final Map<ClaveTiempo, long[]> tiempos = new HashMap<>(); // cantidad
+        long registros;
+
+        void registrar(LogEntry log) {
+            LocalDateTime hora = log.getTimestamp().truncatedTo(ChronoUnit.HOURS);
+            String endpoint = log.getEndpoint() != null ? log.getEndpoint() : "(desconocido)";
+            String metodo = log.getMetodoHttp() != null ? log.getMetodoHttp() : "(desconocido)";
+            long t = log.getTiempoRespuesta();
+            long peso = Math.max(1, log.getPeso());
+            sumarFila(new Clave(hora, endpoint, metodo, log.getStatusCode()), peso,
+                    LogService.esCritico().test(log) ? peso : 0, t * peso, peso * (peso - 1));
+            if (t > 0) sumarTiempo(new ClaveTiempo(hora, endpoint, redondearTiempo(t)), peso);
+            registros++;
+        }
+
+        void sumarFila(Clave clave, long cantidad, long criticos, long suma, long varianza) {
+            long[] v = filas.computeIfAbsent(clave, k -> new long[4]);
+            v[0] += cantidad;
+            v[1] += criticos;
+            v[2] += suma;
+            v[3] += varianza;
+        }
+
+        void sumarTiempo(ClaveTiempo clave, long cantidad) {
+            tiempos.computeIfAbsent(clave, k -> new long[1])[0] += cantidad;
+        }
+    }
+
+    public RetencionLogs(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         RegistroMetricas metricas,
+                         @Value("${logs.retencion.habilitada:true}") boolean habilitada,
+                         @Value("${logs.retencion.dias-crudos:30}") int diasCrudos,
+                         @Value("${logs.retencion.dias-horarios:180}") int diasHorarios,
+                         @Value("${logs.retencion.dias-diarios:0}") int diasDiarios,
+                         @Value("${logs.retencion.tamano-lote:5000}") int tamanoLote,
+                         @Value("${logs.retencion.pausa-ms:50}") long pausaMs,
+                         @Value("${logs.retencion.intervalo-minutos:60}") long intervaloMinutos,
+                         @Value("${logs.retencion.inicio-minutos:5}") long inicioMinutos,
+                         @Value("${logs.retencion.particiones:true}") boolean particiones,
+                         @Value("${logs.retencion.particiones-adelante:7}") int particionesAdelante) {
+        if (diasCrudos < 1) throw new IllegalArgumentException("logs.retencion.dias-crudos debe ser al menos 1");
+        if (diasHorarios != 0 && diasHorarios < diasCrudos) {
+            throw new IllegalArgumentException("logs.retencion.dias-horarios debe ser 0 o al menos dias-crudos");
+        }
+        if (diasDiarios != 0 && diasDiarios < Math.max(diasCrudos, diasHorarios)) {
+            throw new IllegalArgumentException("logs.retencion.dias-diarios debe ser 0 o al menos dias-horarios");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursor.setFetchSize(1000);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.programada = habilitada && intervaloMinutos > 0;
+        this.diasCrudos = diasCrudos;
+        this.diasHorarios = diasHorarios;
+        this.diasDiarios = diasDiarios;
+        this.tamanoLote = Math.max(1, tamanoLote);
+        this.pausaMs = pausaMs;
+        this.particiones = particiones;
+        this.particionesAdelante = particionesAdelante;
+
+        if (programada) {
+            this.programador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "log-retencion");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            programador.scheduleWithFixedDelay(this::ejecutarProgramada, inicioMinutos, intervaloMinutos, TimeUnit.MINUTES);
+        } else {
+            this.programador = null;
+        }
+
+        if (metricas != null) {
+            metricas.registrarIndicador("logs_retencion_ejecuciones", "Ejecuciones de la retención", ejecuciones::sum);
+            metricas.registrarIndicador("logs_retencion_fallidas", "Ejecuciones de la retención con error", fallidas::sum);
+            metricas.registrarIndicador("logs_retencion_purgadas_total", "Filas de log_entry purgadas desde el inicio",
+                    purgadasTotal::sum);
+            metricas.registrarIndicador("logs_retencion_purgadas_ultima", "Filas de log_entry purgadas en la última ejecución",
+                    () -> ultima.purgadas);
+            metricas.registrarIndicador("logs_retencion_duracion_ultima_segundos", "Duración de la última ejecución",
+                    () -> ultima.nanos / 1e9);
+            metricas.registrarIndicador("logs_retencion_resumenes_ultima", "Filas de resumen escritas en la última ejecución",
+                    () -> ultima.resumenes);
+            metricas.registrarIndicador("logs_retencion_particiones_eliminadas", "Particiones de log_entry eliminadas",
+                    particionesTotal::sum);
+        }
+    }
+
+    // ========= Ejecución =========
+
+    private void ejecutarProgramada() {
+        try {
+            ejecutar();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Falló la retención de logs", e);
+        }
+    }
+
+    /** Ejecuta una pasada completa ahora. IllegalStateException si ya hay una en curso. */
+    public EstadoRetencion ejecutar() {
+        return ejecutar(LocalDateTime.now());
+    }
+
+    EstadoRetencion ejecutar(LocalDateTime ahora) {
+        if (!enCurso.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una ejecución de la retención en curso");
+        }
+        Ejecucion ejecucion = new Ejecucion(ahora);
+        long inicio = System.nanoTime();
+        try {
+            LocalDateTime corte = ahora.minusDays(diasCrudos).truncatedTo(ChronoUnit.HOURS);
+            if (particiones) purgarParticiones(corte, ahora, ejecucion);
+            purgarCrudos(corte, ejecucion);
+            corteCrudos = corte;
+            if (diasHorarios > 0) compactarHoras(ahora.minusDays(diasHorarios).truncatedTo(ChronoUnit.DAYS), ejecucion);
+            if (diasDiarios > 0) eliminarDias(ahora.minusDays(diasDiarios).truncatedTo(ChronoUnit.DAYS), ejecucion);
+            ultimoError = null;
+        } catch (RuntimeException e) {
+            fallidas.increment();
+            ultimoError = e.getClass().getSimpleName() + ": " + e.getMessage();
+            throw e;
+        } finally {
+            ejecucion.nanos = System.nanoTime() - inicio;
+            ejecuciones.increment();
+            purgadasTotal.add(ejecucion.purgadas);
+            particionesTotal.add(ejecucion.particiones);
+            ultima = ejecucion;
+            enCurso.set(false);
+        }
+        logger.info("Retención de logs: " + ejecucion.purgadas + " filas purgadas (" + ejecucion.particiones
+                + " particiones), " + ejecucion.resumenes + " resúmenes, " + ejecucion.horasCompactadas
+                + " resúmenes por hora compactados en " + ejecucion.nanos / 1_000_000 + " ms");
+        return estado();
+    }
+
+    // ========= Filas crudas, por lotes =========
+
+    private void purgarCrudos(LocalDateTime corte, Ejecucion ejecucion) {
+        Timestamp limite = Timestamp.valueOf(corte);
+        while (true) {
+            long[] lote = transactionTemplate.execute(status -> {
+                Resumenes resumenes = new Resumenes();
+                long[] ids = {Long.MAX_VALUE, Long.MIN_VALUE};
+                jdbcTemplate.query(SELECT_LOTE, rs -> {
+                    long id = rs.getLong(1);
+                    ids[0] = Math.min(ids[0], id);
+                    ids[1] = Math.max(ids[1], id);
+                    resumenes.registrar(fila(rs));
+                }, limite, tamanoLote);
+                if (resumenes.registros == 0) return new long[]{0, 0};
+                long escritos = guardar(LogAgregado.HORA, resumenes);
+                // los ids seleccionados son los menores que cumplen el filtro: el rango borra exactamente esos
+                long borradas = jdbcTemplate.update(DELETE_LOTE, ids[0], ids[1], limite);
+                return new long[]{borradas, escritos};
+            });
+            ejecucion.purgadas += lote[0];
+            ejecucion.resumenes += lote[1];
+            if (lote[0] < tamanoLote) return;
+            if (!pausa()) return;
+        }
+    }
+
+    private static LogEntry fila(ResultSet rs) throws SQLException {
+        LogEntry log = new LogEntry();
+        log.setTimestamp(rs.getTimestamp(2).toLocalDateTime());
+        log.setNivel(rs.getString(3));
+        log.setEndpoint(rs.getString(4));
+        log.setMetodoHttp(rs.getString(5));
+        log.setStatusCode(rs.getInt(6));
+        log.setTiempoRespuesta(rs.getLong(7));
+        log.setPeso(rs.getInt(8));
+        return log;
+    }
+
+    private boolean pausa() {
+        if (pausaMs <= 0) return true;
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // ========= Resúmenes =========
+
+    /**
+     * Suma los resúmenes a las filas existentes de la granularidad (UPDATE por id) o las
+     * inserta; todo con JDBC batch. Devuelve cuántas filas de resumen se escribieron.
+     */
+    private long guardar(String granularidad, Resumenes resumenes) {
+        Map<Clave, Long> filas = new HashMap<>();
+        Map<ClaveTiempo, Long> tiempos = new HashMap<>();
+        resumenes.filas.keySet().stream().map(Clave::periodo).distinct().forEach(periodo -> {
+            Timestamp ts = Timestamp.valueOf(periodo);
+            jdbcTemplate.query(SELECT_AGREGADOS, rs -> {
+                filas.put(new Clave(periodo, rs.getString(2), rs.getString(3), rs.getInt(4)), rs.getLong(1));
+            }, granularidad, ts);
+            jdbcTemplate.query(SELECT_TIEMPOS, rs -> {
+                tiempos.put(new ClaveTiempo(periodo, rs.getString(2), rs.getLong(3)), rs.getLong(1));
+            }, granularidad, ts);
+        });
+
+        List<Object[]> actualizar = new ArrayList<>();
+        List<Object[]> insertar = new ArrayList<>();
+        resumenes.filas.forEach((clave, v) -> {
+            Long id = filas.get(clave);
+            if (id != null) {
+                actualizar.add(new Object[]{v[0], v[1], v[2], v[3], id});
+            } else {
+                insertar.add(new Object[]{granularidad, Timestamp.valueOf(clave.periodo()), clave.endpoint(), clave.metodo(),
+                        clave.status(), v[0], v[1], v[2], v[3]});
+            }
+        });
+        List<Object[]> actualizarTiempos = new ArrayList<>();
+        List<Object[]> insertarTiempos = new ArrayList<>();
+        resumenes.tiempos.forEach((clave, v) -> {
+            Long id = tiempos.get(clave);
+            if (id != null) {
+                actualizarTiempos.add(new Object[]{v[0], id});
+            } else {
+                insertarTiempos.add(new Object[]{granularidad, Timestamp.valueOf(clave.periodo()), clave.endpoint(),
+                        clave.tiempo(), v[0]});
+            }
+        });
+        if (!actualizar.isEmpty()) jdbcTemplate.batchUpdate(UPDATE_AGREGADO, actualizar);
+        if (!insertar.isEmpty()) jdbcTemplate.batchUpdate(INSERT_AGREGADO, insertar);
+        if (!actualizarTiempos.isEmpty()) jdbcTemplate.batchUpdate(UPDATE_TIEMPO, actualizarTiempos);
+        if (!insertarTiempos.isEmpty()) jdbcTemplate.batchUpdate(INSERT_TIEMPO, insertarTiempos);
+        return resumenes.filas.size() + (long) resumenes.tiempos.size();
+    }
+
+    /** Tiempo redondeado a 8 bits significativos (centro de la cubeta); menores a 256 ms quedan exactos. */
+    static long redondearTiempo(long t) {
+        if (t < 256) return t;
+        int desplazamiento = 64 - Long.numberOfLeadingZeros(t) - 8;
+        return ((t >>> desplazamiento) << desplazamiento) + (1L << (desplazamiento - 1));
+    }
+
+    // ========= Compactación de horas en días =========
+
+    private void compactarHoras(LocalDateTime corte, Ejecucion ejecucion) {
+        while (true) {
+            Timestamp primero = jdbcTemplate.queryForObject(
+                    "select min(periodo) from log_agregado where granularidad = ? and periodo < ?",
+                    Timestamp.class, LogAgregado.HORA, Timestamp.valueOf(corte));
+            if (primero == null) return;
+            LocalDateTime dia = primero.toLocalDateTime().truncatedTo(ChronoUnit.DAYS);
+            Timestamp desde = Timestamp.valueOf(dia);
+            Timestamp hasta = Timestamp.valueOf(dia.plusDays(1));
+            long compactadas = transactionTemplate.execute(status -> {
+                Resumenes resumenes = new Resumenes();
+                jdbcTemplate.query("select endpoint, metodo_http, status_code, sum(cantidad), sum(criticos), sum(suma_tiempos), "
+                                + "sum(varianza) "
+                                + "from log_agregado where granularidad = ? and periodo >= ? and periodo < ? "
+                                + "group by endpoint, metodo_http, status_code",
+                        rs -> {
+                            resumenes.sumarFila(new Clave(dia, rs.getString(1), rs.getString(2), rs.getInt(3)),
+                                    rs.getLong(4), rs.getLong(5), rs.getLong(6), rs.getLong(7));
+                        }, LogAgregado.HORA, desde, hasta);
+                jdbcTemplate.query("select endpoint, tiempo, sum(cantidad) from log_agregado_tiempo "
+                                + "where granularidad = ? and periodo >= ? and periodo < ? group by endpoint, tiempo",
+                        rs -> {
+                            resumenes.sumarTiempo(new ClaveTiempo(dia, rs.getString(1), rs.getLong(2)), rs.getLong(3));
+                        }, LogAgregado.HORA, desde, hasta);
+                guardar(LogAgregado.DIA, resumenes);
+                jdbcTemplate.update("delete from log_agregado_tiempo where granularidad = ? and periodo >= ? and periodo < ?",
+                        LogAgregado.HORA, desde, hasta);
+                return (long) jdbcTemplate.update(
+                        "delete from log_agregado where granularidad = ? and periodo >= ? and periodo < ?",
+                        LogAgregado.HORA, desde, hasta);
+            });
+            ejecucion.horasCompactadas += compactadas;
+        }
+    }
+
+    private void eliminarDias(LocalDateTime corte, Ejecucion ejecucion) {
+        Timestamp limite = Timestamp.valueOf(corte);
+        jdbcTemplate.update("delete from log_agregado_tiempo where granularidad = ? and periodo < ?", LogAgregado.DIA, limite);
+        ejecucion.diasEliminados += jdbcTemplate.update("delete from log_agregado where granularidad = ? and periodo < ?",
+                LogAgregado.DIA, limite);
+    }
+
+    // ========= Particiones (MySQL) =========
+
+    private record Particion(String nombre, LocalDateTime limite) {} // limite null = MAXVALUE
+
+    private void purgarParticiones(LocalDateTime corte, LocalDateTime ahora, Ejecucion ejecucion) {
+        List<Particion> lista = listarParticiones();
+        tablaParticionada = !lista.isEmpty();
+        if (lista.isEmpty()) return;
+
+        jdbcTemplate.execute("create table if not exists log_retencion_particion "
+                + "(nombre varchar(64) primary key, resumida timestamp not null)");
+        for (Particion particion : lista) {
+            if (particion.limite() == null || particion.limite().isAfter(corte)) break; // en orden de límite
+            Integer resumida = jdbcTemplate.queryForObject(
+                    "select count(*) from log_retencion_particion where nombre = ?", Integer.class, particion.nombre());
+            if (resumida == null || resumida == 0) {
+                ejecucion.purgadas += resumirParticion(particion, ejecucion);
+            }
+            // DDL: MySQL confirma sola; si falla aquí, la próxima ejecución solo la elimina (ya está resumida)
+            jdbcTemplate.execute("alter table log_entry drop partition " + particion.nombre());
+            jdbcTemplate.update("delete from log_retencion_particion where nombre = ?", particion.nombre());
+            ejecucion.particiones++;
+        }
+        crearParticionesFuturas(lista, ahora.toLocalDate());
+    }
+
+    /** Resume toda la partición y la marca como resumida en la misma transacción. */
+    private long resumirParticion(Particion particion, Ejecucion ejecucion) {
+        return transactionTemplate.execute(status -> {
+            Resumenes resumenes = new Resumenes();
+            cursor.query("select id, timestamp, nivel, endpoint, metodo_http, status_code, tiempo_respuesta, peso "
+                    + "from log_entry partition (" + particion.nombre() + ") where timestamp is not null",
+                    rs -> {
+                        resumenes.registrar(fila(rs));
+                    });
+            ejecucion.resumenes += guardar(LogAgregado.HORA, resumenes);
+            jdbcTemplate.update("insert into log_retencion_particion (nombre, resumida) values (?, ?)",
+                    particion.nombre(), Timestamp.valueOf(LocalDateTime.now()));
+            return resumenes.registros;
+        });
+    }
+
+    /** Parte la última partición (MAXVALUE) en particiones diarias hasta hoy + particiones-adelante. */
+    private void crearParticionesFuturas(List<Particion> lista, LocalDate hoy) {
+        if (particionesAdelante <= 0 || lista.size() < 2) return;
+        Particion ultima = lista.get(lista.size() - 1);
+        LocalDateTime mayor = lista.get(lista.size() - 2).limite();
+        if (ultima.limite() != null || mayor == null) return;
+
+        LocalDate desde = mayor.toLocalDate().isBefore(hoy) ? hoy : mayor.toLocalDate();
+        LocalDate objetivo = hoy.plusDays(particionesAdelante + 1L);
+        if (!desde.isBefore(objetivo)) return;
+        StringBuilder ddl = new StringBuilder("alter table log_entry reorganize partition ")
+                .append(ultima.nombre()).append(" into (");
+        if (desde.isAfter(mayor.toLocalDate())) {
+            ddl.append("partition p").append(mayor.toLocalDate().format(DateTimeFormatter.BASIC_ISO_DATE))
+                    .append(" values less than ('").append(desde).append("'), ");
+        }
+        for (LocalDate dia = desde; dia.isBefore(objetivo); dia = dia.plusDays(1)) {
+            ddl.append("partition p").append(dia.format(DateTimeFormatter.BASIC_ISO_DATE))
+                    .append(" values less than ('").append(dia.plusDays(1)).append("'), ");
+        }
+        ddl.append("partition ").append(ultima.nombre()).append(" values less than (maxvalue))");
+        jdbcTemplate.execute(ddl.toString());
+    }
+
+    /** Particiones RANGE de log_entry en orden; vacío si la BD no es MySQL o la tabla no está particionada. */
+    private List<Particion> listarParticiones() {
+        String producto = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (producto == null || !(producto.contains("MySQL") || producto.contains("MariaDB"))) return List.of();
+        return jdbcTemplate.query("select partition_name, partition_description from information_schema.partitions "
+                        + "where table_schema = database() and table_name = 'log_entry' and partition_name is not null "
+                        + "and partition_method like 'RANGE%' order by partition_ordinal_position",
+                (rs, i) -> {
+                    String nombre = rs.getString(1);
+                    if (!NOMBRE_PARTICION.matcher(nombre).matches()) {
+                        throw new IllegalStateException("Nombre de partición inesperado: " + nombre);
+                    }
+                    return new Particion(nombre, limite(rs.getString(2)));
+                });
+    }
+
+    private static LocalDateTime limite(String descripcion) {
+        if (descripcion == null || descripcion.equalsIgnoreCase("MAXVALUE")) return null;
+        String valor = descripcion.replace("'", "").trim().replace(' ', 'T');
+        return valor.length() == 10 ? LocalDate.parse(valor).atStartOfDay() : LocalDateTime.parse(valor);
+    }
+
+    // ========= Estado =========
+
+    /**
+     * Corte de la última purga de filas crudas completa (null si todavía no hubo una): lo
+     * anterior ya está en los resúmenes. LogColumnarStore descarta esas filas de su copia.
+     */
+    public LocalDateTime corteCrudos() {
+        return corteCrudos;
+    }
+
+    public EstadoRetencion estado() {
+        Ejecucion e = ultima;
+        return new EstadoRetencion(programada, diasCrudos, diasHorarios, diasDiarios, enCurso.get(), tablaParticionada,
+                ejecuciones.sum(), fallidas.sum(), purgadasTotal.sum(), e.inicio, e.nanos / 1e6, e.purgadas,
+                e.resumenes, e.horasCompactadas, e.diasEliminados, e.particiones, ultimoError);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (programador != null) programador.shutdownNow();
+    }
+}
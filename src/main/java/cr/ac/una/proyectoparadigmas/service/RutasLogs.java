@@ -0,0 +1,286 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.server.PathContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rutas de los logs: el endpoint de cada LogEntry es el patrón de la ruta de Spring
+ * (/api/persona/{id}) y no la URI pedida (/api/persona/12345), que queda en LogEntry.uri.
+
+ * - Así los agregados por endpoint (uso, percentiles, top / least, alertas, resúmenes de
+ *   retención) tienen tantas claves como rutas la aplicación, no una por cada id.
+ * - Cada ruta se interna en la tabla log_ruta con un código entero (LogEntry.rutaId, con
+ *   índice) y las consultas de agregación de log_entry agrupan por ese entero. Los códigos se
+ *   cargan al primer uso y los nuevos se agregan con insert + select, así que todas las
+ *   instancias que comparten la BD usan los mismos.
+ * - Las URIs que llegan sin patrón (importadas de app.log o NDJSON, 404 y 400 del
+ *   GlobalExceptionHandler) se comparan con los patrones de los controladores; si ninguno
+ *   coincide se cuentan como "(otras)" sin internarlas, así que una URL al azar no agrega
+ *   filas a log_ruta. Además el diccionario admite a lo sumo logs.rutas.max rutas.
+ * - Ninguna consulta corre bajo un lock global: una ruta nueva la interna el primer hilo que
+ *   la pide y los demás que piden esa misma esperan su resultado (CompletableFuture por clave).
+ * Si la BD falla, el log queda sin rutaId y se agrupa por su endpoint como antes; tras una
+ * falla no se vuelve a consultar la BD hasta que pasa una espera que se duplica (1 s a 1 min).
+ */
+@Component
+public class RutasLogs {
+    private static final Logger logger = Logger.getLogger(RutasLogs.class.getName());
+
+    /** Ruta de los logs que ya no caben en el diccionario. */
+    public static final String OTRAS = "(otras)";
+    private static final int LARGO_MAXIMO = 255; // varchar(255) de log_entry y log_ruta
+    private static final long ESPERA_MINIMA_MS = 1000;
+    private static final long ESPERA_MAXIMA_MS = 60_000;
+
+    private final JdbcTemplate jdbcTemplate; // null: códigos solo en memoria (pruebas, benchmarks)
+    private final Supplier<Collection<String>> fuentePatrones;
+    private final int maxRutas;
+
+    private final ConcurrentHashMap<String, Integer> codigos = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> rutas = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Integer>> internando = new ConcurrentHashMap<>();
+    private final LongAdder desbordadas = new LongAdder();
+    private final ReentrantLock carga = new ReentrantLock();
+    private volatile boolean cargado;
+    private volatile List<PathPattern> patrones;
+    private final AtomicInteger siguienteLocal = new AtomicInteger(1); // solo sin BD
+
+    // Espera tras una falla de la BD
+    private volatile long sinBdHasta;
+    private volatile long esperaFalla = ESPERA_MINIMA_MS;
+
+    @Autowired
+    public RutasLogs(JdbcTemplate jdbcTemplate,
+                     @Qualifier("requestMappingHandlerMapping") ObjectProvider<RequestMappingHandlerMapping> handlerMapping,
+                     RegistroMetricas metricas,
+                     @Value("${logs.rutas.max:1000}") int maxRutas) {
+        this(jdbcTemplate, () -> patrones(handlerMapping.getIfAvailable()), metricas, maxRutas);
+    }
+
+    /** @param patrones patrones de ruta de los controladores; se piden al primer uso (null = aún no hay) */
+    public RutasLogs(JdbcTemplate jdbcTemplate, Supplier<Collection<String>> patrones,
+                     RegistroMetricas metricas, int maxRutas) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fuentePatrones = patrones;
+        this.maxRutas = Math.max(1, maxRutas);
+        if (metricas != null) {
+            metricas.registrarIndicador("logs_rutas", "Rutas en el diccionario log_ruta", rutas::size);
+            metricas.registrarIndicador("logs_rutas_desbordadas",
+                    "Logs contados como " + OTRAS + " por logs.rutas.max", desbordadas::sum);
+        }
+    }
+
+    // ========= Normalización =========
+
+    /**
+     * Completa el log: uri = la URI pedida (la que traía endpoint si no tenía uri),
+     * endpoint = patrón (el dado o el que coincide con la URI) y rutaId = su código.
+     */
+    public void normalizar(LogEntry log, String patron) {
+        String uri = log.getUri() != null ? log.getUri() : log.getEndpoint();
+        log.setUri(recortar(uri));
+        String ruta = recortar(patron != null ? patron : patron(uri));
+        Integer codigo = codigo(ruta);
+        log.setRutaId(codigo);
+        log.setEndpoint(codigo != null ? rutas.get(codigo) : ruta);
+    }
+
+    /** Para los lotes importados, que no traen el patrón. */
+    public void normalizar(List<LogEntry> logs) {
+        for (LogEntry log : logs) normalizar(log, null);
+    }
+
+    /** Patrón de controlador más específico que coincide con la URI; OTRAS si ninguno. */
+    String patron(String uri) {
+        if (uri == null) return null;
+        int consulta = uri.indexOf('?');
+        String camino = consulta >= 0 ? uri.substring(0, consulta) : uri;
+        PathContainer partes;
+        try {
+            partes = PathContainer.parsePath(camino);
+        } catch (IllegalArgumentException e) {
+            return OTRAS;
+        }
+        for (PathPattern patron : patrones()) {
+            if (patron.matches(partes)) return patron.getPatternString();
+        }
+        return OTRAS;
+    }
+
+    private List<PathPattern> patrones() {
+        List<PathPattern> lista = patrones;
+        if (lista == null) {
+            Collection<String> fuente = fuentePatrones != null ? fuentePatrones.get() : List.of();
+            if (fuente == null) return List.of(); // los controladores todavía no están registrados
+            lista = fuente.stream()
+                    .map(PathPatternParser.defaultInstance::parse)
+                    .sorted(PathPattern.SPECIFICITY_COMPARATOR)
+                    .toList();
+            patrones = lista;
+        }
+        return lista;
+    }
+
+    private static Collection<String> patrones(RequestMappingHandlerMapping handlerMapping) {
+        if (handlerMapping == null) return null;
+        Set<String> patrones = new HashSet<>();
+        handlerMapping.getHandlerMethods().keySet().forEach(info -> patrones.addAll(info.getPatternValues()));
+        return patrones;
+    }
+
+    // ========= Diccionario =========
+
+    /** Código de la ruta, internándola si es nueva; null si no hay ruta o la BD falló. */
+    public Integer codigo(String ruta) {
+        if (ruta == null) return null;
+        cargar();
+        Integer codigo = codigos.get(ruta);
+        if (codigo != null) return codigo;
+        if (codigos.size() >= maxRutas && !ruta.equals(OTRAS)) {
+            desbordadas.increment();
+            return codigo(OTRAS);
+        }
+        return internar(ruta);
+    }
+
+    /** Ruta de una fila agrupada por rutaId; las filas sin código traen su endpoint. */
+    public String ruta(Integer codigo, String endpoint) {
+        if (codigo == null) return endpoint;
+        cargar();
+        String ruta = rutas.get(codigo);
+        if (ruta == null && usarBd()) ruta = buscarRuta(codigo); // la agregó otra instancia
+        return ruta != null ? ruta : "(ruta " + codigo + ")";
+    }
+
+    public int tamano() {
+        return rutas.size();
+    }
+
+    /**
+     * El primer hilo que pide una ruta nueva la interna (fuera de todo lock); los que la piden
+     * mientras tanto esperan su resultado en vez de repetir la consulta.
+     */
+    private Integer internar(String ruta) {
+        CompletableFuture<Integer> propio = new CompletableFuture<>();
+        CompletableFuture<Integer> enCurso = internando.putIfAbsent(ruta, propio);
+        if (enCurso != null) return enCurso.join();
+        Integer codigo = null;
+        try {
+            codigo = codigos.get(ruta); // pudo quedar guardada antes del putIfAbsent
+            if (codigo == null) {
+                codigo = jdbcTemplate == null ? Integer.valueOf(siguienteLocal.getAndIncrement()) : internarEnBd(ruta);
+                if (codigo != null) guardar(codigo, ruta);
+            }
+            return codigo;
+        } finally {
+            propio.complete(codigo);
+            internando.remove(ruta, propio);
+        }
+    }
+
+    private Integer internarEnBd(String ruta) {
+        if (!usarBd()) return null;
+        try {
+            Integer codigo = buscarCodigo(ruta);
+            if (codigo == null) {
+                try {
+                    jdbcTemplate.update("insert into log_ruta (ruta) values (?)", ruta);
+                } catch (DuplicateKeyException otraInstancia) {
+                    // la insertó otra instancia entre el select y el insert: se usa la suya
+                }
+                codigo = buscarCodigo(ruta);
+            }
+            esperaFalla = ESPERA_MINIMA_MS;
+            return codigo;
+        } catch (DataAccessException e) {
+            fallo("No se pudo internar la ruta " + ruta + " en log_ruta", e);
+            return null;
+        }
+    }
+
+    private Integer buscarCodigo(String ruta) {
+        List<Integer> ids = jdbcTemplate.queryForList("select id from log_ruta where ruta = ?", Integer.class, ruta);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    private String buscarRuta(int codigo) {
+        try {
+            List<String> encontradas = jdbcTemplate.queryForList("select ruta from log_ruta where id = ?", String.class, codigo);
+            if (encontradas.isEmpty()) return null;
+            guardar(codigo, encontradas.get(0));
+            return encontradas.get(0);
+        } catch (DataAccessException e) {
+            fallo("No se pudo leer la ruta " + codigo + " de log_ruta", e);
+            return null;
+        }
+    }
+
+    /**
+     * Carga log_ruta al primer uso (la tabla ya la creó JPA). Un solo hilo la carga; los demás
+     * no lo esperan y, si les falta una ruta, la buscan con el select de internar.
+     * Si falla se reintenta en un uso posterior, pasada la espera.
+     */
+    private void cargar() {
+        if (cargado) return;
+        if (jdbcTemplate == null) {
+            cargado = true;
+            return;
+        }
+        if (!usarBd() || !carga.tryLock()) return;
+        try {
+            if (cargado) return;
+            jdbcTemplate.query("select id, ruta from log_ruta", fila -> { guardar(fila.getInt(1), fila.getString(2)); });
+            cargado = true;
+        } catch (DataAccessException e) {
+            fallo("No se pudo cargar log_ruta", e);
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    /** false mientras dura la espera tras una falla de la BD. */
+    private boolean usarBd() {
+        return jdbcTemplate != null && System.currentTimeMillis() >= sinBdHasta;
+    }
+
+    private void fallo(String mensaje, DataAccessException e) {
+        long espera = esperaFalla;
+        sinBdHasta = System.currentTimeMillis() + espera;
+        esperaFalla = Math.min(espera * 2, ESPERA_MAXIMA_MS);
+        logger.log(Level.WARNING, mensaje + "; no se consulta log_ruta por " + espera + " ms", e);
+    }
+
+    private void guardar(int codigo, String ruta) {
+        rutas.put(codigo, ruta);
+        codigos.put(ruta, codigo);
+    }
+
+    private static String recortar(String texto) {
+        return texto != null && texto.length() > LARGO_MAXIMO ? texto.substring(0, LARGO_MAXIMO) : texto;
+    }
+}
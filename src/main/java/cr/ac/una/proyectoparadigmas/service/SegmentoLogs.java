@@ -0,0 +1,235 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Un archivo de segmento de AlmacenLogsSegmentos: una cabecera y registros de ancho fijo,
+ * solo de agregado, mapeado completo en memoria con FileChannel.map.
+
+ * Cabecera (64 bytes): magia "LOGSEG01", versión, tamaño de registro, capacidad y primer id.
+ * Registro (48 bytes, big-endian):
+ *   0 id (long)            8 timestamp en microsegundos (long, Long.MIN_VALUE = sin timestamp)
+ *  16 tiempoRespuesta (long) 24 peso (short sin signo, 0 = 1) 26 statusCode (short)
+ *  28 endpoint, 32 metodoHttp, 36 nivel, 40 mensaje (int, códigos del diccionario de textos)
+ *  44 CRC32 de los bytes 0-43
+ * El registro i tiene id = primerId + i, así que ubicar un id es una resta.
+
+ * Índice disperso: por cada bloque de BLOQUE registros se guarda el timestamp mínimo y máximo,
+ * y los recorridos por ventana saltan los bloques que no la tocan. Al cerrar un segmento el
+ * índice se escribe junto al archivo (.idx); el segmento activo lo reconstruye al abrirse.
+
+ * Un solo hilo escribe (AlmacenLogsSegmentos lo serializa); los lectores usan solo lecturas
+ * absolutas sobre el mapeo y ven los primeros {@link #cantidad()} registros, que se publica
+ * después de escribir cada uno.
+ */
+final class SegmentoLogs {
+
+    static final int CABECERA = 64;
+    static final int REGISTRO = 48;
+    static final int BLOQUE = 1024;
+    static final long SIN_TIMESTAMP = Long.MIN_VALUE;
+
+    private static final long MAGIA = 0x4C4F475345473031L; // "LOGSEG01"
+    private static final long MAGIA_INDICE = 0x4C4F474944583031L; // "LOGIDX01"
+    private static final int VERSION = 1;
+    private static final int DATOS_CRC = REGISTRO - 4;
+
+    final Path archivo;
+    final long primerId;
+    final int capacidad;
+    private final MappedByteBuffer datos;
+    private final long[] minimos;
+    private final long[] maximos;
+    private final CRC32 crc = new CRC32();
+    private final byte[] registro = new byte[REGISTRO];
+    private final ByteBuffer escritura = ByteBuffer.wrap(registro);
+    private volatile int cantidad;
+
+    private SegmentoLogs(Path archivo, MappedByteBuffer datos, long primerId, int capacidad) {
+        this.archivo = archivo;
+        this.datos = datos;
+        this.primerId = primerId;
+        this.capacidad = capacidad;
+        int bloques = (capacidad + BLOQUE - 1) / BLOQUE;
+        this.minimos = new long[bloques];
+        this.maximos = new long[bloques];
+        Arrays.fill(minimos, Long.MAX_VALUE);
+        Arrays.fill(maximos, Long.MIN_VALUE);
+    }
+
+    // ========= Crear y abrir =========
+
+    static SegmentoLogs crear(Path archivo, long primerId, int capacidad) throws IOException {
+        MappedByteBuffer datos;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            datos = canal.map(FileChannel.MapMode.READ_WRITE, 0, CABECERA + (long) capacidad * REGISTRO);
+        }
+        datos.putLong(0, MAGIA).putInt(8, VERSION).putInt(12, REGISTRO).putInt(16, capacidad).putLong(20, primerId);
+        datos.force(0, CABECERA);
+        return new SegmentoLogs(archivo, datos, primerId, capacidad);
+    }
+
+    /**
+     * Abre un segmento existente. Si hay un .idx válido se usa; si no (segmento activo o
+     * caída antes de cerrarlo) se recorre validando id y CRC de cada registro: el primero
+     * que no cuadra marca el final, y lo que haya después se borra (cola a medio escribir).
+     */
+    static SegmentoLogs abrir(Path archivo, int codigosValidos) throws IOException {
+        MappedByteBuffer datos;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (canal.size() < CABECERA) throw new IOException("Segmento sin cabecera: " + archivo);
+            datos = canal.map(FileChannel.MapMode.READ_WRITE, 0, canal.size());
+        }
+        if (datos.getLong(0) != MAGIA || datos.getInt(8) != VERSION || datos.getInt(12) != REGISTRO) {
+            throw new IOException("No es un segmento de logs compatible: " + archivo);
+        }
+        int capacidad = datos.getInt(16);
+        if (datos.capacity() < CABECERA + (long) capacidad * REGISTRO) {
+            throw new IOException("Segmento truncado: " + archivo);
+        }
+        SegmentoLogs segmento = new SegmentoLogs(archivo, datos, datos.getLong(20), capacidad);
+        if (!segmento.leerIndice()) segmento.recuperar(codigosValidos);
+        return segmento;
+    }
+
+    private void recuperar(int codigosValidos) {
+        int n = 0;
+        while (n < capacidad && valido(n, codigosValidos)) {
+            indexar(n, datos.getLong(posicion(n) + 8));
+            n++;
+        }
+        for (int i = n; i < capacidad && !vacio(i); i++) {
+            datos.put(posicion(i), new byte[REGISTRO]); // cola a medio escribir
+        }
+        cantidad = n;
+    }
+
+    private boolean valido(int i, int codigosValidos) {
+        int pos = posicion(i);
+        datos.get(pos, registro, 0, REGISTRO);
+        crc.reset();
+        crc.update(registro, 0, DATOS_CRC);
+        if ((int) crc.getValue() != escritura.getInt(DATOS_CRC)) return false;
+        if (escritura.getLong(0) != primerId + i) return false;
+        for (int campo = 28; campo <= 40; campo += 4) {
+            int codigo = escritura.getInt(campo);
+            if (codigo < 0 || codigo >= codigosValidos) return false; // texto que no llegó a guardarse
+        }
+        return true;
+    }
+
+    private boolean vacio(int i) {
+        int pos = posicion(i);
+        for (int k = 0; k < REGISTRO; k += 8) {
+            if (datos.getLong(pos + k) != 0) return false;
+        }
+        return true;
+    }
+
+    // ========= Escritura (un solo hilo) =========
+
+    boolean lleno() {
+        return cantidad == capacidad;
+    }
+
+    /** Agrega un registro y devuelve su id. */
+    long anexar(long timestamp, long tiempo, int status, int peso, int endpoint, int metodo, int nivel, int mensaje) {
+        int n = cantidad;
+        long id = primerId + n;
+        escritura.putLong(0, id).putLong(8, timestamp).putLong(16, tiempo)
+                .putShort(24, (short) Math.max(1, Math.min(MuestreoLogs.PESO_MAXIMO, peso))).putShort(26, (short) status)
+                .putInt(28, endpoint).putInt(32, metodo).putInt(36, nivel).putInt(40, mensaje);
+        crc.reset();
+        crc.update(registro, 0, DATOS_CRC);
+        escritura.putInt(DATOS_CRC, (int) crc.getValue());
+        datos.put(posicion(n), registro);
+        indexar(n, timestamp);
+        cantidad = n + 1; // publica el registro y su bloque del índice a los lectores
+        return id;
+    }
+
+    private void indexar(int i, long timestamp) {
+        if (timestamp == SIN_TIMESTAMP) return;
+        int b = i / BLOQUE;
+        if (timestamp < minimos[b]) minimos[b] = timestamp;
+        if (timestamp > maximos[b]) maximos[b] = timestamp;
+    }
+
+    void forzar() {
+        datos.force();
+    }
+
+    /** Cierra el segmento para escritura: baja los datos a disco y escribe el índice. */
+    void sellar() throws IOException {
+        datos.force();
+        int bloques = (cantidad + BLOQUE - 1) / BLOQUE;
+        ByteBuffer indice = ByteBuffer.allocate(16 + bloques * 16);
+        indice.putLong(MAGIA_INDICE).putInt(cantidad).putInt(bloques);
+        for (int b = 0; b < bloques; b++) indice.putLong(minimos[b]).putLong(maximos[b]);
+        Path temporal = rutaIndice().resolveSibling(rutaIndice().getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            canal.write(indice.flip());
+            canal.force(true);
+        }
+        Files.move(temporal, rutaIndice(), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private boolean leerIndice() throws IOException {
+        Path ruta = rutaIndice();
+        if (!Files.isRegularFile(ruta)) return false;
+        ByteBuffer indice = ByteBuffer.wrap(Files.readAllBytes(ruta));
+        if (indice.remaining() < 16 || indice.getLong() != MAGIA_INDICE) return false;
+        int n = indice.getInt();
+        int bloques = indice.getInt();
+        if (n < 0 || n > capacidad || bloques != (n + BLOQUE - 1) / BLOQUE || indice.remaining() != bloques * 16) {
+            return false;
+        }
+        for (int b = 0; b < bloques; b++) {
+            minimos[b] = indice.getLong();
+            maximos[b] = indice.getLong();
+        }
+        cantidad = n;
+        return true;
+    }
+
+    private Path rutaIndice() {
+        String nombre = archivo.getFileName().toString();
+        return archivo.resolveSibling(nombre.substring(0, nombre.length() - ".seg".length()) + ".idx");
+    }
+
+    // ========= Lectura (cualquier hilo, directo sobre el mapeo) =========
+
+    int cantidad() {
+        return cantidad;
+    }
+
+    /** true si el bloque b puede tener registros con timestamp en [desde, hasta). */
+    boolean bloqueEnRango(int b, long desde, long hasta) {
+        return maximos[b] >= desde && minimos[b] < hasta;
+    }
+
+    long id(int i)         { return datos.getLong(posicion(i)); }
+    long timestamp(int i)  { return datos.getLong(posicion(i) + 8); }
+    long tiempo(int i)     { return datos.getLong(posicion(i) + 16); }
+    int peso(int i)        { return Math.max(1, datos.getShort(posicion(i) + 24) & 0xFFFF); }
+    int status(int i)      { return datos.getShort(posicion(i) + 26); }
+    int endpoint(int i)    { return datos.getInt(posicion(i) + 28); }
+    int metodo(int i)      { return datos.getInt(posicion(i) + 32); }
+    int nivel(int i)       { return datos.getInt(posicion(i) + 36); }
+    int mensaje(int i)     { return datos.getInt(posicion(i) + 40); }
+
+    private static int posicion(int i) {
+        return CABECERA + i * REGISTRO;
+    }
+}
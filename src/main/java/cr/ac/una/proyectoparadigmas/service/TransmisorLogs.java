@@ -0,0 +1,304 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cr.ac.una.proyectoparadigmas.dto.DeltaLogs;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Transmisión en vivo de /api/logs/stream con Server-Sent Events.
+
+ * Eventos:
+ * - "contadores": al conectarse, los totales del último intervalo (DeltaLogs).
+ * - "delta": cada logs.stream.intervalo-ms, lo que cambió desde el intervalo anterior.
+ *   Si no cambió nada se manda solo un comentario, para detectar conexiones muertas.
+ * - "critico": cada evento crítico (nivel ERROR y status >= 500) apenas se registra.
+ *   Los registros atrasados (importaciones) no se transmiten; solo suman en los deltas.
+
+ * Cada conexión es una petición asíncrona del servlet con escritura no bloqueante
+ * (WriteListener): no ocupa un hilo mientras espera ni cuando el cliente lee lento.
+ * Los eventos se arman una sola vez (bytes UTF-8) y se encolan en un buffer acotado por
+ * suscriptor (logs.stream.buffer); un grupo fijo de hilos (logs.stream.hilos) escribe
+ * mientras el socket acepte datos y, si no, el contenedor avisa cuando se pueda seguir.
+ * Si el buffer de un cliente se llena porque no lee a tiempo, se le cierra la conexión
+ * (EventSource reconecta solo).
+
+ * El registro (LogAggregateStore.suscribir) solo deja el log en una cola para el hilo
+ * log-stream-difusion, así que una petición no paga el reparto entre miles de clientes.
+ */
+@Component
+public class TransmisorLogs {
+    private static final Logger logger = Logger.getLogger(TransmisorLogs.class.getName());
+    private static final byte[] SIN_CAMBIOS = ":sin cambios\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final LogAggregateStore store;
+    private final ObjectMapper objectMapper;
+    private final int tamanoBuffer;
+    private final long timeoutMs;
+
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<LogEntry> criticos;
+    private final ExecutorService envio;
+    private final ScheduledExecutorService reloj;
+    private final Thread difusion;
+    private final AtomicLong secuencia = new AtomicLong();
+    private volatile boolean activo = true;
+
+    // Contadores del último intervalo (base de los deltas y primer evento de cada cliente)
+    private volatile DeltaLogs ultimoTotal;
+
+    private final LongAdder enviados = new LongAdder();
+    private final LongAdder lentos = new LongAdder();
+    private final LongAdder criticosDescartados = new LongAdder();
+
+    /** Un cliente conectado: su conexión y los eventos que aún no se le escribieron. */
+    private static final class Suscriptor {
+        final AsyncContext async;
+        final ServletOutputStream salida;
+        final BlockingQueue<byte[]> cola;
+        final AtomicBoolean programado = new AtomicBoolean(); // ya hay una tarea de envío encolada
+        boolean sinFlush; // bajo el lock del suscriptor
+        boolean cerrado;  // bajo el lock del suscriptor
+
+        Suscriptor(AsyncContext async, ServletOutputStream salida, int tamanoBuffer) {
+            this.async = async;
+            this.salida = salida;
+            this.cola = new ArrayBlockingQueue<>(tamanoBuffer);
+        }
+    }
+
+    public TransmisorLogs(LogAggregateStore store,
+                          ObjectMapper objectMapper,
+                          RegistroMetricas metricas,
+                          @Value("${logs.stream.buffer:256}") int tamanoBuffer,
+                          @Value("${logs.stream.hilos:4}") int hilos,
+                          @Value("${logs.stream.intervalo-ms:5000}") long intervaloMs,
+                          @Value("${logs.stream.timeout-ms:1800000}") long timeoutMs,
+                          @Value("${logs.stream.max-criticos-pendientes:10000}") int maxCriticosPendientes) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.tamanoBuffer = tamanoBuffer;
+        this.timeoutMs = timeoutMs;
+        this.criticos = new ArrayBlockingQueue<>(maxCriticosPendientes);
+
+        AtomicInteger numero = new AtomicInteger();
+        this.envio = Executors.newFixedThreadPool(hilos, r -> hiloDemonio(r, "log-stream-" + numero.incrementAndGet()));
+        this.reloj = Executors.newSingleThreadScheduledExecutor(r -> hiloDemonio(r, "log-stream-delta"));
+        this.difusion = hiloDemonio(this::difundirCriticos, "log-stream-difusion");
+        this.ultimoTotal = contadores();
+
+        store.suscribir(this::registrado);
+        reloj.scheduleAtFixedRate(this::enviarDelta, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+        difusion.start();
+
+        metricas.registrarIndicador("logs_stream_suscriptores", "Clientes conectados a /api/logs/stream", suscriptores::size);
+        metricas.registrarIndicador("logs_stream_enviados", "Eventos escritos a los clientes", enviados::sum);
+        metricas.registrarIndicador("logs_stream_lentos", "Clientes desconectados por buffer lleno", lentos::sum);
+        metricas.registrarIndicador("logs_stream_criticos_descartados", "Eventos críticos sin transmitir por cola llena",
+                criticosDescartados::sum);
+    }
+
+    private static Thread hiloDemonio(Runnable tarea, String nombre) {
+        Thread hilo = new Thread(tarea, nombre);
+        hilo.setDaemon(true);
+        return hilo;
+    }
+
+    // ========= Suscripción =========
+
+    /**
+     * Deja abierta la respuesta como text/event-stream; el primer evento son los contadores
+     * actuales. Retorna enseguida y libera el hilo de la petición.
+     */
+    public void suscribir(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no"); // que un proxy nginx no acumule los eventos
+
+        AsyncContext async = request.startAsync();
+        async.setTimeout(timeoutMs);
+        Suscriptor suscriptor = new Suscriptor(async, response.getOutputStream(), tamanoBuffer);
+        suscriptor.cola.offer(evento("contadores", ultimoTotal));
+        async.addListener(new AsyncListener() {
+            @Override public void onComplete(AsyncEvent e) { suscriptores.remove(suscriptor); }
+            @Override public void onTimeout(AsyncEvent e) { desconectar(suscriptor); }
+            @Override public void onError(AsyncEvent e) { desconectar(suscriptor); }
+            @Override public void onStartAsync(AsyncEvent e) { }
+        });
+        suscriptor.salida.setWriteListener(new WriteListener() {
+            @Override public void onWritePossible() { vaciar(suscriptor); }
+            @Override public void onError(Throwable t) { desconectar(suscriptor); }
+        });
+        suscriptores.add(suscriptor);
+    }
+
+    // ========= Eventos críticos =========
+
+    private void registrado(LogEntry log) {
+        if (suscriptores.isEmpty() || !LogService.esCritico().test(log) || atrasado(log, LocalDateTime.now())) return;
+        if (!criticos.offer(log)) criticosDescartados.increment();
+    }
+
+    /** Sin timestamp o de antes del minuto anterior a ahora. */
+    static boolean atrasado(LogEntry log, LocalDateTime ahora) {
+        return log.getTimestamp() == null
+                || LogAggregateStore.epochMinuto(log.getTimestamp()) < LogAggregateStore.epochMinuto(ahora) - 1;
+    }
+
+    private void difundirCriticos() {
+        while (activo) {
+            try {
+                publicar(evento("critico", criticos.take()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "No se pudo transmitir un evento crítico", e);
+            }
+        }
+    }
+
+    // ========= Deltas de contadores =========
+
+    private DeltaLogs contadores() {
+        AgregadoLogs total = store.total();
+        return new DeltaLogs(total.totalPeticiones(), total.totalErrores(), total.cantidadCriticos(),
+                Map.copyOf(total.conteoPorStatus()));
+    }
+
+    void enviarDelta() {
+        try {
+            DeltaLogs anterior = ultimoTotal;
+            DeltaLogs actual = contadores();
+            ultimoTotal = actual;
+            if (suscriptores.isEmpty()) return;
+
+            Map<Integer, Long> porStatus = new HashMap<>();
+            actual.porStatus().forEach((status, cantidad) -> {
+                long cambio = cantidad - anterior.porStatus().getOrDefault(status, 0L);
+                if (cambio != 0) porStatus.put(status, cambio);
+            });
+            DeltaLogs delta = new DeltaLogs(actual.peticiones() - anterior.peticiones(),
+                    actual.errores() - anterior.errores(), actual.criticos() - anterior.criticos(), porStatus);
+            publicar(delta.peticiones() == 0 && porStatus.isEmpty()
+                    ? SIN_CAMBIOS
+                    : evento("delta", delta));
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "No se pudo enviar el delta de contadores", e);
+        }
+    }
+
+    // ========= Envío =========
+
+    /** Arma el evento una sola vez; los mismos bytes se encolan para todos los suscriptores. */
+    private byte[] evento(String nombre, Object datos) {
+        try {
+            return ("id:" + secuencia.incrementAndGet() + "\nevent:" + nombre + "\ndata:"
+                    + objectMapper.writeValueAsString(datos) + "\n\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void publicar(byte[] evento) {
+        for (Suscriptor suscriptor : suscriptores) {
+            if (suscriptor.cola.offer(evento)) {
+                programar(suscriptor);
+            } else {
+                lentos.increment(); // no lee a tiempo
+                desconectar(suscriptor);
+            }
+        }
+    }
+
+    private void programar(Suscriptor suscriptor) {
+        if (suscriptor.programado.compareAndSet(false, true)) {
+            envio.execute(() -> {
+                suscriptor.programado.set(false); // lo que llegue desde aquí programa otra tarea
+                vaciar(suscriptor);
+            });
+        }
+    }
+
+    /**
+     * Escribe lo encolado mientras el socket lo acepte sin bloquear. Si isReady() da false
+     * se deja de escribir y el contenedor vuelve a llamar onWritePossible cuando se pueda.
+     */
+    private void vaciar(Suscriptor suscriptor) {
+        synchronized (suscriptor) {
+            if (suscriptor.cerrado) return;
+            try {
+                while (suscriptor.salida.isReady()) {
+                    byte[] evento = suscriptor.cola.poll();
+                    if (evento == null) {
+                        if (!suscriptor.sinFlush) return;
+                        suscriptor.sinFlush = false;
+                        suscriptor.salida.flush();
+                        continue;
+                    }
+                    suscriptor.salida.write(evento);
+                    suscriptor.sinFlush = true;
+                    enviados.increment();
+                }
+            } catch (IOException | IllegalStateException e) {
+                desconectar(suscriptor); // el cliente se fue
+            }
+        }
+    }
+
+    private void desconectar(Suscriptor suscriptor) {
+        suscriptores.remove(suscriptor);
+        synchronized (suscriptor) {
+            if (suscriptor.cerrado) return;
+            suscriptor.cerrado = true;
+            suscriptor.cola.clear();
+            try {
+                suscriptor.async.complete();
+            } catch (IllegalStateException e) {
+                // ya estaba terminada
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        activo = false;
+        difusion.interrupt();
+        reloj.shutdownNow();
+        suscriptores.forEach(this::desconectar);
+        envio.shutdown();
+    }
+}
@@ -0,0 +1,67 @@
+package cr.ac.una.proyectoparadigmas.metrics;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Propiedades de ContadorDenso frente a un HashMap de referencia con conteos al azar:
+ * mismos conteos (también fuera de rango), mismo top-K que ordenar todas las entradas
+ * y combinar equivale a contar todo junto.
+ */
+class ContadorDensoTest {
+
+    static LongStream semillas() {
+        return LongStream.rangeClosed(1, 25);
+    }
+
+    @ParameterizedTest
+    @MethodSource("semillas")
+    void igualQueMapaDeReferencia(long semilla) {
+        Random random = new Random(semilla);
+        ContadorDenso contador = ContadorDenso.codigosHttp();
+        Map<Integer, Long> referencia = new HashMap<>();
+        for (int i = random.nextInt(2000); i > 0; i--) {
+            int codigo = random.nextInt(50) == 0 ? random.nextInt(1000) : 100 + random.nextInt(500);
+            long cantidad = 1 + random.nextInt(5);
+            contador.sumar(codigo, cantidad);
+            referencia.merge(codigo, cantidad, Long::sum);
+        }
+
+        assertEquals(new TreeMap<>(referencia), new TreeMap<>(contador.aMapa()));
+        for (int k : new int[]{0, 1, 3, 24, 1000}) {
+            List<Integer> esperado = referencia.entrySet().stream()
+                    .filter(e -> e.getKey() >= 400)
+                    .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                    .limit(k)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            assertArrayEquals(esperado.stream().mapToInt(Integer::intValue).toArray(),
+                    contador.top(k, 400, Integer.MAX_VALUE));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("semillas")
+    void combinarEquivaleAContarTodoJunto(long semilla) {
+        Random random = new Random(semilla);
+        ContadorDenso a = ContadorDenso.horasDelDia(), b = ContadorDenso.horasDelDia(), todo = ContadorDenso.horasDelDia();
+        for (int i = random.nextInt(500); i > 0; i--) {
+            int hora = random.nextInt(24);
+            (random.nextBoolean() ? a : b).incrementar(hora);
+            todo.incrementar(hora);
+        }
+        assertEquals(todo.aMapa(), a.combinar(b).aMapa());
+    }
+}
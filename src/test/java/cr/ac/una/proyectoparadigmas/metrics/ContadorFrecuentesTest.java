@@ -0,0 +1,148 @@
+package cr.ac.una.proyectoparadigmas.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Garantías de ContadorFrecuentes frente a un HashMap de referencia con claves al azar
+ * (distribución de Zipf, muchas más claves que capacidad): cada conteo acota al real, las
+ * ausentes quedan bajo umbral (también con varios hilos: cada suma cuenta una vez), combinar
+ * conserva las cotas, el bottom solo se da si es exacto y con pocas claves lo es.
+ */
+class ContadorFrecuentesTest {
+
+    static LongStream semillas() {
+        return LongStream.rangeClosed(1, 20);
+    }
+
+    @ParameterizedTest
+    @MethodSource("semillas")
+    void lasCotasContienenAlConteoReal(long semilla) {
+        Random random = new Random(semilla);
+        ContadorFrecuentes contador = new ContadorFrecuentes(64);
+        Map<String, Long> referencia = new HashMap<>();
+        sumarZipf(random, 20_000, 5000, contador, referencia);
+
+        assertTrue(contador.frecuencias().size() <= contador.capacidad());
+        verificarCotas(contador, referencia);
+
+        // con desalojos el bottom no es confiable y no se devuelve; el top es el de ordenar todo lo presente
+        assertTrue(contador.umbral() > 0);
+        assertTrue(contador.menos(3).isEmpty());
+        List<ContadorFrecuentes.Frecuencia> ordenadas = contador.frecuencias().stream()
+                .sorted(Comparator.comparingLong(ContadorFrecuentes.Frecuencia::cantidad).reversed()
+                        .thenComparing(ContadorFrecuentes.Frecuencia::clave))
+                .toList();
+        assertEquals(ordenadas.subList(0, 5), contador.mas(5));
+    }
+
+    @ParameterizedTest
+    @MethodSource("semillas")
+    void combinarConservaLasCotas(long semilla) {
+        Random random = new Random(semilla);
+        Map<String, Long> referencia = new HashMap<>();
+        ContadorFrecuentes total = new ContadorFrecuentes(64);
+        for (int parte = 0; parte < 10; parte++) {
+            ContadorFrecuentes minuto = new ContadorFrecuentes(64);
+            sumarZipf(random, 2000, 3000, minuto, referencia);
+            total.combinar(minuto);
+        }
+        assertTrue(total.frecuencias().size() <= total.capacidad());
+        verificarCotas(total, referencia);
+    }
+
+    @Test
+    void conPocasClavesEsExacto() {
+        Random random = new Random(7);
+        ContadorFrecuentes a = new ContadorFrecuentes(64), b = new ContadorFrecuentes(64);
+        Map<String, Long> referencia = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            String clave = "/api/ruta/" + random.nextInt(5);
+            long peso = 1 + random.nextInt(3);
+            (random.nextBoolean() ? a : b).sumar(clave, peso);
+            referencia.merge(clave, peso, Long::sum);
+        }
+        a.combinar(b);
+        assertTrue(a.exacto());
+        assertEquals(referencia, a.frecuencias().stream()
+                .collect(Collectors.toMap(ContadorFrecuentes.Frecuencia::clave, ContadorFrecuentes.Frecuencia::cantidad)));
+        assertTrue(a.frecuencias().stream().allMatch(f -> f.error() == 0));
+
+        List<ContadorFrecuentes.Frecuencia> top = a.mas(2);
+        List<ContadorFrecuentes.Frecuencia> least = a.menos(2);
+        assertEquals(2, top.size());
+        assertTrue(top.get(0).cantidad() >= top.get(1).cantidad());
+        assertTrue(least.get(0).cantidad() <= least.get(1).cantidad());
+        assertTrue(top.get(1).cantidad() >= least.get(1).cantidad());
+    }
+
+    @Test
+    void variosHilosNoPierdenConteos() throws Exception {
+        ContadorFrecuentes contador = new ContadorFrecuentes(16);
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        List<Future<Map<String, Long>>> partes = new ArrayList<>();
+        for (int h = 0; h < 8; h++) {
+            long semilla = h;
+            partes.add(hilos.submit(() -> {
+                Map<String, Long> propia = new HashMap<>();
+                sumarZipf(new Random(semilla), 50_000, 1000, contador, propia);
+                return propia;
+            }));
+        }
+        Map<String, Long> referencia = new HashMap<>();
+        for (Future<Map<String, Long>> parte : partes) parte.get().forEach((k, v) -> referencia.merge(k, v, Long::sum));
+        hilos.shutdown();
+        verificarCotas(contador, referencia);
+    }
+
+    private static void verificarCotas(ContadorFrecuentes contador, Map<String, Long> referencia) {
+        Map<String, ContadorFrecuentes.Frecuencia> presentes = contador.frecuencias().stream()
+                .collect(Collectors.toMap(ContadorFrecuentes.Frecuencia::clave, f -> f));
+        long umbral = contador.umbral();
+        referencia.forEach((clave, real) -> {
+            ContadorFrecuentes.Frecuencia f = presentes.get(clave);
+            if (f == null) {
+                assertTrue(real <= umbral, clave + ": " + real + " ausente con umbral " + umbral);
+            } else {
+                assertTrue(f.cantidad() - f.error() <= real && real <= f.cantidad(),
+                        clave + ": " + real + " fuera de [" + (f.cantidad() - f.error()) + ", " + f.cantidad() + "]");
+            }
+        });
+    }
+
+    /** Zipf(1) sobre n claves con peso 1-3. */
+    private static void sumarZipf(Random random, int cantidad, int claves, ContadorFrecuentes contador,
+                                  Map<String, Long> referencia) {
+        double[] acumulada = new double[claves];
+        double suma = 0;
+        for (int i = 0; i < claves; i++) acumulada[i] = suma += 1.0 / (i + 1);
+        for (int i = 0; i < cantidad; i++) {
+            double u = random.nextDouble() * suma;
+            int j = 0, k = claves - 1;
+            while (j < k) {
+                int m = (j + k) >>> 1;
+                if (acumulada[m] < u) j = m + 1; else k = m;
+            }
+            String clave = "/api/persona/" + j;
+            long peso = 1 + random.nextInt(3);
+            contador.sumar(clave, peso);
+            referencia.merge(clave, peso, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package cr.ac.una.proyectoparadigmas.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HistogramaLatencias con 2 dígitos (S = 256): valores exactos por debajo de 2·S y cubetas
+ * compartidas por encima, error relativo acotado frente a la lista ordenada, combinar igual
+ * que registrar todo junto, registros con peso y valores por encima del máximo.
+ */
+class HistogramaLatenciasTest {
+
+    private static final double[] CUANTILES = {0.01, 0.25, 0.5, 0.9, 0.95, 0.99, 0.999, 1.0};
+
+    static LongStream semillas() {
+        return LongStream.rangeClosed(1, 20);
+    }
+
+    @Test
+    void valoresExactosDebajoDeDosSYCubetasCompartidasArriba() {
+        HistogramaLatencias h = new HistogramaLatencias(2, 3_600_000);
+        assertEquals(1.0 / 256, h.errorRelativo());
+        for (long v : new long[]{0, 255, 256, 510, 511, 512, 513, 514, 100_000}) h.registrar(v);
+
+        assertEquals(0, h.valorEnPosicion(0));
+        assertEquals(255, h.valorEnPosicion(1));
+        assertEquals(256, h.valorEnPosicion(2));
+        assertEquals(510, h.valorEnPosicion(3));
+        assertEquals(511, h.valorEnPosicion(4));
+        assertEquals(512.5, h.valorEnPosicion(5)); // 512 y 513 caen en la misma cubeta de ancho 2
+        assertEquals(512.5, h.valorEnPosicion(6));
+        assertEquals(514.5, h.valorEnPosicion(7)); // la siguiente
+        assertEquals(100_000, h.valorEnPosicion(8), 100_000 * h.errorRelativo());
+    }
+
+    @Test
+    void losExtremosSeRecortanAlMinimoYMaximoReales() {
+        HistogramaLatencias h = new HistogramaLatencias(2, 3_600_000);
+        h.registrar(100_001);
+        assertEquals(100_001, h.percentil(0.5)); // un solo valor: exacto aunque la cubeta mida 256
+        assertEquals(100_001, h.mediana());
+
+        h.registrar(100_090); // misma cubeta [99 840, 100 095]: el punto medio queda bajo el mínimo
+        assertEquals(100_001, h.percentil(1.0));
+        assertEquals(100_001, h.mediana());
+    }
+
+    @ParameterizedTest
+    @MethodSource("semillas")
+    void errorRelativoAcotadoFrenteALaListaOrdenada(long semilla) {
+        Random random = new Random(semilla);
+        HistogramaLatencias h = new HistogramaLatencias(2, 3_600_000);
+        long[] valores = new long[1 + random.nextInt(20_000)];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = (long) Math.exp(random.nextDouble() * 15); // de 1 ms a ~3 000 000 ms
+            h.registrar(valores[i]);
+        }
+        Arrays.sort(valores);
+
+        for (double q : CUANTILES) {
+            long real = valores[(int) Math.max(0, Math.ceil(q * valores.length) - 1)];
+            double estimado = h.percentil(q);
+            assertTrue(Math.abs(estimado - real) <= real * h.errorRelativo(),
+                    "q=" + q + ": " + estimado + " frente a " + real);
+        }
+        assertEquals(valores.length, h.cantidad());
+        assertEquals(Arrays.stream(valores).sum(), h.suma());
+        assertEquals(valores[0], h.min());
+        assertEquals(valores[valores.length - 1], h.max());
+    }
+
+    @ParameterizedTest
+    @MethodSource("semillas")
+    void combinarEsIgualQueRegistrarTodoJunto(long semilla) {
+        Random random = new Random(semilla);
+        HistogramaLatencias todo = new HistogramaLatencias(2, 3_600_000);
+        HistogramaLatencias a = new HistogramaLatencias(2, 3_600_000);
+        HistogramaLatencias b = new HistogramaLatencias(2, 3_600_000);
+        for (int i = random.nextInt(5000); i > 0; i--) {
+            long v = random.nextInt(10) == 0 ? random.nextInt(4_000_000) : random.nextInt(2000);
+            todo.registrar(v);
+            (random.nextBoolean() ? a : b).registrar(v);
+        }
+
+        HistogramaLatencias combinado = a.combinar(b);
+        assertEquals(todo.cantidad(), combinado.cantidad());
+        assertEquals(todo.suma(), combinado.suma());
+        assertEquals(todo.min(), combinado.min());
+        assertEquals(todo.max(), combinado.max());
+        for (double q : CUANTILES) assertEquals(todo.percentil(q), combinado.percentil(q));
+        assertEquals(todo.mediana(), combinado.mediana());
+    }
+
+    @Test
+    void combinarConUnoVacioNoCambiaNadaYDistintaConfiguracionFalla() {
+        HistogramaLatencias h = new HistogramaLatencias(2, 3_600_000);
+        h.registrar(40);
+        h.combinar(new HistogramaLatencias(2, 3_600_000));
+        assertEquals(1, h.cantidad());
+        assertEquals(40, h.min());
+        assertEquals(40, h.max());
+
+        assertThrows(IllegalArgumentException.class, () -> h.combinar(new HistogramaLatencias(3, 3_600_000)));
+        assertThrows(IllegalArgumentException.class, () -> h.combinar(new HistogramaLatencias(2, 60_000)));
+    }
+
+    @Test
+    void registrarConPesoEquivaleARepetirElValor() {
+        HistogramaLatencias conPeso = new HistogramaLatencias(2, 3_600_000);
+        HistogramaLatencias repetido = new HistogramaLatencias(2, 3_600_000);
+        conPeso.registrar(5);
+        conPeso.registrar(1500, 7);
+        conPeso.registrar(90_000, 2);
+        repetido.registrar(5);
+        for (int i = 0; i < 7; i++) repetido.registrar(1500);
+        for (int i = 0; i < 2; i++) repetido.registrar(90_000);
+
+        assertEquals(10, conPeso.cantidad());
+        assertEquals(5 + 1500 * 7 + 90_000 * 2, conPeso.suma());
+        for (double q : CUANTILES) assertEquals(repetido.percentil(q), conPeso.percentil(q));
+        assertEquals(repetido.mediana(), conPeso.mediana());
+
+        conPeso.registrar(10, 0);  // sin ocurrencias
+        conPeso.registrar(-1, 3);  // negativo
+        assertEquals(10, conPeso.cantidad());
+    }
+
+    @Test
+    void losValoresSobreElMaximoVanALaUltimaCubeta() {
+        HistogramaLatencias h = new HistogramaLatencias(2, 10_000);
+        h.registrar(10);
+        h.registrar(1_000_000);
+        h.registrar(50_000_000);
+
+        assertEquals(3, h.cantidad());
+        assertEquals(10 + 1_000_000 + 50_000_000, h.suma()); // la suma y el máximo siguen siendo exactos
+        assertEquals(50_000_000, h.max());
+        assertEquals(10_000, h.percentil(1.0), 10_000 * h.errorRelativo()); // el percentil se satura en maxValor
+        assertEquals(h.percentil(1.0), h.percentil(0.5));
+    }
+
+    @Test
+    void precisionFueraDeRango() {
+        assertThrows(IllegalArgumentException.class, () -> new HistogramaLatencias(0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new HistogramaLatencias(5, 1000));
+    }
+}
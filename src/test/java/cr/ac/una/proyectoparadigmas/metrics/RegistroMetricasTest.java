@@ -0,0 +1,57 @@
+package cr.ac.una.proyectoparadigmas.metrics;
+
+import cr.ac.una.proyectoparadigmas.dto.MetricaHttp;
+import cr.ac.una.proyectoparadigmas.dto.ResumenMetricas;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RegistroMetricas: no pierde registros con muchos hilos a la vez y genera texto
+ * de Prometheus válido (etiquetas escapadas, _count y _sum por serie).
+ */
+class RegistroMetricasTest {
+
+    @Test
+    void registrosConcurrentesNoSePierden() throws InterruptedException {
+        RegistroMetricas registro = new RegistroMetricas(2);
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        for (int h = 0; h < 8; h++) {
+            hilos.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    registro.registrar("/api/persona/{id}", "GET", i % 10 == 0 ? 404 : 200, 1_000_000);
+                }
+            });
+        }
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(30, TimeUnit.SECONDS));
+
+        ResumenMetricas resumen = registro.resumen();
+        assertEquals(2, resumen.http().size());
+        MetricaHttp ok = resumen.http().get(0);
+        assertEquals(200, ok.status());
+        assertEquals(72_000, ok.cantidad());
+        assertEquals(8_000, resumen.http().get(1).cantidad());
+        assertEquals(1.0, ok.p99Ms(), 0.01);
+        assertEquals(72_000.0, ok.sumaMs(), 1e-6);
+    }
+
+    @Test
+    void prometheusEscapaEtiquetasEIncluyeIndicadores() {
+        RegistroMetricas registro = new RegistroMetricas(2);
+        registro.registrar("/a\"b\\c", "POST", 201, 2_000_000_000L);
+        registro.registrarIndicador("logs_writer_cola", "Registros en cola", () -> 3);
+
+        String texto = registro.prometheus();
+        String etiquetas = "{endpoint=\"/a\\\"b\\\\c\",method=\"POST\",status=\"201\"}";
+        assertTrue(texto.contains("# TYPE http_server_requests_seconds summary\n"));
+        assertTrue(texto.contains("http_server_requests_seconds_count" + etiquetas + " 1\n"), texto);
+        assertTrue(texto.contains("http_server_requests_seconds_sum" + etiquetas + " 2\n"), texto);
+        assertTrue(texto.contains("# TYPE logs_writer_cola gauge\nlogs_writer_cola 3\n"), texto);
+    }
+}
@@ -0,0 +1,156 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Propiedades de la agregación paralela: para cualquier conjunto de logs generado
+ * al azar (semillas fijas para poder reproducir fallos), agregar en paralelo, con
+ * streams paralelos o combinando particiones en cualquier orden da exactamente lo
+ * mismo que el recorrido secuencial. La copia columnar de LogColumnarStore también
+ * tiene que dar lo mismo, para todo el histórico y para una ventana.
+ */
+class AgregadorParaleloTest {
+
+    private static final Supplier<HistogramaLatencias> HISTOGRAMA = () -> new HistogramaLatencias(2, 3_600_000);
+    private static final String[] ENDPOINTS = {"/api/persona", "/api/persona/1", "/api/persona/boom",
+            "/api/logs/reportes/errores", "/api/logs/reportes/estado", null};
+    private static final String[] METODOS = {"GET", "GET", "GET", "POST", "PUT", "DELETE", null};
+    private static final int[] STATUS = {200, 200, 200, 200, 201, 204, 400, 404, 404, 500, 503};
+    private static final String[] NIVELES = {"INFO", "INFO", "WARN", "ERROR", "error"};
+
+    private static AgregadorParalelo agregador;
+
+    @BeforeAll
+    static void crearAgregador() {
+        agregador = new AgregadorParalelo(4, 64); // umbral bajo para forzar muchas divisiones
+    }
+
+    @AfterAll
+    static void cerrarAgregador() {
+        agregador.cerrar();
+    }
+
+    static LongStream semillas() {
+        return LongStream.rangeClosed(1, 25);
+    }
+
+    @ParameterizedTest
+    @MethodSource("semillas")
+    void listaEnParaleloIgualASecuencial(long semilla) {
+        List<LogEntry> logs = generar(new Random(semilla));
+        assertEquals(huella(secuencial(logs)), huella(agregador.agregar(logs, HISTOGRAMA)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("semillas")
+    void cursorPorBloquesIgualASecuencial(long semilla) {
+        List<LogEntry> logs = generar(new Random(semilla));
+        assertEquals(huella(secuencial(logs)), huella(agregador.agregar(logs.stream(), HISTOGRAMA)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("semillas")
+    void streamParaleloIgualASecuencial(long semilla) {
+        List<LogEntry> logs = generar(new Random(semilla));
+        AgregadoLogs paralelo = logs.parallelStream().collect(AgregadoLogs.recolector(HISTOGRAMA));
+        assertEquals(huella(secuencial(logs)), huella(paralelo));
+    }
+
+    @ParameterizedTest
+    @MethodSource("semillas")
+    void combinarEsAsociativoYConmutativo(long semilla) {
+        Random random = new Random(semilla);
+        List<LogEntry> logs = generar(random);
+        int i = random.nextInt(logs.size() + 1);
+        int j = i + random.nextInt(logs.size() - i + 1);
+        List<LogEntry> a = logs.subList(0, i), b = logs.subList(i, j), c = logs.subList(j, logs.size());
+
+        Map<String, Object> esperado = huella(secuencial(logs));
+        assertEquals(esperado, huella(secuencial(a).combinar(secuencial(b)).combinar(secuencial(c))));
+        assertEquals(esperado, huella(secuencial(a).combinar(secuencial(b).combinar(secuencial(c)))));
+        assertEquals(esperado, huella(secuencial(c).combinar(secuencial(b)).combinar(secuencial(a))));
+    }
+
+    @ParameterizedTest
+    @MethodSource("semillas")
+    void columnarIgualASecuencial(long semilla) {
+        Random random = new Random(semilla);
+        List<LogEntry> logs = generar(random);
+        LogAggregateStore store = new LogAggregateStore(null, 2, 3_600_000, 60, 1, 128);
+        LogColumnarStore columnar = new LogColumnarStore(null, agregador, store, null, null, "columnar", Long.MAX_VALUE, 10_000);
+        logs.forEach(columnar::anexar);
+        assertEquals(huella(secuencial(logs)), huella(columnar.agregado(Ventana.TODO)));
+
+        LocalDateTime desde = LocalDateTime.of(2025, 9, 1, 0, 0).plusMinutes(random.nextInt(2 * 1440));
+        LocalDateTime hasta = desde.plusMinutes(1 + random.nextInt(1440));
+        List<LogEntry> enVentana = logs.stream()
+                .filter(l -> l.getTimestamp() != null && !l.getTimestamp().isBefore(desde) && l.getTimestamp().isBefore(hasta))
+                .toList();
+        assertEquals(huella(secuencial(enVentana)), huella(columnar.agregado(new Ventana(desde, hasta, null))));
+    }
+
+    // ========= Utilidades =========
+
+    private static AgregadoLogs secuencial(List<LogEntry> logs) {
+        AgregadoLogs agregado = new AgregadoLogs(HISTOGRAMA);
+        logs.forEach(agregado::registrar);
+        return agregado;
+    }
+
+    /** Logs al azar con tamaños alrededor y muy por encima del umbral, y tiempos con cola larga. */
+    private static List<LogEntry> generar(Random random) {
+        int n = random.nextInt(3) == 0 ? random.nextInt(130) : random.nextInt(20_000);
+        LocalDateTime inicio = LocalDateTime.of(2025, 9, 1, 0, 0);
+        List<LogEntry> logs = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            LogEntry log = new LogEntry();
+            log.setTimestamp(random.nextInt(50) == 0 ? null : inicio.plusSeconds(random.nextInt(3 * 86_400)));
+            log.setNivel(NIVELES[random.nextInt(NIVELES.length)]);
+            log.setEndpoint(ENDPOINTS[random.nextInt(ENDPOINTS.length)]);
+            log.setMetodoHttp(METODOS[random.nextInt(METODOS.length)]);
+            log.setStatusCode(STATUS[random.nextInt(STATUS.length)]);
+            log.setTiempoRespuesta(random.nextInt(10) == 0 ? 0 : (long) Math.exp(random.nextDouble() * 12));
+            logs.add(log);
+        }
+        return logs;
+    }
+
+    /** Todo lo que exponen los reportes, en una forma comparable con equals. */
+    static Map<String, Object> huella(AgregadoLogs agregado) {
+        Map<String, Object> huella = new LinkedHashMap<>();
+        huella.put("status", new TreeMap<>(agregado.conteoPorStatus()));
+        huella.put("endpoint", new TreeMap<>(agregado.conteoPorEndpoint()));
+        huella.put("metodo", new TreeMap<>(agregado.conteoPorMetodo()));
+        huella.put("erroresPorHora", new TreeMap<>(agregado.erroresPorHora()));
+        huella.put("totales", List.of(agregado.totalPeticiones(), agregado.totalErrores(),
+                agregado.sumaTiempos(), agregado.cantidadCriticos()));
+        huella.put("latenciaGlobal", huella(agregado.latenciaGlobal()));
+        Map<String, Object> porEndpoint = new TreeMap<>();
+        agregado.latenciaPorEndpoint().forEach((k, h) -> porEndpoint.put(k, huella(h)));
+        huella.put("latenciaPorEndpoint", porEndpoint);
+        return huella;
+    }
+
+    private static List<Object> huella(HistogramaLatencias h) {
+        return List.of(h.cantidad(), h.suma(), h.min(), h.max(), h.mediana(),
+                h.percentil(0.5), h.percentil(0.9), h.percentil(0.99), h.percentil(0.999));
+    }
+}
@@ -0,0 +1,176 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * AlmacenLogsSegmentos: lo que se lee (recorridos, ventanas, páginas de críticos y
+ * agregados) es lo mismo que se registró, también después de rodar segmentos, reabrir
+ * el directorio o recuperarse de una cola a medio escribir.
+ */
+class AlmacenLogsSegmentosTest {
+
+    private static final Supplier<HistogramaLatencias> HISTOGRAMA = () -> new HistogramaLatencias(2, 3_600_000);
+    private static final int POR_SEGMENTO = 1024;
+
+    private static AgregadorParalelo agregador;
+
+    @TempDir
+    Path directorio;
+
+    @BeforeAll
+    static void crearAgregador() {
+        agregador = new AgregadorParalelo(2, 64);
+    }
+
+    @AfterAll
+    static void cerrarAgregador() {
+        agregador.cerrar();
+    }
+
+    @Test
+    void ruedaSegmentosYReabreConLosMismosRegistros() {
+        List<LogEntry> logs = generar(new Random(1), 3000);
+        AlmacenLogsSegmentos almacen = abrir();
+        logs.forEach(almacen::registrar);
+        assertEquals(List.of(1L, 2L, 3000L), List.of(logs.get(0).getId(), logs.get(1).getId(), logs.get(2999).getId()));
+        assertEquals(logs, todos(almacen));
+        almacen.cerrar();
+
+        AlmacenLogsSegmentos reabierto = abrir();
+        assertEquals(3000, reabierto.cantidad());
+        assertEquals(logs, todos(reabierto));
+        LogEntry otro = generar(new Random(2), 1).get(0);
+        reabierto.registrar(otro);
+        assertEquals(3001L, otro.getId());
+        reabierto.cerrar();
+    }
+
+    @Test
+    void ventanasCriticosYAgregadosCoincidenConFiltrarLaLista() {
+        List<LogEntry> logs = generar(new Random(3), 5000);
+        AlmacenLogsSegmentos almacen = abrir();
+        logs.forEach(almacen::registrar);
+
+        Ventana ventana = new Ventana(LocalDateTime.of(2025, 9, 1, 10, 0), LocalDateTime.of(2025, 9, 1, 20, 0), null);
+        List<LogEntry> enVentana = logs.stream().filter(l -> dentro(l, ventana)).toList();
+        assertEquals(enVentana, almacen.recorrer(ventana, s -> s.toList()));
+
+        List<LogEntry> criticos = enVentana.stream().filter(LogService.esCritico()).toList();
+        List<LogEntry> paginados = new ArrayList<>();
+        Long despuesDe = null;
+        List<LogEntry> pagina;
+        do {
+            pagina = almacen.criticos(ventana, despuesDe, 7);
+            paginados.addAll(pagina);
+            if (!pagina.isEmpty()) despuesDe = pagina.get(pagina.size() - 1).getId();
+        } while (pagina.size() == 7);
+        assertEquals(criticos, paginados);
+        assertEquals(criticos, almacen.recorrerCriticos(ventana, s -> s.toList()));
+
+        assertEquals(resumen(secuencial(logs)), resumen(almacen.agregar(Ventana.TODO, HISTOGRAMA)));
+        assertEquals(resumen(secuencial(enVentana)), resumen(almacen.agregar(ventana, HISTOGRAMA)));
+        almacen.cerrar();
+    }
+
+    @Test
+    void descartaLaColaAMedioEscribir() throws IOException {
+        List<LogEntry> logs = generar(new Random(4), 1500);
+        AlmacenLogsSegmentos almacen = abrir();
+        logs.forEach(almacen::registrar);
+        almacen.cerrar();
+
+        // último registro con un byte cambiado (CRC inválido) y textos.dat con una entrada cortada
+        Path activo = directorio.resolve(String.format("%020d.seg", POR_SEGMENTO + 1));
+        try (RandomAccessFile archivo = new RandomAccessFile(activo.toFile(), "rw")) {
+            long pos = SegmentoLogs.CABECERA + (long) (1500 - POR_SEGMENTO - 1) * SegmentoLogs.REGISTRO + 20;
+            archivo.seek(pos);
+            int b = archivo.read();
+            archivo.seek(pos);
+            archivo.write(b ^ 0xFF);
+        }
+        Files.write(directorio.resolve("textos.dat"), new byte[]{0, 0, 0, 9, 'x'}, StandardOpenOption.APPEND);
+
+        AlmacenLogsSegmentos reabierto = abrir();
+        assertEquals(1499, reabierto.cantidad());
+        assertEquals(logs.subList(0, 1499), todos(reabierto));
+        LogEntry nuevo = generar(new Random(5), 1).get(0);
+        nuevo.setEndpoint("/api/persona/nuevo");
+        reabierto.registrar(nuevo);
+        assertEquals(1500L, nuevo.getId());
+        reabierto.cerrar();
+
+        AlmacenLogsSegmentos otraVez = abrir();
+        assertEquals(nuevo, todos(otraVez).get(1499));
+        otraVez.cerrar();
+    }
+
+    // ========= Utilidades =========
+
+    private AlmacenLogsSegmentos abrir() {
+        LogAggregateStore store = new LogAggregateStore(null, 2, 3_600_000, 60, 1, 128);
+        return new AlmacenLogsSegmentos(store, agregador, new RegistroMetricas(2), directorio.toString(), POR_SEGMENTO, 0);
+    }
+
+    private static List<LogEntry> todos(AlmacenLogs almacen) {
+        return almacen.recorrer(Ventana.TODO, s -> s.toList());
+    }
+
+    private static boolean dentro(LogEntry log, Ventana ventana) {
+        return log.getTimestamp() != null && !log.getTimestamp().isBefore(ventana.desde())
+                && log.getTimestamp().isBefore(ventana.hasta());
+    }
+
+    private static AgregadoLogs secuencial(List<LogEntry> logs) {
+        AgregadoLogs agregado = new AgregadoLogs(HISTOGRAMA);
+        logs.forEach(agregado::registrar);
+        return agregado;
+    }
+
+    private static List<Object> resumen(AgregadoLogs a) {
+        return List.of(a.conteoPorStatus(), a.conteoPorEndpoint(), a.conteoPorMetodo(), a.erroresPorHora(),
+                a.totalPeticiones(), a.totalErrores(), a.sumaTiempos(), a.cantidadCriticos(),
+                a.latenciaGlobal().cantidad(), a.latenciaGlobal().percentil(0.99));
+    }
+
+    /** Logs con timestamps desordenados (al microsegundo), algunos sin timestamp y textos null. */
+    private static List<LogEntry> generar(Random random, int n) {
+        String[] endpoints = {"/api/persona", "/api/persona/1", "/api/persona/boom", null};
+        String[] niveles = {"INFO", "INFO", "ERROR", "error", null};
+        int[] status = {200, 200, 201, 404, 500, 503};
+        LocalDateTime inicio = LocalDateTime.of(2025, 9, 1, 0, 0);
+        List<LogEntry> logs = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            LogEntry log = new LogEntry();
+            log.setTimestamp(random.nextInt(40) == 0 ? null
+                    : inicio.plusNanos(random.nextLong(86_400_000_000L) * 1_000));
+            log.setNivel(niveles[random.nextInt(niveles.length)]);
+            log.setMensaje(random.nextBoolean() ? "Ejecutado: findById" : "RuntimeException: boom " + random.nextInt(5));
+            log.setEndpoint(endpoints[random.nextInt(endpoints.length)]);
+            log.setMetodoHttp(random.nextInt(10) == 0 ? null : "GET");
+            log.setStatusCode(status[random.nextInt(status.length)]);
+            log.setTiempoRespuesta(random.nextInt(2000));
+            logs.add(log);
+        }
+        return logs;
+    }
+}
@@ -0,0 +1,87 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * AnalizadorLineasLog con líneas reales de app.log: formato actual y anterior de
+ * PersonaAspect, errores, conversión de zona horaria y líneas que se ignoran.
+ */
+class AnalizadorLineasLogTest {
+
+    private static final String PREFIJO = "2025-09-21T11:53:46.933-06:00  INFO 17584 --- [proyecto-paradigmas] "
+            + "[http-nio-8080-exec-2] c.a.u.p.aspect.PersonaAspect             : ";
+
+    private final AnalizadorLineasLog analizador = new AnalizadorLineasLog(
+            Map.of("findAll", new AnalizadorLineasLog.Ruta("GET", "/api/persona")), ZoneId.of("-06:00"));
+
+    @Test
+    void tiempoConMetodoEndpointYStatus() {
+        LogEntry log = analizador.analizarLinea(PREFIJO + "Tiempo de respuesta (findById): 12 ms [GET /api/persona/7 404]");
+        assertEquals("INFO", log.getNivel());
+        assertEquals("Ejecutado: findById", log.getMensaje());
+        assertEquals("GET", log.getMetodoHttp());
+        assertEquals("/api/persona/7", log.getEndpoint());
+        assertEquals(404, log.getStatusCode());
+        assertEquals(12, log.getTiempoRespuesta());
+        assertEquals(LocalDateTime.of(2025, 9, 21, 11, 53, 46, 933_000_000), log.getTimestamp());
+    }
+
+    @Test
+    void tiempoFormatoAnteriorUsaLaRutaDelHandler() {
+        LogEntry conocido = analizador.analizarLinea(PREFIJO + "Tiempo de respuesta (findAll): 508 ms");
+        assertEquals("/api/persona", conocido.getEndpoint());
+        assertEquals("GET", conocido.getMetodoHttp());
+        assertEquals(200, conocido.getStatusCode());
+        assertEquals(508, conocido.getTiempoRespuesta());
+
+        LogEntry desconocido = analizador.analizarLinea(PREFIJO + "Tiempo de respuesta (otro): 3 ms");
+        assertEquals("(otro)", desconocido.getEndpoint());
+        assertEquals("(desconocido)", desconocido.getMetodoHttp());
+    }
+
+    @Test
+    void errorYConversionDeZona() {
+        AnalizadorLineasLog utc = new AnalizadorLineasLog(Map.of(), ZoneId.of("UTC"));
+        LogEntry log = utc.analizarLinea(PREFIJO.replace("  INFO", "  WARN")
+                + "ERROR (GET /api/persona/boom) status=500 en 1 ms");
+        assertEquals("ERROR", log.getNivel());
+        assertEquals("/api/persona/boom", log.getEndpoint());
+        assertEquals(500, log.getStatusCode());
+        assertEquals(1, log.getTiempoRespuesta());
+        assertEquals(LocalDateTime.of(2025, 9, 21, 17, 53, 46, 933_000_000), log.getTimestamp());
+    }
+
+    @Test
+    void ignoraLineasAjenasYMalFormadas() {
+        assertNull(analizador.analizarLinea(PREFIJO + "Antes de ejecutar savePersona()"));
+        assertNull(analizador.analizarLinea("\tat cr.ac.una.proyectoparadigmas.Clase.metodo(Clase.java:10)"));
+        assertNull(analizador.analizarLinea(PREFIJO + "Tiempo de respuesta (findAll): x ms"));
+        assertNull(analizador.analizarLinea(""));
+    }
+
+    @Test
+    void bloqueConCrlfYUltimaLineaSinSalto() {
+        String texto = PREFIJO + "Tiempo de respuesta (findAll): 1 ms\r\n"
+                + PREFIJO + "Después de ejecutar método en PersonaController\r\n"
+                + PREFIJO + "Tiempo de respuesta (findById): 2 ms [GET /api/persona/1 200]";
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        List<LogEntry> logs = new ArrayList<>();
+        long lineas = analizador.analizar(ByteBuffer.wrap(bytes), 0, bytes.length, logs::add);
+        assertEquals(3, lineas);
+        assertEquals(2, logs.size());
+        assertEquals(1, logs.get(0).getTiempoRespuesta());
+        assertEquals(200, logs.get(1).getStatusCode());
+    }
+}
@@ -0,0 +1,83 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.entity.Persona;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CachePersonas: lectura a través de la caché, invalidación (también durante una carga),
+ * vencimiento, desalojo por tamaño y copias defensivas.
+ */
+class CachePersonasTest {
+
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    private Optional<Persona> cargar(Long id) {
+        cargas.incrementAndGet();
+        return id > 0 ? Optional.of(persona(id, "Persona " + id)) : Optional.empty();
+    }
+
+    @Test
+    void lasLecturasRepetidasNoVuelvenACargar() {
+        RegistroMetricas metricas = new RegistroMetricas(2);
+        CachePersonas cache = new CachePersonas(metricas, true, 100, 60_000);
+        for (int i = 0; i < 5; i++) assertEquals("Persona 1", cache.obtener(1L, this::cargar).orElseThrow().getNombre());
+        assertEquals(1, cargas.get());
+
+        cache.obtener(1L, this::cargar).orElseThrow().setNombre("cambiada"); // copia: la caché no cambia
+        assertEquals("Persona 1", cache.obtener(1L, this::cargar).orElseThrow().getNombre());
+
+        assertTrue(cache.obtener(-1L, this::cargar).isEmpty());
+        assertTrue(cache.obtener(-1L, this::cargar).isEmpty()); // los 404 no se guardan
+        assertEquals(3, cargas.get());
+        assertEquals(6.0, metricas.resumen().indicadores().get("persona_cache_aciertos"));
+    }
+
+    @Test
+    void invalidarObligaARecargar() {
+        CachePersonas cache = new CachePersonas(null, true, 100, 60_000);
+        cache.obtener(1L, this::cargar);
+        cache.invalidar(1L);
+        cache.obtener(1L, this::cargar);
+        assertEquals(2, cargas.get());
+    }
+
+    @Test
+    void unaCargaQueSeCruzaConUnCambioNoSeGuarda() {
+        CachePersonas cache = new CachePersonas(null, true, 100, 60_000);
+        cache.obtener(1L, id -> {
+            cache.invalidar(id); // otra petición actualiza mientras esta lee el valor viejo
+            return cargar(id);
+        });
+        cache.obtener(1L, this::cargar);
+        assertEquals(2, cargas.get());
+    }
+
+    @Test
+    void venceYDesalojaPorTamano() throws InterruptedException {
+        CachePersonas corta = new CachePersonas(null, true, 100, 1);
+        corta.obtener(1L, this::cargar);
+        Thread.sleep(5);
+        corta.obtener(1L, this::cargar);
+        assertEquals(2, cargas.get());
+
+        cargas.set(0);
+        CachePersonas chica = new CachePersonas(null, true, 16, 60_000); // una por segmento
+        for (long id = 1; id <= 1000; id++) chica.obtener(id, this::cargar);
+        for (long id = 1; id <= 1000; id++) chica.obtener(id, this::cargar);
+        assertEquals(2000, cargas.get(), 100); // casi todas desalojadas antes de volver a pedirlas
+    }
+
+    private static Persona persona(Long id, String nombre) {
+        Persona persona = new Persona();
+        persona.setId(id);
+        persona.setNombre(nombre);
+        return persona;
+    }
+}
@@ -0,0 +1,109 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * CacheReportes: qué registros invalidan cada tipo de ventana, ETag estable cuando el
+ * contenido no cambia y límite de tamaño.
+ */
+class CacheReportesTest {
+
+    private static final Ventana ABIERTA = new Ventana(null, null, null);
+    private static final Ventana CERRADA = new Ventana(LocalDateTime.of(2025, 8, 1, 0, 0), LocalDateTime.of(2025, 8, 2, 0, 0), null);
+
+    private final LogAggregateStore store = new LogAggregateStore(null, 2, 3_600_000, 60, 1, 128);
+    private final AtomicInteger calculos = new AtomicInteger();
+    private final Supplier<Object> reporte = () -> Map.of("calculo", calculos.incrementAndGet());
+
+    @Test
+    void ventanaAbiertaSeInvalidaConTraficoDeLaAplicacionPeroNoConElDeLosReportes() {
+        CacheReportes cache = cache(60_000, 1024);
+        CacheReportes.Respuesta primera = cache.obtener("estado", ABIERTA, reporte);
+        assertSame(primera, cache.obtener("estado", ABIERTA, reporte));
+
+        store.registrar(log("/api/logs/reportes/estado", LocalDateTime.now()));
+        assertSame(primera, cache.obtener("estado", ABIERTA, reporte));
+
+        store.registrar(log("/api/persona", LocalDateTime.now()));
+        CacheReportes.Respuesta segunda = cache.obtener("estado", ABIERTA, reporte);
+        assertNotEquals(primera.etag(), segunda.etag());
+        assertEquals(2, calculos.get());
+    }
+
+    @Test
+    void ventanaCerradaSoloSeInvalidaConRegistrosAtrasados() {
+        CacheReportes cache = cache(0, 1024); // sin staleness: solo cuentan los cambios
+        CacheReportes.Respuesta primera = cache.obtener("historico", CERRADA, reporte);
+        store.registrar(log("/api/persona", LocalDateTime.now()));
+        assertSame(primera, cache.obtener("historico", CERRADA, reporte));
+
+        store.registrar(log("/api/persona", LocalDateTime.of(2025, 8, 1, 12, 0))); // importación
+        assertNotEquals(primera.etag(), cache.obtener("historico", CERRADA, reporte).etag());
+        assertEquals(2, calculos.get());
+    }
+
+    @Test
+    void mismoContenidoConservaEtagYFecha() {
+        CacheReportes cache = cache(0, 1024);
+        Supplier<Object> fijo = () -> {
+            calculos.incrementAndGet();
+            return Map.of("total", 5);
+        };
+        CacheReportes.Respuesta primera = cache.obtener("fijo", ABIERTA, fijo);
+        store.registrar(log("/api/persona", LocalDateTime.now()));
+        CacheReportes.Respuesta segunda = cache.obtener("fijo", ABIERTA, fijo);
+        assertEquals(2, calculos.get());
+        assertEquals(primera.etag(), segunda.etag());
+        assertEquals(primera.modificado(), segunda.modificado());
+        assertArrayEquals("{\"total\":5}".getBytes(), segunda.cuerpo());
+    }
+
+    @Test
+    void desalojaLasMenosUsadasAlPasarElLimite() {
+        CacheReportes cache = cache(60_000, 1); // 1 KB
+        Supplier<Object> grande = () -> {
+            calculos.incrementAndGet();
+            return Map.of("relleno", "x".repeat(400));
+        };
+        cache.obtener("a", ABIERTA, grande);
+        cache.obtener("b", ABIERTA, grande);
+        cache.obtener("a", ABIERTA, grande); // "a" pasa a ser la más reciente
+        cache.obtener("c", ABIERTA, grande); // no caben las tres: sale "b"
+        assertEquals(3, calculos.get());
+        cache.obtener("a", ABIERTA, grande);
+        cache.obtener("c", ABIERTA, grande);
+        assertEquals(3, calculos.get());
+        cache.obtener("b", ABIERTA, grande);
+        assertEquals(4, calculos.get());
+    }
+
+    private CacheReportes cache(long maxStalenessMs, long maxKb) {
+        return new CacheReportes(store, new ObjectMapper(), new RegistroMetricas(2), "memoria", true,
+                maxStalenessMs, maxKb, "/api/logs/");
+    }
+
+    private static LogEntry log(String endpoint, LocalDateTime timestamp) {
+        LogEntry log = new LogEntry();
+        log.setTimestamp(timestamp);
+        log.setEndpoint(endpoint);
+        log.setMetodoHttp("GET");
+        log.setNivel("INFO");
+        log.setStatusCode(200);
+        log.setTiempoRespuesta(5);
+        return log;
+    }
+}
@@ -0,0 +1,104 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.PaginaPersonas;
+import cr.ac.una.proyectoparadigmas.entity.Persona;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import cr.ac.una.proyectoparadigmas.repository.PersonaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * ListadoPersonas sobre H2: recorrer todas las páginas da cada persona una sola vez y en el
+ * orden pedido (con nombres repetidos y NULL), solo con los campos pedidos.
+ */
+@DataJpaTest
+@Import({LotesPersona.class, ListadoPersonas.class, CachePersonas.class, RegistroMetricas.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {"persona.lotes.por-transaccion=7", "persona.lotes.max-elementos=100"})
+class ListadoPersonasTest {
+
+    @Autowired
+    private ListadoPersonas listado;
+    @Autowired
+    private PersonaRepository repository;
+
+    private final List<Persona> personas = new ArrayList<>();
+
+    @BeforeEach
+    void crear() {
+        String[] nombres = {"Ana", "Luis", null, "Ana", "Eva", "Luis", "Ana", null, "Zoe", "Eva", "Ana"};
+        for (String nombre : nombres) {
+            Persona persona = new Persona();
+            persona.setNombre(nombre);
+            persona.setApellido("Apellido");
+            personas.add(repository.save(persona));
+        }
+    }
+
+    @AfterEach
+    void limpiar() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void recorrePorNombreSinSaltarNiRepetir() {
+        Comparator<Persona> porNombre = Comparator.comparing(Persona::getNombre, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(Persona::getId);
+        assertEquals(ids(personas.stream().sorted(porNombre).toList()), recorrer("nombre", 3));
+        assertEquals(ids(personas.stream().sorted(porNombre.reversed()).toList()), recorrer("nombre,desc", 2));
+        assertEquals(ids(personas.stream().sorted(Comparator.comparing(Persona::getId).reversed()).toList()), recorrer("id,desc", 4));
+    }
+
+    @Test
+    void soloLosCamposPedidos() {
+        PaginaPersonas pagina = listado.listar("apellido", "nombre", null, 2);
+        assertEquals(List.of(Map.of("nombre", "Ana"), Map.of("nombre", "Luis")), pagina.personas());
+
+        PaginaPersonas todas = listado.listar(null, null, null, 100);
+        assertEquals(personas.size(), todas.personas().size());
+        assertNull(todas.siguiente());
+        assertEquals(List.of("id", "nombre", "apellido"), List.copyOf(todas.personas().get(0).keySet()));
+    }
+
+    @Test
+    void parametrosInvalidos() {
+        String siguiente = listado.listar("nombre", null, null, 2).siguiente();
+        assertThrows(IllegalArgumentException.class, () -> listado.listar("apellido", null, siguiente, 2));
+        assertThrows(IllegalArgumentException.class, () -> listado.listar("edad", null, null, 2));
+        assertThrows(IllegalArgumentException.class, () -> listado.listar(null, "id,clave", null, 2));
+        assertThrows(IllegalArgumentException.class, () -> listado.listar(null, null, "no-es-cursor", 2));
+        assertThrows(IllegalArgumentException.class, () -> listado.listar(null, null, null, 1001));
+    }
+
+    private List<Long> recorrer(String sort, int limit) {
+        List<Long> ids = new ArrayList<>();
+        String after = null;
+        do {
+            PaginaPersonas pagina = listado.listar(sort, "id", after, limit);
+            pagina.personas().forEach(p -> ids.add((Long) p.get("id")));
+            after = pagina.siguiente();
+        } while (after != null);
+        return ids;
+    }
+
+    private static List<Long> ids(List<Persona> personas) {
+        return personas.stream().map(Persona::getId).filter(Objects::nonNull).toList();
+    }
+}
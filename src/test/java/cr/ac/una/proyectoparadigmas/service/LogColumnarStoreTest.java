@@ -0,0 +1,161 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static cr.ac.una.proyectoparadigmas.service.AgregadorParaleloTest.huella;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * LogColumnarStore con más de un bloque de 65 536 filas: ventanas que cortan bloques por
+ * la mitad, que coinciden con un bloque entero o que caen dentro de uno dan lo mismo que un
+ * AgregadoLogs armado directamente. Sobre H2, los ids que faltaban al refrescar (una
+ * transacción que confirma tarde) se cargan en el refresco siguiente, sin duplicar lo demás.
+ */
+class LogColumnarStoreTest {
+
+    private static final int BLOQUE = 65_536;
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 9, 1, 0, 0);
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private AgregadorParalelo agregador;
+
+    @BeforeEach
+    void crearTabla() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:columnar;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table log_entry (id bigint auto_increment primary key, " +
+                "timestamp timestamp, nivel varchar(255), mensaje varchar(255), endpoint varchar(255), " +
+                "metodo_http varchar(255), status_code int, tiempo_respuesta bigint, uri varchar(255), ruta_id int, peso int default 1 not null)");
+        agregador = new AgregadorParalelo(3, 64);
+    }
+
+    @AfterEach
+    void borrarTabla() {
+        agregador.cerrar();
+        jdbc.execute("drop all objects");
+    }
+
+    private LogColumnarStore columnar(long esperaHuecosMs) {
+        return new LogColumnarStore(dataSource, agregador, new LogAggregateStore(null, 2, 3_600_000, 60, 1, 128),
+                null, null, "columnar", 0, esperaHuecosMs);
+    }
+
+    @Test
+    void ventanasQueCortanBloquesDanLoMismoQueElAgregadoDirecto() {
+        Random random = new Random(7);
+        int n = 3 * BLOQUE + 1000; // tres bloques llenos y uno a medias
+        List<LogEntry> logs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            LocalDateTime ts = random.nextInt(200) == 0 ? null
+                    : random.nextInt(100) == 0 ? INICIO.plusSeconds(random.nextInt(n)) // fuera de orden: ensancha el bloque
+                    : INICIO.plusSeconds(i);
+            logs.add(log(ts, random));
+        }
+        LogColumnarStore columnar = new LogColumnarStore(null, agregador,
+                new LogAggregateStore(null, 2, 3_600_000, 60, 1, 128), null, null, "columnar", Long.MAX_VALUE, 10_000);
+        logs.forEach(columnar::anexar);
+        assertEquals(4, columnar.estado().bloques());
+        assertEquals(n, columnar.estado().filas());
+
+        assertEquals(huella(directo(logs, null, null)), huella(columnar.agregado(Ventana.TODO)));
+        long[][] ventanas = {
+                {30_000, 100_000},                  // corta el primero y el segundo
+                {BLOQUE, 2L * BLOQUE},              // del primer al último segundo del segundo
+                {2L * BLOQUE + 10, 2L * BLOQUE + 20}, // dentro del tercero
+                {3L * BLOQUE - 1, 3L * BLOQUE + 1}, // justo en el borde del tercero y el cuarto
+                {0, n},
+                {n + 10, n + 1000},                 // después de todo
+        };
+        for (long[] v : ventanas) {
+            LocalDateTime desde = INICIO.plusSeconds(v[0]);
+            LocalDateTime hasta = INICIO.plusSeconds(v[1]);
+            assertEquals(huella(directo(logs, desde, hasta)), huella(columnar.agregado(new Ventana(desde, hasta, null))),
+                    "ventana " + v[0] + ".." + v[1]);
+        }
+    }
+
+    @Test
+    void unHuecoQueSeLlenaTardeSeCargaEnElRefrescoSiguiente() {
+        LogColumnarStore columnar = columnar(60_000);
+        insertar(1, 2, 3);
+        columnar.refrescar();
+        assertEquals(3, total(columnar));
+
+        insertar(5, 6, 10); // 4 y 7..9 aún sin confirmar
+        columnar.refrescar();
+        assertEquals(6, total(columnar));
+        assertEquals(10, columnar.estado().ultimoId());
+
+        insertar(4, 8); // llegan tarde; 8 parte el hueco 7..9 en dos
+        columnar.refrescar();
+        assertEquals(8, total(columnar));
+
+        insertar(7, 9, 11);
+        columnar.refrescar();
+        columnar.refrescar(); // sin huecos ni filas nuevas no cambia nada
+        assertEquals(11, total(columnar));
+        assertEquals(11, columnar.estado().filas());
+    }
+
+    @Test
+    void unHuecoVencidoYaNoSeBusca() throws Exception {
+        LogColumnarStore columnar = columnar(0);
+        insertar(1);
+        columnar.refrescar();
+        insertar(3);
+        columnar.refrescar();
+        Thread.sleep(5); // pasa logs.columnar.espera-huecos-ms
+
+        insertar(2);
+        columnar.refrescar();
+        assertEquals(2, total(columnar)); // se da por borrado
+    }
+
+    private static long total(LogColumnarStore columnar) {
+        return columnar.agregado(Ventana.TODO).totalPeticiones();
+    }
+
+    /** Filas con el id explícito, como las deja una transacción que confirma fuera de orden. */
+    private void insertar(long... ids) {
+        for (long id : ids) {
+            jdbc.update("insert into log_entry (id, timestamp, nivel, endpoint, metodo_http, status_code, tiempo_respuesta, peso) "
+                    + "values (?, ?, 'INFO', '/api/persona', 'GET', 200, 10, 1)", id, Timestamp.valueOf(INICIO.plusSeconds(id)));
+        }
+    }
+
+    private static AgregadoLogs directo(List<LogEntry> logs, LocalDateTime desde, LocalDateTime hasta) {
+        AgregadoLogs agregado = new AgregadoLogs(() -> new HistogramaLatencias(2, 3_600_000));
+        for (LogEntry log : logs) {
+            LocalDateTime ts = log.getTimestamp();
+            boolean todo = desde == null && hasta == null;
+            if (todo || (ts != null && !ts.isBefore(desde) && ts.isBefore(hasta))) agregado.registrar(log);
+        }
+        return agregado;
+    }
+
+    private static LogEntry log(LocalDateTime ts, Random random) {
+        LogEntry log = new LogEntry();
+        log.setTimestamp(ts);
+        log.setNivel(random.nextInt(10) == 0 ? "ERROR" : "INFO");
+        log.setEndpoint(random.nextBoolean() ? "/api/persona" : "/api/persona/{id}");
+        log.setMetodoHttp(random.nextInt(4) == 0 ? "POST" : "GET");
+        log.setStatusCode(random.nextInt(8) == 0 ? 500 : random.nextInt(8) == 0 ? 404 : 200);
+        log.setTiempoRespuesta(random.nextInt(10) == 0 ? 0 : (long) Math.exp(random.nextDouble() * 12));
+        log.setPeso(random.nextInt(20) == 0 ? 1 + random.nextInt(5) : 1);
+        return log;
+    }
+}
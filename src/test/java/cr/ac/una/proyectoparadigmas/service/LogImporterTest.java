@@ -0,0 +1,131 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.ResumenImportacion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * LogImporter sobre H2: importaciones repetidas que solo leen lo nuevo y una importación que
+ * falla a mitad de segmento (una parte confirmada, otra no) y al repetirse no duplica filas.
+ */
+class LogImporterTest {
+
+    private static final String PREFIJO = "2025-09-21T11:53:46.933-06:00  INFO 17584 --- [proyecto-paradigmas] "
+            + "[http-nio-8080-exec-2] c.a.u.p.aspect.PersonaAspect             : ";
+
+    @TempDir
+    Path directorio;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private LogAggregateStore store;
+    private AgregadorParalelo agregador;
+    private LogImporter importador;
+
+    @BeforeEach
+    void crearTablas() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:importacion;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table log_entry (id bigint auto_increment primary key, " +
+                "timestamp timestamp, nivel varchar(255), mensaje varchar(255), endpoint varchar(255), " +
+                "metodo_http varchar(255), status_code int, tiempo_respuesta bigint, uri varchar(40), ruta_id int, peso int default 1 not null)");
+        jdbc.execute("create table log_importacion (id bigint auto_increment primary key, archivo varchar(700) not null, " +
+                "posicion bigint not null, largo_huella int not null, huella bigint not null, completo boolean not null, " +
+                "constraint uk_log_importacion_archivo unique (archivo))");
+        jdbc.execute("create table log_importacion_parte (id bigint auto_increment primary key, archivo varchar(700) not null, " +
+                "desde bigint not null, hasta bigint not null)");
+        store = new LogAggregateStore(null, 2, 3_600_000, 60, 1, 128);
+        agregador = new AgregadorParalelo(2, 64);
+        importador = new LogImporter(store, new RutasLogs(null, () -> List.of("/api/persona", "/api/persona/{id}"), null, 100),
+                jdbc, new DataSourceTransactionManager(dataSource), agregador, new RequestMappingHandlerMapping(),
+                directorio.resolve("app.log").toString(), directorio.resolve("offsets.properties").toString(), 64, 500);
+    }
+
+    @AfterEach
+    void borrarTablas() {
+        agregador.cerrar();
+        jdbc.execute("drop all objects");
+    }
+
+    @Test
+    void soloImportaLasLineasNuevasYCompletas() throws Exception {
+        escribir(lineas(0, 100, 2) + PREFIJO + "Tiempo de respuesta (findById): 9"); // la última a medio escribir
+        assertEquals(100, importador.importar().registros());
+
+        escribir(" ms [GET /api/persona/3 200]\n" + lineas(100, 50, 2));
+        ResumenImportacion segunda = importador.importar();
+        assertEquals(51, segunda.registros());
+        assertEquals(0, importador.importar().registros());
+        assertEquals(151, filas());
+        assertEquals(151, store.total().totalPeticiones());
+        assertEquals(0, contar("select count(*) from log_importacion_parte")); // todas quedaron bajo el offset
+    }
+
+    @Test
+    void unaImportacionCortadaAMitadDeSegmentoNoDuplicaAlRepetirse() throws Exception {
+        int n = 20_000; // unos 3.5 MB: dos partes de un mismo segmento
+        escribir(lineas(0, n - 5, 2) + lineas(n - 5, 5, 60)); // las últimas no caben en uri varchar(40)
+
+        assertThrows(RuntimeException.class, importador::importar);
+        long confirmadas = filas();
+        assertEquals(1, contar("select count(*) from log_importacion_parte"));
+        assertEquals(0, contar("select posicion from log_importacion"));
+        assertEquals(confirmadas, store.total().totalPeticiones());
+
+        jdbc.execute("alter table log_entry alter column uri varchar(255)");
+        assertEquals(n - confirmadas, importador.importar().registros());
+        assertEquals(n, filas());
+        assertEquals(n, store.total().totalPeticiones());
+        assertEquals(Files.size(directorio.resolve("app.log")), contar("select posicion from log_importacion"));
+        assertEquals(0, contar("select count(*) from log_importacion_parte"));
+    }
+
+    @Test
+    void unArchivoReemplazadoSeLeeDesdeElInicio() throws Exception {
+        escribir(lineas(0, 10, 2));
+        importador.importar();
+        Files.writeString(directorio.resolve("app.log"), lineas(500, 4, 2).replace("2025-09-21", "2025-09-22"));
+
+        assertEquals(4, importador.importar().registros());
+        assertEquals(14, filas());
+    }
+
+    private void escribir(String texto) throws Exception {
+        Files.writeString(directorio.resolve("app.log"), texto, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /** Líneas de PersonaAspect con ids de {@code digitos} cifras. */
+    private static String lineas(int desde, int cantidad, int digitos) {
+        StringBuilder texto = new StringBuilder();
+        for (int i = desde; i < desde + cantidad; i++) {
+            String id = String.format("%0" + digitos + "d", i % 100);
+            texto.append(PREFIJO).append("Tiempo de respuesta (findById): ").append(10 + i % 40)
+                    .append(" ms [GET /api/persona/").append(id).append(" 200]\n");
+        }
+        return texto.toString();
+    }
+
+    private long filas() {
+        return contar("select count(*) from log_entry");
+    }
+
+    private long contar(String sql) {
+        return jdbc.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,227 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cr.ac.una.proyectoparadigmas.dto.ResumenImportacionNdjson;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LogNdjsonImporter: lectura campo por campo y sus reglas, formatos de timestamp, el lector
+ * de líneas (crecimiento del buffer, \r\n, última línea sin salto, líneas demasiado largas)
+ * y una importación sobre H2 que rechaza una línea de más de 16 MB y sigue.
+ */
+class LogNdjsonImporterTest {
+
+    private static final String VALIDA = "{\"timestamp\":\"2025-09-21T11:53:46.933\",\"nivel\":\"INFO\","
+            + "\"endpoint\":\"/api/persona\",\"metodoHttp\":\"GET\",\"statusCode\":200,\"tiempoRespuesta\":12}";
+
+    private JdbcTemplate jdbc;
+    private LogAggregateStore store;
+    private AgregadorParalelo agregador;
+    private LogNdjsonImporter importador;
+
+    @BeforeEach
+    void crearTabla() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:ndjson;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table log_entry (id bigint auto_increment primary key, " +
+                "timestamp timestamp, nivel varchar(255), mensaje varchar(255), endpoint varchar(255), " +
+                "metodo_http varchar(255), status_code int, tiempo_respuesta bigint, uri varchar(255), ruta_id int, peso int default 1 not null)");
+        store = new LogAggregateStore(null, 2, 3_600_000, 60, 1, 128);
+        agregador = new AgregadorParalelo(2, 64);
+        importador = new LogNdjsonImporter(store, new RutasLogs(null, () -> List.of("/api/persona", "/api/persona/{id}"), null, 100),
+                jdbc, new DataSourceTransactionManager(dataSource), agregador, new ObjectMapper(), "importaciones", 2);
+    }
+
+    @AfterEach
+    void borrarTabla() {
+        agregador.cerrar();
+        jdbc.execute("drop all objects");
+    }
+
+    // ========= leer =========
+
+    @Test
+    void leeLosCamposEIgnoraLosDesconocidos() throws IOException {
+        LogEntry log = leer("{\"id\":99,\"timestamp\":\"2025-09-21T11:53:46.933\",\"nivel\":\"warn\",\"mensaje\":\"lento\","
+                + "\"endpoint\":\"/api/persona/{id}\",\"uri\":\"/api/persona/7\",\"metodoHttp\":\"get\",\"statusCode\":404,"
+                + "\"tiempoRespuesta\":350,\"peso\":4,\"extra\":{\"a\":[1,2,{\"b\":null}]}}");
+        assertNull(log.getId());
+        assertEquals(LocalDateTime.of(2025, 9, 21, 11, 53, 46, 933_000_000), log.getTimestamp());
+        assertEquals("WARN", log.getNivel());
+        assertEquals("lento", log.getMensaje());
+        assertEquals("/api/persona/{id}", log.getEndpoint());
+        assertEquals("/api/persona/7", log.getUri());
+        assertEquals("GET", log.getMetodoHttp());
+        assertEquals(404, log.getStatusCode());
+        assertEquals(350, log.getTiempoRespuesta());
+        assertEquals(4, log.getPeso());
+
+        LogEntry minima = leer(VALIDA);
+        assertNull(minima.getMensaje());
+        assertEquals(1, minima.getPeso());
+    }
+
+    static Stream<Arguments> lineasInvalidas() {
+        return Stream.of(
+                Arguments.of("[1,2]", "La línea no es un objeto JSON"),
+                Arguments.of("{\"nivel\":", "JSON inválido"),
+                Arguments.of(VALIDA + " {}", "Contenido extra después del objeto JSON"),
+                Arguments.of(VALIDA.replace("\"timestamp\":\"2025-09-21T11:53:46.933\",", ""), "Falta timestamp"),
+                Arguments.of(VALIDA.replace("2025-09-21T11:53:46.933", "ayer"), "timestamp inválido"),
+                Arguments.of(VALIDA.replace("\"INFO\"", "\"  \""), "Falta nivel"),
+                Arguments.of(VALIDA.replace("\"INFO\"", "\"FATAL\""), "nivel desconocido"),
+                Arguments.of(VALIDA.replace("\"INFO\"", "3"), "nivel no es texto"),
+                Arguments.of(VALIDA.replace("\"/api/persona\"", "null"), "Falta endpoint"),
+                Arguments.of(VALIDA.replace("\"/api/persona\"", "\"/" + "x".repeat(255) + "\""), "endpoint supera 255 caracteres"),
+                Arguments.of(VALIDA.replace("\"metodoHttp\":\"GET\",", ""), "Falta metodoHttp"),
+                Arguments.of(VALIDA.replace(":200", ":\"200\""), "statusCode no es un entero"),
+                Arguments.of(VALIDA.replace(":200", ":99"), "statusCode fuera de 100-599"),
+                Arguments.of(VALIDA.replace("\"statusCode\":200,", ""), "Falta statusCode"),
+                Arguments.of(VALIDA.replace(":12}", ":-1}"), "tiempoRespuesta negativo"),
+                Arguments.of(VALIDA.replace(":12}", ":1.5}"), "tiempoRespuesta no es un entero"),
+                Arguments.of(VALIDA.replace(",\"tiempoRespuesta\":12", ""), "Falta tiempoRespuesta"),
+                Arguments.of(VALIDA.replace("}", ",\"peso\":0}"), "peso fuera de 1-" + MuestreoLogs.PESO_MAXIMO));
+    }
+
+    @ParameterizedTest
+    @MethodSource("lineasInvalidas")
+    void rechazaConElMotivo(String linea, String motivo) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> leer(linea));
+        assertEquals(motivo, e.getMessage());
+    }
+
+    @Test
+    void timestampConOffsetOEpochPasaALaZonaDelServidor() throws IOException {
+        ZoneId zona = ZoneId.systemDefault();
+        LocalDateTime conOffset = OffsetDateTime.parse("2025-09-21T11:53:46.933-06:00").atZoneSameInstant(zona).toLocalDateTime();
+        assertEquals(conOffset, leer(VALIDA.replace("46.933", "46.933-06:00")).getTimestamp());
+        assertEquals(conOffset, leer(VALIDA.replace("11:53:46.933", "17:53:46.933Z")).getTimestamp());
+
+        long epoch = Instant.parse("2025-09-21T17:53:46.933Z").toEpochMilli();
+        assertEquals(conOffset, leer(VALIDA.replace("\"2025-09-21T11:53:46.933\"", String.valueOf(epoch))).getTimestamp());
+    }
+
+    private LogEntry leer(String linea) throws IOException {
+        byte[] datos = ("  " + linea).getBytes(StandardCharsets.UTF_8); // desde un desplazamiento, como en el buffer
+        return importador.leer(datos, 2, datos.length - 2);
+    }
+
+    // ========= LectorLineas =========
+
+    @Test
+    void elLectorCreceElBufferYAceptaCrLfYUnaUltimaLineaSinSalto() throws IOException {
+        String larga = "y".repeat(300);
+        String texto = "a\r\n\n" + larga + "\r\n  \nb\nfinal sin salto";
+        List<String> lineas = lineas(new LogNdjsonImporter.LectorLineas(entrada(texto), 8, 1024));
+        assertEquals(List.of("a", "", larga, "  ", "b", "final sin salto"), lineas);
+
+        assertEquals(List.of("a"), lineas(new LogNdjsonImporter.LectorLineas(entrada("a\n"), 8, 1024)));
+        assertEquals(List.of(), lineas(new LogNdjsonImporter.LectorLineas(entrada(""), 8, 1024)));
+    }
+
+    @Test
+    void elLectorSaltaLasLineasDemasiadoLargasYSigue() throws IOException {
+        String texto = "a\n" + "x".repeat(200) + "\nb\r\n" + "z".repeat(100);
+        LogNdjsonImporter.LectorLineas lector = new LogNdjsonImporter.LectorLineas(entrada(texto), 8, 64);
+        List<String> lineas = new ArrayList<>();
+        while (lector.siguiente()) lineas.add(lector.demasiadoLarga ? "(larga)" : texto(lector));
+        assertEquals(List.of("a", "(larga)", "b", "(larga)"), lineas);
+        assertTrue(lector.buffer.length <= 64);
+        assertEquals(texto.length(), lector.bytes);
+    }
+
+    private static List<String> lineas(LogNdjsonImporter.LectorLineas lector) throws IOException {
+        List<String> lineas = new ArrayList<>();
+        while (lector.siguiente()) {
+            assertFalse(lector.demasiadoLarga);
+            lineas.add(texto(lector));
+        }
+        return lineas;
+    }
+
+    private static String texto(LogNdjsonImporter.LectorLineas lector) {
+        return new String(lector.buffer, lector.inicioLinea, lector.largoLinea, StandardCharsets.UTF_8);
+    }
+
+    // ========= Importación =========
+
+    @Test
+    void unaLineaDeMasDe16MbSeRechazaYLaImportacionSigue() throws IOException {
+        byte[] antes = (VALIDA + "\n" + VALIDA + "\nno es json\n" + VALIDA + "\n{\"endpoint\":\"").getBytes(StandardCharsets.UTF_8);
+        byte[] despues = ("\"}\n" + VALIDA.replace("/api/persona", "/api/persona/5")).getBytes(StandardCharsets.UTF_8);
+        InputStream entrada = new SequenceInputStream(new ByteArrayInputStream(antes),
+                new SequenceInputStream(new Relleno(17 << 20), new ByteArrayInputStream(despues)));
+
+        ResumenImportacionNdjson resumen = importador.importar(entrada);
+
+        assertEquals(6, resumen.lineas());
+        assertEquals(4, resumen.importadas());
+        assertEquals(2, resumen.rechazadas());
+        assertEquals(0, resumen.fallidas());
+        assertEquals(Map.of("JSON inválido", 1L, "La línea supera 16 MB", 1L), resumen.rechazosPorMotivo());
+        assertEquals(List.of(new ResumenImportacionNdjson.Rechazo(3, "JSON inválido"),
+                new ResumenImportacionNdjson.Rechazo(5, "La línea supera 16 MB")), resumen.ejemplosRechazo());
+        assertEquals(4, jdbc.queryForObject("select count(*) from log_entry", Integer.class));
+        assertEquals(1, jdbc.queryForObject("select count(*) from log_entry where uri = '/api/persona/5'", Integer.class));
+        assertEquals(4, store.total().totalPeticiones());
+    }
+
+    private static InputStream entrada(String texto) {
+        return new ByteArrayInputStream(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** n bytes 'x' sin tenerlos en memoria. */
+    private static final class Relleno extends InputStream {
+        private long restantes;
+
+        Relleno(long n) {
+            this.restantes = n;
+        }
+
+        @Override
+        public int read() {
+            if (restantes == 0) return -1;
+            restantes--;
+            return 'x';
+        }
+
+        @Override
+        public int read(byte[] b, int desde, int largo) {
+            if (restantes == 0) return -1;
+            int n = (int) Math.min(largo, restantes);
+            Arrays.fill(b, desde, desde + n, (byte) 'x');
+            restantes -= n;
+            return n;
+        }
+    }
+}
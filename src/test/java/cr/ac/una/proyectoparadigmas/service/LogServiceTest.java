@@ -0,0 +1,100 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Series de LogService: los intervalos que salen de memoria solo respetan
+ * logs.ventanas.max-intervalos; los que van a AlmacenLogs (fuera del horizonte o con
+ * logs.reportes.fuente=db) se limitan con logs.ventanas.max-intervalos-almacen antes de consultar.
+ */
+class LogServiceTest {
+
+    /** Horizonte en memoria de 60 minutos. */
+    private final LogAggregateStore store = new LogAggregateStore(null, 2, 3_600_000, 60, 1, 128);
+    private final Almacen almacen = new Almacen();
+
+    private LogService servicio(String fuente, int maxIntervalosAlmacen) {
+        return new LogService(almacen, store, null, null, fuente, 1000, maxIntervalosAlmacen, 1000, 500, 3, "aproximado");
+    }
+
+    @Test
+    void losIntervalosEnMemoriaNoConsultanElAlmacen() {
+        LogService servicio = servicio("memoria", 5);
+        LocalDateTime desde = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusMinutes(30);
+        Ventana ventana = new Ventana(desde, desde.plusMinutes(30), Ventana.Granularidad.MINUTE);
+
+        assertEquals(30, servicio.serie(ventana, servicio::erroresPorCodigo).size());
+        assertEquals(0, almacen.agregados.get());
+    }
+
+    @Test
+    void losIntervalosFueraDelHorizonteSeLimitanAparte() {
+        LogService servicio = servicio("memoria", 48);
+        LocalDateTime ayer = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusDays(1);
+
+        assertEquals(10, servicio.serie(new Ventana(ayer, ayer.plusHours(10), Ventana.Granularidad.HOUR),
+                servicio::erroresPorCodigo).size());
+        assertEquals(10, almacen.agregados.get());
+
+        Ventana larga = new Ventana(ayer.minusDays(30), ayer, Ventana.Granularidad.HOUR); // 720 < max-intervalos
+        assertThrows(IllegalArgumentException.class, () -> servicio.serie(larga, servicio::erroresPorCodigo));
+        assertEquals(10, almacen.agregados.get()); // se rechaza sin consultar nada
+    }
+
+    @Test
+    void conFuenteDbTodosLosIntervalosCuentan() {
+        LogService servicio = servicio("db", 48);
+        LocalDateTime desde = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusMinutes(49);
+        Ventana ventana = new Ventana(desde, desde.plusMinutes(49), Ventana.Granularidad.MINUTE);
+
+        assertThrows(IllegalArgumentException.class, () -> servicio.serie(ventana, servicio::erroresPorCodigo));
+        assertEquals(48, servicio.serie(new Ventana(desde, desde.plusMinutes(48), Ventana.Granularidad.MINUTE),
+                servicio::erroresPorCodigo).size());
+        assertEquals(48, almacen.agregados.get());
+    }
+
+    /** Cuenta las agregaciones pedidas; el resto no se usa en las series. */
+    private static final class Almacen implements AlmacenLogs {
+        final AtomicInteger agregados = new AtomicInteger();
+
+        @Override
+        public void registrar(LogEntry log) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AgregadoLogs agregar(Ventana ventana, Supplier<HistogramaLatencias> nuevoHistograma) {
+            agregados.incrementAndGet();
+            return new AgregadoLogs(nuevoHistograma);
+        }
+
+        @Override
+        public List<LogEntry> criticos(Ventana ventana, Long despuesDe, int limite) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T recorrer(Ventana ventana, Function<Stream<LogEntry>, T> lector) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T recorrerCriticos(Ventana ventana, Function<Stream<LogEntry>, T> lector) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
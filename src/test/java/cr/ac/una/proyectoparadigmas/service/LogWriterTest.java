@@ -0,0 +1,264 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cr.ac.una.proyectoparadigmas.dto.EstadoEscritor;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * LogWriter sobre H2: lotes por tamaño y por intervalo, las tres políticas de desborde, derrame
+ * a disco y su reproceso sin duplicar (en una transacción), el reintento de un derrame que
+ * falló sin esperar a reiniciar, lotes fallidos contados y apagado que vacía la cola.
+ */
+class LogWriterTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path spill;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private LogAggregateStore store;
+    private LogWriter escritor;
+
+    @BeforeEach
+    void crearTabla() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:escritor;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table log_entry (id bigint auto_increment primary key, " +
+                "timestamp timestamp, nivel varchar(10), mensaje varchar(255), endpoint varchar(255), " +
+                "metodo_http varchar(255), status_code int, tiempo_respuesta bigint, uri varchar(255), ruta_id int, peso int default 1 not null)");
+        store = nuevoStore();
+    }
+
+    @AfterEach
+    void borrarTabla() {
+        if (escritor != null) escritor.stop();
+        jdbc.execute("drop all objects");
+    }
+
+    private static LogAggregateStore nuevoStore() {
+        return new LogAggregateStore(null, 2, 3_600_000, 60, 1, 128);
+    }
+
+    private LogWriter escritor(LogAggregateStore store, int capacidad, int tamanoLote, long intervaloMs, String desborde) {
+        return new LogWriter(store, jdbc, new DataSourceTransactionManager(dataSource), JSON, new RegistroMetricas(2),
+                capacidad, tamanoLote, intervaloMs, 10_000, desborde, spill.toString());
+    }
+
+    @Test
+    void agrupaEnLotesDelTamanoConfigurado() {
+        escritor = escritor(store, 1000, 50, 500, "descartar");
+        for (int i = 0; i < 200; i++) escritor.registrar(log(i));
+        escritor.start();
+
+        esperar(() -> filas() == 200);
+        escritor.stop(); // las métricas del lote se anotan después del INSERT
+        EstadoEscritor estado = escritor.estado();
+        assertEquals(4, estado.lotes());
+        assertEquals(50.0, estado.promedioLote());
+        assertEquals(200, estado.escritos());
+        assertEquals(200, store.total().totalPeticiones());
+    }
+
+    @Test
+    void escribeUnLoteIncompletoAlPasarElIntervalo() {
+        escritor = escritor(store, 1000, 500, 50, "descartar");
+        escritor.start();
+        for (int i = 0; i < 3; i++) escritor.registrar(log(i));
+
+        esperar(() -> filas() == 3);
+        escritor.stop();
+        assertEquals(1, escritor.estado().lotes());
+        assertEquals(3, escritor.estado().ultimoLote());
+    }
+
+    @Test
+    void descartarPierdeLosQueNoCabenYNoLosCuenta() {
+        escritor = escritor(store, 5, 100, 50, "descartar");
+        for (int i = 0; i < 8; i++) escritor.registrar(log(i)); // sin arrancar: nadie vacía la cola
+
+        assertEquals(3, escritor.estado().descartados());
+        assertEquals(5, store.total().totalPeticiones());
+        escritor.start();
+        escritor.stop();
+        assertEquals(5, filas());
+    }
+
+    @Test
+    void bloquearEsperaEspacioYNoSeCuelgaAlDetenerse() {
+        escritor = escritor(store, 2, 1, 20, "bloquear");
+        escritor.start();
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i < 100; i++) escritor.registrar(log(i));
+        });
+        escritor.stop();
+        assertEquals(100, filas());
+        assertEquals(0, escritor.estado().descartados());
+
+        // detenido nadie vacía la cola: el que no cabe vuelve enseguida como descartado
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 3; i++) escritor.registrar(log(i));
+        });
+        assertEquals(1, escritor.estado().descartados());
+    }
+
+    @Test
+    void discoDerramaYAlReiniciarInsertaYCuentaElDerrame() throws Exception {
+        escritor = escritor(store, 2, 100, 50, "disco");
+        for (int i = 0; i < 10; i++) escritor.registrar(log(i));
+        assertEquals(8, escritor.estado().enDisco());
+        assertEquals(10, store.total().totalPeticiones());
+        escritor.stop(); // se cae sin haber arrancado: la cola en memoria se pierde, el derrame queda
+
+        LogAggregateStore reconstruido = nuevoStore();
+        escritor = escritor(reconstruido, 2, 3, 50, "disco");
+        escritor.start();
+        assertEquals(8, filas());
+        assertEquals(8, reconstruido.total().totalPeticiones());
+        assertEquals(0, archivosDerrame());
+    }
+
+    @Test
+    void discoReprocesaElDerrameCuandoLaColaSeVacia() {
+        escritor = escritor(store, 4, 2, 10, "disco");
+        escritor.start();
+        for (int i = 0; i < 500; i++) escritor.registrar(log(i));
+
+        esperar(() -> filas() == 500);
+        assertEquals(500, store.total().totalPeticiones());
+        assertEquals(0, escritor.estado().descartados());
+    }
+
+    @Test
+    void unReprocesoQueFallaNoDejaFilasNiCuentaDosVeces() throws Exception {
+        Files.writeString(spill.resolve("spill-1.jsonl"), String.join("\n",
+                JSON.writeValueAsString(log(1)),
+                JSON.writeValueAsString(log(2)),
+                "{\"nivel\":\"INF", // cortada por una caída: se salta
+                JSON.writeValueAsString(conNivel(log(3), "DEMASIADO-LARGO"))) + "\n");
+
+        // el tercer registro no cabe en la columna: falla el segundo lote y se deshace también el primero
+        LogWriter fallido = escritor(store, 10, 2, 50, "disco");
+        fallido.start();
+        fallido.stop();
+        assertEquals(0, filas());
+        assertEquals(0, store.total().totalPeticiones());
+        assertEquals(1, archivosDerrame());
+
+        jdbc.execute("alter table log_entry alter column nivel varchar(255)");
+        escritor = escritor(store, 10, 2, 50, "disco");
+        escritor.start();
+        assertEquals(3, filas());
+        assertEquals(3, store.total().totalPeticiones());
+        assertEquals(1, escritor.estado().fallidos()); // la línea cortada
+        assertEquals(0, archivosDerrame());
+    }
+
+    @Test
+    void unDerrameQueFallaSeReintentaSinReiniciar() throws Exception {
+        escritor = escritor(store, 2, 100, 20, "disco");
+        jdbc.execute("alter table log_entry rename to log_entry_caida"); // BD sin la tabla
+        for (int i = 0; i < 10; i++) escritor.registrar(log(i));
+        escritor.start(); // el lote de la cola falla y también se derrama
+
+        esperar(() -> escritor.estado().enDisco() == 10);
+        esperar(() -> {
+            try {
+                return archivosDerrame() >= 1 && !Files.exists(spill.resolve("spill-actual.jsonl"));
+            } catch (Exception e) {
+                return false;
+            }
+        });
+        jdbc.execute("alter table log_entry_caida rename to log_entry");
+
+        esperar(() -> filas() == 10);
+        assertEquals(10, store.total().totalPeticiones()); // se contaron una sola vez, al aceptarse
+        escritor.stop();
+        assertEquals(0, archivosDerrame());
+        assertEquals(0, escritor.estado().fallidos());
+    }
+
+    @Test
+    void unLoteQueFallaQuedaContado() {
+        escritor = escritor(store, 100, 10, 20, "descartar");
+        jdbc.execute("drop table log_entry");
+        escritor.start();
+        for (int i = 0; i < 10; i++) escritor.registrar(log(i));
+
+        esperar(() -> escritor.estado().lotesFallidos() == 1);
+        assertEquals(10, escritor.estado().fallidos());
+        assertEquals(10, store.total().totalPeticiones()); // aceptados: están en los agregados, no en la BD
+    }
+
+    @Test
+    void alDetenerseVaciaLaCola() {
+        escritor = escritor(store, 10_000, 1000, 300, "descartar");
+        escritor.start();
+        for (int i = 0; i < 2500; i++) escritor.registrar(log(i));
+        escritor.stop();
+
+        assertEquals(2500, filas());
+        assertEquals(2500, escritor.estado().escritos());
+        assertEquals(0, escritor.estado().profundidadCola());
+    }
+
+    private int filas() {
+        return jdbc.queryForObject("select count(*) from log_entry", Integer.class);
+    }
+
+    private long archivosDerrame() throws Exception {
+        try (Stream<Path> archivos = Files.list(spill)) {
+            return archivos.count();
+        }
+    }
+
+    private static void esperar(BooleanSupplier condicion) {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!condicion.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) fail("no se cumplió a tiempo");
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+
+    private static LogEntry conNivel(LogEntry log, String nivel) {
+        log.setNivel(nivel);
+        return log;
+    }
+
+    private static LogEntry log(int i) {
+        LogEntry log = new LogEntry();
+        log.setTimestamp(LocalDateTime.of(2025, 9, 1, 12, 0).plusSeconds(i));
+        log.setNivel("INFO");
+        log.setEndpoint("/api/persona/{id}");
+        log.setUri("/api/persona/" + i);
+        log.setMetodoHttp("GET");
+        log.setStatusCode(200);
+        log.setTiempoRespuesta(10 + i % 50);
+        return log;
+    }
+}
@@ -0,0 +1,96 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.ResultadoLotePersonas;
+import cr.ac.una.proyectoparadigmas.entity.Persona;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import cr.ac.una.proyectoparadigmas.repository.PersonaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * LotesPersona sobre H2: resultado por elemento en el orden recibido, tramos de varias
+ * transacciones, 404/400 por elemento y límite de tamaño. Sin la transacción de la prueba,
+ * para que cada tramo confirme como en la aplicación.
+ */
+@DataJpaTest
+@Import({LotesPersona.class, ListadoPersonas.class, CachePersonas.class, RegistroMetricas.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {"persona.lotes.por-transaccion=7", "persona.lotes.max-elementos=100"})
+class LotesPersonaTest {
+
+    @Autowired
+    private LotesPersona lotes;
+    @Autowired
+    private PersonaRepository repository;
+
+    @AfterEach
+    void limpiar() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void creaEnVariosTramosYDevuelveLosIds() {
+        List<Persona> personas = new ArrayList<>();
+        for (int i = 0; i < 20; i++) personas.add(persona(null, "Nombre" + i));
+        personas.set(9, null);
+
+        ResultadoLotePersonas resultado = lotes.crear(personas);
+        assertEquals(20, resultado.total());
+        assertEquals(19, resultado.exitosos());
+        assertEquals(400, resultado.items().get(9).status());
+        assertEquals(19, repository.count());
+        for (int i = 0; i < 20; i++) {
+            ResultadoLotePersonas.Item item = resultado.items().get(i);
+            assertEquals(i, item.indice());
+            if (i == 9) continue;
+            assertEquals(201, item.status());
+            assertEquals("Nombre" + i, repository.findById(item.id()).orElseThrow().getNombre());
+        }
+    }
+
+    @Test
+    void actualizaYEliminaConResultadoPorElemento() {
+        List<Long> ids = lotes.crear(List.of(persona(null, "Ana"), persona(null, "Luis"), persona(null, "Eva")))
+                .items().stream().map(ResultadoLotePersonas.Item::id).toList();
+
+        ResultadoLotePersonas cambios = lotes.actualizar(List.of(
+                persona(ids.get(0), "Ana María"), persona(999_999L, "Nadie"), persona(null, "Sin id"), persona(ids.get(0), "Otra vez")));
+        assertEquals(List.of(200, 404, 400, 400), cambios.items().stream().map(ResultadoLotePersonas.Item::status).toList());
+        assertEquals("Ana María", repository.findById(ids.get(0)).orElseThrow().getNombre());
+
+        ResultadoLotePersonas bajas = lotes.eliminar(Arrays.asList(ids.get(1), 999_999L, ids.get(2), null));
+        assertEquals(List.of(204, 404, 204, 400), bajas.items().stream().map(ResultadoLotePersonas.Item::status).toList());
+        assertEquals(1, repository.count());
+        assertNotNull(repository.findById(ids.get(0)).orElse(null));
+    }
+
+    @Test
+    void rechazaLotesVaciosOMuyGrandes() {
+        assertThrows(IllegalArgumentException.class, () -> lotes.crear(List.of()));
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i < 101; i++) ids.add(i);
+        assertThrows(IllegalArgumentException.class, () -> lotes.eliminar(ids));
+    }
+
+    private static Persona persona(Long id, String nombre) {
+        Persona persona = new Persona();
+        persona.setId(id);
+        persona.setNombre(nombre);
+        persona.setApellido("Prueba");
+        return persona;
+    }
+}
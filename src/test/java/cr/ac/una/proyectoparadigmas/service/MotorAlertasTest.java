@@ -0,0 +1,144 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.Alerta;
+import cr.ac.una.proyectoparadigmas.dto.EstadoAlertas;
+import cr.ac.una.proyectoparadigmas.dto.ReglaAlerta;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MotorAlertas: disparo y resolución al deslizarse la ventana, filtro por endpoint,
+ * percentiles, mínimo de peticiones y reglas en caliente. El reloj lo pone la prueba.
+ */
+class MotorAlertasTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 9, 1, 12, 0);
+    private static final long S0 = T0.toEpochSecond(ZoneOffset.UTC);
+
+    private final LogAggregateStore store = new LogAggregateStore(null, 2, 3_600_000, 60, 1, 128);
+
+    private MotorAlertas motor(String reglas) {
+        return new MotorAlertas(store, null, reglas, 60, 20, 10, 0);
+    }
+
+    @Test
+    void tasa5xxSeDisparaYSeResuelveCuandoLosErroresSalenDeLaVentana() {
+        MotorAlertas motor = motor("persona-5xx=tasa-5xx>0.05/1m@/api/persona");
+        for (int i = 0; i < 90; i++) store.registrar(log("/api/persona/" + i, 200, 10, T0));
+        for (int i = 0; i < 10; i++) store.registrar(log("/api/persona", 500, 10, T0));
+        for (int i = 0; i < 50; i++) store.registrar(log("/api/logs/reportes/estado", 500, 10, T0)); // otro prefijo
+
+        motor.evaluar(S0 + 1);
+        EstadoAlertas estado = motor.estado(10);
+        assertEquals(1, estado.activas().size());
+        Alerta alerta = estado.activas().get(0);
+        assertEquals("persona-5xx", alerta.regla());
+        assertEquals("disparada", alerta.estado());
+        assertEquals(0.10, alerta.valor(), 1e-9);
+        assertEquals(100, alerta.peticiones());
+
+        motor.evaluar(S0 + 30); // los errores siguen dentro del minuto
+        assertEquals(1, motor.estado(10).activas().size());
+
+        motor.evaluar(S0 + 61);
+        estado = motor.estado(10);
+        assertTrue(estado.activas().isEmpty());
+        assertEquals(1, estado.resueltas().size());
+        assertEquals("resuelta", estado.resueltas().get(0).estado());
+        assertEquals(LocalDateTime.ofEpochSecond(S0 + 61, 0, ZoneOffset.UTC), estado.resueltas().get(0).resuelta());
+        assertEquals(150, estado.eventosEvaluados());
+    }
+
+    @Test
+    void percentilUsaSoloLosTiemposDeLaVentana() {
+        MotorAlertas motor = motor("lento=p95>500/5m");
+        for (int i = 0; i < 100; i++) store.registrar(log("/api/persona", 200, i < 90 ? 20 : 900, T0));
+        motor.evaluar(S0);
+        Alerta alerta = motor.estado(10).activas().get(0);
+        assertEquals(900, alerta.valor(), 900 * 0.01);
+
+        for (int i = 0; i < 2000; i++) store.registrar(log("/api/persona", 200, 20, T0.plusMinutes(2)));
+        motor.evaluar(S0 + 120); // 100 lentos entre 2100: p95 vuelve a 20 ms
+        assertTrue(motor.estado(10).activas().isEmpty());
+    }
+
+    @Test
+    void noDisparaConMenosPeticionesQueElMinimo() {
+        MotorAlertas motor = motor("persona-5xx=tasa-5xx>0.05/1m");
+        for (int i = 0; i < 5; i++) store.registrar(log("/api/persona", 500, 10, T0));
+        motor.evaluar(S0);
+        assertTrue(motor.estado(10).activas().isEmpty());
+
+        motor.guardarRegla(new ReglaAlerta("persona-5xx", "tasa-5xx", ">", 0.05, 60, null, 1L));
+        store.registrar(log("/api/persona", 500, 10, T0)); // la ventana nueva empieza vacía
+        motor.evaluar(S0);
+        assertEquals(1, motor.estado(10).activas().get(0).peticiones());
+    }
+
+    @Test
+    void comparadorMenorParaCaidasDeTrafico() {
+        MotorAlertas motor = motor("sin-trafico=peticiones<1/30s");
+        motor.evaluar(S0);
+        assertEquals(1, motor.estado(10).activas().size());
+        store.registrar(log("/api/persona", 200, 5, T0.plusSeconds(5)));
+        motor.evaluar(S0 + 5);
+        assertTrue(motor.estado(10).activas().isEmpty());
+    }
+
+    @Test
+    void reglasEnCaliente() {
+        MotorAlertas motor = motor("");
+        ReglaAlerta guardada = motor.guardarRegla(new ReglaAlerta("criticos", "TASA-CRITICOS", null, 0.5, 60, " ", null));
+        assertEquals(new ReglaAlerta("criticos", "tasa-criticos", ">", 0.5, 60, null, 20L), guardada);
+        assertEquals(List.of(guardada), motor.reglas());
+
+        for (int i = 0; i < 30; i++) {
+            LogEntry log = log("/api/persona", 500, 10, T0);
+            log.setNivel("ERROR");
+            store.registrar(log);
+        }
+        motor.evaluar(S0);
+        assertEquals(1, motor.estado(10).activas().size());
+
+        assertTrue(motor.eliminarRegla("criticos"));
+        assertFalse(motor.eliminarRegla("criticos"));
+        EstadoAlertas estado = motor.estado(10);
+        assertTrue(estado.activas().isEmpty());
+        assertEquals(1, estado.resueltas().size());
+        assertEquals(0, estado.reglas());
+    }
+
+    @Test
+    void reglasInvalidas() {
+        MotorAlertas motor = motor("");
+        assertThrows(IllegalArgumentException.class, () -> motor.guardarRegla(new ReglaAlerta("x", "p0", ">", 1, 60, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> motor.guardarRegla(new ReglaAlerta("x", "tasa-4xx", ">", 1, 60, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> motor.guardarRegla(new ReglaAlerta("x", "promedio", ">=", 1, 60, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> motor.guardarRegla(new ReglaAlerta("x", "promedio", ">", 1, 0, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> motor.guardarRegla(new ReglaAlerta("a b", "promedio", ">", 1, 60, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> MotorAlertas.parsear("persona-5xx=tasa-5xx 0.05"));
+        assertEquals(new ReglaAlerta("p", "p999", ">", 2.5, 7200, "/api/persona", null), MotorAlertas.parsear(" p = p999 > 2.5 / 2h @ /api/persona "));
+        assertNull(MotorAlertas.parsear("t=peticiones<3/45").endpoint());
+    }
+
+    private static LogEntry log(String endpoint, int status, long ms, LocalDateTime ts) {
+        LogEntry log = new LogEntry();
+        log.setTimestamp(ts);
+        log.setNivel(status >= 500 ? "ERROR" : "INFO");
+        log.setEndpoint(endpoint);
+        log.setMetodoHttp("GET");
+        log.setStatusCode(status);
+        log.setTiempoRespuesta(ms);
+        return log;
+    }
+}
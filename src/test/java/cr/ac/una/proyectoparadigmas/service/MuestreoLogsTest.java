@@ -0,0 +1,93 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.HistogramaLatencias;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MuestreoLogs con segundos simulados: errores y lentas siempre se guardan, el peso sigue a la
+ * carga y la suma de pesos estima el total dentro del margen que da la varianza.
+ */
+class MuestreoLogsTest {
+
+    private static final long INICIO = 1_700_000_000L;
+
+    @Test
+    void conPocaCargaGuardaTodo() {
+        MuestreoLogs muestreo = new MuestreoLogs(null, true, 500, 100, 1000);
+        for (long s = INICIO; s < INICIO + 10; s++) {
+            for (int i = 0; i < 50; i++) {
+                LogEntry log = log(200, "INFO", 20);
+                assertTrue(muestreo.conservar(log, s));
+                assertEquals(1, log.getPeso());
+            }
+        }
+    }
+
+    @Test
+    void siempreGuardaErroresYLentasConPeso1() {
+        MuestreoLogs muestreo = new MuestreoLogs(null, true, 500, 10, 1000);
+        for (long s = INICIO; s < INICIO + 10; s++) {
+            for (int i = 0; i < 10_000; i++) muestreo.conservar(log(200, "INFO", 20), s);
+        }
+        LogEntry exitosa = log(200, "INFO", 20);
+        int descartadas = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (!muestreo.conservar(exitosa, INICIO + 10)) descartadas++;
+        }
+        assertTrue(descartadas > 900, "con carga alta casi todas las exitosas quedan fuera: " + descartadas);
+
+        for (LogEntry log : new LogEntry[]{log(500, "ERROR", 20), log(404, "INFO", 20), log(200, "WARN", 20),
+                log(200, "INFO", 500), log(201, "INFO", 3000)}) {
+            log.setPeso(7);
+            assertTrue(muestreo.conservar(log, INICIO + 10));
+            assertEquals(1, log.getPeso());
+        }
+    }
+
+    @Test
+    void laSumaDePesosEstimaElTotalSinSesgo() {
+        MuestreoLogs muestreo = new MuestreoLogs(null, true, 500, 100, 1000);
+        AgregadoLogs agregado = new AgregadoLogs(() -> new HistogramaLatencias(2, 3_600_000));
+        int total = 0;
+        int guardadas = 0;
+        long varianza = 0;
+        for (long s = INICIO; s < INICIO + 30; s++) {
+            for (int i = 0; i < 5000; i++, total++) {
+                LogEntry log = log(200, "INFO", 10 + i % 100);
+                if (muestreo.conservar(log, s)) {
+                    guardadas++;
+                    varianza += (long) log.getPeso() * (log.getPeso() - 1);
+                    agregado.registrar(log);
+                }
+            }
+        }
+
+        assertTrue(guardadas * 10 < total, "se guarda menos de una de cada 10: " + guardadas + " de " + total);
+        assertEquals(varianza, agregado.varianza());
+        assertEquals(varianza, agregado.varianzaPorEndpoint().get("/api/persona"));
+        assertTrue(varianza > 0);
+        double error = Math.abs(agregado.totalPeticiones() - total);
+        assertTrue(error < 5 * Math.sqrt(varianza),
+                "estimado " + agregado.totalPeticiones() + " de " + total + " (σ ≈ " + Math.sqrt(varianza) + ")");
+        assertEquals(agregado.totalPeticiones(), agregado.latenciaGlobal().cantidad());
+        assertEquals(agregado.totalPeticiones(), agregado.conteoPorEndpoint().get("/api/persona"));
+    }
+
+    private static LogEntry log(int status, String nivel, long tiempo) {
+        LogEntry log = new LogEntry();
+        log.setTimestamp(LocalDateTime.of(2025, 9, 1, 12, 0));
+        log.setNivel(nivel);
+        log.setEndpoint("/api/persona");
+        log.setMetodoHttp("GET");
+        log.setStatusCode(status);
+        log.setTiempoRespuesta(tiempo);
+        return log;
+    }
+}
@@ -0,0 +1,173 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.dto.EstadoRetencion;
+import cr.ac.una.proyectoparadigmas.dto.Ventana;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * RetencionLogs sobre H2: purga por lotes, resúmenes que conservan los totales, ejecuciones
+ * repetidas sin contar dos veces, compactación de horas en días y la copia columnar que deja
+ * de contar lo purgado.
+ */
+class RetencionLogsTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2025, 9, 1, 12, 30);
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void crearTablas() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:retencion;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table log_entry (id bigint auto_increment primary key, " +
+                "timestamp timestamp, nivel varchar(255), mensaje varchar(255), endpoint varchar(255), " +
+                "metodo_http varchar(255), status_code int, tiempo_respuesta bigint, uri varchar(255), ruta_id int, peso int default 1 not null)");
+        jdbc.execute("create table log_agregado (id bigint auto_increment primary key, granularidad varchar(1) not null, " +
+                "periodo timestamp not null, endpoint varchar(255) not null, metodo_http varchar(255) not null, " +
+                "status_code int not null, cantidad bigint not null, criticos bigint not null, suma_tiempos bigint not null, varianza bigint default 0 not null, " +
+                "constraint uk_log_agregado_clave unique (granularidad, periodo, endpoint, metodo_http, status_code))");
+        jdbc.execute("create table log_agregado_tiempo (id bigint auto_increment primary key, granularidad varchar(1) not null, " +
+                "periodo timestamp not null, endpoint varchar(255) not null, tiempo bigint not null, cantidad bigint not null, " +
+                "constraint uk_log_agregado_tiempo_clave unique (granularidad, periodo, endpoint, tiempo))");
+    }
+
+    @AfterEach
+    void borrarTablas() {
+        jdbc.execute("drop all objects");
+    }
+
+    private RetencionLogs retencion(int diasHorarios, int tamanoLote) {
+        return new RetencionLogs(jdbc, new DataSourceTransactionManager(dataSource), null,
+                false, 30, diasHorarios, 0, tamanoLote, 0, 0, 0, true, 7);
+    }
+
+    @Test
+    void purgaPorLotesYConservaLosTotales() {
+        LocalDateTime viejo = AHORA.minusDays(40).withMinute(0);
+        List<LogEntry> logs = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            int status = i % 10 == 0 ? 500 : 200;
+            logs.add(log(viejo.plusMinutes(i % 120), "/api/persona", status, 10 + i));
+        }
+        for (int i = 0; i < 20; i++) logs.add(log(AHORA.minusDays(1), "/api/persona", 200, 5)); // recientes
+        LogWriter.insertarLote(jdbc, logs);
+
+        EstadoRetencion estado = retencion(180, 40).ejecutar(AHORA);
+        assertEquals(250, estado.ultimasPurgadas());
+        assertEquals(20, contar("select count(*) from log_entry"));
+        assertEquals(250, contar("select sum(cantidad) from log_agregado"));
+        assertEquals(25, contar("select sum(criticos) from log_agregado"));
+        assertEquals(2, contar("select count(distinct periodo) from log_agregado where granularidad = 'H'"));
+        assertEquals(250 * 10 + 250 * 249 / 2, contar("select sum(suma_tiempos) from log_agregado"));
+        assertEquals(250, contar("select sum(cantidad) from log_agregado_tiempo"));
+        assertEquals(1, estado.ejecuciones());
+        assertFalse(estado.enCurso());
+    }
+
+    @Test
+    void ejecucionesRepetidasSumanSobreLosMismosResumenes() {
+        LocalDateTime viejo = AHORA.minusDays(35).withMinute(0);
+        RetencionLogs retencion = retencion(180, 1000);
+        LogWriter.insertarLote(jdbc, List.of(log(viejo, "/api/persona", 200, 300), log(viejo, "/api/persona", 404, 20)));
+        retencion.ejecutar(AHORA);
+        retencion.ejecutar(AHORA); // nada que purgar
+        LogWriter.insertarLote(jdbc, List.of(log(viejo.plusMinutes(5), "/api/persona", 200, 301))); // llegó tarde
+
+        assertEquals(1, retencion.ejecutar(AHORA).ultimasPurgadas());
+        assertEquals(2, contar("select count(*) from log_agregado"));
+        assertEquals(2, contar("select cantidad from log_agregado where status_code = 200"));
+        assertEquals(3, retencion.estado().purgadasTotal());
+        // 300 y 301 caen en la misma cubeta redondeada
+        assertEquals(List.of(Map.of("TIEMPO", 20L, "CANTIDAD", 1L), Map.of("TIEMPO", 301L, "CANTIDAD", 2L)),
+                jdbc.queryForList("select tiempo, cantidad from log_agregado_tiempo order by tiempo"));
+    }
+
+    @Test
+    void compactaLasHorasViejasEnDias() {
+        LocalDateTime dia = AHORA.minusDays(200).toLocalDate().atStartOfDay();
+        List<LogEntry> logs = new ArrayList<>();
+        for (int h = 0; h < 24; h++) logs.add(log(dia.plusHours(h), "/api/persona", h < 12 ? 200 : 500, 50));
+        logs.add(log(AHORA.minusDays(100), "/api/persona", 200, 50)); // queda por hora
+        LogWriter.insertarLote(jdbc, logs);
+
+        EstadoRetencion estado = retencion(180, 1000).ejecutar(AHORA);
+        assertEquals(25, estado.ultimasPurgadas());
+        assertEquals(24, estado.ultimasHorasCompactadas());
+        assertEquals(2, contar("select count(*) from log_agregado where granularidad = 'D'"));
+        assertEquals(12, contar("select cantidad from log_agregado where granularidad = 'D' and status_code = 500"));
+        assertEquals(1, contar("select count(*) from log_agregado where granularidad = 'H'"));
+        assertEquals(24, contar("select cantidad from log_agregado_tiempo where granularidad = 'D'"));
+    }
+
+    @Test
+    void laCopiaColumnarDejaDeContarYLiberaLoPurgado() {
+        LocalDateTime viejo = AHORA.minusDays(40);
+        List<LogEntry> logs = new ArrayList<>();
+        for (int i = 0; i < 70_000; i++) logs.add(log(viejo.plusSeconds(i % 3600), "/api/persona", 200, 10)); // más de un bloque
+        for (int i = 0; i < 10; i++) logs.add(log(AHORA.minusDays(1), "/api/persona", 200, 5));
+        LogWriter.insertarLote(jdbc, logs);
+        RetencionLogs retencion = retencion(180, 100_000);
+        AgregadorParalelo agregador = new AgregadorParalelo(2, 64);
+        try {
+            LogColumnarStore columnar = new LogColumnarStore(dataSource, agregador,
+                    new LogAggregateStore(null, 2, 3_600_000, 60, 1, 128), null, retencion, "columnar", 0, 10_000);
+            columnar.refrescar();
+            assertEquals(70_010, columnar.agregado(Ventana.TODO).totalPeticiones());
+            assertEquals(2, columnar.estado().bloques());
+
+            retencion.ejecutar(AHORA);
+            // sin repositorio de resúmenes: solo cuenta lo que sigue en log_entry
+            assertEquals(10, columnar.agregado(Ventana.TODO).totalPeticiones());
+            assertEquals(0, columnar.agregado(new Ventana(viejo, viejo.plusDays(1), null)).totalPeticiones());
+            assertEquals(1, columnar.estado().bloques()); // el primero quedó entero antes del corte
+            assertEquals(70_010 - 65_536, columnar.estado().filas());
+        } finally {
+            agregador.cerrar();
+        }
+    }
+
+    @Test
+    void redondeoDeTiempos() {
+        assertEquals(255, RetencionLogs.redondearTiempo(255));
+        assertEquals(257, RetencionLogs.redondearTiempo(256));
+        assertEquals(RetencionLogs.redondearTiempo(1000), RetencionLogs.redondearTiempo(1003));
+        long t = 3_600_000;
+        assertEquals(t, RetencionLogs.redondearTiempo(t), t * 0.004);
+    }
+
+    @Test
+    void configuracionInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> retencion(10, 100));
+    }
+
+    private long contar(String sql) {
+        return jdbc.queryForObject(sql, Long.class);
+    }
+
+    private static LogEntry log(LocalDateTime ts, String endpoint, int status, long ms) {
+        LogEntry log = new LogEntry();
+        log.setTimestamp(ts);
+        log.setNivel(status >= 500 ? "ERROR" : "INFO");
+        log.setEndpoint(endpoint);
+        log.setMetodoHttp("GET");
+        log.setStatusCode(status);
+        log.setTiempoRespuesta(ms);
+        return log;
+    }
+}
@@ -0,0 +1,174 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RutasLogs sobre H2: URIs llevadas al patrón del controlador (las que no tienen van a
+ * "(otras)" sin internarse), códigos compartidos entre instancias por la tabla log_ruta, una
+ * sola inserción con muchos hilos, la espera tras una falla de la BD y el límite logs.rutas.max,
+ * que también acota los endpoints del total en memoria.
+ */
+class RutasLogsTest {
+
+    private static final List<String> PATRONES = List.of("/api/persona", "/api/persona/{id}", "/api/persona/batch");
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void crearTabla() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:rutas;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbc.execute("create table log_ruta (id int auto_increment primary key, ruta varchar(255) not null, " +
+                "constraint uk_log_ruta_ruta unique (ruta))");
+    }
+
+    @AfterEach
+    void borrarTabla() {
+        jdbc.execute("drop all objects");
+    }
+
+    @Test
+    void llevaLaUriAlPatronYLaConserva() {
+        RutasLogs rutas = new RutasLogs(jdbc, () -> PATRONES, null, 100);
+
+        LogEntry porId = log("/api/persona/12345");
+        rutas.normalizar(porId, null);
+        assertEquals("/api/persona/{id}", porId.getEndpoint());
+        assertEquals("/api/persona/12345", porId.getUri());
+        assertNotNull(porId.getRutaId());
+
+        LogEntry otroId = log("/api/persona/7");
+        rutas.normalizar(otroId, null);
+        assertEquals(porId.getRutaId(), otroId.getRutaId());
+
+        LogEntry lote = log("/api/persona/batch");
+        rutas.normalizar(lote, null);
+        assertEquals("/api/persona/batch", lote.getEndpoint()); // el literal gana a {id}
+        assertNotEquals(porId.getRutaId(), lote.getRutaId());
+
+        LogEntry conConsulta = log("/api/persona?sort=nombre");
+        rutas.normalizar(conConsulta, null);
+        assertEquals("/api/persona", conConsulta.getEndpoint());
+
+        LogEntry conPatron = log("/api/persona/9");
+        rutas.normalizar(conPatron, "/api/persona/{id}");
+        assertEquals(porId.getRutaId(), conPatron.getRutaId());
+
+        assertEquals(3, jdbc.queryForObject("select count(*) from log_ruta", Integer.class));
+    }
+
+    @Test
+    void lasInstanciasCompartenLosCodigos() {
+        RutasLogs primera = new RutasLogs(jdbc, () -> PATRONES, null, 100);
+        Integer codigo = primera.codigo("/api/persona/{id}");
+
+        RutasLogs segunda = new RutasLogs(jdbc, () -> PATRONES, null, 100);
+        assertEquals(codigo, segunda.codigo("/api/persona/{id}"));
+        assertEquals(1, segunda.tamano()); // cargado de log_ruta, sin insertar otra vez
+
+        Integer nuevo = segunda.codigo("/api/logs/metrics");
+        assertEquals("/api/logs/metrics", primera.ruta(nuevo, null)); // la primera la lee de la BD
+        assertEquals("/viejo", primera.ruta(null, "/viejo")); // filas sin código
+    }
+
+    @Test
+    void lasUrisSinPatronVanAOtrasSinInternarse() {
+        RutasLogs rutas = new RutasLogs(jdbc, () -> PATRONES, null, 100);
+        for (int i = 0; i < 50; i++) {
+            LogEntry log = log("/wp-admin/" + i + ".php");
+            rutas.normalizar(log, null);
+            assertEquals(RutasLogs.OTRAS, log.getEndpoint());
+            assertEquals("/wp-admin/" + i + ".php", log.getUri());
+        }
+        assertEquals(1, jdbc.queryForObject("select count(*) from log_ruta", Integer.class));
+    }
+
+    @Test
+    void muchosHilosInternanUnaRutaUnaSolaVez() throws Exception {
+        RutasLogs rutas = new RutasLogs(jdbc, () -> PATRONES, null, 100);
+        ExecutorService hilos = Executors.newFixedThreadPool(16);
+        List<Future<Integer>> codigos = new ArrayList<>();
+        for (int i = 0; i < 64; i++) codigos.add(hilos.submit(() -> rutas.codigo("/api/persona/{id}")));
+        Set<Integer> distintos = new HashSet<>();
+        for (Future<Integer> codigo : codigos) distintos.add(codigo.get());
+        hilos.shutdown();
+
+        assertEquals(1, distintos.size());
+        assertNotNull(distintos.iterator().next());
+        assertEquals(1, jdbc.queryForObject("select count(*) from log_ruta", Integer.class));
+    }
+
+    @Test
+    void trasUnaFallaNoConsultaLaBdHastaQuePasaLaEspera() {
+        RutasLogs rutas = new RutasLogs(jdbc, () -> PATRONES, null, 100);
+        jdbc.execute("drop table log_ruta");
+        LogEntry log = log("/api/persona/3");
+        rutas.normalizar(log, null);
+        assertNull(log.getRutaId()); // sin código se agrupa por el endpoint
+        assertEquals("/api/persona/{id}", log.getEndpoint());
+
+        crearTabla(); // la BD vuelve, pero dentro de la espera no se consulta
+        assertNull(rutas.codigo("/api/persona/{id}"));
+        assertEquals(0, jdbc.queryForObject("select count(*) from log_ruta", Integer.class));
+    }
+
+    @Test
+    void lasRutasQueSobranSeCuentanComoOtras() {
+        RutasLogs rutas = new RutasLogs(jdbc, List::of, null, 3);
+        for (int i = 0; i < 3; i++) rutas.codigo("/desconocida/" + i);
+
+        LogEntry log = log("/desconocida/99");
+        rutas.normalizar(log, null);
+        assertEquals(RutasLogs.OTRAS, log.getEndpoint());
+        assertEquals("/desconocida/99", log.getUri());
+        assertEquals(log.getRutaId(), rutas.codigo("/desconocida/100"));
+        assertEquals(4, rutas.tamano());
+    }
+
+    @Test
+    void elTotalEnMemoriaTieneALoSumoMaxMasUnEndpoints() {
+        RutasLogs rutas = new RutasLogs(null, () -> PATRONES, null, 10);
+        LogAggregateStore store = new LogAggregateStore(null, 2, 3_600_000, 60, 1, 4);
+        for (int i = 0; i < 5000; i++) {
+            LogEntry log = log("/x/" + i);
+            rutas.normalizar(log, i % 2 == 0 ? "/patron/" + i : null); // patrones del handler y URIs sin patrón
+            store.registrar(log);
+        }
+        // el mapa exacto del total sigue existiendo en modo aproximado: lo acota logs.rutas.max, no top-capacidad
+        assertTrue(store.total().conteoPorEndpoint().size() <= 11);
+        assertTrue(store.total().conteoPorEndpoint().containsKey(RutasLogs.OTRAS));
+        assertEquals(5000, store.total().totalPeticiones());
+    }
+
+    @Test
+    void sinBaseDeDatosLosCodigosQuedanEnMemoria() {
+        RutasLogs rutas = new RutasLogs(null, () -> PATRONES, null, 100);
+        LogEntry log = log("/api/persona/1");
+        rutas.normalizar(log, null);
+        assertEquals("/api/persona/{id}", rutas.ruta(log.getRutaId(), null));
+    }
+
+    private static LogEntry log(String uri) {
+        LogEntry log = new LogEntry();
+        log.setEndpoint(uri);
+        return log;
+    }
+}
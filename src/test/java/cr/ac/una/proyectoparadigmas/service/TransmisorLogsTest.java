@@ -0,0 +1,242 @@
+package cr.ac.una.proyectoparadigmas.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cr.ac.una.proyectoparadigmas.entity.LogEntry;
+import cr.ac.una.proyectoparadigmas.metrics.RegistroMetricas;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * TransmisorLogs sin contenedor: las conexiones son peticiones de spring-test con una salida
+ * falsa que puede dejar de aceptar escrituras. Cubre los deltas (solo lo que cambió), el buffer
+ * acotado por cliente que desconecta al lento sin afectar a los demás y el filtro de atrasados.
+ */
+class TransmisorLogsTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper().findAndRegisterModules();
+
+    private final LogAggregateStore store = new LogAggregateStore(null, 2, 3_600_000, 60, 1, 128);
+    private TransmisorLogs transmisor;
+
+    @AfterEach
+    void cerrar() {
+        if (transmisor != null) transmisor.cerrar();
+    }
+
+    /** Buffer de tamanoBuffer eventos; los deltas solo salen cuando la prueba llama enviarDelta. */
+    private TransmisorLogs transmisor(int tamanoBuffer) {
+        return new TransmisorLogs(store, JSON, new RegistroMetricas(2), tamanoBuffer, 2, 3_600_000, 60_000, 100);
+    }
+
+    @Test
+    void elDeltaTraeSoloLoQueCambio() throws Exception {
+        store.registrar(log(200, "INFO", LocalDateTime.now()));
+        transmisor = transmisor(16);
+        Cliente cliente = conectar(true);
+        esperar(() -> cliente.eventos().size() == 1);
+        assertEquals("contadores", cliente.eventos().get(0).nombre());
+        assertEquals(1, cliente.eventos().get(0).datos().get("peticiones").asLong());
+
+        for (int i = 0; i < 3; i++) store.registrar(log(200, "INFO", LocalDateTime.now()));
+        store.registrar(log(404, "WARN", LocalDateTime.now()));
+        transmisor.enviarDelta();
+        esperar(() -> cliente.eventos().size() == 2);
+        JsonNode delta = cliente.eventos().get(1).datos();
+        assertEquals("delta", cliente.eventos().get(1).nombre());
+        assertEquals(4, delta.get("peticiones").asLong());
+        assertEquals(1, delta.get("errores").asLong());
+        assertEquals(3, delta.get("porStatus").get("200").asLong());
+        assertEquals(1, delta.get("porStatus").get("404").asLong());
+
+        transmisor.enviarDelta(); // sin cambios: solo el comentario
+        esperar(() -> cliente.eventos().size() == 3);
+        assertEquals(":sin cambios", cliente.eventos().get(2).nombre());
+
+        store.registrar(log(500, "ERROR", LocalDateTime.now())); // también sale como "critico", en otro hilo
+        transmisor.enviarDelta();
+        esperar(() -> deltas(cliente).size() == 2);
+        JsonNode otro = deltas(cliente).get(1).datos();
+        assertEquals(1, otro.get("peticiones").asLong());
+        assertEquals(1, otro.get("criticos").asLong());
+        assertEquals(1, otro.get("porStatus").size()); // el 200 y el 404 no cambiaron
+    }
+
+    @Test
+    void alClienteLentoSeLeCierraLaConexionSinAfectarALosDemas() throws Exception {
+        transmisor = transmisor(3);
+        Cliente lento = conectar(false); // no acepta nada: los eventos se acumulan en su buffer
+        Cliente rapido = conectar(true);
+
+        for (int i = 0; i < 2; i++) { // con los contadores iniciales llena el buffer de 3
+            store.registrar(log(200, "INFO", LocalDateTime.now()));
+            transmisor.enviarDelta();
+        }
+        assertTrue(lento.request.isAsyncStarted());
+
+        store.registrar(log(200, "INFO", LocalDateTime.now()));
+        transmisor.enviarDelta(); // no cabe: se desconecta
+        assertFalse(lento.request.isAsyncStarted());
+        assertTrue(rapido.request.isAsyncStarted());
+        esperar(() -> rapido.eventos().size() == 4);
+
+        lento.salida.lista = true; // aunque vuelva a aceptar escrituras ya no recibe nada
+        lento.salida.oyente.onWritePossible();
+        store.registrar(log(200, "INFO", LocalDateTime.now()));
+        transmisor.enviarDelta();
+        esperar(() -> rapido.eventos().size() == 5);
+        assertEquals(0, lento.eventos().size());
+    }
+
+    @Test
+    void unClienteQueVuelveALeerRecibeLoPendiente() throws Exception {
+        transmisor = transmisor(8);
+        Cliente cliente = conectar(false);
+        store.registrar(log(200, "INFO", LocalDateTime.now()));
+        transmisor.enviarDelta();
+        assertEquals(0, cliente.eventos().size());
+
+        cliente.salida.lista = true; // lo que haría el contenedor al poder escribir otra vez
+        cliente.salida.oyente.onWritePossible();
+        assertEquals(List.of("contadores", "delta"), cliente.eventos().stream().map(Evento::nombre).toList());
+    }
+
+    @Test
+    void atrasadoSonLosDeAntesDelMinutoAnterior() {
+        LocalDateTime ahora = LocalDateTime.of(2025, 9, 1, 12, 30, 10);
+        assertFalse(TransmisorLogs.atrasado(log(500, "ERROR", ahora), ahora));
+        assertFalse(TransmisorLogs.atrasado(log(500, "ERROR", LocalDateTime.of(2025, 9, 1, 12, 29, 0)), ahora));
+        assertTrue(TransmisorLogs.atrasado(log(500, "ERROR", LocalDateTime.of(2025, 9, 1, 12, 28, 59)), ahora));
+        assertTrue(TransmisorLogs.atrasado(log(500, "ERROR", null), ahora));
+    }
+
+    @Test
+    void soloSeTransmitenLosCriticosAlDia() throws Exception {
+        transmisor = transmisor(16);
+        Cliente cliente = conectar(true);
+        store.registrar(log(500, "ERROR", LocalDateTime.now().minusHours(1))); // importado: solo suma en los deltas
+        store.registrar(log(503, "INFO", LocalDateTime.now()));                // no es crítico
+        store.registrar(log(502, "ERROR", LocalDateTime.now()));
+
+        esperar(() -> cliente.eventos().stream().anyMatch(e -> e.nombre().equals("critico")));
+        List<Evento> criticos = cliente.eventos().stream().filter(e -> e.nombre().equals("critico")).toList();
+        assertEquals(1, criticos.size());
+        assertEquals(502, criticos.get(0).datos().get("statusCode").asInt());
+    }
+
+    // ========= Clientes falsos =========
+
+    private static List<Evento> deltas(Cliente cliente) throws Exception {
+        return cliente.eventos().stream().filter(e -> "delta".equals(e.nombre())).toList();
+    }
+
+    private record Evento(String nombre, JsonNode datos) {}
+
+    /** Una conexión: la petición asíncrona de spring-test y lo que se le escribió. */
+    private record Cliente(MockHttpServletRequest request, Salida salida) {
+        List<Evento> eventos() throws Exception {
+            List<Evento> eventos = new ArrayList<>();
+            for (String bloque : salida.texto().split("\n\n")) {
+                if (bloque.isEmpty()) continue;
+                if (bloque.startsWith(":")) {
+                    eventos.add(new Evento(bloque, null));
+                    continue;
+                }
+                String nombre = null;
+                JsonNode datos = null;
+                for (String linea : bloque.split("\n")) {
+                    if (linea.startsWith("event:")) nombre = linea.substring(6);
+                    if (linea.startsWith("data:")) datos = JSON.readTree(linea.substring(5));
+                }
+                eventos.add(new Evento(nombre, datos));
+            }
+            return eventos;
+        }
+    }
+
+    /** Como el contenedor: al registrar el WriteListener avisa que se puede escribir. */
+    private Cliente conectar(boolean lista) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/logs/stream");
+        request.setAsyncSupported(true);
+        Salida salida = new Salida();
+        salida.lista = lista;
+        MockHttpServletResponse response = new MockHttpServletResponse() {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return salida;
+            }
+        };
+        transmisor.suscribir(request, response);
+        salida.oyente.onWritePossible();
+        return new Cliente(request, salida);
+    }
+
+    /** Salida no bloqueante que deja de aceptar escrituras con lista = false. */
+    private static final class Salida extends ServletOutputStream {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        volatile boolean lista = true;
+        volatile WriteListener oyente;
+
+        @Override
+        public boolean isReady() {
+            return lista;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener oyente) {
+            this.oyente = oyente;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            bytes.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int desde, int largo) {
+            bytes.write(b, desde, largo);
+        }
+
+        synchronized String texto() {
+            return bytes.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void esperar(Condicion condicion) throws Exception {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!condicion.cumple()) {
+            if (System.currentTimeMillis() > limite) fail("no se cumplió a tiempo");
+            Thread.sleep(5);
+        }
+    }
+
+    private interface Condicion {
+        boolean cumple() throws Exception;
+    }
+
+    private static LogEntry log(int status, String nivel, LocalDateTime timestamp) {
+        LogEntry log = new LogEntry();
+        log.setTimestamp(timestamp);
+        log.setNivel(nivel);
+        log.setEndpoint("/api/persona");
+        log.setMetodoHttp("GET");
+        log.setStatusCode(status);
+        log.setTiempoRespuesta(10);
+        return log;
+    }
+}